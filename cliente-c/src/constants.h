@@ -6,6 +6,9 @@
 #define SERVER_PORT 5555
 #define BUFFER_SIZE 8192
 
+// Protocolo pedido en CONNECT: 1 = frames binarios, 0 = JSON con deltas
+#define USAR_PROTOCOLO_BINARIO 1
+
 // Tipos de cliente
 #define CLIENT_TYPE_PLAYER "PLAYER"
 #define CLIENT_TYPE_SPECTATOR "SPECTATOR"
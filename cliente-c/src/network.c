@@ -72,13 +72,7 @@ static const char* extraerObjetoDatos(const char* json) {
     return inicio;
 }
 
-static void procesarEventoJSON(const char* json) {
-    char nombre[32] = {0};
-    if (!extraerCadenaJson(json, "name", nombre, sizeof(nombre))) {
-        client_log("evento sin nombre: %s", json);
-        return;
-    }
-
+static void aplicarEvento(const char* nombre) {
     if (strcmp(nombre, "PLAYER_HIT") == 0) {
         g_efectoGolpe = EFECTO_GOLPE_FRAMES;
     } else if (strcmp(nombre, "FRUIT_TAKEN") == 0) {
@@ -94,9 +88,19 @@ static void procesarEventoJSON(const char* json) {
     }
 }
 
+static void procesarEventoJSON(const char* json) {
+    char nombre[32] = {0};
+    if (!extraerCadenaJson(json, "name", nombre, sizeof(nombre))) {
+        client_log("evento sin nombre: %s", json);
+        return;
+    }
+    aplicarEvento(nombre);
+}
+
+static int abrirSocket(void);
+
 int conectarServidor() {
     WSADATA wsa;
-    struct sockaddr_in server;
 
     // Inicializar mutex para sincronización
     if (!g_estadoLockInicializado) {
@@ -109,9 +113,19 @@ int conectarServidor() {
         return 0;
     }
 
+    if (!abrirSocket()) {
+        WSACleanup();
+        return 0;
+    }
+    client_log("conectado a servidor");
+    return 1;
+}
+
+static int abrirSocket(void) {
+    struct sockaddr_in server;
+
     g_sockCliente = socket(AF_INET, SOCK_STREAM, 0);
     if (g_sockCliente == INVALID_SOCKET) {
-        WSACleanup();
         client_log("socket invalido");
         return 0;
     }
@@ -126,11 +140,9 @@ int conectarServidor() {
 
     if (connect(g_sockCliente, (struct sockaddr*)&server, sizeof(server)) < 0) {
         closesocket(g_sockCliente);
-        WSACleanup();
         client_log("connect fallo");
         return 0;
     }
-    client_log("conectado a servidor");
     return 1;
 }
 
@@ -159,20 +171,438 @@ int enviarMensaje(const char* json) {
     return send(g_sockCliente, buffer, strlen(buffer), 0);
 }
 
+// El servidor envia un PING por segundo y cierra la conexion si no recibe nada en
+// varios segundos; el PONG con el mismo seq le permite ademas medir el RTT
+static void responderPing(unsigned long secuencia) {
+    char msg[64];
+    sprintf(msg, "{\"type\":\"PONG\",\"seq\":%lu}", secuencia);
+    enviarMensaje(msg);
+}
+
+// Ultimo tick recibido del servidor; lo escribe ThreadRed y lo lee el hilo de input
+static volatile long g_ultimoTick = 0;
+
+// Token de SESSION: si la conexion cae, un CONNECT con el token y el ultimo tick
+// recibido recupera al mismo jugador dentro de la gracia del servidor y solo recibe
+// los mensajes que se perdio
+static unsigned long long g_tokenSesion = 0;
+static unsigned long g_graciaSesionMs = 0;
+
+static void guardarSesion(unsigned long long token, unsigned long graciaMs, int reanudada) {
+    g_tokenSesion = token;
+    g_graciaSesionMs = graciaMs;
+    client_log(reanudada ? "sesion reanudada" : "sesion reanudable por %lu ms", graciaMs);
+}
+
 char* crearMensajeConexion() {
     char* msg = (char*)malloc(512);
-    sprintf(msg, "{\"type\":\"CONNECT\",\"id\":\"%s\",\"playerId\":\"%s\",\"clientType\":\"%s\"}",
+    int n;
+#if USAR_PROTOCOLO_BINARIO
+    // protocol BINARY: el servidor responde con frames binarios (ver procesarFrameBinario)
+    n = sprintf(msg, "{\"type\":\"CONNECT\",\"id\":\"%s\",\"playerId\":\"%s\",\"clientType\":\"%s\",\"protocol\":\"BINARY\"",
+            g_miPlayerId, g_miPlayerId, g_tipoCliente);
+#else
+    // stateEncoding DELTA: el servidor envia keyframes periodicos y entre ellos solo cambios
+    n = sprintf(msg, "{\"type\":\"CONNECT\",\"id\":\"%s\",\"playerId\":\"%s\",\"clientType\":\"%s\",\"stateEncoding\":\"DELTA\"",
             g_miPlayerId, g_miPlayerId, g_tipoCliente);
+#endif
+    if (g_tokenSesion != 0) {
+        n += sprintf(msg + n, ",\"session\":%llu,\"tick\":%ld", g_tokenSesion, g_ultimoTick);
+    }
+    sprintf(msg + n, "}");
     return msg;
 }
 
+// Reabre la conexion tras una caida y reanuda la sesion; reintenta mientras dure la gracia
+static int reconectar(void) {
+    DWORD inicio = GetTickCount();
+    closesocket(g_sockCliente);
+    while (g_juegoActivo && GetTickCount() - inicio < g_graciaSesionMs) {
+        if (abrirSocket()) {
+            char* msg = crearMensajeConexion();
+            enviarMensaje(msg);
+            free(msg);
+            client_log("reconectado, reanudando sesion desde tick %ld", g_ultimoTick);
+            return 1;
+        }
+        Sleep(500);
+    }
+    return 0;
+}
+
+// Cada INPUT lleva una secuencia creciente y el tick al que va dirigido (el siguiente
+// al ultimo estado recibido). El servidor confirma la secuencia en el campo "ack".
 char* crearMensajeInput(const char* accion, double velocidad) {
+    static unsigned long secuencia = 0;
     char* msg = (char*)malloc(512);
-    sprintf(msg, "{\"type\":\"INPUT\",\"id\":\"%s\",\"playerId\":\"%s\",\"action\":\"%s\",\"velocity\":%.1f}",
-            g_miPlayerId, g_miPlayerId, accion, velocidad);
+    sprintf(msg, "{\"type\":\"INPUT\",\"id\":\"%s\",\"playerId\":\"%s\",\"action\":\"%s\",\"velocity\":%.1f,\"seq\":%lu,\"tick\":%ld}",
+            g_miPlayerId, g_miPlayerId, accion, velocidad, ++secuencia, g_ultimoTick + 1);
     return msg;
 }
 
+static void publicarEstado(const EstadoActual* nuevo);
+
+// Ultimo keyframe (STATE completo) recibido: base sobre la que se aplican los deltas.
+// Solo lo usa ThreadRed, por eso no necesita el lock de g_estadoActual.
+static EstadoActual g_keyframe;
+static int g_keyframeValido = 0;
+
+static int leerBooleano(const char* pos) {
+    char valor[8] = {0};
+    sscanf(pos, "%7s", valor);
+    return strncmp(valor, "true", 4) == 0;
+}
+
+// Busca el campo "clave": dentro de [inicio, fin). Devuelve el puntero al valor o NULL.
+static const char* buscarCampo(const char* inicio, const char* fin, const char* clave) {
+    char patron[48];
+    snprintf(patron, sizeof(patron), "\"%s\":", clave);
+    const char* pos = strstr(inicio, patron);
+    if (!pos || (fin && pos >= fin)) {
+        return NULL;
+    }
+    return pos + strlen(patron);
+}
+
+static void parsearJugador(const char* objStart, const char* objEnd, Jugador* j) {
+    const char* v;
+    if ((v = buscarCampo(objStart, objEnd, "x"))) sscanf(v, "%lf", &j->x);
+    if ((v = buscarCampo(objStart, objEnd, "y"))) sscanf(v, "%lf", &j->y);
+    if ((v = buscarCampo(objStart, objEnd, "vx"))) sscanf(v, "%lf", &j->vx);
+    if ((v = buscarCampo(objStart, objEnd, "vy"))) sscanf(v, "%lf", &j->vy);
+    if ((v = buscarCampo(objStart, objEnd, "liana"))) sscanf(v, "%d", &j->liana);
+    if ((v = buscarCampo(objStart, objEnd, "lianaId"))) {
+        if (strncmp(v, "null", 4) == 0) {
+            j->lianaId = -1;
+        } else {
+            sscanf(v, "%d", &j->lianaId);
+        }
+    }
+    if ((v = buscarCampo(objStart, objEnd, "lives"))) sscanf(v, "%d", &j->lives);
+    if ((v = buscarCampo(objStart, objEnd, "score"))) sscanf(v, "%d", &j->score);
+    if ((v = buscarCampo(objStart, objEnd, "ack"))) sscanf(v, "%ld", &j->ack);
+    if ((v = buscarCampo(objStart, objEnd, "state"))) sscanf(v, "\"%15[^\"]", j->state);
+    if ((v = buscarCampo(objStart, objEnd, "facing"))) sscanf(v, "\"%7[^\"]", j->facing);
+    if ((v = buscarCampo(objStart, objEnd, "active"))) j->active = leerBooleano(v);
+    if ((v = buscarCampo(objStart, objEnd, "celebrating"))) j->celebrating = leerBooleano(v);
+}
+
+static void parsearCocodrilo(const char* objStart, const char* objEnd, Cocodrilo* c) {
+    const char* v;
+    if ((v = buscarCampo(objStart, objEnd, "kind"))) sscanf(v, "\"%15[^\"]", c->kind);
+    if ((v = buscarCampo(objStart, objEnd, "liana"))) sscanf(v, "%d", &c->liana);
+    if ((v = buscarCampo(objStart, objEnd, "y"))) sscanf(v, "%lf", &c->y);
+}
+
+static void parsearFruta(const char* objStart, const char* objEnd, Fruta* f) {
+    const char* v;
+    if ((v = buscarCampo(objStart, objEnd, "liana"))) sscanf(v, "%d", &f->liana);
+    if ((v = buscarCampo(objStart, objEnd, "y"))) sscanf(v, "%lf", &f->y);
+    if ((v = buscarCampo(objStart, objEnd, "points"))) sscanf(v, "%d", &f->points);
+}
+
+// Los arreglos de entidades se recorren igual: cada objeto se identifica por "id".
+// En un STATE completo todos son nuevos; en un delta se actualiza el existente.
+static int buscarPorId(const char* ids, size_t paso, int cantidad, const char* id) {
+    for (int i = 0; i < cantidad; i++) {
+        if (strcmp(ids + paso * (size_t)i, id) == 0) {
+            return i;
+        }
+    }
+    return -1;
+}
+
+static void parsearJugadores(const char* payload, EstadoActual* estado) {
+    const char* inicio = strstr(payload, "\"players\":[");
+    if (!inicio) return;
+    const char* cursor = inicio + 11;
+    const char* arrayEnd = strchr(inicio, ']');
+    while (1) {
+        const char* objStart = strchr(cursor, '{');
+        if (!objStart || (arrayEnd && objStart > arrayEnd)) break;
+        const char* objEnd = strchr(objStart, '}');
+        if (!objEnd) break;
+
+        char id[32] = {0};
+        const char* v = buscarCampo(objStart, objEnd, "id");
+        if (v) sscanf(v, "\"%31[^\"]", id);
+
+        int idx = buscarPorId(estado->jugadores[0].id, sizeof(Jugador), estado->numJugadores, id);
+        if (idx < 0 && estado->numJugadores < MAX_JUGADORES) {
+            idx = estado->numJugadores++;
+            Jugador* j = &estado->jugadores[idx];
+            memset(j, 0, sizeof(*j));
+            j->liana = -1;
+            j->lianaId = -1;
+            strcpy(j->id, id);
+        }
+        if (idx >= 0) {
+            parsearJugador(objStart, objEnd, &estado->jugadores[idx]);
+        }
+        cursor = objEnd + 1;
+    }
+}
+
+static void parsearCocodrilos(const char* payload, EstadoActual* estado) {
+    const char* inicio = strstr(payload, "\"crocodiles\":[");
+    if (!inicio) return;
+    const char* cursor = inicio + 14;
+    const char* arrayEnd = strchr(inicio, ']');
+    while (1) {
+        const char* objStart = strchr(cursor, '{');
+        if (!objStart || (arrayEnd && objStart > arrayEnd)) break;
+        const char* objEnd = strchr(objStart, '}');
+        if (!objEnd) break;
+
+        char id[32] = {0};
+        const char* v = buscarCampo(objStart, objEnd, "id");
+        if (v) sscanf(v, "\"%31[^\"]", id);
+
+        int idx = buscarPorId(estado->cocodrilos[0].id, sizeof(Cocodrilo), estado->numCocodrilos, id);
+        if (idx < 0 && estado->numCocodrilos < MAX_COCODRILOS) {
+            idx = estado->numCocodrilos++;
+            memset(&estado->cocodrilos[idx], 0, sizeof(Cocodrilo));
+            strcpy(estado->cocodrilos[idx].id, id);
+        }
+        if (idx >= 0) {
+            parsearCocodrilo(objStart, objEnd, &estado->cocodrilos[idx]);
+        }
+        cursor = objEnd + 1;
+    }
+}
+
+static void parsearFrutas(const char* payload, EstadoActual* estado) {
+    const char* inicio = strstr(payload, "\"fruits\":[");
+    if (!inicio) return;
+    const char* cursor = inicio + 10;
+    const char* arrayEnd = strchr(inicio, ']');
+    while (1) {
+        const char* objStart = strchr(cursor, '{');
+        if (!objStart || (arrayEnd && objStart > arrayEnd)) break;
+        const char* objEnd = strchr(objStart, '}');
+        if (!objEnd) break;
+
+        char id[32] = {0};
+        const char* v = buscarCampo(objStart, objEnd, "id");
+        if (v) sscanf(v, "\"%31[^\"]", id);
+
+        int idx = buscarPorId(estado->frutas[0].id, sizeof(Fruta), estado->numFrutas, id);
+        if (idx < 0 && estado->numFrutas < MAX_FRUTAS) {
+            idx = estado->numFrutas++;
+            memset(&estado->frutas[idx], 0, sizeof(Fruta));
+            strcpy(estado->frutas[idx].id, id);
+        }
+        if (idx >= 0) {
+            parsearFruta(objStart, objEnd, &estado->frutas[idx]);
+        }
+        cursor = objEnd + 1;
+    }
+}
+
+// Elimina del arreglo las entidades listadas en "clave":["id1","id2"] (solo en deltas).
+static void aplicarRemovidos(const char* payload, const char* clave,
+                             char* base, size_t paso, int* cantidad) {
+    char patron[48];
+    snprintf(patron, sizeof(patron), "\"%s\":[", clave);
+    const char* cursor = strstr(payload, patron);
+    if (!cursor) return;
+    cursor += strlen(patron);
+    const char* arrayEnd = strchr(cursor, ']');
+    if (!arrayEnd) return;
+
+    while (cursor < arrayEnd) {
+        const char* comilla = strchr(cursor, '"');
+        if (!comilla || comilla >= arrayEnd) break;
+        char id[32] = {0};
+        if (sscanf(comilla + 1, "%31[^\"]", id) != 1) break;
+
+        int idx = buscarPorId(base, paso, *cantidad, id);
+        if (idx >= 0) {
+            memmove(base + paso * (size_t)idx, base + paso * (size_t)(idx + 1),
+                    paso * (size_t)(*cantidad - idx - 1));
+            (*cantidad)--;
+        }
+        const char* cierre = strchr(comilla + 1, '"');
+        if (!cierre) break;
+        cursor = cierre + 1;
+    }
+}
+
+// ---- Protocolo binario (ver CodificadorBinario.java en el servidor) ----
+// Frame: [u8 tipo][u16 longitud big-endian][contenido]. Los codigos de enum son el
+// ordinal en el servidor, por eso las tablas siguen el mismo orden.
+#define FRAME_ESTADO 1
+#define FRAME_EVENTO 2
+#define FRAME_ERROR 3
+#define FRAME_PING 6
+#define FRAME_SESION 7
+#define FRAME_CABECERA 3
+
+static const char* const ESTADOS_JUGADOR[] = {"SUELO", "EN_LIANA", "SALTANDO", "MUERTO", "CELEBRANDO"};
+static const char* const DIRECCIONES[] = {"LEFT", "RIGHT"};
+static const char* const TIPOS_COCODRILO[] = {COCODRILO_ROJO, COCODRILO_AZUL};
+static const char* const EVENTOS[] = {"FRUIT_TAKEN", "PLAYER_HIT", "PLAYER_ELIMINATED", "PLAYER_WIN"};
+#define CANTIDAD(tabla) (sizeof(tabla) / sizeof((tabla)[0]))
+
+typedef struct {
+    const unsigned char* pos;
+    const unsigned char* fin;
+    int error;
+} LectorBinario;
+
+static unsigned int leerU8(LectorBinario* l) {
+    if (l->pos >= l->fin) {
+        l->error = 1;
+        return 0;
+    }
+    return *l->pos++;
+}
+
+static unsigned long long leerVarint(LectorBinario* l) {
+    unsigned long long valor = 0;
+    for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+        unsigned int b = leerU8(l);
+        if (l->error) return 0;
+        valor |= (unsigned long long)(b & 0x7F) << desplazamiento;
+        if (!(b & 0x80)) return valor;
+    }
+    l->error = 1;
+    return 0;
+}
+
+static long long leerZigzag(LectorBinario* l) {
+    unsigned long long v = leerVarint(l);
+    return (long long)(v >> 1) ^ -(long long)(v & 1);
+}
+
+// Posiciones y velocidades viajan en centesimas
+static double leerFijo(LectorBinario* l) {
+    return (double)leerZigzag(l) / 100.0;
+}
+
+static void leerTexto(LectorBinario* l, char* destino, size_t tam) {
+    unsigned int longitud = leerU8(l);
+    destino[0] = '\0';
+    if (l->error || (size_t)(l->fin - l->pos) < longitud) {
+        l->error = 1;
+        return;
+    }
+    size_t copiar = longitud < tam - 1 ? longitud : tam - 1;
+    memcpy(destino, l->pos, copiar);
+    destino[copiar] = '\0';
+    l->pos += longitud;
+}
+
+static void leerNombre(LectorBinario* l, const char* const* tabla, size_t cantidad, char* destino, size_t tam) {
+    unsigned int codigo = leerU8(l);
+    snprintf(destino, tam, "%s", codigo < cantidad ? tabla[codigo] : "");
+}
+
+static void parsearEstadoBinario(const unsigned char* datos, size_t longitud) {
+    LectorBinario l = {datos, datos + longitud, 0};
+    EstadoActual nuevo;
+    memset(&nuevo, 0, sizeof(nuevo));
+
+    nuevo.tick = (long)leerVarint(&l);
+    unsigned int banderas = leerU8(&l);
+    nuevo.paused = (banderas & 1) != 0;
+    nuevo.celebrationPending = (banderas & 2) != 0;
+    nuevo.speedMultiplier = (double)leerVarint(&l) / 1000.0;
+    nuevo.celebrationTimer = (double)leerVarint(&l) / 1000.0;
+
+    // Las entidades que exceden la capacidad se leen igual (para avanzar) y se descartan
+    unsigned long long n = leerVarint(&l);
+    for (unsigned long long i = 0; i < n && !l.error; i++) {
+        Jugador descartado;
+        Jugador* j = nuevo.numJugadores < MAX_JUGADORES ? &nuevo.jugadores[nuevo.numJugadores++] : &descartado;
+        leerTexto(&l, j->id, sizeof(j->id));
+        j->x = leerFijo(&l);
+        j->y = leerFijo(&l);
+        j->vx = leerFijo(&l);
+        j->vy = leerFijo(&l);
+        j->liana = (int)leerZigzag(&l);
+        j->lianaId = (int)leerZigzag(&l);
+        leerNombre(&l, ESTADOS_JUGADOR, CANTIDAD(ESTADOS_JUGADOR), j->state, sizeof(j->state));
+        leerNombre(&l, DIRECCIONES, CANTIDAD(DIRECCIONES), j->facing, sizeof(j->facing));
+        j->lives = (int)leerVarint(&l);
+        j->score = (int)leerVarint(&l);
+        j->ack = (long)leerVarint(&l);
+        unsigned int bj = leerU8(&l);
+        j->active = (bj & 1) != 0;
+        j->celebrating = (bj & 2) != 0;
+    }
+
+    n = leerVarint(&l);
+    for (unsigned long long i = 0; i < n && !l.error; i++) {
+        Cocodrilo descartado;
+        Cocodrilo* c = nuevo.numCocodrilos < MAX_COCODRILOS ? &nuevo.cocodrilos[nuevo.numCocodrilos++] : &descartado;
+        leerTexto(&l, c->id, sizeof(c->id));
+        leerNombre(&l, TIPOS_COCODRILO, CANTIDAD(TIPOS_COCODRILO), c->kind, sizeof(c->kind));
+        c->liana = (int)leerVarint(&l);
+        c->y = leerFijo(&l);
+    }
+
+    n = leerVarint(&l);
+    for (unsigned long long i = 0; i < n && !l.error; i++) {
+        Fruta descartada;
+        Fruta* f = nuevo.numFrutas < MAX_FRUTAS ? &nuevo.frutas[nuevo.numFrutas++] : &descartada;
+        leerTexto(&l, f->id, sizeof(f->id));
+        f->liana = (int)leerVarint(&l);
+        f->y = leerFijo(&l);
+        f->points = (int)leerVarint(&l);
+    }
+
+    if (banderas & 4) {
+        nuevo.marioActivo = 1;
+        nuevo.mario.active = 1;
+        leerTexto(&l, nuevo.mario.id, sizeof(nuevo.mario.id));
+        nuevo.mario.liana = (int)leerVarint(&l);
+        nuevo.mario.y = leerFijo(&l);
+    }
+
+    if (l.error) {
+        client_log("estado binario truncado (%u bytes), se descarta", (unsigned int)longitud);
+        return;
+    }
+    publicarEstado(&nuevo);
+}
+
+static void procesarFrameBinario(unsigned int tipo, const unsigned char* datos, size_t longitud) {
+    switch (tipo) {
+        case FRAME_ESTADO:
+            parsearEstadoBinario(datos, longitud);
+            break;
+        case FRAME_EVENTO:
+            if (longitud > 0 && datos[0] < CANTIDAD(EVENTOS)) {
+                aplicarEvento(EVENTOS[datos[0]]);
+            } else {
+                client_log("evento binario desconocido");
+            }
+            break;
+        case FRAME_ERROR:
+            client_log("mensaje de error del servidor: %.*s", (int)longitud, (const char*)datos);
+            break;
+        case FRAME_PING: {
+            LectorBinario l = {datos, datos + longitud, 0};
+            responderPing((unsigned long)leerVarint(&l));
+            break;
+        }
+        case FRAME_SESION: {
+            LectorBinario l = {datos, datos + longitud, 0};
+            unsigned long long token = 0;
+            for (int i = 0; i < 8; i++) {
+                token = (token << 8) | leerU8(&l);
+            }
+            unsigned long gracia = (unsigned long)leerVarint(&l);
+            int reanudada = (int)leerU8(&l);
+            if (!l.error) {
+                guardarSesion(token, gracia, reanudada);
+            }
+            break;
+        }
+    }
+}
+
 void parsearEstadoJSON(const char* json) {
     if (!json || !*json) {
         return;
@@ -188,6 +618,23 @@ void parsearEstadoJSON(const char* json) {
             client_log("mensaje de error del servidor: %s", json);
             return;
         }
+        if (_stricmp(tipo, "PING") == 0) {
+            unsigned long secuencia = 0;
+            const char* v = buscarCampo(json, NULL, "seq");
+            if (v) sscanf(v, "%lu", &secuencia);
+            responderPing(secuencia);
+            return;
+        }
+        if (_stricmp(tipo, "SESSION") == 0) {
+            unsigned long long token = 0;
+            unsigned long gracia = 0;
+            const char* v = buscarCampo(json, NULL, "token");
+            if (v) sscanf(v, "%llu", &token);
+            v = buscarCampo(json, NULL, "graceMs");
+            if (v) sscanf(v, "%lu", &gracia);
+            guardarSesion(token, gracia, strstr(json, "\"resumed\":true") != NULL);
+            return;
+        }
         if (_stricmp(tipo, "STATE") != 0) {
             client_log("mensaje desconocido (type=%s): %s", tipo, json);
             return;
@@ -200,15 +647,29 @@ void parsearEstadoJSON(const char* json) {
         return;
     }
 
+    // Un delta trae solo lo que cambió respecto al keyframe "baseTick":
+    // se parte de una copia del keyframe y se le aplican los cambios.
+    const char* deltaPos = strstr(payload, "\"delta\":");
+    int esDelta = deltaPos && leerBooleano(deltaPos + 8);
+
     EstadoActual nuevo;
-    memset(&nuevo, 0, sizeof(nuevo));
-    nuevo.speedMultiplier = 1.0;
+    if (esDelta) {
+        long baseTick = -1;
+        const char* basePos = strstr(payload, "\"baseTick\":");
+        if (basePos) sscanf(basePos + 11, "%ld", &baseTick);
+        if (!g_keyframeValido || baseTick != g_keyframe.tick) {
+            client_log("delta sobre keyframe %ld desconocido, esperando keyframe", baseTick);
+            return;
+        }
+        nuevo = g_keyframe;
+    } else {
+        memset(&nuevo, 0, sizeof(nuevo));
+        nuevo.speedMultiplier = 1.0;
+    }
 
     const char* pausedPos = strstr(payload, "\"paused\":");
     if (pausedPos) {
-        char pausedStr[6] = {0};
-        sscanf(pausedPos + 9, "%5s", pausedStr);
-        nuevo.paused = (strncmp(pausedStr, "true", 4) == 0);
+        nuevo.paused = leerBooleano(pausedPos + 9);
     }
 
     const char* tickPos = strstr(payload, "\"tick\":");
@@ -225,9 +686,7 @@ void parsearEstadoJSON(const char* json) {
     const char* celebrationKey = "\"celebrationPending\":";
     const char* celebrationPos = strstr(payload, celebrationKey);
     if (celebrationPos) {
-        char buffer[8] = {0};
-        sscanf(celebrationPos + (int)strlen(celebrationKey), "%7s", buffer);
-        nuevo.celebrationPending = (strncmp(buffer, "true", 4) == 0);
+        nuevo.celebrationPending = leerBooleano(celebrationPos + (int)strlen(celebrationKey));
     }
 
     const char* celebrationTimerKey = "\"celebrationTimer\":";
@@ -236,163 +695,50 @@ void parsearEstadoJSON(const char* json) {
         sscanf(celebrationTimerPos + (int)strlen(celebrationTimerKey), "%lf", &nuevo.celebrationTimer);
     }
 
-    // Jugadores
-    const char* playersStart = strstr(payload, "\"players\":[");
-    if (playersStart) {
-        const char* cursor = playersStart + 11;
-        const char* arrayEnd = strchr(playersStart, ']');
-        while (nuevo.numJugadores < MAX_JUGADORES) {
-            const char* objStart = strchr(cursor, '{');
-            if (!objStart || (arrayEnd && objStart > arrayEnd)) break;
-            const char* objEnd = strchr(objStart, '}');
-            if (!objEnd) break;
-
-            Jugador* j = &nuevo.jugadores[nuevo.numJugadores];
-            memset(j, 0, sizeof(*j));
-            j->liana = -1;
-            j->lianaId = -1;
-
-            const char* idPos = strstr(objStart, "\"id\":\"");
-            if (idPos && idPos < objEnd) sscanf(idPos + 6, "%31[^\"]", j->id);
-
-            const char* xPos = strstr(objStart, "\"x\":");
-            if (xPos && xPos < objEnd) sscanf(xPos + 4, "%lf", &j->x);
-
-            const char* yPos = strstr(objStart, "\"y\":");
-            if (yPos && yPos < objEnd) sscanf(yPos + 4, "%lf", &j->y);
-
-            const char* vxPos = strstr(objStart, "\"vx\":");
-            if (vxPos && vxPos < objEnd) sscanf(vxPos + 5, "%lf", &j->vx);
-
-            const char* vyPos = strstr(objStart, "\"vy\":");
-            if (vyPos && vyPos < objEnd) sscanf(vyPos + 5, "%lf", &j->vy);
-
-            const char* lianaPos = strstr(objStart, "\"liana\":");
-            if (lianaPos && lianaPos < objEnd) sscanf(lianaPos + 8, "%d", &j->liana);
-
-            const char* lianaIdPos = strstr(objStart, "\"lianaId\":");
-            if (lianaIdPos && lianaIdPos < objEnd) {
-                if (strncmp(lianaIdPos + 10, "null", 4) == 0) {
-                    j->lianaId = -1;
-                } else {
-                    sscanf(lianaIdPos + 10, "%d", &j->lianaId);
-                }
-            }
-
-            const char* livesPos = strstr(objStart, "\"lives\":");
-            if (livesPos && livesPos < objEnd) sscanf(livesPos + 8, "%d", &j->lives);
-
-            const char* scorePos = strstr(objStart, "\"score\":");
-            if (scorePos && scorePos < objEnd) sscanf(scorePos + 8, "%d", &j->score);
-
-            const char* statePos = strstr(objStart, "\"state\":\"");
-            if (statePos && statePos < objEnd) sscanf(statePos + 9, "%15[^\"]", j->state);
-
-            const char* facingPos = strstr(objStart, "\"facing\":\"");
-            if (facingPos && facingPos < objEnd) sscanf(facingPos + 10, "%7[^\"]", j->facing);
-
-            const char* activePos = strstr(objStart, "\"active\":");
-            if (activePos && activePos < objEnd) {
-                char activeStr[8] = {0};
-                sscanf(activePos + 9, "%7s", activeStr);
-                j->active = (strncmp(activeStr, "true", 4) == 0);
-            }
-
-            const char* celebratingPos = strstr(objStart, "\"celebrating\":");
-            if (celebratingPos && celebratingPos < objEnd) {
-                char celebratingStr[8] = {0};
-                sscanf(celebratingPos + 14, "%7s", celebratingStr);
-                j->celebrating = (strncmp(celebratingStr, "true", 4) == 0);
-            }
-
-            nuevo.numJugadores++;
-            cursor = objEnd + 1;
-        }
-    }
-
-    // Cocodrilos
-    const char* crocsStart = strstr(payload, "\"crocodiles\":[");
-    if (crocsStart) {
-        const char* cursor = crocsStart + 14;
-        const char* arrayEnd = strchr(crocsStart, ']');
-        while (nuevo.numCocodrilos < MAX_COCODRILOS) {
-            const char* objStart = strchr(cursor, '{');
-            if (!objStart || (arrayEnd && objStart > arrayEnd)) break;
-            const char* objEnd = strchr(objStart, '}');
-            if (!objEnd) break;
-
-            Cocodrilo* c = &nuevo.cocodrilos[nuevo.numCocodrilos];
-
-            const char* idPos = strstr(objStart, "\"id\":\"");
-            if (idPos && idPos < objEnd) sscanf(idPos + 6, "%31[^\"]", c->id);
-
-            const char* kindPos = strstr(objStart, "\"kind\":\"");
-            if (kindPos && kindPos < objEnd) sscanf(kindPos + 8, "%15[^\"]", c->kind);
-
-            const char* lianaPos = strstr(objStart, "\"liana\":");
-            if (lianaPos && lianaPos < objEnd) sscanf(lianaPos + 8, "%d", &c->liana);
-
-            const char* yPos = strstr(objStart, "\"y\":");
-            if (yPos && yPos < objEnd) sscanf(yPos + 4, "%lf", &c->y);
+    parsearJugadores(payload, &nuevo);
+    parsearCocodrilos(payload, &nuevo);
+    parsearFrutas(payload, &nuevo);
 
-            nuevo.numCocodrilos++;
-            cursor = objEnd + 1;
-        }
+    if (esDelta) {
+        aplicarRemovidos(payload, "removedPlayers", nuevo.jugadores[0].id, sizeof(Jugador), &nuevo.numJugadores);
+        aplicarRemovidos(payload, "removedCrocodiles", nuevo.cocodrilos[0].id, sizeof(Cocodrilo), &nuevo.numCocodrilos);
+        aplicarRemovidos(payload, "removedFruits", nuevo.frutas[0].id, sizeof(Fruta), &nuevo.numFrutas);
     }
 
-    // Frutas
-    const char* fruitsStart = strstr(payload, "\"fruits\":[");
-    if (fruitsStart) {
-        const char* cursor = fruitsStart + 10;
-        const char* arrayEnd = strchr(fruitsStart, ']');
-        while (nuevo.numFrutas < MAX_FRUTAS) {
-            const char* objStart = strchr(cursor, '{');
-            if (!objStart || (arrayEnd && objStart > arrayEnd)) break;
-            const char* objEnd = strchr(objStart, '}');
-            if (!objEnd) break;
-
-            Fruta* f = &nuevo.frutas[nuevo.numFrutas];
-
-            const char* idPos = strstr(objStart, "\"id\":\"");
-            if (idPos && idPos < objEnd) sscanf(idPos + 6, "%31[^\"]", f->id);
-
-            const char* lianaPos = strstr(objStart, "\"liana\":");
-            if (lianaPos && lianaPos < objEnd) sscanf(lianaPos + 8, "%d", &f->liana);
-
-            const char* yPos = strstr(objStart, "\"y\":");
-            if (yPos && yPos < objEnd) sscanf(yPos + 4, "%lf", &f->y);
-
-            const char* pointsPos = strstr(objStart, "\"points\":");
-            if (pointsPos && pointsPos < objEnd) sscanf(pointsPos + 9, "%d", &f->points);
-
-            nuevo.numFrutas++;
-            cursor = objEnd + 1;
-        }
+    // Mario: en un delta solo aparece si cambió ("mario":null si desapareció)
+    const char* marioStart = strstr(payload, "\"mario\":");
+    if (!esDelta) {
+        nuevo.marioActivo = 0;
     }
-
-    // Mario
-    nuevo.marioActivo = 0;
-    const char* marioStart = strstr(payload, "\"mario\":{");
-    if (marioStart) {
+    if (marioStart && strncmp(marioStart + 8, "null", 4) == 0) {
+        nuevo.marioActivo = 0;
+    } else if (marioStart && marioStart[8] == '{') {
         const char* objStart = marioStart + 8;
         const char* objEnd = strchr(objStart, '}');
         if (objEnd) {
             nuevo.marioActivo = 1;
             nuevo.mario.active = 1;
 
-            const char* idPos = strstr(objStart, "\"id\":\"");
-            if (idPos && idPos < objEnd) sscanf(idPos + 6, "%31[^\"]", nuevo.mario.id);
-
-            const char* lianaPos = strstr(objStart, "\"liana\":");
-            if (lianaPos && lianaPos < objEnd) sscanf(lianaPos + 8, "%d", &nuevo.mario.liana);
-
-            const char* yPos = strstr(objStart, "\"y\":");
-            if (yPos && yPos < objEnd) sscanf(yPos + 4, "%lf", &nuevo.mario.y);
+            const char* v;
+            if ((v = buscarCampo(objStart, objEnd, "id"))) sscanf(v, "\"%31[^\"]", nuevo.mario.id);
+            if ((v = buscarCampo(objStart, objEnd, "liana"))) sscanf(v, "%d", &nuevo.mario.liana);
+            if ((v = buscarCampo(objStart, objEnd, "y"))) sscanf(v, "%lf", &nuevo.mario.y);
         }
     }
 
+    if (!esDelta) {
+        g_keyframe = nuevo;
+        g_keyframeValido = 1;
+    }
+
+    publicarEstado(&nuevo);
+}
+
+// Reemplaza g_estadoActual por el estado recien decodificado (JSON o binario).
+static void publicarEstado(const EstadoActual* nuevo) {
     EnterCriticalSection(&g_estadoLock);
-    g_estadoActual = nuevo;
+    g_estadoActual = *nuevo;
+    g_ultimoTick = nuevo->tick;
 
     // REINICIO AUTOMÁTICO: Si estábamos en victoria/game over y el servidor reinició,
     // volver automáticamente a ESTADO_JUGANDO cuando detectemos jugadores activos no celebrando
@@ -424,6 +770,48 @@ void desbloquearEstado() {
     }
 }
 
+// Procesa los mensajes completos del buffer y devuelve cuantos bytes quedan pendientes.
+// Antes de que el servidor lea CONNECT llega un STATE en JSON; despues, con protocolo
+// binario, llegan frames. Un frame nunca empieza con '{', asi se distinguen.
+static int procesarRecibido(char* buffer, int bufferPos) {
+    int consumido = 0;
+    while (consumido < bufferPos) {
+        char* inicio = buffer + consumido;
+        int disponible = bufferPos - consumido;
+        unsigned int tipo = (unsigned char)inicio[0];
+
+        if (tipo == FRAME_ESTADO || tipo == FRAME_EVENTO || tipo == FRAME_ERROR || tipo == FRAME_PING
+                || tipo == FRAME_SESION) {
+            if (disponible < FRAME_CABECERA) break;
+            int longitud = ((unsigned char)inicio[1] << 8) | (unsigned char)inicio[2];
+            if (disponible < FRAME_CABECERA + longitud) break;
+            procesarFrameBinario(tipo, (const unsigned char*)inicio + FRAME_CABECERA, (size_t)longitud);
+            consumido += FRAME_CABECERA + longitud;
+            continue;
+        }
+
+        char* fin = memchr(inicio, '\n', (size_t)disponible);
+        if (!fin) break;
+        *fin = '\0';
+        limpiarFinLinea(inicio);
+        if (strlen(inicio) > 0) {
+            if (g_logEstados < 5) {
+                client_log("estado crudo: %s", inicio);
+                g_logEstados++;
+            }
+            parsearEstadoJSON(inicio);
+        }
+        consumido = (int)(fin + 1 - buffer);
+    }
+
+    if (consumido > 0) {
+        bufferPos -= consumido;
+        memmove(buffer, buffer + consumido, (size_t)bufferPos);
+        buffer[bufferPos] = '\0';
+    }
+    return bufferPos;
+}
+
 DWORD WINAPI ThreadRed(LPVOID lpParam) {
     char buffer[8192] = {0};
     int bufferPos = 0;
@@ -438,7 +826,14 @@ DWORD WINAPI ThreadRed(LPVOID lpParam) {
             int error = WSAGetLastError();
             // Solo desconectar si es un error real (no timeout)
             if (error != WSAETIMEDOUT && error != WSAEWOULDBLOCK) {
-                client_log("recv error %d -> desconectando", error);
+                client_log("recv error %d", error);
+                if (g_tokenSesion != 0 && reconectar()) {
+                    // Lo que quedo a medias en el buffer pertenece a la conexion anterior
+                    bufferPos = 0;
+                    buffer[0] = '\0';
+                    continue;
+                }
+                client_log("sin sesion reanudable -> desconectando");
                 g_conectado = 0;
                 g_estadoPantalla = ESTADO_DESCONECTADO;
                 break;
@@ -460,26 +855,7 @@ DWORD WINAPI ThreadRed(LPVOID lpParam) {
             buffer[0] = '\0';
         }
 
-        char* inicio = buffer;
-        char* fin;
-
-        while ((fin = strchr(inicio, '\n')) != NULL) {
-            *fin = '\0';
-            limpiarFinLinea(inicio);
-            if (strlen(inicio) > 0) {
-                if (g_logEstados < 5) {
-                    client_log("estado crudo: %s", inicio);
-                    g_logEstados++;
-                }
-                parsearEstadoJSON(inicio);
-            }
-            inicio = fin + 1;
-        }
-
-        if (inicio != buffer) {
-            bufferPos = strlen(inicio);
-            memmove(buffer, inicio, bufferPos + 1);
-        }
+        bufferPos = procesarRecibido(buffer, bufferPos);
     }
 
     client_log("ThreadRed finalizado");
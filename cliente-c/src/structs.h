@@ -16,6 +16,7 @@ typedef struct {
     int score;
     int active;
     int celebrating;
+    long ack;           // Ultimo INPUT (seq) que el servidor aplico para este jugador
     char state[16];
     char facing[8];
 } Jugador;
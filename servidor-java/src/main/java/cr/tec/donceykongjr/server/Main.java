@@ -3,6 +3,7 @@ package cr.tec.donceykongjr.server;
 import cr.tec.donceykongjr.server.gui.AdminGUI;
 import cr.tec.donceykongjr.server.logic.GameLoop;
 import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.network.ModoTransporte;
 import cr.tec.donceykongjr.server.network.ServidorJuego;
 import cr.tec.donceykongjr.server.util.Config;
 import cr.tec.donceykongjr.server.util.LoggerUtil;
@@ -83,6 +84,8 @@ public class Main {
      * <p><b>Argumentos de línea de comandos:</b></p>
      * <ul>
      *   <li><code>args[0]</code> (opcional): Puerto TCP para el servidor (por defecto: 5555)</li>
+     *   <li><code>args[1]</code> (opcional): Modo de transporte {@code nio}, {@code virtual} o {@code hilos}
+     *       (por defecto: {@link Config#MODO_TRANSPORTE})</li>
      * </ul>
      *
      * <p><b>Ejemplo de uso:</b></p>
@@ -92,14 +95,23 @@ public class Main {
      *
      * // Usar puerto personalizado
      * java cr.tec.donceykongjr.server.Main 8080
+     *
+     * // Puerto por defecto con un hilo bloqueante por conexión
+     * java cr.tec.donceykongjr.server.Main 5555 hilos
      * </pre>
      *
      * <p><b>Comportamiento de hilos:</b></p>
      * <ul>
      *   <li>Hilo principal: Bloquea esperando que termine el servidor (join)</li>
      *   <li>Hilo servidor: Ejecuta {@link ServidorJuego#iniciar()} para aceptar conexiones</li>
-     *   <li>Hilo GameLoop: {@link GameLoop} ejecuta actualizaciones en su propio ScheduledExecutorService</li>
-     *   <li>Hilo MotorCocodrilos: Subsistema independiente con su propio executor (10 TPS)</li>
+     *   <li>Hilos nio-io-N: En modo NIO, leen y escriben todas las conexiones de clientes</li>
+     *   <li>Hilos virtuales cliente-N: En modo VIRTUAL, uno por conexión de cliente</li>
+     *   <li>Hilo GameLoop: {@link GameLoop} ejecuta actualizaciones en su propio ScheduledExecutorService;
+     *       queda en reposo, sin ticks, mientras el servidor no tiene clientes</li>
+     *   <li>Hilo MotorCocodrilos: Solo sin {@link Config#SIMULACION_UNIFICADA}; si no, los
+     *       cocodrilos avanzan dentro del tick del GameLoop</li>
+     *   <li>Hilos simulacion-N: Pool compartido que avanza las salas adicionales creadas por
+     *       {@link cr.tec.donceykongjr.server.network.RegistroSalas}</li>
      *   <li>Hilo EDT (Swing): Interfaz gráfica AdminGUI en el Event Dispatch Thread</li>
      * </ul>
      *
@@ -118,7 +130,7 @@ public class Main {
 
         // PASO 1: Inicializar GameManager
         // Crea el estado del juego: lianas, jugadores, cocodrilos, frutas, Mario
-        // También inicializa el MotorCocodrilos independiente
+        // También inicializa el MotorCocodrilos (integrado en el tick o en su propio hilo)
         gameManager = new GameManager();
         LoggerUtil.info("gamemanager inicializado");
 
@@ -132,7 +144,9 @@ public class Main {
         // PASO 3: Inicializar Servidor TCP
         // Parsea el puerto desde argumentos o usa el valor por defecto (5555)
         int puerto = args.length > 0 ? Integer.parseInt(args[0]) : Config.PUERTO_DEFAULT;
-        servidor = new ServidorJuego(puerto, gameManager);
+        ModoTransporte modo = ModoTransporte.desde(args.length > 1 ? args[1] : Config.MODO_TRANSPORTE);
+        // Con la sala vacía el servidor deja el GameLoop en reposo hasta el primer CONNECT
+        servidor = new ServidorJuego(puerto, gameManager, modo, gameLoop);
 
         // Crear y arrancar hilo del servidor para no bloquear el hilo principal
         // El lambda () -> servidor.iniciar() se ejecuta en hiloServidor
@@ -141,7 +155,7 @@ public class Main {
 
         // PASO 4: Inicializar GUI de Administración
         // Crea la ventana Swing con controles para pausar, crear entidades, etc.
-        adminGUI = new AdminGUI(gameManager);
+        adminGUI = new AdminGUI(gameManager, servidor);
         adminGUI.mostrar(); // Hace visible la ventana en el EDT (Event Dispatch Thread)
 
         // PASO 5: Registrar shutdown hook para cierre ordenado
@@ -0,0 +1,262 @@
+package cr.tec.donceykongjr.server.carga;
+
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Una conexión simulada contra el servidor, como jugador o como espectador.
+ *
+ * <p>Un hilo virtual lee y decodifica lo que llega; el planificador de
+ * {@link GeneradorCarga} llama a {@link #enviarInput()} al ritmo configurado. Cada
+ * INPUT lleva una secuencia, y su instante de envío se guarda en un anillo hasta que el
+ * campo {@code ack} de un STATE la confirma: esa diferencia es la latencia
+ * input → confirmación. De cada STATE se guarda además su llegada menos
+ * {@code tick × intervalo}; restando el mínimo de la conexión queda cuánto se atrasó
+ * cada estado respecto al más puntual.</p>
+ *
+ * <p>Responde los PING del servidor, que si no cerraría a los espectadores por inactividad.</p>
+ */
+final class ClienteSimulado {
+
+    /**
+     * Tipo de mensaje recibido, para el conteo por tipo.
+     */
+    enum TipoRespuesta {
+        STATE, EVENT, ERROR, PING, SESSION, OTRO
+    }
+
+    private static final int INPUTS_EN_VUELO = 1024;
+    private static final int TAMANO_LECTURA = 8192;
+
+    private final String id;
+    private final boolean jugador;
+    private final ProtocoloCarga protocolo;
+    private final PatronInput patron;
+    private final Random aleatorio;
+    private Socket socket;
+    private OutputStream salida;
+
+    // Escritos por el planificador, leídos por el hilo lector
+    private final AtomicLongArray enviosInput = new AtomicLongArray(INPUTS_EN_VUELO);
+    private volatile long secuenciaInput;
+    private volatile int lianaId = -1;
+    private volatile boolean abierta;
+    private volatile String error;
+    private String accionAnterior;
+
+    // Solo los escribe el hilo lector
+    private final Muestras latenciaInput = new Muestras();
+    private final Muestras llegadaEstados = new Muestras();
+    private final long[] mensajes = new long[TipoRespuesta.values().length];
+    private long bytesRecibidos;
+    private long estadosRecibidos;
+    private long ultimoAck;
+    private long confirmados;
+    private long conexionNanos;
+    private long sesionNanos;
+    private long inicioConnect;
+
+    ClienteSimulado(String id, boolean jugador, ProtocoloCarga protocolo, PatronInput patron, long semilla) {
+        this.id = id;
+        this.jugador = jugador;
+        this.protocolo = protocolo;
+        this.patron = patron;
+        this.aleatorio = new Random(semilla);
+    }
+
+    /**
+     * Abre el socket, envía CONNECT y arranca el hilo lector.
+     *
+     * @throws IOException si no se pudo conectar
+     */
+    void conectar(String host, int puerto) throws IOException {
+        long inicio = System.nanoTime();
+        socket = new Socket(host, puerto);
+        socket.setTcpNoDelay(true);
+        conexionNanos = System.nanoTime() - inicio;
+        salida = socket.getOutputStream();
+        abierta = true;
+        inicioConnect = System.nanoTime();
+        escribir("{\"type\":\"CONNECT\",\"id\":\"" + id + "\",\"clientType\":\""
+                + (jugador ? "PLAYER" : "SPECTATOR") + "\"" + protocolo.getCampoConnect() + "}");
+        Thread.ofVirtual().name("carga-" + id).start(this::leer);
+    }
+
+    /**
+     * Envía el siguiente INPUT del patrón. Lo invoca el planificador.
+     */
+    void enviarInput() {
+        if (!jugador || !abierta) {
+            return;
+        }
+        String accion = patron.siguiente(accionAnterior, lianaId, aleatorio);
+        accionAnterior = accion;
+        long secuencia = secuenciaInput + 1;
+        enviosInput.set((int) (secuencia % INPUTS_EN_VUELO), System.nanoTime());
+        secuenciaInput = secuencia;
+        escribir("{\"type\":\"INPUT\",\"id\":\"" + id + "\",\"action\":\"" + accion + "\",\"seq\":" + secuencia + "}");
+    }
+
+    private void leer() {
+        byte[] buffer = new byte[TAMANO_LECTURA];
+        int pendientes = 0;
+        try (InputStream entrada = socket.getInputStream()) {
+            int leidos;
+            while ((leidos = entrada.read(buffer, pendientes, buffer.length - pendientes)) >= 0) {
+                pendientes += leidos;
+                int consumidos = protocolo.procesar(buffer, pendientes, this);
+                pendientes -= consumidos;
+                System.arraycopy(buffer, consumidos, buffer, 0, pendientes);
+                if (pendientes == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+        } catch (IOException e) {
+            if (abierta) {
+                error = e.getMessage();
+            }
+        } finally {
+            if (abierta && error == null) {
+                error = "conexión cerrada por el servidor";
+            }
+            abierta = false;
+        }
+    }
+
+    void recibido(TipoRespuesta tipo, int bytes) {
+        mensajes[tipo.ordinal()]++;
+        bytesRecibidos += bytes;
+        if (tipo == TipoRespuesta.SESSION && sesionNanos == 0) {
+            sesionNanos = System.nanoTime() - inicioConnect;
+        }
+    }
+
+    void estadoRecibido(long tick, long ack, int liana) {
+        // El primero es el de la sala por defecto, que el servidor envía antes de leer CONNECT
+        if (estadosRecibidos++ == 0) {
+            return;
+        }
+        long ahora = System.nanoTime();
+        llegadaEstados.agregar(TimeUnit.NANOSECONDS.toMicros(ahora) - tick * 1_000_000L / Config.TICKS_POR_SEGUNDO);
+        if (!jugador) {
+            return;
+        }
+        lianaId = liana;
+        // Cada ack nuevo confirma todas las secuencias desde el anterior
+        long hasta = Math.min(ack, secuenciaInput);
+        for (long secuencia = Math.max(ultimoAck + 1, hasta - INPUTS_EN_VUELO + 1); secuencia <= hasta; secuencia++) {
+            long enviado = enviosInput.get((int) (secuencia % INPUTS_EN_VUELO));
+            if (enviado != 0) {
+                latenciaInput.agregar(TimeUnit.NANOSECONDS.toMicros(ahora - enviado));
+                confirmados++;
+            }
+        }
+        ultimoAck = Math.max(ultimoAck, hasta);
+    }
+
+    void pingRecibido(long secuencia) {
+        escribir("{\"type\":\"PONG\",\"seq\":" + secuencia + "}");
+    }
+
+    void errorRecibido(String mensaje) {
+        LoggerUtil.warning("carga: " + id + " recibió ERROR " + mensaje);
+        if (error == null) {
+            error = mensaje;
+        }
+    }
+
+    private void escribir(String linea) {
+        byte[] datos = (linea + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            synchronized (this) {
+                salida.write(datos);
+            }
+        } catch (IOException e) {
+            if (abierta) {
+                error = e.getMessage();
+                abierta = false;
+            }
+        }
+    }
+
+    /**
+     * Cierra la conexión con DISCONNECT para que el servidor libere la plaza de inmediato.
+     */
+    void cerrar() {
+        if (abierta && jugador) {
+            escribir("{\"type\":\"DISCONNECT\"}");
+        }
+        abierta = false;
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            LoggerUtil.debug("carga: error al cerrar " + id + ": " + e.getMessage());
+        }
+    }
+
+    String getId() {
+        return id;
+    }
+
+    boolean isJugador() {
+        return jugador;
+    }
+
+    /**
+     * Indica si la conexión sigue abierta y sin errores del servidor.
+     */
+    boolean isSana() {
+        return abierta && error == null;
+    }
+
+    String getError() {
+        return error;
+    }
+
+    long getInputsEnviados() {
+        return secuenciaInput;
+    }
+
+    long getConfirmados() {
+        return confirmados;
+    }
+
+    long getMensajes(TipoRespuesta tipo) {
+        return mensajes[tipo.ordinal()];
+    }
+
+    long getBytesRecibidos() {
+        return bytesRecibidos;
+    }
+
+    long getConexionNanos() {
+        return conexionNanos;
+    }
+
+    /**
+     * Tiempo desde CONNECT hasta el mensaje SESSION, o 0 si no llegó (espectadores).
+     */
+    long getSesionNanos() {
+        return sesionNanos;
+    }
+
+    Muestras getLatenciaInput() {
+        return latenciaInput;
+    }
+
+    Muestras getLlegadaEstados() {
+        return llegadaEstados;
+    }
+}
@@ -0,0 +1,246 @@
+package cr.tec.donceykongjr.server.carga;
+
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generador de carga sin interfaz: abre N conexiones de jugador y M de espectador
+ * contra un servidor en marcha y mide lo que reciben.
+ *
+ * <p>Cada jugador envía INPUT según un {@link PatronInput} al ritmo indicado y todas
+ * las conexiones responden PING como el cliente real. Solo usa el protocolo de red
+ * (CONNECT, INPUT, PONG y DISCONNECT), así que sirve contra cualquier proceso servidor
+ * y en cualquiera de los {@link ProtocoloCarga} que acepta.</p>
+ *
+ * <p>Al terminar imprime y guarda un reporte con:</p>
+ * <ul>
+ *   <li><b>conexiones:</b> abiertas, rechazadas o cerradas durante la prueba y el
+ *       tiempo hasta SESSION.</li>
+ *   <li><b>rendimiento:</b> mensajes y bytes recibidos por segundo, por tipo.</li>
+ *   <li><b>input → confirmación:</b> desde que sale un INPUT hasta el STATE cuyo
+ *       {@code ack} lo incluye.</li>
+ *   <li><b>retraso del estado:</b> cuánto llega cada STATE después de lo que marca su
+ *       tick respecto al más puntual de la conexión; crece si el servidor o la red
+ *       no dan abasto.</li>
+ * </ul>
+ *
+ * <p>El servidor asigna una sala por jugador mientras haya
+ * ({@link Config#MAX_JUGADORES} por sala); los espectadores entran a la primera sala
+ * con jugador.</p>
+ *
+ * <p><b>Uso:</b></p>
+ * <pre>
+ * java cr.tec.donceykongjr.server.carga.GeneradorCarga [jugadores] [espectadores] [segundos]
+ *      [JSON|BINARY] [ALEATORIO|ESCALAR] [inputs por segundo] [host] [puerto] [reporte]
+ * </pre>
+ */
+public class GeneradorCarga {
+    private static final long PAUSA_ENTRE_CONEXIONES_MS = 2;
+    private static final long ESPERA_ANTES_DE_ESPECTADORES_MS = 500;
+    private static final long INTERVALO_PROGRESO_MS = 5000;
+
+    private final List<ClienteSimulado> clientes = new ArrayList<>();
+    private final int jugadores;
+    private final int espectadores;
+    private final ProtocoloCarga protocolo;
+    private final PatronInput patron;
+    private int fallidas;
+
+    private GeneradorCarga(int jugadores, int espectadores, ProtocoloCarga protocolo, PatronInput patron) {
+        this.jugadores = jugadores;
+        this.espectadores = espectadores;
+        this.protocolo = protocolo;
+        this.patron = patron;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int jugadores = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int espectadores = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        ProtocoloCarga protocolo = ProtocoloCarga.valueOf(args.length > 3 ? args[3].toUpperCase(Locale.ROOT) : "JSON");
+        PatronInput patron = PatronInput.valueOf(args.length > 4 ? args[4].toUpperCase(Locale.ROOT) : "ALEATORIO");
+        int inputsPorSegundo = args.length > 5 ? Integer.parseInt(args[5]) : 10;
+        String host = args.length > 6 ? args[6] : "localhost";
+        int puerto = args.length > 7 ? Integer.parseInt(args[7]) : Config.PUERTO_DEFAULT;
+        Path reporte = Path.of(args.length > 8 ? args[8] : "reporte-carga.txt");
+
+        LoggerUtil.info("=== GENERADOR DE CARGA: " + jugadores + " jugadores, " + espectadores
+                + " espectadores, " + segundos + " s contra " + host + ":" + puerto + " ===");
+        GeneradorCarga generador = new GeneradorCarga(jugadores, espectadores, protocolo, patron);
+        generador.conectar(host, puerto);
+
+        ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon(true).name("carga-inputs").factory());
+        planificador.scheduleAtFixedRate(generador::enviarInputs, 0,
+                1_000_000L / Math.max(1, inputsPorSegundo), TimeUnit.MICROSECONDS);
+
+        Totales inicio = generador.totales();
+        long inicioNanos = System.nanoTime();
+        long fin = System.currentTimeMillis() + segundos * 1000L;
+        while (System.currentTimeMillis() < fin) {
+            Thread.sleep(Math.min(INTERVALO_PROGRESO_MS, Math.max(1, fin - System.currentTimeMillis())));
+            LoggerUtil.info("carga: " + generador.contarSanas() + " conexiones sanas, "
+                    + (generador.totales().estados - inicio.estados) + " estados recibidos");
+        }
+        Totales finales = generador.totales();
+        double duracion = (System.nanoTime() - inicioNanos) / 1e9;
+        planificador.shutdownNow();
+
+        String texto = generador.reporte(host, puerto, inputsPorSegundo, duracion, inicio, finales);
+        generador.cerrar();
+        System.out.println();
+        System.out.print(texto);
+        try {
+            Files.writeString(reporte, texto, StandardCharsets.UTF_8);
+            LoggerUtil.info("reporte guardado en " + reporte.toAbsolutePath());
+        } catch (IOException e) {
+            LoggerUtil.error("no se pudo guardar el reporte: " + e.getMessage());
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Abre primero los jugadores y después los espectadores, que solo pueden entrar a
+     * salas con jugador.
+     */
+    private void conectar(String host, int puerto) throws InterruptedException {
+        for (int i = 1; i <= jugadores; i++) {
+            abrir(new ClienteSimulado("carga-j" + i, true, protocolo, patron, i), host, puerto);
+        }
+        if (espectadores > 0) {
+            Thread.sleep(ESPERA_ANTES_DE_ESPECTADORES_MS);
+        }
+        for (int i = 1; i <= espectadores; i++) {
+            abrir(new ClienteSimulado("carga-e" + i, false, protocolo, patron, -i), host, puerto);
+        }
+    }
+
+    private void abrir(ClienteSimulado cliente, String host, int puerto) throws InterruptedException {
+        try {
+            cliente.conectar(host, puerto);
+            clientes.add(cliente);
+        } catch (IOException e) {
+            fallidas++;
+            LoggerUtil.warning("carga: no se pudo conectar " + cliente.getId() + ": " + e.getMessage());
+        }
+        Thread.sleep(PAUSA_ENTRE_CONEXIONES_MS);
+    }
+
+    private void enviarInputs() {
+        for (ClienteSimulado cliente : clientes) {
+            cliente.enviarInput();
+        }
+    }
+
+    private int contarSanas() {
+        int sanas = 0;
+        for (ClienteSimulado cliente : clientes) {
+            if (cliente.isSana()) {
+                sanas++;
+            }
+        }
+        return sanas;
+    }
+
+    private void cerrar() {
+        for (ClienteSimulado cliente : clientes) {
+            cliente.cerrar();
+        }
+    }
+
+    /**
+     * Contadores acumulados de todas las conexiones en un instante.
+     */
+    private record Totales(long mensajes, long bytes, long estados, long inputs) {
+    }
+
+    private Totales totales() {
+        long mensajes = 0;
+        long bytes = 0;
+        long estados = 0;
+        long inputs = 0;
+        for (ClienteSimulado cliente : clientes) {
+            for (ClienteSimulado.TipoRespuesta tipo : ClienteSimulado.TipoRespuesta.values()) {
+                mensajes += cliente.getMensajes(tipo);
+            }
+            bytes += cliente.getBytesRecibidos();
+            estados += cliente.getMensajes(ClienteSimulado.TipoRespuesta.STATE);
+            inputs += cliente.getInputsEnviados();
+        }
+        return new Totales(mensajes, bytes, estados, inputs);
+    }
+
+    private String reporte(String host, int puerto, int inputsPorSegundo, double duracion,
+                           Totales inicio, Totales fin) {
+        Muestras latenciaInput = new Muestras();
+        Muestras retrasoEstado = new Muestras();
+        Muestras conexion = new Muestras();
+        Muestras sesion = new Muestras();
+        long[] porTipo = new long[ClienteSimulado.TipoRespuesta.values().length];
+        long confirmados = 0;
+        List<String> errores = new ArrayList<>();
+        for (ClienteSimulado cliente : clientes) {
+            latenciaInput.agregarTodas(cliente.getLatenciaInput(), 0);
+            Muestras llegadas = cliente.getLlegadaEstados();
+            retrasoEstado.agregarTodas(llegadas, llegadas.minimo());
+            conexion.agregar(TimeUnit.NANOSECONDS.toMicros(cliente.getConexionNanos()));
+            if (cliente.getSesionNanos() > 0) {
+                sesion.agregar(TimeUnit.NANOSECONDS.toMicros(cliente.getSesionNanos()));
+            }
+            for (ClienteSimulado.TipoRespuesta tipo : ClienteSimulado.TipoRespuesta.values()) {
+                porTipo[tipo.ordinal()] += cliente.getMensajes(tipo);
+            }
+            confirmados += cliente.getConfirmados();
+            if (cliente.getError() != null && errores.size() < 5) {
+                errores.add(cliente.getId() + ": " + cliente.getError());
+            }
+        }
+
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format(Locale.ROOT, "=== REPORTE DE CARGA ===%n"));
+        texto.append(String.format(Locale.ROOT, "servidor %s:%d, protocolo %s, patrón %s a %d inputs/s, %.1f s medidos%n",
+                host, puerto, protocolo, patron, inputsPorSegundo, duracion));
+        texto.append(String.format(Locale.ROOT, "conexiones: %d jugadores y %d espectadores pedidos, %d abiertas, "
+                + "%d fallidas al conectar, %d sanas al final%n",
+                jugadores, espectadores, clientes.size(), fallidas, contarSanas()));
+        texto.append(String.format(Locale.ROOT, "recibido: %d mensajes (%.1f/s), %.1f KB (%.1f KB/s)%n",
+                fin.mensajes - inicio.mensajes, (fin.mensajes - inicio.mensajes) / duracion,
+                (fin.bytes - inicio.bytes) / 1024.0, (fin.bytes - inicio.bytes) / 1024.0 / duracion));
+        texto.append("por tipo (total):");
+        for (ClienteSimulado.TipoRespuesta tipo : ClienteSimulado.TipoRespuesta.values()) {
+            texto.append(' ').append(tipo).append(' ').append(porTipo[tipo.ordinal()]);
+        }
+        texto.append(System.lineSeparator());
+        texto.append(String.format(Locale.ROOT, "inputs: %d enviados (%.1f/s), %d confirmados en total%n",
+                fin.inputs - inicio.inputs, (fin.inputs - inicio.inputs) / duracion, confirmados));
+        texto.append(String.format(Locale.ROOT, "%-28s %8s %8s %8s %8s %8s%n", "ms", "n", "p50", "p90", "p99", "max"));
+        fila(texto, "input -> confirmación", latenciaInput);
+        fila(texto, "retraso del estado", retrasoEstado);
+        fila(texto, "conexión tcp", conexion);
+        fila(texto, "CONNECT -> SESSION", sesion);
+        if (!errores.isEmpty()) {
+            texto.append("primeros errores:").append(System.lineSeparator());
+            for (String error : errores) {
+                texto.append("  ").append(error).append(System.lineSeparator());
+            }
+        }
+        return texto.toString();
+    }
+
+    private static void fila(StringBuilder texto, String nombre, Muestras muestras) {
+        texto.append(String.format(Locale.ROOT, "%-28s %8d %8.2f %8.2f %8.2f %8.2f%n", nombre,
+                muestras.getCantidad(), muestras.percentilMs(50), muestras.percentilMs(90),
+                muestras.percentilMs(99), muestras.percentilMs(100)));
+    }
+}
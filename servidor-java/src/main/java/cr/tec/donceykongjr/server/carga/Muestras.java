@@ -0,0 +1,60 @@
+package cr.tec.donceykongjr.server.carga;
+
+import cr.tec.donceykongjr.server.util.Percentiles;
+
+import java.util.Arrays;
+
+/**
+ * Valores medidos en microsegundos, guardados en un arreglo primitivo creciente.
+ * Cada instancia la escribe un solo hilo; se combinan al final para el reporte.
+ */
+final class Muestras {
+    private long[] valores = new long[256];
+    private int cantidad;
+    private boolean ordenadas;
+
+    void agregar(long micros) {
+        if (cantidad == valores.length) {
+            valores = Arrays.copyOf(valores, cantidad * 2);
+        }
+        valores[cantidad++] = micros;
+        ordenadas = false;
+    }
+
+    /**
+     * Agrega las muestras de otra instancia, restándoles un desplazamiento común.
+     */
+    void agregarTodas(Muestras otras, long desplazamiento) {
+        for (int i = 0; i < otras.cantidad; i++) {
+            agregar(otras.valores[i] - desplazamiento);
+        }
+    }
+
+    int getCantidad() {
+        return cantidad;
+    }
+
+    long minimo() {
+        long minimo = Long.MAX_VALUE;
+        for (int i = 0; i < cantidad; i++) {
+            minimo = Math.min(minimo, valores[i]);
+        }
+        return minimo;
+    }
+
+    /**
+     * Percentil por rango más cercano, en milisegundos.
+     *
+     * @param percentil de 0 a 100
+     */
+    double percentilMs(double percentil) {
+        if (cantidad == 0) {
+            return 0.0;
+        }
+        if (!ordenadas) {
+            Arrays.sort(valores, 0, cantidad);
+            ordenadas = true;
+        }
+        return Percentiles.de(valores, cantidad, percentil) / 1000.0;
+    }
+}
@@ -0,0 +1,60 @@
+package cr.tec.donceykongjr.server.carga;
+
+import cr.tec.donceykongjr.server.util.Config;
+
+import java.util.Random;
+
+/**
+ * Secuencia de INPUT que envía cada jugador simulado.
+ */
+enum PatronInput {
+
+    /**
+     * Caminata aleatoria: repite la acción anterior con probabilidad
+     * {@link #PERSISTENCIA} y si no elige otra al azar, como un jugador que mantiene
+     * una tecla y a ratos cambia.
+     */
+    ALEATORIO {
+        @Override
+        String siguiente(String anterior, int lianaId, Random aleatorio) {
+            if (anterior != null && aleatorio.nextDouble() < PERSISTENCIA) {
+                return anterior;
+            }
+            return ACCIONES[aleatorio.nextInt(ACCIONES.length)];
+        }
+    },
+
+    /**
+     * Ascenso guionado hacia la liana objetivo ({@link Config#OBJETIVO_LIANA}) según la
+     * liana que el último estado reporta para el jugador: en una liana sube y salta a
+     * la derecha; en el aire intenta agarrarse; en la liana objetivo solo sube.
+     */
+    ESCALAR {
+        @Override
+        String siguiente(String anterior, int lianaId, Random aleatorio) {
+            if (lianaId == Config.OBJETIVO_LIANA) {
+                return "MOVE_UP";
+            }
+            if (lianaId >= 0) {
+                if ("MOVE_UP".equals(anterior)) {
+                    return "JUMP";
+                }
+                return "JUMP".equals(anterior) ? "RIGHT" : "MOVE_UP";
+            }
+            if ("RIGHT".equals(anterior)) {
+                return "GRAB";
+            }
+            return "GRAB".equals(anterior) ? "JUMP" : "RIGHT";
+        }
+    };
+
+    private static final String[] ACCIONES = {"LEFT", "RIGHT", "MOVE_UP", "MOVE_DOWN", "JUMP", "GRAB"};
+    private static final double PERSISTENCIA = 0.8;
+
+    /**
+     * @param anterior acción enviada antes, o null en el primer INPUT
+     * @param lianaId liana del jugador en el último estado recibido, o -1 si no está en una
+     * @return acción del siguiente INPUT
+     */
+    abstract String siguiente(String anterior, int lianaId, Random aleatorio);
+}
@@ -0,0 +1,232 @@
+package cr.tec.donceykongjr.server.carga;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocolo de salida que piden las conexiones simuladas en CONNECT y decodificación de
+ * lo que responde el servidor.
+ *
+ * <p>Las líneas JSON y los frames binarios se reconocen por su primer byte (un frame
+ * nunca empieza con '{'), así que un mismo lector sirve para ambos: con protocolo
+ * binario el servidor igual envía una línea JSON antes de leer CONNECT. Un protocolo
+ * nuevo solo necesita su constante con el campo de CONNECT y, si agrega tipos de frame,
+ * su caso en {@link #decodificarFrame}. Solo se decodifica lo que el generador mide:
+ * tipo, tick y, para el propio jugador, la secuencia confirmada y la liana.</p>
+ */
+enum ProtocoloCarga {
+    JSON(""),
+    BINARY(",\"protocol\":\"BINARY\"");
+
+    private static final int CABECERA = 3;
+    private static final int FRAME_ESTADO = 1;
+    private static final int FRAME_EVENTO = 2;
+    private static final int FRAME_ERROR = 3;
+    private static final int FRAME_PING = 6;
+    private static final int FRAME_SESION = 7;
+
+    private final String campoConnect;
+
+    ProtocoloCarga(String campoConnect) {
+        this.campoConnect = campoConnect;
+    }
+
+    /**
+     * Campos que se agregan al CONNECT para pedir este protocolo.
+     */
+    String getCampoConnect() {
+        return campoConnect;
+    }
+
+    /**
+     * Decodifica los mensajes completos al inicio del búfer y los entrega al cliente.
+     *
+     * @return bytes consumidos; el resto es un mensaje incompleto
+     */
+    int procesar(byte[] datos, int longitud, ClienteSimulado cliente) {
+        int pos = 0;
+        while (pos < longitud) {
+            if (datos[pos] != '{') {
+                if (longitud - pos < CABECERA) {
+                    break;
+                }
+                int contenido = ((datos[pos + 1] & 0xFF) << 8) | (datos[pos + 2] & 0xFF);
+                if (longitud - pos < CABECERA + contenido) {
+                    break;
+                }
+                decodificarFrame(datos[pos] & 0xFF, new Lector(datos, pos + CABECERA, contenido), cliente);
+                pos += CABECERA + contenido;
+                continue;
+            }
+            int fin = pos;
+            while (fin < longitud && datos[fin] != '\n') {
+                fin++;
+            }
+            if (fin == longitud) {
+                break;
+            }
+            decodificarLinea(new String(datos, pos, fin - pos, StandardCharsets.UTF_8), fin - pos + 1, cliente);
+            pos = fin + 1;
+        }
+        return pos;
+    }
+
+    private static void decodificarLinea(String linea, int bytes, ClienteSimulado cliente) {
+        JsonObject mensaje;
+        String tipo;
+        try {
+            mensaje = JsonParser.parseString(linea).getAsJsonObject();
+            tipo = mensaje.get("type").getAsString();
+        } catch (RuntimeException e) {
+            cliente.recibido(ClienteSimulado.TipoRespuesta.OTRO, bytes);
+            return;
+        }
+        switch (tipo) {
+            case "STATE" -> {
+                cliente.recibido(ClienteSimulado.TipoRespuesta.STATE, bytes);
+                decodificarEstadoJson(mensaje.getAsJsonObject("data"), cliente);
+            }
+            case "EVENT" -> cliente.recibido(ClienteSimulado.TipoRespuesta.EVENT, bytes);
+            case "PING" -> {
+                cliente.recibido(ClienteSimulado.TipoRespuesta.PING, bytes);
+                cliente.pingRecibido(mensaje.get("seq").getAsLong());
+            }
+            case "SESSION" -> cliente.recibido(ClienteSimulado.TipoRespuesta.SESSION, bytes);
+            case "ERROR" -> {
+                cliente.recibido(ClienteSimulado.TipoRespuesta.ERROR, bytes);
+                cliente.errorRecibido(String.valueOf(mensaje.get("payload")));
+            }
+            default -> cliente.recibido(ClienteSimulado.TipoRespuesta.OTRO, bytes);
+        }
+    }
+
+    private static void decodificarEstadoJson(JsonObject datos, ClienteSimulado cliente) {
+        if (datos == null || !datos.has("tick")) {
+            return;
+        }
+        long ack = 0;
+        int lianaId = -1;
+        JsonArray jugadores = datos.getAsJsonArray("players");
+        if (jugadores != null) {
+            for (JsonElement elemento : jugadores) {
+                JsonObject jugador = elemento.getAsJsonObject();
+                if (cliente.getId().equals(jugador.get("id").getAsString())) {
+                    ack = jugador.has("ack") ? jugador.get("ack").getAsLong() : 0;
+                    JsonElement liana = jugador.get("lianaId");
+                    lianaId = liana != null && !liana.isJsonNull() ? liana.getAsInt() : -1;
+                    break;
+                }
+            }
+        }
+        cliente.estadoRecibido(datos.get("tick").getAsLong(), ack, lianaId);
+    }
+
+    private static void decodificarFrame(int tipo, Lector lector, ClienteSimulado cliente) {
+        int bytes = CABECERA + lector.restantes();
+        switch (tipo) {
+            case FRAME_ESTADO -> {
+                cliente.recibido(ClienteSimulado.TipoRespuesta.STATE, bytes);
+                decodificarEstadoBinario(lector, cliente);
+            }
+            case FRAME_EVENTO -> cliente.recibido(ClienteSimulado.TipoRespuesta.EVENT, bytes);
+            case FRAME_ERROR -> {
+                cliente.recibido(ClienteSimulado.TipoRespuesta.ERROR, bytes);
+                cliente.errorRecibido(lector.resto());
+            }
+            case FRAME_PING -> {
+                cliente.recibido(ClienteSimulado.TipoRespuesta.PING, bytes);
+                cliente.pingRecibido(lector.varint());
+            }
+            case FRAME_SESION -> cliente.recibido(ClienteSimulado.TipoRespuesta.SESSION, bytes);
+            default -> cliente.recibido(ClienteSimulado.TipoRespuesta.OTRO, bytes);
+        }
+    }
+
+    /**
+     * Lee del STATE binario el tick y los datos del propio jugador; el resto se salta.
+     */
+    private static void decodificarEstadoBinario(Lector lector, ClienteSimulado cliente) {
+        long tick = lector.varint();
+        lector.u8();            // banderas
+        lector.varint();        // speedMultiplier
+        lector.varint();        // celebrationTimer
+        long jugadores = lector.varint();
+        long ack = 0;
+        int lianaId = -1;
+        for (long i = 0; i < jugadores; i++) {
+            String id = lector.texto();
+            for (int campo = 0; campo < 5; campo++) {
+                lector.varint();    // x, y, vx, vy, liana
+            }
+            long liana = lector.zigzag();
+            lector.u8();            // state
+            lector.u8();            // facing
+            lector.varint();        // lives
+            lector.varint();        // score
+            long confirmada = lector.varint();
+            lector.u8();            // banderas
+            if (cliente.getId().equals(id)) {
+                ack = confirmada;
+                lianaId = (int) liana;
+            }
+        }
+        cliente.estadoRecibido(tick, ack, lianaId);
+    }
+
+    /**
+     * Cursor sobre el contenido de un frame binario.
+     */
+    private static final class Lector {
+        private final byte[] datos;
+        private final int fin;
+        private int pos;
+
+        Lector(byte[] datos, int inicio, int longitud) {
+            this.datos = datos;
+            this.pos = inicio;
+            this.fin = inicio + longitud;
+        }
+
+        int restantes() {
+            return fin - pos;
+        }
+
+        int u8() {
+            return pos < fin ? datos[pos++] & 0xFF : 0;
+        }
+
+        long varint() {
+            long valor = 0;
+            for (int desplazamiento = 0; desplazamiento < 64 && pos < fin; desplazamiento += 7) {
+                int b = datos[pos++] & 0xFF;
+                valor |= (long) (b & 0x7F) << desplazamiento;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return valor;
+        }
+
+        long zigzag() {
+            long valor = varint();
+            return (valor >>> 1) ^ -(valor & 1);
+        }
+
+        String texto() {
+            int longitud = Math.min(u8(), restantes());
+            String texto = new String(datos, pos, longitud, StandardCharsets.UTF_8);
+            pos += longitud;
+            return texto;
+        }
+
+        String resto() {
+            String texto = new String(datos, pos, restantes(), StandardCharsets.UTF_8);
+            pos = fin;
+            return texto;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package cr.tec.donceykongjr.server.cli;
 
 import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.logic.PerfiladorTick;
+import cr.tec.donceykongjr.server.util.Config;
 import cr.tec.donceykongjr.server.util.LoggerUtil;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -63,6 +67,9 @@ public class ConsolaAdmin implements Runnable {
                     case "list":
                         manejarList(partes);
                         break;
+                    case "profile":
+                        manejarProfile(partes);
+                        break;
                     case "pause":
                         gameManager.setPausado(true);
                         System.out.println("juego pausado");
@@ -105,6 +112,8 @@ public class ConsolaAdmin implements Runnable {
         System.out.println("  fruit add <liana> <y> <points> - agrega una fruta");
         System.out.println("  fruit del <liana> <y>      - elimina una fruta");
         System.out.println("  list entities              - lista todas las entidades");
+        System.out.println("  profile <on|off|show|reset> - mide las fases del tick");
+        System.out.println("  profile export [archivo]   - guarda el perfil del tick");
         System.out.println("  pause                     - pausa el juego");
         System.out.println("  resume                    - reanuda el juego");
         System.out.println("  help                      - muestra esta ayuda");
@@ -217,6 +226,43 @@ public class ConsolaAdmin implements Runnable {
         }
     }
     
+    /**
+     * Maneja comandos del perfilador del tick.
+     */
+    private void manejarProfile(String[] partes) {
+        PerfiladorTick perfilador = gameManager.getPerfilador();
+        String accion = partes.length > 1 ? partes[1].toLowerCase() : "show";
+
+        switch (accion) {
+            case "on":
+                perfilador.setActivo(true);
+                System.out.println("[ok] perfilador activado");
+                break;
+            case "off":
+                perfilador.setActivo(false);
+                System.out.println("[ok] perfilador detenido");
+                break;
+            case "show":
+                System.out.println(perfilador.generarReporte());
+                break;
+            case "reset":
+                perfilador.reiniciar();
+                System.out.println("[ok] muestras del perfilador descartadas");
+                break;
+            case "export":
+                Path archivo = Path.of(partes.length > 2 ? partes[2] : Config.ARCHIVO_PERFIL_TICK);
+                try {
+                    perfilador.exportar(archivo);
+                    System.out.println("[ok] perfil guardado en " + archivo.toAbsolutePath());
+                } catch (IOException e) {
+                    System.out.println("[error] no se pudo guardar el perfil: " + e.getMessage());
+                }
+                break;
+            default:
+                System.out.println("uso: profile <on|off|show|reset|export> [archivo]");
+        }
+    }
+
     /**
      * Detiene la consola.
      */
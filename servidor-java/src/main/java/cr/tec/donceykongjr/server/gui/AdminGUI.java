@@ -1,20 +1,34 @@
 package cr.tec.donceykongjr.server.gui;
 
 import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.logic.PerfiladorTick;
+import cr.tec.donceykongjr.server.network.ServidorJuego;
+import cr.tec.donceykongjr.server.util.Config;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Interfaz gráfica simple para administrar el servidor.
  */
 public class AdminGUI extends JFrame {
     private GameManager gameManager;
+    private ServidorJuego servidor;
     private JTextArea logArea;
     //private JLabel statusLabel;
 
     public AdminGUI(GameManager gameManager) {
+        this(gameManager, null);
+    }
+
+    /**
+     * @param servidor servidor del que se muestran las métricas de red, o null
+     */
+    public AdminGUI(GameManager gameManager, ServidorJuego servidor) {
         this.gameManager = gameManager;
+        this.servidor = servidor;
         inicializarVentana();
     }
 
@@ -56,7 +70,7 @@ public class AdminGUI extends JFrame {
     }
 
     private JPanel crearPanelControl() {
-        JPanel panel = new JPanel(new GridLayout(1, 4, 10, 0));
+        JPanel panel = new JPanel(new GridLayout(1, 5, 10, 0));
         panel.setBorder(BorderFactory.createTitledBorder("Control del Juego"));
 
         JButton pauseBtn = crearBoton("PAUSAR", new Color(231, 76, 60));
@@ -77,9 +91,17 @@ public class AdminGUI extends JFrame {
             agregarLog("ENTIDADES:\n" + lista);
         });
 
+        JButton redBtn = crearBoton("RED", new Color(52, 73, 94));
+        redBtn.addActionListener(e -> mostrarRed());
+
+        JButton perfilBtn = crearBoton("PERFIL", new Color(22, 160, 133));
+        perfilBtn.addActionListener(e -> mostrarPerfil());
+
         panel.add(pauseBtn);
         panel.add(resumeBtn);
         panel.add(listBtn);
+        panel.add(redBtn);
+        panel.add(perfilBtn);
 
         return panel;
     }
@@ -238,6 +260,40 @@ public class AdminGUI extends JFrame {
         }
     }
 
+    private void mostrarRed() {
+        if (servidor == null) {
+            agregarLog("RED: servidor no disponible");
+            return;
+        }
+        agregarLog("RED: " + servidor.getConexionesAbiertas() + " conexiones abiertas, "
+                + servidor.getMensajesLimitados() + " mensajes limitados, "
+                + servidor.getMensajesDescartados() + " descartados, "
+                + servidor.getInputsDirectos() + " inputs sin Gson / " + servidor.getInputsGson() + " con Gson, "
+                + servidor.getRegistroSalas().contarSesionesSuspendidas() + " jugadores esperando reconexión\n"
+                + servidor.getReporteLatencia());
+    }
+
+    /**
+     * La primera pulsación activa el perfilador; las siguientes muestran el reporte y
+     * lo guardan en {@link Config#ARCHIVO_PERFIL_TICK}.
+     */
+    private void mostrarPerfil() {
+        PerfiladorTick perfilador = gameManager.getPerfilador();
+        if (!perfilador.isActivo()) {
+            perfilador.setActivo(true);
+            agregarLog("PERFIL: perfilador activado, pulse de nuevo para ver el reporte");
+            return;
+        }
+        agregarLog(perfilador.generarReporte());
+        Path archivo = Path.of(Config.ARCHIVO_PERFIL_TICK);
+        try {
+            perfilador.exportar(archivo);
+            agregarLog("PERFIL: guardado en " + archivo.toAbsolutePath());
+        } catch (IOException e) {
+            agregarLog("PERFIL: no se pudo guardar: " + e.getMessage());
+        }
+    }
+
     public void agregarLog(String mensaje) {
         SwingUtilities.invokeLater(() -> {
             logArea.append(mensaje + "\n");
@@ -17,16 +17,19 @@ import java.util.concurrent.TimeUnit;
  * <p><b>Características principales:</b></p>
  * <ul>
  *   <li>Tasa fija: 20 TPS (ticks por segundo) = 50ms por tick</li>
- *   <li>Utiliza {@link ScheduledExecutorService} para garantizar precisión temporal</li>
+ *   <li>Acumulador de tiempo con {@link RelojSimulacion}: tras un retraso recupera a lo
+ *       sumo {@link Config#MAX_PASOS_RECUPERACION} ticks y descarta (y cuenta) el resto</li>
  *   <li>Thread-safe: Se ejecuta en su propio hilo dedicado</li>
  *   <li>Manejo robusto de errores sin detener el bucle</li>
+ *   <li>Reposo: con la sala vacía {@link #reposar()} deja de programar ticks sin
+ *       cerrar el executor, y {@link #despertar()} los retoma</li>
  *   <li>Cierre ordenado con timeout</li>
  * </ul>
  *
  * <p><b>Flujo de ejecución:</b></p>
  * <pre>
- * 1. iniciar() → Programa ejecución periódica cada 50ms
- * 2. tick() → Se ejecuta cada 50ms
+ * 1. iniciar() → Arranca el reloj de simulación
+ * 2. tick() → Se ejecuta una vez por cada 50ms acumulados
  *    ├── gameManager.actualizar(deltaTime)
  *    └── Manejo de excepciones
  * 3. detener() → Cancela ejecuciones futuras y espera terminación
@@ -71,9 +74,21 @@ public class GameLoop {
      */
     private ScheduledExecutorService scheduler;
 
+    /**
+     * Indica si {@link #scheduler} es compartido con otras salas. En ese caso
+     * {@link #detener()} cancela solo {@link #tarea} y no apaga el executor.
+     */
+    private final boolean schedulerCompartido;
+
+    /** Reloj que decide cuántos ticks ejecutar en cada despertar. */
+    private final RelojSimulacion reloj;
+
     /** Indica si el bucle está actualmente en ejecución. */
     private boolean ejecutando;
 
+    /** Indica si el bucle está en reposo: iniciado, pero sin ticks programados. */
+    private boolean enReposo;
+
     /**
      * Delta time fijo en segundos que se pasa a cada actualización.
      * Calculado como 1.0 / TPS. Para 20 TPS: deltaTime = 0.05 segundos.
@@ -103,36 +118,56 @@ public class GameLoop {
         this.deltaTime = 1.0 / Config.TICKS_POR_SEGUNDO;
         // Crear scheduler con un solo hilo (single-threaded)
         this.scheduler = Executors.newScheduledThreadPool(1);
+        this.schedulerCompartido = false;
+        this.reloj = crearReloj();
     }
 
     /**
-     * Inicia el bucle del juego con ejecución periódica.
+     * Constructor del GameLoop sobre un executor compartido.
      *
-     * <p>Programa la ejecución del método {@link #tick()} cada {@link Config#INTERVALO_TICK_MS}
-     * milisegundos utilizando {@link ScheduledExecutorService#scheduleAtFixedRate}.</p>
+     * <p>Usado por las salas adicionales del servidor: todas se programan en el mismo
+     * pool acotado de hilos de simulación en lugar de crear un executor por sala. El
+     * executor garantiza que dos ticks del mismo GameLoop nunca se solapan.</p>
+     *
+     * @param gameManager El gestor del juego que será actualizado
+     * @param compartido executor del pool de simulación, que no pertenece a este GameLoop
+     */
+    public GameLoop(GameManager gameManager, ScheduledExecutorService compartido) {
+        this.gameManager = gameManager;
+        this.ejecutando = false;
+        this.deltaTime = 1.0 / Config.TICKS_POR_SEGUNDO;
+        this.scheduler = compartido;
+        this.schedulerCompartido = true;
+        this.reloj = crearReloj();
+    }
+
+    private RelojSimulacion crearReloj() {
+        return new RelojSimulacion("gameloop", TimeUnit.SECONDS.toNanos(1) / Config.TICKS_POR_SEGUNDO,
+                Config.MAX_PASOS_RECUPERACION, this::tick, scheduler);
+    }
+
+    /**
+     * Inicia el bucle del juego.
+     *
+     * <p>Arranca el {@link RelojSimulacion}, que ejecuta {@link #tick()} de inmediato y
+     * luego una vez por cada {@link Config#INTERVALO_TICK_MS} milisegundos de tiempo real
+     * acumulado.</p>
      *
      * <p><b>Comportamiento:</b></p>
      * <ul>
      *   <li>Si el bucle ya está ejecutándose, registra una advertencia y retorna sin hacer nada</li>
      *   <li>Marca el estado como ejecutando</li>
-     *   <li>Programa ejecución inmediata (delay inicial = 0) y luego cada 50ms</li>
-     *   <li>La ejecución es a "tasa fija": el próximo tick se programa desde el inicio del anterior</li>
+     *   <li>Si un tick se retrasa, el siguiente despertar ejecuta los pendientes seguidos,
+     *       hasta {@link Config#MAX_PASOS_RECUPERACION}; el retraso que exceda ese máximo se
+     *       descarta en lugar de recuperarse en ráfaga (a diferencia de
+     *       <code>scheduleAtFixedRate</code>, que dispara todos los atrasados sin límite)</li>
      * </ul>
      *
-     * <p><b>Diferencia con scheduleWithFixedDelay:</b></p>
-     * <ul>
-     *   <li><code>scheduleAtFixedRate</code>: Próximo tick a los 50ms del INICIO del anterior</li>
-     *   <li><code>scheduleWithFixedDelay</code>: Próximo tick a los 50ms del FIN del anterior</li>
-     * </ul>
-     *
-     * <p>Usamos <code>scheduleAtFixedRate</code> para mantener la tasa de 20 TPS constante,
-     * aunque un tick individual se retrase.</p>
-     *
      * @see #tick()
      * @see #detener()
      * @see Config#INTERVALO_TICK_MS
      */
-    public void iniciar() {
+    public synchronized void iniciar() {
         // Validar que no esté ya ejecutándose
         if (ejecutando) {
             LoggerUtil.warning("el gameloop ya esta ejecutandose");
@@ -143,24 +178,14 @@ public class GameLoop {
         ejecutando = true;
         LoggerUtil.info("gameloop iniciado (" + Config.TICKS_POR_SEGUNDO + " ticks/segundo)");
 
-        // Programar ejecución periódica del tick
-        // - this::tick: Método a ejecutar
-        // - 0: Delay inicial (empezar inmediatamente)
-        // - INTERVALO_TICK_MS: Periodo entre ejecuciones (50ms)
-        // - MILLISECONDS: Unidad de tiempo
-        scheduler.scheduleAtFixedRate(
-            this::tick,
-            0,
-            Config.INTERVALO_TICK_MS,
-            TimeUnit.MILLISECONDS
-        );
+        reloj.iniciar();
     }
 
     /**
      * Ejecuta un único tick (actualización) del juego.
      *
-     * <p>Este método se invoca automáticamente cada {@link Config#INTERVALO_TICK_MS}
-     * milisegundos por el {@link ScheduledExecutorService}. Delega la actualización
+     * <p>Este método lo invoca el {@link RelojSimulacion} por cada
+     * {@link Config#INTERVALO_TICK_MS} milisegundos acumulados. Delega la actualización
      * al {@link GameManager#actualizar(double)} pasando el delta time fijo.</p>
      *
      * <p><b>Manejo de errores:</b></p>
@@ -177,7 +202,7 @@ public class GameLoop {
      * <p><b>Secuencia de actualización en GameManager:</b></p>
      * <pre>
      * tick() → gameManager.actualizar(0.05)
-     *   ├── Sincronizar cocodrilos del motor
+     *   ├── Avanzar cocodrilos (o tomar la foto del motor concurrente)
      *   ├── Actualizar física de jugadores
      *   ├── Detectar colisiones
      *   ├── Verificar objetivos
@@ -229,7 +254,7 @@ public class GameLoop {
      * @see ScheduledExecutorService#awaitTermination(long, TimeUnit)
      * @see ScheduledExecutorService#shutdownNow()
      */
-    public void detener() {
+    public synchronized void detener() {
         // Si no está ejecutando, no hay nada que detener
         if (!ejecutando) {
             return;
@@ -237,6 +262,16 @@ public class GameLoop {
 
         // Marcar como no ejecutando
         ejecutando = false;
+        enReposo = false;
+
+        // El reloj deja de programar ticks; el tick en curso termina
+        reloj.detener();
+
+        // En un executor compartido no hay nada más que cerrar
+        if (schedulerCompartido) {
+            LoggerUtil.debug("gameloop detenido (executor compartido)");
+            return;
+        }
 
         // Iniciar cierre ordenado: no acepta nuevas tareas
         scheduler.shutdown();
@@ -258,6 +293,48 @@ public class GameLoop {
         LoggerUtil.info("gameloop detenido");
     }
 
+    /**
+     * Deja el bucle en reposo: el reloj deja de programar ticks y el hilo queda libre
+     * hasta {@link #despertar()}, sin cerrar el executor. El GameManager se marca en
+     * reposo para que el motor de cocodrilos, si corre en su propio hilo, también se
+     * suspenda.
+     *
+     * <p>No hace nada si el bucle no está ejecutándose o ya está en reposo. Puede
+     * llamarse desde cualquier hilo; el tick en curso, si lo hay, termina normalmente.</p>
+     *
+     * @see Config#REPOSO_SIN_CLIENTES
+     */
+    public synchronized void reposar() {
+        if (!ejecutando || enReposo) {
+            return;
+        }
+        enReposo = true;
+        reloj.detener();
+        gameManager.setEnReposo(true);
+        LoggerUtil.info("gameloop en reposo (tick " + gameManager.getTickActual() + ")");
+    }
+
+    /**
+     * Sale del reposo y vuelve a ejecutar ticks de inmediato. El tiempo en reposo no se
+     * recupera: la simulación sigue desde el tick en que se detuvo.
+     */
+    public synchronized void despertar() {
+        if (!ejecutando || !enReposo) {
+            return;
+        }
+        enReposo = false;
+        gameManager.setEnReposo(false);
+        reloj.iniciar();
+        LoggerUtil.info("gameloop despierto");
+    }
+
+    /**
+     * Indica si el bucle está en reposo, sin ticks programados.
+     */
+    public synchronized boolean isEnReposo() {
+        return enReposo;
+    }
+
     /**
      * Verifica si el bucle está actualmente en ejecución.
      *
@@ -273,4 +350,12 @@ public class GameLoop {
     public boolean isEjecutando() {
         return ejecutando;
     }
+
+    /**
+     * Reloj de simulación del bucle, con los contadores de ticks recuperados y
+     * descartados y el alpha de interpolación del último despertar.
+     */
+    public RelojSimulacion getReloj() {
+        return reloj;
+    }
 }
@@ -1,6 +1,7 @@
 package cr.tec.donceykongjr.server.logic;
 
 import cr.tec.donceykongjr.server.logic.entidades.*;
+import cr.tec.donceykongjr.server.logic.eventos.DatosEvento;
 import cr.tec.donceykongjr.server.logic.eventos.EventoJuego;
 import cr.tec.donceykongjr.server.logic.patrones.FactoryEntidad;
 import cr.tec.donceykongjr.server.logic.patrones.Observer;
@@ -10,6 +11,7 @@ import cr.tec.donceykongjr.server.util.LoggerUtil;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Gestiona el estado del juego y todas las entidades.
@@ -18,12 +20,14 @@ import java.util.concurrent.ConcurrentHashMap;
 public class GameManager extends Subject {
     private Map<String, Jugador> jugadores;
     private Set<String> espectadores;
-    private List<Cocodrilo> cocodrilos;
+    private final HistorialCocodrilos historialCocodrilos;
     private List<Fruta> frutas;
     private List<Liana> lianas;
     private Mario mario;
+    private volatile SnapshotSistemaCocodrilos snapshotCocodrilos;
     private double velocidadMultiplicador;
-    private boolean pausado;
+    private volatile boolean pausado;
+    private volatile boolean enReposo;
     private long tickActual;
     private double celebracionRestante;
     private boolean reinicioPendiente;
@@ -31,13 +35,29 @@ public class GameManager extends Subject {
     // Motor de cocodrilos independiente
     private MotorCocodrilos motorCocodrilos;
 
+    private final PerfiladorTick perfilador =
+            new PerfiladorTick(Config.VENTANA_PERFILADOR_TICKS, Config.PERFILADOR_TICK_ACTIVO);
+
     /**
-     * Constructor del GameManager.
+     * Constructor del GameManager. Si la simulación no está unificada, el motor de
+     * cocodrilos corre en su propio hilo.
      */
     public GameManager() {
+        this(null);
+    }
+
+    /**
+     * Constructor del GameManager para una sala del servidor.
+     *
+     * @param planificador executor compartido donde se programa el motor de cocodrilos,
+     *                     o null para que el motor cree su propio hilo; no se usa con
+     *                     {@link Config#SIMULACION_UNIFICADA}
+     */
+    public GameManager(ScheduledExecutorService planificador) {
         this.jugadores = new ConcurrentHashMap<>();
         this.espectadores = ConcurrentHashMap.newKeySet();
-        this.cocodrilos = new ArrayList<>();
+        this.historialCocodrilos = new HistorialCocodrilos(
+                (int) (Config.VENTANA_COMPENSACION_LATENCIA_MS / Config.INTERVALO_TICK_MS) + 1, 16);
         this.frutas = new ArrayList<>();
         this.lianas = new ArrayList<>();
         this.velocidadMultiplicador = Config.VELOCIDAD_BASE;
@@ -46,16 +66,27 @@ public class GameManager extends Subject {
         this.celebracionRestante = 0;
         this.reinicioPendiente = false;
 
-        // Crear motor de cocodrilos con dt=0.1s (10 TPS)
-        this.motorCocodrilos = new MotorCocodrilos(0.1);
+        // Unificado: el motor avanza en cada tick del juego con su mismo dt.
+        // Concurrente: corre aparte con dt=0.1s (10 TPS)
+        this.motorCocodrilos = new MotorCocodrilos(
+                Config.SIMULACION_UNIFICADA ? 1.0 / Config.TICKS_POR_SEGUNDO : 0.1);
 
         inicializarLianas();
         inicializarEntidades();
         inicializarMario();
 
         // Iniciar motor de cocodrilos
-        motorCocodrilos.start();
-        LoggerUtil.info("Motor de cocodrilos iniciado");
+        if (Config.SIMULACION_UNIFICADA) {
+            snapshotCocodrilos = motorCocodrilos.getSnapshot();
+            LoggerUtil.info("Motor de cocodrilos integrado en el tick del juego");
+        } else {
+            if (planificador != null) {
+                motorCocodrilos.start(planificador);
+            } else {
+                motorCocodrilos.start();
+            }
+            LoggerUtil.info("Motor de cocodrilos iniciado");
+        }
     }
 
     /**
@@ -151,76 +182,113 @@ public class GameManager extends Subject {
 
     /**
      * Actualiza el estado del juego en cada tick.
+     *
+     * <p>Con {@link Config#SIMULACION_UNIFICADA} los cocodrilos avanzan aquí mismo, como
+     * primera fase y con el mismo {@code deltaTime}: el tick completo corre en un solo
+     * hilo y es determinista.</p>
+     *
+     * <p>Cada fase se mide con el {@link PerfiladorTick} si está activo.</p>
      */
     public void actualizar(double deltaTime) {
+        long inicio = perfilador.iniciar();
         tickActual++;
 
         if (pausado) {
+            // En pausa los cocodrilos no se mueven; solo se aplican los cambios del admin
+            aplicarComandosEnPausa();
+            long marca = perfilador.registrar(PerfiladorTick.Fase.COCODRILOS, inicio);
             notificarObservadores();
+            perfilador.registrar(PerfiladorTick.Fase.NOTIFICACION, marca);
+            perfilador.terminar(inicio);
             return;
         }
 
-        // Sincronizar cocodrilos del motor a la lista local (para colisiones)
-        sincronizarCocodrilosDesdeMotor();
+        // Grabar la posición actual de los cocodrilos del motor (para colisiones)
+        sincronizarCocodrilosDesdeMotor(deltaTime);
+        long marca = perfilador.registrar(PerfiladorTick.Fase.COCODRILOS, inicio);
 
         // Actualizar jugadores
         for (Jugador jugador : jugadores.values()) {
             if (jugador.isActivo()) {
-                jugador.actualizar(deltaTime);
+                jugador.actualizar(deltaTime, tickActual);
             }
         }
+        marca = perfilador.registrar(PerfiladorTick.Fase.JUGADORES, marca);
 
         // Detectar colisiones jugador-cocodrilo
         detectarColisionesJugadorCocodrilo();
+        marca = perfilador.registrar(PerfiladorTick.Fase.COLISION_COCODRILO, marca);
 
         // Detectar colisiones jugador-Mario
         detectarColisionesJugadorMario();
+        marca = perfilador.registrar(PerfiladorTick.Fase.COLISION_MARIO, marca);
 
         // Detectar recogida de frutas
         detectarRecogidaFrutas();
+        marca = perfilador.registrar(PerfiladorTick.Fase.FRUTAS, marca);
 
         // Detectar caidas al abismo
         detectarCaidaAbismo();
+        marca = perfilador.registrar(PerfiladorTick.Fase.ABISMO, marca);
 
         // Verificar objetivos
         verificarObjetivos();
+        marca = perfilador.registrar(PerfiladorTick.Fase.OBJETIVOS, marca);
 
         // Gestionar celebraciones pendientes
         actualizarCelebracion(deltaTime);
+        marca = perfilador.registrar(PerfiladorTick.Fase.CELEBRACION, marca);
 
         // Notificar a los clientes sobre el estado actualizado
         notificarObservadores();
+        perfilador.registrar(PerfiladorTick.Fase.NOTIFICACION, marca);
+        perfilador.terminar(inicio);
     }
 
     /**
-     * Sincroniza los cocodrilos del motor con la lista local para detección de colisiones.
+     * Avanza los cocodrilos si la simulación está unificada; si no, toma la foto de lo
+     * que el motor lleva calculado en su hilo.
      */
-    private void sincronizarCocodrilosDesdeMotor() {
-        // Obtener snapshot del motor
-        SnapshotSistemaCocodrilos snapshot = motorCocodrilos.getSnapshot();
+    private SnapshotSistemaCocodrilos avanzarCocodrilos(double deltaTime) {
+        return Config.SIMULACION_UNIFICADA
+                ? motorCocodrilos.avanzar(deltaTime)
+                : motorCocodrilos.getSnapshot();
+    }
 
-        // Limpiar lista actual
-        cocodrilos.clear();
+    /**
+     * Aplica en pausa los cocodrilos creados o eliminados desde el admin. Sin
+     * simulación unificada el motor está suspendido y los aplica al reanudarse.
+     */
+    private void aplicarComandosEnPausa() {
+        if (!Config.SIMULACION_UNIFICADA) {
+            return;
+        }
+        SnapshotSistemaCocodrilos snapshot = motorCocodrilos.aplicarComandos();
+        if (snapshot != null) {
+            snapshotCocodrilos = snapshot;
+        }
+    }
 
-        // Convertir snapshots a instancias de Cocodrilo para colisiones
-        // NOTA: Se usan constructores legacy porque los snapshots no contienen
-        // todos los parámetros necesarios (alturaMin/Max, limiteInferior).
-        // Estas instancias son temporales solo para detección de colisiones.
-        for (SnapshotCocodrilo snap : snapshot.getCocodrilos()) {
+    /**
+     * Toma la foto de los cocodrilos del motor para este tick y graba en el historial
+     * la posición de los activos.
+     */
+    private void sincronizarCocodrilosDesdeMotor(double deltaTime) {
+        snapshotCocodrilos = avanzarCocodrilos(deltaTime);
+        List<SnapshotCocodrilo> snapshot = snapshotCocodrilos.getCocodrilos();
+        historialCocodrilos.iniciarFrame();
+        for (int i = 0; i < snapshot.size(); i++) {
+            SnapshotCocodrilo snap = snapshot.get(i);
             if (snap.isActivo()) {
-                Cocodrilo temp;
-                if (snap.getTipo() == Cocodrilo.TipoCocodrilo.ROJO) {
-                    temp = new CocodriloRojo(snap.getId(), 0, snap.getY(), snap.getLianaId(), snap.getVelocidadBase());
-                } else {
-                    temp = new CocodriloAzul(snap.getId(), 0.0, snap.getY(), snap.getLianaId(), snap.getVelocidadBase());
-                }
-                cocodrilos.add(temp);
+                historialCocodrilos.agregar(snap.getId(), snap.getLianaId(), snap.getY());
             }
         }
     }
     
     /**
      * Detecta colisiones entre jugadores y cocodrilos.
+     * Cada jugador se compara con las posiciones de hace un RTT suyo, acotado a
+     * {@link Config#VENTANA_COMPENSACION_LATENCIA_MS}: lo que veía al moverse.
      */
     private void detectarColisionesJugadorCocodrilo() {
         for (Jugador jugador : jugadores.values()) {
@@ -232,18 +300,12 @@ public class GameManager extends Subject {
                 continue;
             }
 
-            for (Cocodrilo cocodrilo : cocodrilos) {
-                if (!cocodrilo.isActivo()) {
-                    continue;
-                }
-                if (!Objects.equals(lianaJugador, cocodrilo.getLianaId())) {
-                    continue;
-                }
-
-                if (Math.abs(jugador.getY() - cocodrilo.getY()) <= Config.JUGADOR_DELTA_Y_COCODRILO) {
-                    manejarGolpeJugador(jugador, "CROCODILE:" + cocodrilo.getId());
-                    break;
-                }
+            double latencia = Math.min(jugador.getLatenciaMs(), Config.VENTANA_COMPENSACION_LATENCIA_MS);
+            int ticksAtras = (int) Math.round(latencia / Config.INTERVALO_TICK_MS);
+            String cocodrilo = historialCocodrilos.buscarColision(ticksAtras, lianaJugador,
+                    jugador.getY(), Config.JUGADOR_DELTA_Y_COCODRILO);
+            if (cocodrilo != null) {
+                manejarGolpeJugador(jugador, "CROCODILE:" + cocodrilo);
             }
         }
     }
@@ -295,10 +357,8 @@ public class GameManager extends Subject {
                     fruta.recoger();
                     jugador.agregarPuntos(fruta.getPuntos());
                     
-                    Map<String, Object> payload = new HashMap<>();
-                    payload.put("playerId", jugador.getId());
-                    payload.put("points", fruta.getPuntos());
-                    EventoJuego evento = new EventoJuego(EventoJuego.TipoEvento.FRUIT_TAKEN, payload);
+                    EventoJuego evento = new EventoJuego(EventoJuego.TipoEvento.FRUIT_TAKEN,
+                            new DatosEvento(jugador.getId(), fruta.getPuntos(), null));
                     notificarObservadores(evento);
                     
                     iter.remove();
@@ -330,16 +390,12 @@ public class GameManager extends Subject {
     private void manejarGolpeJugador(Jugador jugador, String causa) {
         boolean sigueEnJuego = jugador.perderVida();
 
-        Map<String, Object> payloadHit = new HashMap<>();
-        payloadHit.put("playerId", jugador.getId());
-        payloadHit.put("cause", causa);
-        EventoJuego evento = new EventoJuego(EventoJuego.TipoEvento.PLAYER_HIT, payloadHit);
+        EventoJuego evento = new EventoJuego(EventoJuego.TipoEvento.PLAYER_HIT,
+                new DatosEvento(jugador.getId(), null, causa));
         notificarObservadores(evento);
 
         if (!sigueEnJuego) {
-            Map<String, Object> payloadElim = new HashMap<>();
-            payloadElim.put("playerId", jugador.getId());
-            evento = new EventoJuego(EventoJuego.TipoEvento.PLAYER_ELIMINATED, payloadElim);
+            evento = new EventoJuego(EventoJuego.TipoEvento.PLAYER_ELIMINATED, new DatosEvento(jugador.getId()));
             notificarObservadores(evento);
             LoggerUtil.info("jugador " + jugador.getId() + " eliminado");
         } else {
@@ -382,9 +438,7 @@ public class GameManager extends Subject {
             LoggerUtil.warning("no se pudo incrementar dificultad: " + e.getMessage());
         }
 
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("playerId", jugador.getId());
-        EventoJuego evento = new EventoJuego(EventoJuego.TipoEvento.PLAYER_WIN, payload);
+        EventoJuego evento = new EventoJuego(EventoJuego.TipoEvento.PLAYER_WIN, new DatosEvento(jugador.getId()));
         notificarObservadores(evento);
 
         LoggerUtil.info("Rescate completado por " + jugador.getId() + ". Factor cocodrilos x" +
@@ -473,17 +527,56 @@ public class GameManager extends Subject {
      * Procesa input de un jugador.
      */
     public void procesarInput(String jugadorId, String accion) {
+        procesarInput(jugadorId, accion, 0, 0);
+    }
+
+    /**
+     * Actualiza el RTT medido para un jugador; se usa para compensar su latencia en
+     * las colisiones con cocodrilos.
+     */
+    public void registrarLatencia(String jugadorId, double latenciaMs) {
+        Jugador jugador = jugadores.get(jugadorId);
+        if (jugador != null) {
+            jugador.setLatenciaMs(latenciaMs);
+        }
+    }
+
+    /**
+     * Encola un input numerado para el tick indicado. El último número aplicado se
+     * confirma al cliente en el campo {@code ack} de su jugador en cada STATE.
+     *
+     * @param secuencia número de secuencia del cliente, o 0 si no numera sus inputs
+     * @param tick tick al que va dirigido, o 0 para el siguiente
+     */
+    public void procesarInput(String jugadorId, String accion, long secuencia, long tick) {
         Jugador jugador = jugadores.get(jugadorId);
         if (jugador == null) {
             return;
         }
 
-        boolean aceptado = jugador.registrarInput(accion);
+        boolean aceptado = jugador.registrarInput(accion, secuencia, tick);
         if (!aceptado) {
             LoggerUtil.debug("input ignorado para jugador " + jugadorId + ": " + accion);
             return;
         }
     }
+
+    /**
+     * Encola un input cuya acción ya viene traducida desde la red, sin pasar por el texto
+     * del comando.
+     *
+     * @see #procesarInput(String, String, long, long)
+     */
+    public void procesarInput(String jugadorId, AccionJugador accion, long secuencia, long tick) {
+        Jugador jugador = jugadores.get(jugadorId);
+        if (jugador == null) {
+            return;
+        }
+
+        if (!jugador.registrarInput(accion, secuencia, tick)) {
+            LoggerUtil.debug("input ignorado para jugador " + jugadorId + ": " + accion);
+        }
+    }
     
     /**
      * Agrega un cocodrilo rojo usando el motor.
@@ -613,86 +706,12 @@ public class GameManager extends Subject {
         }
         return false;
     }
-    
-    /**
-     * Obtiene el estado actual del juego para enviarlo a los clientes.
-     */
-    public Map<String, Object> getEstadoJuego() {
-        Map<String, Object> estado = new HashMap<>();
-        estado.put("tick", tickActual);
-        estado.put("speedMultiplier", motorCocodrilos.getFactorDificultad());
-        estado.put("paused", pausado);
-
-        // Jugadores
-        List<Map<String, Object>> jugadoresData = new ArrayList<>();
-        for (Jugador jugador : jugadores.values()) {
-            SnapshotJugador snapshot = new SnapshotJugador(jugador);
-            Map<String, Object> j = new HashMap<>();
-            j.put("id", snapshot.getId());
-            j.put("x", snapshot.getX());
-            j.put("y", snapshot.getY());
-            j.put("vx", snapshot.getVx());
-            j.put("vy", snapshot.getVy());
-            j.put("liana", snapshot.getRenderLiana());
-            j.put("lianaId", snapshot.getLianaId());
-            j.put("state", snapshot.getEstado().name());
-            j.put("facing", snapshot.getFacing().name());
-            j.put("lives", snapshot.getLives());
-            j.put("score", snapshot.getScore());
-            j.put("active", snapshot.isActivo());
-            j.put("celebrating", snapshot.isCelebrando());
-            jugadoresData.add(j);
-        }
-        estado.put("players", jugadoresData);
-        estado.put("celebrationPending", reinicioPendiente);
-        estado.put("celebrationTimer", Math.max(celebracionRestante, 0));
-
-        // Cocodrilos - obtener del motor
-        List<Map<String, Object>> cocodrilosData = new ArrayList<>();
-        SnapshotSistemaCocodrilos snapshot = motorCocodrilos.getSnapshot();
-        for (SnapshotCocodrilo croc : snapshot.getCocodrilos()) {
-            if (croc.isActivo()) {
-                Map<String, Object> c = new HashMap<>();
-                c.put("id", croc.getId());
-                c.put("kind", croc.getTipo().toString());
-                c.put("liana", croc.getLianaId());
-                c.put("y", croc.getY());
-                cocodrilosData.add(c);
-            }
-        }
-        estado.put("crocodiles", cocodrilosData);
-
-        // Frutas
-        List<Map<String, Object>> frutasData = new ArrayList<>();
-        for (Fruta fruta : frutas) {
-            if (!fruta.isRecogida()) {
-                Map<String, Object> f = new HashMap<>();
-                f.put("id", fruta.getId());
-                f.put("liana", fruta.getLiana());
-                f.put("y", fruta.getY());
-                f.put("points", fruta.getPuntos());
-                frutasData.add(f);
-            }
-        }
-        estado.put("fruits", frutasData);
-
-        // Mario
-        if (mario != null && mario.isActivo()) {
-            Map<String, Object> marioData = new HashMap<>();
-            marioData.put("id", mario.getId());
-            marioData.put("liana", mario.getLianaId());
-            marioData.put("y", mario.getY());
-            estado.put("mario", marioData);
-        }
-
-        return estado;
-    }
 
     /**
      * Detiene el motor de cocodrilos y limpia recursos.
      */
     public void shutdown() {
-        if (motorCocodrilos != null) {
+        if (motorCocodrilos != null && motorCocodrilos.isEjecutando()) {
             motorCocodrilos.stop();
             LoggerUtil.info("Motor de cocodrilos detenido");
         }
@@ -714,8 +733,8 @@ public class GameManager extends Subject {
               .append(", facing=").append(j.getFacing()).append(")\n");
         }
 
-        // Obtener cocodrilos del motor
-        SnapshotSistemaCocodrilos snapshot = motorCocodrilos.getSnapshot();
+        // Cocodrilos del último tick
+        SnapshotSistemaCocodrilos snapshot = getSnapshotCocodrilos();
         sb.append("Cocodrilos: ").append(snapshot.getTotalCocodrilosActivos()).append("\n");
         for (SnapshotCocodrilo c : snapshot.getCocodrilos()) {
             if (c.isActivo()) {
@@ -740,11 +759,45 @@ public class GameManager extends Subject {
         return pausado;
     }
 
+    /**
+     * Pausa o reanuda la partida. En pausa el mundo queda quieto: los jugadores y los
+     * cocodrilos no se mueven, así que el estado difundido no cambia.
+     */
     public void setPausado(boolean pausado) {
         this.pausado = pausado;
+        ajustarMotorCocodrilos();
         LoggerUtil.info("juego " + (pausado ? "pausado" : "reanudado"));
     }
 
+    public boolean isEnReposo() {
+        return enReposo;
+    }
+
+    /**
+     * Marca la sala en reposo mientras su GameLoop no ejecuta ticks. Si el motor de
+     * cocodrilos corre en su propio hilo también se suspende.
+     *
+     * @see GameLoop#reposar()
+     */
+    public void setEnReposo(boolean enReposo) {
+        this.enReposo = enReposo;
+        ajustarMotorCocodrilos();
+    }
+
+    /**
+     * El motor concurrente solo programa ticks si la partida no está en pausa ni en reposo.
+     */
+    private synchronized void ajustarMotorCocodrilos() {
+        if (Config.SIMULACION_UNIFICADA || !motorCocodrilos.isEjecutando()) {
+            return;
+        }
+        if (pausado || enReposo) {
+            motorCocodrilos.suspender();
+        } else {
+            motorCocodrilos.reanudar();
+        }
+    }
+
     public double getVelocidadMultiplicador() {
         return velocidadMultiplicador;
     }
@@ -753,6 +806,59 @@ public class GameManager extends Subject {
         return tickActual;
     }
 
+    /**
+     * Jugadores de la sala, en el orden en que se difunden. Solo para lectura desde el
+     * hilo del GameLoop.
+     */
+    public Collection<Jugador> getJugadores() {
+        return jugadores.values();
+    }
+
+    /**
+     * Frutas de la sala, incluidas las ya recogidas. Solo para lectura desde el hilo del GameLoop.
+     */
+    public List<Fruta> getFrutas() {
+        return frutas;
+    }
+
+    public Mario getMario() {
+        return mario;
+    }
+
+    /**
+     * Foto de los cocodrilos del motor tomada en el último tick, o una nueva si aún no
+     * ha corrido ninguno.
+     */
+    public SnapshotSistemaCocodrilos getSnapshotCocodrilos() {
+        SnapshotSistemaCocodrilos snapshot = snapshotCocodrilos;
+        return snapshot != null ? snapshot : motorCocodrilos.getSnapshot();
+    }
+
+    /**
+     * Perfilador de las fases del tick de esta sala.
+     */
+    public PerfiladorTick getPerfilador() {
+        return perfilador;
+    }
+
+    /**
+     * Factor de velocidad actual del motor de cocodrilos (el {@code speedMultiplier} del estado).
+     */
+    public double getFactorDificultad() {
+        return motorCocodrilos.getFactorDificultad();
+    }
+
+    public boolean isReinicioPendiente() {
+        return reinicioPendiente;
+    }
+
+    /**
+     * Segundos que le quedan a la celebración en curso; 0 o negativo si no hay.
+     */
+    public double getCelebracionRestante() {
+        return celebracionRestante;
+    }
+
     // ========== GESTIÓN DE ESPECTADORES ==========
 
     /**
@@ -0,0 +1,99 @@
+package cr.tec.donceykongjr.server.logic;
+
+import java.util.Arrays;
+
+/**
+ * Posiciones recientes de los cocodrilos, una foto por tick, para compensar la
+ * latencia de los jugadores en las colisiones.
+ *
+ * <p>Es un anillo de {@code frames} fotos sobre arreglos primitivos preasignados: cada
+ * foto guarda liana, Y e id (la referencia ya existente del snapshot, sin copiarla) de
+ * los cocodrilos activos en ese tick. Grabar y consultar no reservan memoria; los
+ * arreglos solo crecen la primera vez que hay más cocodrilos que nunca antes.</p>
+ *
+ * <p>Solo lo usa el hilo del GameLoop de la sala; no es thread-safe.</p>
+ */
+final class HistorialCocodrilos {
+    private final int frames;
+    private int capacidad;
+    private int[][] lianas;
+    private double[][] posicionesY;
+    private String[][] ids;
+    private final int[] cantidades;
+    private int actual;
+    private int grabados;
+
+    /**
+     * @param frames fotos que se conservan, incluida la del tick actual
+     * @param capacidadInicial cocodrilos por foto antes de crecer
+     */
+    HistorialCocodrilos(int frames, int capacidadInicial) {
+        this.frames = frames;
+        this.capacidad = capacidadInicial;
+        this.lianas = new int[frames][capacidadInicial];
+        this.posicionesY = new double[frames][capacidadInicial];
+        this.ids = new String[frames][capacidadInicial];
+        this.cantidades = new int[frames];
+        this.actual = -1;
+    }
+
+    /**
+     * Empieza la foto del tick actual, que reemplaza a la más antigua.
+     */
+    void iniciarFrame() {
+        actual = (actual + 1) % frames;
+        cantidades[actual] = 0;
+        if (grabados < frames) {
+            grabados++;
+        }
+    }
+
+    /**
+     * Agrega un cocodrilo activo a la foto del tick actual.
+     */
+    void agregar(String id, int liana, double y) {
+        int indice = cantidades[actual];
+        if (indice == capacidad) {
+            crecer();
+        }
+        lianas[actual][indice] = liana;
+        posicionesY[actual][indice] = y;
+        ids[actual][indice] = id;
+        cantidades[actual] = indice + 1;
+    }
+
+    /**
+     * Busca un cocodrilo que choque con el jugador según la foto de hace
+     * {@code ticksAtras} ticks. Si aún no hay tantas fotos se usa la más antigua.
+     *
+     * @param ticksAtras 0 para las posiciones actuales
+     * @param liana liana del jugador
+     * @param y posición vertical del jugador
+     * @param tolerancia distancia vertical máxima que cuenta como choque
+     * @return id del cocodrilo, o null si ninguno choca
+     */
+    String buscarColision(int ticksAtras, int liana, double y, double tolerancia) {
+        if (grabados == 0) {
+            return null;
+        }
+        int atras = Math.min(ticksAtras, grabados - 1);
+        int frame = Math.floorMod(actual - atras, frames);
+        int[] lianasFrame = lianas[frame];
+        double[] yFrame = posicionesY[frame];
+        for (int i = 0; i < cantidades[frame]; i++) {
+            if (lianasFrame[i] == liana && Math.abs(y - yFrame[i]) <= tolerancia) {
+                return ids[frame][i];
+            }
+        }
+        return null;
+    }
+
+    private void crecer() {
+        capacidad *= 2;
+        for (int i = 0; i < frames; i++) {
+            lianas[i] = Arrays.copyOf(lianas[i], capacidad);
+            posicionesY[i] = Arrays.copyOf(posicionesY[i], capacidad);
+            ids[i] = Arrays.copyOf(ids[i], capacidad);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package cr.tec.donceykongjr.server.logic;
 
 import cr.tec.donceykongjr.server.logic.entidades.*;
 import cr.tec.donceykongjr.server.logic.patrones.FactoryEntidad;
+import cr.tec.donceykongjr.server.util.Config;
 import cr.tec.donceykongjr.server.util.LoggerUtil;
 
 import java.util.*;
@@ -100,6 +101,10 @@ import java.util.stream.Collectors;
  *   <li>Snapshots inmutables para lectura sin bloqueos</li>
  * </ul>
  *
+ * <p>Sin {@link #start()}, el dueño del motor puede avanzarlo él mismo con
+ * {@link #avanzar(double)} dentro de su propio tick; así lo usa el GameManager cuando
+ * {@link cr.tec.donceykongjr.server.util.Config#SIMULACION_UNIFICADA} está activo.</p>
+ *
  * <p><b>Rendimiento:</b></p>
  * Con 100 cocodrilos a 10 TPS, el tick típicamente ejecuta en 1-5ms.
  * La telemetría advierte si el tick excede el dtFijo configurado (lag).
@@ -191,14 +196,27 @@ public class MotorCocodrilos {
      * <ul>
      *   <li>Single-threaded: Solo un tick ejecuta a la vez (orden secuencial)</li>
      *   <li>Daemon thread: No impide el cierre de la JVM</li>
-     *   <li>scheduleAtFixedRate: Tasa fija independiente de la duración del tick</li>
      * </ul>
      *
+     * <p>Es null cuando el motor corre en un executor compartido: ese executor
+     * pertenece a quien lo compartió y {@link #stop()} solo detiene {@link #reloj}.</p>
+     *
      * @see #start()
      * @see #stop()
      */
     private ScheduledExecutorService ejecutor;
 
+    /**
+     * Reloj con acumulador que ejecuta {@link #ejecutarTick()} cada {@link #dtFijoMs}
+     * de tiempo real, recuperando a lo sumo
+     * {@link cr.tec.donceykongjr.server.util.Config#MAX_PASOS_RECUPERACION} ticks por
+     * despertar. Null mientras el motor no corre en un hilo.
+     *
+     * @see #start()
+     * @see #start(ScheduledExecutorService)
+     */
+    private RelojSimulacion reloj;
+
     // ==================== COLECCIONES THREAD-SAFE ====================
 
     /**
@@ -277,12 +295,12 @@ public class MotorCocodrilos {
      *
      * <p><b>Formato del ID generado:</b></p>
      * <pre>
-     * CROC_{TIPO}_{TIMESTAMP}_{CONTADOR}
-     * Ejemplo: CROC_ROJO_1705345678901_42
+     * CROC_{TIPO}_{CONTADOR}
+     * Ejemplo: CROC_ROJO_42
      * </pre>
      *
-     * <p>La combinación de timestamp + contador garantiza unicidad
-     * incluso si se crean múltiples cocodrilos en el mismo milisegundo.</p>
+     * <p>El contador es propio de cada motor, así que una partida genera siempre los
+     * mismos IDs en el mismo orden.</p>
      *
      * @see #generarId(String)
      */
@@ -397,23 +415,16 @@ public class MotorCocodrilos {
      * Inicia el motor de cocodrilos en su propio hilo con fixed timestep.
      *
      * <p>Crea un {@link ScheduledExecutorService} con un solo hilo daemon
-     * y programa la ejecución periódica de {@link #ejecutarTick()} cada
-     * {@link #dtFijoMs} milisegundos.</p>
+     * y arranca un {@link RelojSimulacion} que ejecuta {@link #ejecutarTick()} por cada
+     * {@link #dtFijoMs} milisegundos de tiempo real acumulado.</p>
      *
      * <p><b>Configuración del executor:</b></p>
      * <ul>
      *   <li>Single-threaded: Garantiza orden secuencial de ticks</li>
      *   <li>Daemon thread: No previene el cierre de la JVM</li>
      *   <li>Nombre "MotorCocodrilos": Facilita debugging en thread dumps</li>
-     *   <li>scheduleAtFixedRate: Tasa fija independiente de la duración del tick</li>
-     * </ul>
-     *
-     * <p><b>Diferencia entre scheduleAtFixedRate y scheduleWithFixedDelay:</b></p>
-     * <ul>
-     *   <li><b>scheduleAtFixedRate</b> (usado aquí): Próximo tick a los X ms del INICIO del anterior
-     *       → Mantiene 10 TPS constantes aunque el tick tarde más de lo esperado</li>
-     *   <li><b>scheduleWithFixedDelay</b>: Próximo tick a los X ms del FIN del anterior
-     *       → TPS varía según la duración del tick</li>
+     *   <li>Acumulador de tiempo: mantiene 10 TPS aunque un tick tarde más de lo
+     *       esperado, sin ráfagas ilimitadas tras una pausa larga</li>
      * </ul>
      *
      * <p><b>Comportamiento ante múltiples llamadas:</b></p>
@@ -449,21 +460,34 @@ public class MotorCocodrilos {
             return t;
         });
 
-        // Programar ejecución a tasa fija
-        // - this::ejecutarTick: Método a invocar
-        // - 0: Delay inicial (empezar inmediatamente)
-        // - dtFijoMs: Periodo entre ticks
-        // - MILLISECONDS: Unidad de tiempo
-        ejecutor.scheduleAtFixedRate(
-                this::ejecutarTick,
-                0,
-                dtFijoMs,
-                TimeUnit.MILLISECONDS
-        );
+        // Primer tick inmediato, luego uno por cada dtFijoMs acumulado
+        reloj = crearReloj(ejecutor);
+        reloj.iniciar();
 
         LoggerUtil.info("MotorCocodrilos iniciado (TPS=" + (1.0 / dtFijo) + ")");
     }
 
+    /**
+     * Inicia el motor en un executor compartido por varias salas en lugar de crear
+     * uno propio.
+     *
+     * <p>El reloj garantiza que dos ticks de este motor nunca se solapan, pero
+     * pueden correr en hilos distintos del pool. {@link #stop()} detiene el reloj sin
+     * apagar el executor.</p>
+     *
+     * @param compartido executor del pool de simulación
+     * @see #start()
+     */
+    public void start(ScheduledExecutorService compartido) {
+        if (!ejecutando.compareAndSet(false, true)) {
+            LoggerUtil.warning("El motor ya está ejecutando");
+            return;
+        }
+        reloj = crearReloj(compartido);
+        reloj.iniciar();
+        LoggerUtil.debug("MotorCocodrilos iniciado en executor compartido (TPS=" + (1.0 / dtFijo) + ")");
+    }
+
     /**
      * Detiene el motor de cocodrilos de forma segura y ordenada.
      *
@@ -517,6 +541,11 @@ public class MotorCocodrilos {
         // Marcar como no ejecutando
         ejecutando.set(false);
 
+        // Dejar de programar ticks; en un executor compartido no hay nada más que cerrar
+        if (reloj != null) {
+            reloj.detener();
+        }
+
         if (ejecutor != null) {
             // Iniciar cierre ordenado (no acepta nuevas tareas)
             ejecutor.shutdown();
@@ -539,6 +568,27 @@ public class MotorCocodrilos {
         LoggerUtil.info("MotorCocodrilos detenido");
     }
 
+    /**
+     * Deja de programar ticks sin detener el motor: su hilo queda libre y los comandos
+     * que lleguen esperan en la cola hasta {@link #reanudar()}. No hace nada si el motor
+     * no corre en su propio hilo o ya está suspendido.
+     */
+    public void suspender() {
+        if (ejecutando.get() && reloj != null) {
+            reloj.detener();
+        }
+    }
+
+    /**
+     * Vuelve a programar ticks tras {@link #suspender()}. El tiempo suspendido no se
+     * recupera: el reloj arranca de cero.
+     */
+    public void reanudar() {
+        if (ejecutando.get() && reloj != null) {
+            reloj.iniciar();
+        }
+    }
+
     /**
      * Ejecuta un tick manual del motor con delta time específico.
      *
@@ -580,6 +630,51 @@ public class MotorCocodrilos {
         }
     }
 
+    /**
+     * Avanza un tick del motor en el hilo llamante, como una fase del tick del juego.
+     *
+     * <p>Hace lo mismo que el tick automático (comandos, física con
+     * {@code dt * factorDificultad}, limpieza, contador y telemetría) pero sin tomar el
+     * lock: el motor no debe haberse iniciado con {@link #start()}, y todas las llamadas
+     * que modifican su estado, salvo las encoladas, deben venir del mismo hilo.</p>
+     *
+     * @param dt Delta time del tick en segundos, antes de aplicar la dificultad
+     * @return Snapshot de los cocodrilos tras el tick
+     * @throws IllegalStateException Si el motor está corriendo en su propio hilo
+     * @see cr.tec.donceykongjr.server.util.Config#SIMULACION_UNIFICADA
+     */
+    public SnapshotSistemaCocodrilos avanzar(double dt) {
+        if (ejecutando.get()) {
+            throw new IllegalStateException("El motor ya corre en su propio hilo");
+        }
+        long inicio = System.nanoTime();
+        procesarColaComandos();
+        actualizarCocodrilos(dt * factorDificultad);
+        limpiarCocodrilosEliminados();
+        tickActual.incrementAndGet();
+        telemetria.registrarTick((System.nanoTime() - inicio) / 1_000_000);
+        return crearSnapshot();
+    }
+
+    /**
+     * Aplica los comandos encolados sin mover los cocodrilos, para un tick del juego en
+     * pausa. Mismas condiciones de hilo que {@link #avanzar(double)}.
+     *
+     * @return Snapshot tras aplicarlos, o null si no había comandos
+     * @throws IllegalStateException Si el motor está corriendo en su propio hilo
+     */
+    public SnapshotSistemaCocodrilos aplicarComandos() {
+        if (ejecutando.get()) {
+            throw new IllegalStateException("El motor ya corre en su propio hilo");
+        }
+        if (colaComandos.isEmpty()) {
+            return null;
+        }
+        procesarColaComandos();
+        limpiarCocodrilosEliminados();
+        return crearSnapshot();
+    }
+
     // ==================== CREACIÓN DE COCODRILOS ====================
 
     /**
@@ -909,27 +1004,35 @@ public class MotorCocodrilos {
      */
     public SnapshotSistemaCocodrilos getSnapshot() {
         synchronized (lock) {
-            // Convertir todos los cocodrilos a snapshots inmutables
-            List<SnapshotCocodrilo> snapshots = cocodrilos.values().stream()
-                    .map(SnapshotCocodrilo::new) // Crear snapshot de cada cocodrilo
-                    .collect(Collectors.toList());
-
-            // Contar cocodrilos activos (no marcados como ELIMINADO)
-            int activos = (int) cocodrilos.values().stream()
-                    .filter(Cocodrilo::isActivo)
-                    .count();
-
-            // Crear snapshot del sistema completo
-            return new SnapshotSistemaCocodrilos(
-                    snapshots,
-                    factorDificultad,
-                    tickActual.get(),
-                    activos,
-                    telemetria.getCocodrilosEliminados()
-            );
+            return crearSnapshot();
         }
     }
 
+    /**
+     * Construye el snapshot sin sincronizar; el llamante garantiza que nadie modifica
+     * los cocodrilos mientras tanto.
+     */
+    private SnapshotSistemaCocodrilos crearSnapshot() {
+        // Convertir todos los cocodrilos a snapshots inmutables
+        List<SnapshotCocodrilo> snapshots = cocodrilos.values().stream()
+                .map(SnapshotCocodrilo::new) // Crear snapshot de cada cocodrilo
+                .collect(Collectors.toList());
+
+        // Contar cocodrilos activos (no marcados como ELIMINADO)
+        int activos = (int) cocodrilos.values().stream()
+                .filter(Cocodrilo::isActivo)
+                .count();
+
+        // Crear snapshot del sistema completo
+        return new SnapshotSistemaCocodrilos(
+                snapshots,
+                factorDificultad,
+                tickActual.get(),
+                activos,
+                telemetria.getCocodrilosEliminados()
+        );
+    }
+
     /**
      * Obtiene la instancia de telemetría del motor para consulta de métricas.
      *
@@ -953,11 +1056,16 @@ public class MotorCocodrilos {
 
     // ==================== MÉTODOS PRIVADOS DEL CICLO DE ACTUALIZACIÓN ====================
 
+    private RelojSimulacion crearReloj(ScheduledExecutorService executor) {
+        return new RelojSimulacion("MotorCocodrilos", TimeUnit.MILLISECONDS.toNanos(dtFijoMs),
+                Config.MAX_PASOS_RECUPERACION, this::ejecutarTick, executor);
+    }
+
     /**
      * Ejecuta un tick completo del motor (llamado automáticamente por el executor).
      *
-     * <p>Este método es invocado cada {@link #dtFijoMs} milisegundos por el
-     * {@link ScheduledExecutorService}. Implementa el bucle principal del motor.</p>
+     * <p>Este método lo invoca {@link #reloj} por cada {@link #dtFijoMs} milisegundos
+     * acumulados. Implementa el bucle principal del motor.</p>
      *
      * <p><b>Secuencia de ejecución:</b></p>
      * <ol>
@@ -1165,27 +1273,26 @@ public class MotorCocodrilos {
      *
      * <p><b>Formato del ID:</b></p>
      * <pre>
-     * CROC_{TIPO}_{TIMESTAMP}_{CONTADOR}
+     * CROC_{TIPO}_{CONTADOR}
      * </pre>
      *
      * <p><b>Componentes:</b></p>
      * <ul>
      *   <li><b>CROC</b>: Prefijo fijo (CROCodrilo)</li>
      *   <li><b>TIPO</b>: "ROJO" o "AZUL" según el parámetro</li>
-     *   <li><b>TIMESTAMP</b>: {@code System.currentTimeMillis()} (13 dígitos)</li>
      *   <li><b>CONTADOR</b>: {@link #contadorIds} incrementado atómicamente</li>
      * </ul>
      *
      * <p><b>Ejemplos:</b></p>
      * <pre>
-     * CROC_ROJO_1705345678901_1
-     * CROC_AZUL_1705345678905_2
-     * CROC_ROJO_1705345678905_3
+     * CROC_ROJO_1
+     * CROC_AZUL_2
+     * CROC_ROJO_3
      * </pre>
      *
      * <p><b>Unicidad:</b></p>
-     * La combinación de timestamp + contador garantiza unicidad incluso
-     * si se crean múltiples cocodrilos en el mismo milisegundo.
+     * El contador no se repite dentro del motor, y no depende del reloj: la misma
+     * secuencia de creaciones produce los mismos IDs.
      *
      * <p><b>Thread-safety:</b> {@link AtomicInteger#incrementAndGet()} garantiza
      * que cada ID tenga un contador único sin necesidad de sincronización.</p>
@@ -1194,8 +1301,7 @@ public class MotorCocodrilos {
      * @return ID único del cocodrilo
      */
     private String generarId(String tipo) {
-        return String.format("CROC_%s_%d_%d",
-                tipo, System.currentTimeMillis(), contadorIds.incrementAndGet());
+        return "CROC_" + tipo + "_" + contadorIds.incrementAndGet();
     }
 
     // ==================== GETTERS ====================
@@ -1211,6 +1317,16 @@ public class MotorCocodrilos {
         return ejecutando.get();
     }
 
+    /**
+     * Reloj del motor cuando corre en su propio hilo o en un executor compartido.
+     *
+     * @return el reloj, o null si el motor nunca se inició (por ejemplo, cuando lo
+     *         avanza el GameManager con {@link #avanzar(double)})
+     */
+    public RelojSimulacion getReloj() {
+        return reloj;
+    }
+
     /**
      * Obtiene el delta time fijo configurado para este motor.
      *
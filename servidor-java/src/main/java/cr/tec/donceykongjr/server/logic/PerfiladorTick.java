@@ -0,0 +1,219 @@
+package cr.tec.donceykongjr.server.logic;
+
+import cr.tec.donceykongjr.server.util.Percentiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Mide cuánto tarda cada fase de {@link GameManager#actualizar(double)} y guarda las
+ * últimas duraciones de cada una para calcular percentiles.
+ *
+ * <p>El tick marca el inicio con {@link #iniciar()} y el fin de cada fase con
+ * {@link #registrar(Fase, long)}, que devuelve la marca para la fase siguiente:</p>
+ * <pre>
+ * long inicio = perfilador.iniciar();
+ * long marca = inicio;
+ * ... fase ...
+ * marca = perfilador.registrar(Fase.JUGADORES, marca);
+ * ...
+ * perfilador.terminar(inicio);
+ * </pre>
+ *
+ * <p>Desactivado, {@link #iniciar()} devuelve una marca inválida sin leer el reloj y
+ * cada llamada siguiente se reduce a comparar con ella: no hay {@code nanoTime}, ni
+ * escrituras, ni reservas de memoria.</p>
+ *
+ * <p>Las muestras las escribe solo el hilo del tick. El reporte se calcula en el hilo
+ * que lo pide copiando la ventana de cada fase, así que puede mezclar muestras de dos
+ * ticks consecutivos; para diagnóstico es suficiente.</p>
+ */
+public final class PerfiladorTick {
+
+    /**
+     * Fases del tick, en el orden en que se ejecutan.
+     */
+    public enum Fase {
+        COCODRILOS("cocodrilos"),
+        JUGADORES("jugadores"),
+        COLISION_COCODRILO("colision cocodrilo"),
+        COLISION_MARIO("colision mario"),
+        FRUTAS("frutas"),
+        ABISMO("abismo"),
+        OBJETIVOS("objetivos"),
+        CELEBRACION("celebracion"),
+        NOTIFICACION("notificacion"),
+        TOTAL("total");
+
+        private final String nombre;
+
+        Fase(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+    }
+
+    /** Marca que devuelven los métodos cuando el perfilador está desactivado. */
+    private static final long SIN_MARCA = Long.MIN_VALUE;
+
+    private static final Fase[] FASES = Fase.values();
+
+    private final int ventana;
+    private volatile boolean activo;
+    private volatile Serie[] series;
+
+    /**
+     * @param ventana cantidad de ticks que se conservan por fase
+     * @param activo si empieza midiendo
+     */
+    public PerfiladorTick(int ventana, boolean activo) {
+        if (ventana <= 0) {
+            throw new IllegalArgumentException("la ventana debe ser positiva");
+        }
+        this.ventana = ventana;
+        this.activo = activo;
+        this.series = nuevasSeries();
+    }
+
+    /**
+     * Marca el inicio del tick.
+     *
+     * @return la marca para la primera fase
+     */
+    public long iniciar() {
+        return activo ? System.nanoTime() : SIN_MARCA;
+    }
+
+    /**
+     * Registra el fin de una fase que empezó en {@code marca}.
+     *
+     * @return la marca para la fase siguiente
+     */
+    public long registrar(Fase fase, long marca) {
+        if (marca == SIN_MARCA) {
+            return SIN_MARCA;
+        }
+        long ahora = System.nanoTime();
+        series[fase.ordinal()].agregar(ahora - marca);
+        return ahora;
+    }
+
+    /**
+     * Registra la duración total de un tick que empezó en {@code inicio}.
+     */
+    public void terminar(long inicio) {
+        registrar(Fase.TOTAL, inicio);
+    }
+
+    public boolean isActivo() {
+        return activo;
+    }
+
+    /**
+     * Activa o desactiva la medición; las muestras ya tomadas se conservan.
+     */
+    public void setActivo(boolean activo) {
+        this.activo = activo;
+    }
+
+    /**
+     * Descarta las muestras tomadas.
+     */
+    public void reiniciar() {
+        series = nuevasSeries();
+    }
+
+    /**
+     * Tabla con los percentiles de cada fase en microsegundos y su parte del tiempo
+     * medio del tick.
+     */
+    public String generarReporte() {
+        Serie[] actuales = series;
+        long[][] copias = new long[FASES.length][];
+        for (int i = 0; i < FASES.length; i++) {
+            copias[i] = actuales[i].copiar();
+        }
+        double mediaTotal = media(copias[Fase.TOTAL.ordinal()]);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("=== PERFIL DEL TICK (ventana de %d ticks, %s) ===%n",
+                ventana, activo ? "midiendo" : "detenido"));
+        sb.append(String.format("%-20s %7s %9s %9s %9s %9s %7s%n",
+                "fase", "n", "p50 us", "p90 us", "p99 us", "max us", "media%"));
+        for (Fase fase : FASES) {
+            long[] muestras = copias[fase.ordinal()];
+            Arrays.sort(muestras);
+            sb.append(String.format("%-20s %7d %9.1f %9.1f %9.1f %9.1f %6.1f%%%n",
+                    fase.getNombre(), muestras.length,
+                    percentilMicros(muestras, 50), percentilMicros(muestras, 90),
+                    percentilMicros(muestras, 99), percentilMicros(muestras, 100),
+                    mediaTotal > 0 ? media(muestras) * 100.0 / mediaTotal : 0.0));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Escribe {@link #generarReporte()} en un archivo de texto.
+     */
+    public void exportar(Path archivo) throws IOException {
+        Files.writeString(archivo, generarReporte(), StandardCharsets.UTF_8);
+    }
+
+    private Serie[] nuevasSeries() {
+        Serie[] nuevas = new Serie[FASES.length];
+        for (int i = 0; i < nuevas.length; i++) {
+            nuevas[i] = new Serie(ventana);
+        }
+        return nuevas;
+    }
+
+    /**
+     * Percentil en microsegundos, o 0 si la fase no tiene muestras.
+     */
+    private static double percentilMicros(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) {
+            return 0.0;
+        }
+        return Percentiles.de(ordenadas, percentil) / 1000.0;
+    }
+
+    private static double media(long[] muestras) {
+        if (muestras.length == 0) {
+            return 0.0;
+        }
+        long suma = 0;
+        for (long muestra : muestras) {
+            suma += muestra;
+        }
+        return (double) suma / muestras.length;
+    }
+
+    /**
+     * Anillo con las últimas duraciones de una fase, en nanosegundos.
+     */
+    private static final class Serie {
+        private final long[] muestras;
+        private volatile long cantidad;
+
+        Serie(int ventana) {
+            this.muestras = new long[ventana];
+        }
+
+        void agregar(long nanos) {
+            long n = cantidad;
+            muestras[(int) (n % muestras.length)] = nanos;
+            cantidad = n + 1;
+        }
+
+        long[] copiar() {
+            int n = (int) Math.min(cantidad, muestras.length);
+            return Arrays.copyOf(muestras, n);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package cr.tec.donceykongjr.server.logic;
+
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paso fijo con acumulador de tiempo, usado por el {@link GameLoop} y por el
+ * {@link MotorCocodrilos} cuando corre en su propio hilo.
+ *
+ * <p>Cada vez que despierta mide con {@link System#nanoTime()} el tiempo real
+ * transcurrido, lo suma al acumulador y ejecuta un paso por cada intervalo completo
+ * acumulado, hasta un máximo de pasos de recuperación. Si tras ese máximo aún queda más
+ * de un intervalo (una pausa larga del GC, un tick muy lento), ese tiempo se descarta y
+ * se cuenta en lugar de ejecutarse en ráfaga: la simulación se retrasa respecto al reloj
+ * pero los ticks siguientes vuelven a su cadencia normal.</p>
+ *
+ * <pre>
+ * despertar:  acumulado += ahora - ultimo
+ *             mientras acumulado ≥ paso y pasos &lt; max: paso(); acumulado -= paso
+ *             si acumulado ≥ paso: descartar los intervalos completos que sobran
+ *             alpha = acumulado / paso
+ *             dormir hasta completar el siguiente intervalo
+ * </pre>
+ *
+ * <p>En lugar de {@code scheduleAtFixedRate}, cada despertar programa el siguiente
+ * con {@code schedule}, así que dos pasos del mismo reloj nunca se solapan aunque el
+ * executor sea un pool compartido por varias salas. Los contadores los escribe solo el
+ * hilo que ejecuta los pasos; cualquier hilo puede leerlos.</p>
+ *
+ * <p>El reloj puede detenerse y volver a iniciarse (el reposo de una sala vacía). Cada
+ * {@link #iniciar()} y {@link #detener()} cambia la generación, y un despertar programado
+ * con otra generación termina sin ejecutar pasos ni programar el siguiente, así que nunca
+ * quedan dos cadenas de despertares. Los despertares se ejecutan además bajo un mismo
+ * monitor: si el reloj se reinicia mientras un paso sigue corriendo, la cadena nueva
+ * espera a que termine.</p>
+ */
+public final class RelojSimulacion {
+    private final String nombre;
+    private final long pasoNanos;
+    private final int maxPasos;
+    private final Runnable paso;
+    private final ScheduledExecutorService executor;
+
+    /** Protege {@link #activo}, {@link #generacion} y {@link #siguiente} entre el despertar y {@link #detener()}. */
+    private final Object monitor = new Object();
+    private boolean activo;
+    private long generacion;
+    private ScheduledFuture<?> siguiente;
+
+    /** Lo toma cada despertar mientras ejecuta pasos: dos pasos nunca se solapan. */
+    private final Object ejecucion = new Object();
+
+    private long ultimo;
+    private long acumulado;
+
+    private volatile double alpha;
+    private volatile long pasosEjecutados;
+    private volatile long pasosRecuperados;
+    private volatile long pasosDescartados;
+    private volatile long nanosDescartados;
+    private volatile int maxPasosPorDespertar;
+
+    /**
+     * @param nombre nombre para el log
+     * @param pasoNanos duración de un paso en nanosegundos
+     * @param maxPasos pasos que se ejecutan como máximo en un mismo despertar (al menos 1)
+     * @param paso acción de un paso; sus excepciones se registran y el reloj sigue
+     * @param executor executor donde se programan los despertares; no pertenece al reloj
+     */
+    RelojSimulacion(String nombre, long pasoNanos, int maxPasos, Runnable paso,
+                    ScheduledExecutorService executor) {
+        if (pasoNanos <= 0 || maxPasos < 1) {
+            throw new IllegalArgumentException("paso y máximo de pasos deben ser positivos");
+        }
+        this.nombre = nombre;
+        this.pasoNanos = pasoNanos;
+        this.maxPasos = maxPasos;
+        this.paso = paso;
+        this.executor = executor;
+    }
+
+    /**
+     * Empieza a ejecutar pasos; el primero, de inmediato.
+     */
+    void iniciar() {
+        synchronized (monitor) {
+            if (activo) {
+                return;
+            }
+            activo = true;
+            long actual = ++generacion;
+            siguiente = executor.schedule(() -> despertar(actual, true), 0, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Deja de programar pasos. El paso en curso, si lo hay, termina normalmente.
+     */
+    void detener() {
+        synchronized (monitor) {
+            activo = false;
+            generacion++;
+            if (siguiente != null) {
+                siguiente.cancel(false);
+                siguiente = null;
+            }
+        }
+    }
+
+    /**
+     * @param generacion generación con la que se programó este despertar
+     * @param primero si es el primer despertar tras {@link #iniciar()}: el acumulador
+     *                parte de un paso, sin contar el tiempo detenido
+     */
+    private void despertar(long generacion, boolean primero) {
+        synchronized (ejecucion) {
+            if (!vigente(generacion)) {
+                return;
+            }
+            long ahora = System.nanoTime();
+            if (primero) {
+                acumulado = pasoNanos;
+            } else {
+                acumulado += ahora - ultimo;
+            }
+            ultimo = ahora;
+            ejecutarPasos(generacion);
+            programarSiguiente(generacion);
+        }
+    }
+
+    private void ejecutarPasos(long generacion) {
+        int pasos = 0;
+        while (acumulado >= pasoNanos && pasos < maxPasos && vigente(generacion)) {
+            try {
+                paso.run();
+            } catch (RuntimeException e) {
+                LoggerUtil.error("error en paso de " + nombre + ": " + e.getMessage());
+            }
+            acumulado -= pasoNanos;
+            pasos++;
+        }
+        pasosEjecutados += pasos;
+        if (pasos > 1) {
+            pasosRecuperados += pasos - 1;
+        }
+        if (pasos > maxPasosPorDespertar) {
+            maxPasosPorDespertar = pasos;
+        }
+        if (!vigente(generacion)) {
+            // Detenido a mitad del despertar: lo que quede acumulado no es un retraso
+            return;
+        }
+
+        if (acumulado >= pasoNanos) {
+            long sobrante = acumulado - acumulado % pasoNanos;
+            acumulado -= sobrante;
+            pasosDescartados += sobrante / pasoNanos;
+            nanosDescartados += sobrante;
+            LoggerUtil.warning(String.format("%s: %.1fms descartados tras %d pasos de recuperación",
+                    nombre, sobrante / 1_000_000.0, pasos));
+        }
+        alpha = (double) acumulado / pasoNanos;
+    }
+
+    /**
+     * Indica si un despertar de esa generación debe seguir: el reloj no se detuvo ni se
+     * reinició desde que se programó.
+     */
+    private boolean vigente(long generacion) {
+        synchronized (monitor) {
+            return activo && this.generacion == generacion;
+        }
+    }
+
+    private void programarSiguiente(long generacion) {
+        synchronized (monitor) {
+            if (!activo || this.generacion != generacion) {
+                return;
+            }
+            long espera = ultimo + pasoNanos - acumulado - System.nanoTime();
+            try {
+                siguiente = executor.schedule(() -> despertar(generacion, false),
+                        Math.max(espera, 0), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                activo = false;
+                LoggerUtil.debug(nombre + ": executor cerrado, reloj detenido");
+            }
+        }
+    }
+
+    /**
+     * Fracción de paso acumulada que aún no se simuló, entre 0 y 1, tras el último
+     * despertar. Un cliente que interpola puede ubicar el último estado recibido
+     * {@code alpha} pasos por detrás del tiempo real.
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /** Pasos ejecutados desde que se inició. */
+    public long getPasosEjecutados() {
+        return pasosEjecutados;
+    }
+
+    /** Pasos ejecutados de más en un despertar para alcanzar al reloj. */
+    public long getPasosRecuperados() {
+        return pasosRecuperados;
+    }
+
+    /** Pasos completos que no se simularon por exceder el máximo de recuperación. */
+    public long getPasosDescartados() {
+        return pasosDescartados;
+    }
+
+    /** Tiempo real descartado, en milisegundos. */
+    public double getMsDescartados() {
+        return nanosDescartados / 1_000_000.0;
+    }
+
+    /** Mayor cantidad de pasos ejecutados en un mismo despertar. */
+    public int getMaxPasosPorDespertar() {
+        return maxPasosPorDespertar;
+    }
+
+    public boolean isActivo() {
+        synchronized (monitor) {
+            return activo;
+        }
+    }
+}
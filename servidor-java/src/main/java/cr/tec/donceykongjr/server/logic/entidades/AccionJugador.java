@@ -0,0 +1,47 @@
+package cr.tec.donceykongjr.server.logic.entidades;
+
+import java.util.Locale;
+
+/**
+ * Acciones que un jugador puede enviar en un mensaje INPUT.
+ */
+public enum AccionJugador {
+    /** Moverse a la izquierda (LEFT o MOVE_LEFT) */
+    IZQUIERDA,
+
+    /** Moverse a la derecha (RIGHT o MOVE_RIGHT) */
+    DERECHA,
+
+    /** Subir por la liana (UP o MOVE_UP) */
+    ARRIBA,
+
+    /** Bajar por la liana (DOWN o MOVE_DOWN) */
+    ABAJO,
+
+    /** Saltar */
+    SALTAR,
+
+    /** Intentar agarrarse a una liana cercana */
+    AGARRAR;
+
+    /**
+     * Traduce el comando recibido por red.
+     *
+     * @param comando texto del campo action, sin distinguir mayúsculas
+     * @return la acción, o null si el comando no existe
+     */
+    public static AccionJugador desde(String comando) {
+        if (comando == null) {
+            return null;
+        }
+        return switch (comando.trim().toUpperCase(Locale.ROOT)) {
+            case "LEFT", "MOVE_LEFT" -> IZQUIERDA;
+            case "RIGHT", "MOVE_RIGHT" -> DERECHA;
+            case "UP", "MOVE_UP" -> ARRIBA;
+            case "DOWN", "MOVE_DOWN" -> ABAJO;
+            case "JUMP" -> SALTAR;
+            case "GRAB" -> AGARRAR;
+            default -> null;
+        };
+    }
+}
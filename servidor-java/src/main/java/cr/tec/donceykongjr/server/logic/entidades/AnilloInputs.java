@@ -0,0 +1,89 @@
+package cr.tec.donceykongjr.server.logic.entidades;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola circular acotada y sin bloqueos con los inputs pendientes de un jugador.
+ *
+ * <p>Un solo productor (el hilo de red de la conexión del jugador) y un solo
+ * consumidor (el hilo del tick). Si puede haber más de un productor, como al reanudar
+ * una sesión mientras la conexión anterior aún lee, quien encola debe serializarlos;
+ * {@link Jugador} lo hace sobre este mismo objeto. Cada hilo escribe solo su propio índice; el productor
+ * publica una entrada con una escritura ordenada del índice de cola, después de
+ * escribir sus campos, y el consumidor libera la posición del mismo modo.</p>
+ *
+ * <p>Cada entrada guarda la acción, la secuencia asignada por el cliente y el tick al
+ * que va dirigida. El consumidor solo ve la primera entrada pendiente: los inputs se
+ * aplican estrictamente en el orden en que llegaron.</p>
+ */
+final class AnilloInputs {
+    private final AccionJugador[] acciones;
+    private final long[] secuencias;
+    private final long[] ticks;
+    private final int mascara;
+    private final AtomicLong cabeza;  // Siguiente a leer; solo la escribe el consumidor
+    private final AtomicLong cola;    // Siguiente a escribir; solo la escribe el productor
+
+    /**
+     * @param capacidad número de entradas, se redondea a la siguiente potencia de dos
+     */
+    AnilloInputs(int capacidad) {
+        int tamano = Integer.highestOneBit(Math.max(2, capacidad) * 2 - 1);
+        this.acciones = new AccionJugador[tamano];
+        this.secuencias = new long[tamano];
+        this.ticks = new long[tamano];
+        this.mascara = tamano - 1;
+        this.cabeza = new AtomicLong();
+        this.cola = new AtomicLong();
+    }
+
+    /**
+     * Agrega un input al final. Solo lo llama un productor a la vez.
+     *
+     * @return false si la cola está llena y el input se descartó
+     */
+    boolean ofrecer(AccionJugador accion, long secuencia, long tick) {
+        long posicion = cola.get();
+        if (posicion - cabeza.get() > mascara) {
+            return false;
+        }
+        int indice = (int) posicion & mascara;
+        acciones[indice] = accion;
+        secuencias[indice] = secuencia;
+        ticks[indice] = tick;
+        cola.lazySet(posicion + 1);
+        return true;
+    }
+
+    /**
+     * Indica si el primer input pendiente va dirigido a este tick o a uno anterior.
+     * Solo lo llama el consumidor.
+     */
+    boolean hayListo(long tickActual) {
+        long posicion = cabeza.get();
+        return posicion < cola.get() && ticks[(int) posicion & mascara] <= tickActual;
+    }
+
+    /**
+     * Acción del primer input pendiente. Requiere {@link #hayListo(long)}.
+     */
+    AccionJugador accion() {
+        return acciones[(int) cabeza.get() & mascara];
+    }
+
+    /**
+     * Secuencia del primer input pendiente. Requiere {@link #hayListo(long)}.
+     */
+    long secuencia() {
+        return secuencias[(int) cabeza.get() & mascara];
+    }
+
+    /**
+     * Descarta el primer input pendiente y libera su posición para el productor.
+     */
+    void avanzar() {
+        long posicion = cabeza.get();
+        acciones[(int) posicion & mascara] = null;
+        cabeza.lazySet(posicion + 1);
+    }
+}
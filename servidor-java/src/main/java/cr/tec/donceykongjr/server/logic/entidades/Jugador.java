@@ -5,7 +5,6 @@ import cr.tec.donceykongjr.server.util.Config;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -14,7 +13,7 @@ import java.util.stream.Collectors;
  * Representa al jugador (Donkey Kong Jr.) con fisica y maquina de estados completa.
  */
 public class Jugador extends Entidad {
-    private final Object inputLock = new Object();
+    private final AnilloInputs inputs = new AnilloInputs(Config.CAPACIDAD_BUFFER_INPUTS);
     private final Map<Integer, Liana> lianasPorId;
     private final double spawnX;
     private final double spawnY;
@@ -33,11 +32,10 @@ public class Jugador extends Entidad {
     private double celebracionTimer;
     private double cambioLianaCooldown; // Cooldown para prevenir múltiples cambios de liana
 
-    private boolean moveLeftRequested;
-    private boolean moveRightRequested;
-    private boolean moveUpRequested;
-    private boolean moveDownRequested;
-    private boolean jumpRequested;
+    private long ultimaSecuenciaRecibida;            // Protegida por el monitor de inputs (productores)
+    private volatile long ultimoTick;                // Último tick simulado; acota el tick de los inputs
+    private volatile long ultimaSecuenciaProcesada;  // Se confirma al cliente en cada STATE
+    private volatile double latenciaMs;              // RTT medido por la red; 0 si no se conoce
 
     /**
      * Crea un nuevo jugador listo para integrarse al mapa actual.
@@ -70,8 +68,24 @@ public class Jugador extends Entidad {
         respawnEnSpawn();
     }
 
+    /**
+     * Avanza el jugador aplicando todos los inputs pendientes, sin importar su tick.
+     */
     @Override
     public void actualizar(double deltaTime) {
+        actualizar(deltaTime, Long.MAX_VALUE);
+    }
+
+    /**
+     * Avanza el jugador un tick aplicando los inputs dirigidos a ese tick o a uno anterior.
+     *
+     * @param deltaTime duración del tick en segundos
+     * @param tick tick que se está simulando
+     */
+    public void actualizar(double deltaTime, long tick) {
+        if (tick != Long.MAX_VALUE) {
+            ultimoTick = tick;
+        }
         if (!activo) {
             return;
         }
@@ -79,10 +93,12 @@ public class Jugador extends Entidad {
         actualizarTemporizadores(deltaTime);
 
         if (estado == EstadoJugador.MUERTO || estado == EstadoJugador.CELEBRANDO) {
+            // Lo enviado mientras no se puede mover se descarta, pero se confirma
+            descartarInputs(tick);
             return;
         }
 
-        InputSnapshot input = consumirInputs();
+        InputSnapshot input = consumirInputs(tick);
 
         switch (estado) {
             case SUELO -> actualizarEnSuelo(input, deltaTime);
@@ -347,62 +363,126 @@ public class Jugador extends Entidad {
      * @return true si se acepto, false si se ignoro por estado invalido
      */
     public boolean registrarInput(String accion) {
+        return registrarInput(accion, 0, 0);
+    }
+
+    /**
+     * Encola un input recibido desde la red. Normalmente lo llama solo el hilo de la
+     * conexión del jugador, pero al reanudar una sesión la conexión anterior puede seguir
+     * leyendo un momento junto a la nueva: los productores se serializan sobre la cola,
+     * que admite uno solo a la vez (ver {@link AnilloInputs}).
+     *
+     * @param accion comando recibido
+     * @param secuencia número de secuencia del cliente, creciente; 0 si no lo envía
+     * @param tick tick al que va dirigido; 0 para el siguiente tick. Se acota a
+     *             {@link Config#VENTANA_INPUTS_FUTUROS_TICKS} ticks después del último simulado
+     * @return true si se encoló, false si se ignoró por estado inválido, comando
+     *         desconocido, secuencia repetida o cola llena
+     */
+    public boolean registrarInput(String accion, long secuencia, long tick) {
+        return registrarInput(AccionJugador.desde(accion), secuencia, tick);
+    }
+
+    /**
+     * Encola un input cuya acción ya se tradujo, como hace el lector de INPUT de la red.
+     *
+     * @param comando acción, o null si el comando no existía
+     * @see #registrarInput(String, long, long)
+     */
+    public boolean registrarInput(AccionJugador comando, long secuencia, long tick) {
         if (!activo || estado == EstadoJugador.MUERTO || estado == EstadoJugador.CELEBRANDO) {
             return false;
         }
-        if (accion == null) {
+        if (comando == null) {
             return false;
         }
+        long limite = ultimoTick + Config.VENTANA_INPUTS_FUTUROS_TICKS;
+        synchronized (inputs) {
+            if (secuencia > 0 && secuencia <= ultimaSecuenciaRecibida) {
+                return false;
+            }
+            if (!inputs.ofrecer(comando, secuencia, Math.min(tick, limite))) {
+                return false;
+            }
+            if (secuencia > 0) {
+                ultimaSecuenciaRecibida = secuencia;
+            }
+            return true;
+        }
+    }
 
-        String comando = accion.trim().toUpperCase(Locale.ROOT);
-        synchronized (inputLock) {
-            switch (comando) {
-                case "LEFT":
-                case "MOVE_LEFT":
-                    moveLeftRequested = true;
-                    return true;
-                case "RIGHT":
-                case "MOVE_RIGHT":
-                    moveRightRequested = true;
-                    return true;
-                case "MOVE_UP":
-                case "UP":
-                    moveUpRequested = true;
-                    return true;
-                case "MOVE_DOWN":
-                case "DOWN":
-                    moveDownRequested = true;
-                    return true;
-                case "JUMP":
-                    jumpRequested = true;
-                    return true;
-                case "GRAB":
+    /**
+     * Toma en orden los inputs listos para este tick y los combina.
+     *
+     * <p>Varias pulsaciones de dirección en el mismo tick equivalen a una (el cliente
+     * las repite mientras la tecla sigue presionada). Un segundo salto o agarre, y todo
+     * lo que llegue después de un salto, queda para el tick siguiente: así no se
+     * pierden pulsaciones repetidas y una dirección enviada tras saltar se aplica ya
+     * en el aire.</p>
+     */
+    private InputSnapshot consumirInputs(long tick) {
+        boolean left = false;
+        boolean right = false;
+        boolean up = false;
+        boolean down = false;
+        boolean jump = false;
+        boolean grab = false;
+
+        while (inputs.hayListo(tick)) {
+            AccionJugador accion = inputs.accion();
+            if ((accion == AccionJugador.AGARRAR && grab) || (accion == AccionJugador.SALTAR && jump)) {
+                break;
+            }
+            switch (accion) {
+                case IZQUIERDA -> left = true;
+                case DERECHA -> right = true;
+                case ARRIBA -> up = true;
+                case ABAJO -> down = true;
+                case SALTAR -> jump = true;
+                case AGARRAR -> {
+                    grab = true;
                     grabBufferTimer = Config.JUGADOR_GRAB_BUFFER;
-                    return true;
-                default:
-                    return false;
+                }
+            }
+            confirmarPrimerInput();
+            if (jump) {
+                break;
             }
         }
+        return new InputSnapshot(left, right, up, down, jump);
     }
 
-    private InputSnapshot consumirInputs() {
-        synchronized (inputLock) {
-            InputSnapshot snapshot = new InputSnapshot(
-                    moveLeftRequested,
-                    moveRightRequested,
-                    moveUpRequested,
-                    moveDownRequested,
-                    jumpRequested
-            );
-
-            moveLeftRequested = false;
-            moveRightRequested = false;
-            moveUpRequested = false;
-            moveDownRequested = false;
-            jumpRequested = false;
+    private void descartarInputs(long tick) {
+        while (inputs.hayListo(tick)) {
+            confirmarPrimerInput();
+        }
+    }
 
-            return snapshot;
+    private void confirmarPrimerInput() {
+        long secuencia = inputs.secuencia();
+        if (secuencia > ultimaSecuenciaProcesada) {
+            ultimaSecuenciaProcesada = secuencia;
         }
+        inputs.avanzar();
+    }
+
+    /**
+     * Secuencia del último input aplicado (o descartado) en un tick; 0 si el cliente
+     * no numera sus inputs.
+     */
+    public long getUltimaSecuenciaProcesada() {
+        return ultimaSecuenciaProcesada;
+    }
+
+    /**
+     * RTT del cliente del jugador en milisegundos, o 0 si aún no se ha medido.
+     */
+    public double getLatenciaMs() {
+        return latenciaMs;
+    }
+
+    public void setLatenciaMs(double latenciaMs) {
+        this.latenciaMs = latenciaMs;
     }
 
     /**
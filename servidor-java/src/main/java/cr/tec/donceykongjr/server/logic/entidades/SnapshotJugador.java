@@ -18,6 +18,7 @@ public final class SnapshotJugador {
     private final int lives;
     private final boolean activo;
     private final boolean celebrando;
+    private final long ultimaSecuenciaProcesada;
     private final long snapshotTimestamp;
 
     /**
@@ -39,6 +40,7 @@ public final class SnapshotJugador {
         this.lives = jugador.getVidas();
         this.activo = jugador.isActivo();
         this.celebrando = jugador.estaCelebrando();
+        this.ultimaSecuenciaProcesada = jugador.getUltimaSecuenciaProcesada();
         this.snapshotTimestamp = System.currentTimeMillis();
     }
 
@@ -97,4 +99,8 @@ public final class SnapshotJugador {
     public long getSnapshotTimestamp() {
         return snapshotTimestamp;
     }
+
+    public long getUltimaSecuenciaProcesada() {
+        return ultimaSecuenciaProcesada;
+    }
 }
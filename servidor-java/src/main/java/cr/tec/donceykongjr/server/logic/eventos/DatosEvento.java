@@ -0,0 +1,20 @@
+package cr.tec.donceykongjr.server.logic.eventos;
+
+/**
+ * Datos que acompañan a un {@link EventoJuego}. Los campos que no aplican al tipo de
+ * evento quedan en null y no viajan al cliente.
+ *
+ * @param jugadorId jugador al que se refiere el evento ({@code playerId})
+ * @param puntos puntos ganados, en FRUIT_TAKEN ({@code points})
+ * @param causa causa del golpe, en PLAYER_HIT: "CROCODILE:&lt;id&gt;", "MARIO:&lt;id&gt;", "ABYSS"
+ *              o "WATER" ({@code cause})
+ */
+public record DatosEvento(String jugadorId, Integer puntos, String causa) {
+
+    /**
+     * Datos de un evento que solo identifica al jugador.
+     */
+    public DatosEvento(String jugadorId) {
+        this(jugadorId, null, null);
+    }
+}
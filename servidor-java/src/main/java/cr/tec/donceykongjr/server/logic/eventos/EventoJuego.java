@@ -13,12 +13,12 @@ public class EventoJuego {
     }
     
     private TipoEvento tipo;
-    private Object payload; // Datos adicionales del evento
+    private DatosEvento payload; // Datos adicionales del evento
     
     /**
      * Crea un nuevo evento.
      */
-    public EventoJuego(TipoEvento tipo, Object payload) {
+    public EventoJuego(TipoEvento tipo, DatosEvento payload) {
         this.tipo = tipo;
         this.payload = payload;
     }
@@ -34,7 +34,7 @@ public class EventoJuego {
         return tipo;
     }
     
-    public Object getPayload() {
+    public DatosEvento getPayload() {
         return payload;
     }
     
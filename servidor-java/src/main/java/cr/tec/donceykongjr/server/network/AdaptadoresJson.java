@@ -0,0 +1,184 @@
+package cr.tec.donceykongjr.server.network;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import cr.tec.donceykongjr.server.logic.eventos.DatosEvento;
+
+import java.io.IOException;
+
+/**
+ * TypeAdapters escritos a mano para los records que el servidor difunde
+ * ({@link FrameEstado} con sus entidades, {@link FrameEvento} y {@link DatosEvento}).
+ *
+ * <p>Cada campo va del record al JsonWriter sin reflexión ni boxing. Las claves salen en
+ * el orden en que Gson recorría los HashMap que estos records reemplazan, así que el
+ * JSON es idéntico al de antes. Un valor null se omite o se escribe como null según el
+ * Gson que serializa (el de deltas usa serializeNulls).</p>
+ *
+ * <p>Solo serializan: el servidor nunca lee estos mensajes.</p>
+ */
+final class AdaptadoresJson {
+
+    private AdaptadoresJson() {
+    }
+
+    /**
+     * Registra los adaptadores en un builder de Gson.
+     *
+     * @return el mismo builder
+     */
+    static GsonBuilder registrar(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(FrameEstado.class, new Escritura<FrameEstado>(AdaptadoresJson::escribirEstado).nullSafe())
+                .registerTypeAdapter(FrameEstado.DatosJugador.class,
+                        new Escritura<FrameEstado.DatosJugador>(AdaptadoresJson::escribirJugador).nullSafe())
+                .registerTypeAdapter(FrameEstado.DatosCocodrilo.class,
+                        new Escritura<FrameEstado.DatosCocodrilo>(AdaptadoresJson::escribirCocodrilo).nullSafe())
+                .registerTypeAdapter(FrameEstado.DatosFruta.class,
+                        new Escritura<FrameEstado.DatosFruta>(AdaptadoresJson::escribirFruta).nullSafe())
+                .registerTypeAdapter(FrameEstado.DatosMario.class,
+                        new Escritura<FrameEstado.DatosMario>(AdaptadoresJson::escribirMario).nullSafe())
+                .registerTypeAdapter(FrameEvento.class, new Escritura<FrameEvento>(AdaptadoresJson::escribirEvento).nullSafe())
+                .registerTypeAdapter(DatosEvento.class, new Escritura<DatosEvento>(AdaptadoresJson::escribirDatosEvento).nullSafe());
+    }
+
+    /**
+     * Objeto {@code data} de un STATE.
+     */
+    static void escribirEstado(JsonWriter salida, FrameEstado estado) throws IOException {
+        salida.beginObject();
+        salida.name("crocodiles").beginArray();
+        for (FrameEstado.DatosCocodrilo cocodrilo : estado.cocodrilos()) {
+            escribirCocodrilo(salida, cocodrilo);
+        }
+        salida.endArray();
+        salida.name("paused").value(estado.pausado());
+        salida.name("fruits").beginArray();
+        for (FrameEstado.DatosFruta fruta : estado.frutas()) {
+            escribirFruta(salida, fruta);
+        }
+        salida.endArray();
+        salida.name("players").beginArray();
+        for (FrameEstado.DatosJugador jugador : estado.jugadores()) {
+            escribirJugador(salida, jugador);
+        }
+        salida.endArray();
+        decimal(salida, "speedMultiplier", estado.multiplicadorVelocidad());
+        if (estado.mario() != null) {
+            salida.name("mario");
+            escribirMario(salida, estado.mario());
+        }
+        salida.name("tick").value(estado.tick());
+        decimal(salida, "celebrationTimer", estado.tiempoCelebracion());
+        salida.name("celebrationPending").value(estado.celebracionPendiente());
+        salida.endObject();
+    }
+
+    static void escribirJugador(JsonWriter salida, FrameEstado.DatosJugador jugador) throws IOException {
+        salida.beginObject();
+        decimal(salida, "vx", jugador.vx());
+        decimal(salida, "vy", jugador.vy());
+        salida.name("lives").value(jugador.vidas());
+        salida.name("ack").value(jugador.ack());
+        salida.name("facing").value(jugador.direccion().name());
+        salida.name("active").value(jugador.activo());
+        salida.name("lianaId").value(jugador.lianaId());
+        salida.name("score").value(jugador.puntaje());
+        salida.name("liana").value(jugador.liana());
+        decimal(salida, "x", jugador.x());
+        decimal(salida, "y", jugador.y());
+        salida.name("id").value(jugador.id());
+        salida.name("state").value(jugador.estado().name());
+        salida.name("celebrating").value(jugador.celebrando());
+        salida.endObject();
+    }
+
+    static void escribirCocodrilo(JsonWriter salida, FrameEstado.DatosCocodrilo cocodrilo) throws IOException {
+        salida.beginObject();
+        salida.name("liana").value(cocodrilo.liana());
+        salida.name("kind").value(cocodrilo.tipo().toString());
+        decimal(salida, "y", cocodrilo.y());
+        salida.name("id").value(cocodrilo.id());
+        salida.endObject();
+    }
+
+    static void escribirFruta(JsonWriter salida, FrameEstado.DatosFruta fruta) throws IOException {
+        salida.beginObject();
+        salida.name("liana").value(fruta.liana());
+        decimal(salida, "y", fruta.y());
+        salida.name("id").value(fruta.id());
+        salida.name("points").value(fruta.puntos());
+        salida.endObject();
+    }
+
+    static void escribirMario(JsonWriter salida, FrameEstado.DatosMario mario) throws IOException {
+        salida.beginObject();
+        salida.name("liana").value(mario.liana());
+        decimal(salida, "y", mario.y());
+        salida.name("id").value(mario.id());
+        salida.endObject();
+    }
+
+    /**
+     * Mensaje EVENT completo.
+     */
+    static void escribirEvento(JsonWriter salida, FrameEvento evento) throws IOException {
+        salida.beginObject();
+        salida.name("type").value(Mensaje.TipoMensaje.EVENT.name());
+        salida.name("name").value(evento.tipo().toString());
+        if (evento.datos() != null) {
+            salida.name("payload");
+            escribirDatosEvento(salida, evento.datos());
+        }
+        salida.endObject();
+    }
+
+    static void escribirDatosEvento(JsonWriter salida, DatosEvento datos) throws IOException {
+        salida.beginObject();
+        salida.name("cause").value(datos.causa());
+        salida.name("playerId").value(datos.jugadorId());
+        salida.name("points").value(datos.puntos());
+        salida.endObject();
+    }
+
+    /**
+     * Escribe un double como el adaptador de Gson: NaN e infinitos no son JSON válido.
+     */
+    private static void decimal(JsonWriter salida, String nombre, double valor) throws IOException {
+        if (!Double.isFinite(valor)) {
+            throw new IllegalArgumentException(nombre + " no es un número finito: " + valor);
+        }
+        salida.name(nombre).value(valor);
+    }
+
+    /**
+     * Serialización de un record campo por campo.
+     */
+    @FunctionalInterface
+    private interface Escritor<T> {
+        void escribir(JsonWriter salida, T valor) throws IOException;
+    }
+
+    /**
+     * TypeAdapter de solo escritura.
+     */
+    private static final class Escritura<T> extends TypeAdapter<T> {
+        private final Escritor<T> escritor;
+
+        Escritura(Escritor<T> escritor) {
+            this.escritor = escritor;
+        }
+
+        @Override
+        public void write(JsonWriter salida, T valor) throws IOException {
+            escritor.escribir(salida, valor);
+        }
+
+        @Override
+        public T read(JsonReader entrada) {
+            throw new UnsupportedOperationException("el servidor no lee este mensaje");
+        }
+    }
+}
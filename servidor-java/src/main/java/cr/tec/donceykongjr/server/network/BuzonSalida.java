@@ -0,0 +1,182 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Buzón de salida acotado de una conexión.
+ *
+ * <p>El hilo del GameLoop solo deposita mensajes aquí y regresa de inmediato; el
+ * escritor de la conexión los retira y los escribe al socket a su propio ritmo, de
+ * modo que un cliente lento no alarga el tick.</p>
+ *
+ * <ul>
+ *   <li><b>Estado:</b> ranura única. Un estado nuevo reemplaza al que no se alcanzó a
+ *       enviar, así el cliente siempre recibe el más reciente.</li>
+ *   <li><b>Keyframe:</b> ranura única para clientes con deltas. Se envía antes que el
+ *       estado pendiente, que siempre es un delta sobre ese keyframe o uno posterior.</li>
+ *   <li><b>Eventos y errores:</b> cola FIFO de capacidad {@link Config#CAPACIDAD_BUZON_SALIDA}.
+ *       Se envían antes que el estado pendiente.</li>
+ * </ul>
+ *
+ * <p>Si el buzón permanece saturado más de {@link Config#GRACIA_BUZON_LLENO_MS} se
+ * aplica la {@link Politica} configurada.</p>
+ */
+class BuzonSalida {
+
+    /**
+     * Acción a tomar cuando el buzón sigue saturado pasada la gracia.
+     */
+    enum Politica {
+        DESCONECTAR,  // Cerrar la conexión del cliente lento
+        DESCARTAR;    // Mantener la conexión y descartar los eventos que no caben
+
+        static Politica desde(String nombre) {
+            try {
+                return valueOf(nombre.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                LoggerUtil.warning("politica de buzon desconocida: " + nombre + ", usando DESCONECTAR");
+                return DESCONECTAR;
+            }
+        }
+    }
+
+    /**
+     * Resultado de depositar un mensaje.
+     */
+    enum Resultado {
+        ACEPTADO,    // Quedó en el buzón
+        DESCARTADO,  // No cabía y la política permite seguir
+        DESCONECTAR  // El cliente debe desconectarse
+    }
+
+    private static final Politica POLITICA = Politica.desde(Config.POLITICA_BUZON_LLENO);
+
+    private final Queue<byte[]> mensajes;
+    private final AtomicReference<byte[]> keyframePendiente;
+    private final AtomicReference<byte[]> estadoPendiente;
+    private final long graciaNanos;
+    private final AtomicLong descartados;
+    private final AtomicLong estadosReemplazados;
+    private volatile long saturadoDesde;
+
+    BuzonSalida() {
+        this.mensajes = new ArrayBlockingQueue<>(Config.CAPACIDAD_BUZON_SALIDA);
+        this.keyframePendiente = new AtomicReference<>();
+        this.estadoPendiente = new AtomicReference<>();
+        this.graciaNanos = Config.GRACIA_BUZON_LLENO_MS * 1_000_000L;
+        this.descartados = new AtomicLong();
+        this.estadosReemplazados = new AtomicLong();
+    }
+
+    /**
+     * Deposita un estado, reemplazando al pendiente si el escritor no lo ha tomado.
+     */
+    Resultado ofrecerEstado(byte[] linea) {
+        return reemplazar(estadoPendiente, linea);
+    }
+
+    /**
+     * Deposita un keyframe. Descarta el estado pendiente: era un delta sobre un
+     * keyframe anterior (o un estado completo) y el nuevo keyframe ya lo cubre.
+     */
+    Resultado ofrecerKeyframe(byte[] linea) {
+        estadoPendiente.set(null);
+        return reemplazar(keyframePendiente, linea);
+    }
+
+    private Resultado reemplazar(AtomicReference<byte[]> ranura, byte[] linea) {
+        if (ranura.getAndSet(linea) == null) {
+            return Resultado.ACEPTADO;
+        }
+        estadosReemplazados.incrementAndGet();
+        return registrarSaturacion() ? Resultado.DESCONECTAR : Resultado.ACEPTADO;
+    }
+
+    /**
+     * Deposita un evento o mensaje de error en la cola.
+     */
+    Resultado ofrecer(byte[] linea) {
+        if (mensajes.offer(linea)) {
+            return Resultado.ACEPTADO;
+        }
+        descartados.incrementAndGet();
+        return registrarSaturacion() ? Resultado.DESCONECTAR : Resultado.DESCARTADO;
+    }
+
+    /**
+     * Retira el siguiente mensaje a escribir: primero la cola, luego el keyframe y
+     * por último el estado.
+     * Solo lo llama el escritor de la conexión.
+     *
+     * @return bytes a escribir, o null si el buzón está vacío
+     */
+    byte[] siguiente() {
+        byte[] linea = mensajes.poll();
+        if (linea == null) {
+            linea = keyframePendiente.getAndSet(null);
+        }
+        if (linea == null) {
+            linea = estadoPendiente.getAndSet(null);
+        }
+        if (linea != null) {
+            saturadoDesde = 0;
+        }
+        return linea;
+    }
+
+    boolean estaVacio() {
+        return mensajes.isEmpty() && keyframePendiente.get() == null && estadoPendiente.get() == null;
+    }
+
+    void vaciar() {
+        mensajes.clear();
+        keyframePendiente.set(null);
+        estadoPendiente.set(null);
+    }
+
+    /**
+     * Mensajes de la cola descartados por falta de espacio.
+     */
+    long getDescartados() {
+        return descartados.get();
+    }
+
+    /**
+     * Estados reemplazados por uno más nuevo antes de enviarse.
+     */
+    long getEstadosReemplazados() {
+        return estadosReemplazados.get();
+    }
+
+    /**
+     * Marca el inicio de la saturación y decide si ya se agotó la gracia.
+     * El contador se reinicia cada vez que el escritor retira un mensaje.
+     *
+     * @return true si la política exige desconectar al cliente
+     */
+    private boolean registrarSaturacion() {
+        long ahora = System.nanoTime();
+        long desde = saturadoDesde;
+        if (desde == 0) {
+            saturadoDesde = ahora;
+            return false;
+        }
+        if (ahora - desde < graciaNanos) {
+            return false;
+        }
+        if (POLITICA == Politica.DESCONECTAR) {
+            return true;
+        }
+        // DESCARTAR: se reinicia la ventana para avisar una vez por período de gracia
+        saturadoDesde = ahora;
+        LoggerUtil.warning("buzón de salida saturado: " + descartados.get() + " mensajes descartados");
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package cr.tec.donceykongjr.server.network;
+
+/**
+ * Canal de salida hacia un cliente, independiente del transporte usado.
+ * Permite que {@link ManejadorCliente} envíe mensajes sin conocer si la
+ * conexión es un socket bloqueante o un canal NIO.
+ *
+ * <p>Los métodos {@code enviar*} solo depositan en el {@link BuzonSalida}; nada se
+ * escribe hasta {@link #descargar()}. Así los eventos y el estado de un mismo tick
+ * salen juntos en una sola escritura al socket en lugar de una por mensaje.</p>
+ */
+interface CanalCliente {
+
+    /**
+     * Deposita un mensaje ya codificado para el cliente.
+     * No bloquea: el mensaje queda en el {@link BuzonSalida} de la conexión hasta la
+     * siguiente {@link #descargar()}.
+     *
+     * @param linea bytes UTF-8 del mensaje incluyendo el '\n' final; el arreglo puede
+     *              estar compartido entre conexiones y no debe modificarse
+     */
+    void enviar(byte[] linea);
+
+    /**
+     * Envía un estado (completo o delta). Si el anterior aún no se escribió, se
+     * reemplaza: al cliente solo le interesa el estado más reciente.
+     *
+     * @param linea estado del tick ya codificado
+     */
+    void enviarEstado(byte[] linea);
+
+    /**
+     * Envía un keyframe, la base sobre la que el cliente aplica los deltas siguientes.
+     * Reemplaza al keyframe y al estado que aún no se hayan escrito.
+     *
+     * @param linea estado completo ya codificado
+     */
+    void enviarKeyframe(byte[] linea);
+
+    /**
+     * Activa la compresión deflate de la conexión (ver {@link CompresorMensajes}). Se
+     * aplica a lo que el escritor tome del buzón desde ahora, incluido lo ya depositado.
+     */
+    void activarCompresion();
+
+    /**
+     * Pide al escritor de la conexión que escriba en un solo lote todo lo depositado.
+     * No bloquea. Se invoca al terminar el tick y tras cada respuesta directa al cliente.
+     */
+    void descargar();
+
+    /**
+     * Cierra la conexión subyacente después de escribir lo pendiente y libera sus recursos.
+     */
+    void cerrar();
+
+    /**
+     * Cierra la conexión de inmediato, descartando lo pendiente. A diferencia de
+     * {@link #cerrar()} no espera a que el cliente lea: sirve para pares muertos cuyo
+     * buffer de envío nunca se vaciará.
+     */
+    void abortar();
+}
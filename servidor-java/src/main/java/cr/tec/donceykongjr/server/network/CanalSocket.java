@@ -0,0 +1,144 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Canal bloqueante sobre un {@link Socket}, usado en los modos HILOS y VIRTUAL.
+ *
+ * <p>Quien envía solo deposita en el {@link BuzonSalida}; un hilo escritor propio de
+ * la conexión despierta con {@link #descargar()}, copia todo lo pendiente al buffer de
+ * salida y hace una sola descarga (flush) cuando no queda nada. El escritor es
+ * virtual si el lector lo es, y de plataforma en otro caso.</p>
+ */
+class CanalSocket implements CanalCliente {
+    private static final int TAMANO_BUFFER_SALIDA = 16 * 1024;
+
+    private final Socket socket;
+    private final OutputStream salida;
+    private final BuzonSalida buzon;
+    private final Runnable alSaturarse;
+    private final Thread escritor;
+    private volatile CompresorMensajes compresor;
+    private volatile boolean cierrePendiente;
+
+    /**
+     * Crea el canal y arranca su hilo escritor.
+     *
+     * @param socket socket conectado del cliente
+     * @param alSaturarse acción a ejecutar si la política del buzón exige desconectar
+     * @throws IOException si no se puede obtener el flujo de salida
+     */
+    CanalSocket(Socket socket, Runnable alSaturarse) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        this.salida = new BufferedOutputStream(socket.getOutputStream(), TAMANO_BUFFER_SALIDA);
+        this.buzon = new BuzonSalida();
+        this.alSaturarse = alSaturarse;
+        Thread.Builder constructor = Thread.currentThread().isVirtual()
+                ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon(true);
+        this.escritor = constructor.name("escritor-" + socket.getPort()).start(this::escribirPendientes);
+    }
+
+    @Override
+    public void enviar(byte[] linea) {
+        procesar(buzon.ofrecer(linea));
+    }
+
+    @Override
+    public void enviarEstado(byte[] linea) {
+        procesar(buzon.ofrecerEstado(linea));
+    }
+
+    @Override
+    public void enviarKeyframe(byte[] linea) {
+        procesar(buzon.ofrecerKeyframe(linea));
+    }
+
+    private void procesar(BuzonSalida.Resultado resultado) {
+        if (resultado == BuzonSalida.Resultado.DESCONECTAR) {
+            LoggerUtil.warning("cliente lento: buzón de salida saturado, desconectando");
+            cerrarSocket();
+            alSaturarse.run();
+        }
+    }
+
+    @Override
+    public void activarCompresion() {
+        if (compresor == null) {
+            compresor = new CompresorMensajes();
+        }
+    }
+
+    @Override
+    public void descargar() {
+        LockSupport.unpark(escritor);
+    }
+
+    /**
+     * Bucle del escritor: en cada despertar escribe todos los mensajes pendientes al
+     * buffer y descarga una vez al quedar vacío.
+     */
+    private void escribirPendientes() {
+        try {
+            while (!socket.isClosed()) {
+                byte[] linea = buzon.siguiente();
+                if (linea != null) {
+                    CompresorMensajes c = compresor;
+                    salida.write(c != null ? c.empaquetar(linea) : linea);
+                    continue;
+                }
+                salida.flush();
+                if (cierrePendiente) {
+                    break;
+                }
+                LockSupport.park(this);
+            }
+        } catch (IOException e) {
+            LoggerUtil.debug("error al escribir al cliente: " + e.getMessage());
+        } finally {
+            buzon.vaciar();
+            CompresorMensajes c = compresor;
+            if (c != null) {
+                c.liberar();
+            }
+            cerrarSocket();
+        }
+    }
+
+    /**
+     * Pide al escritor que envíe lo pendiente (por ejemplo, un error) y luego cierre.
+     */
+    @Override
+    public void cerrar() {
+        cierrePendiente = true;
+        LockSupport.unpark(escritor);
+    }
+
+    /**
+     * Cierra el socket sin esperar al escritor: si está bloqueado en una escritura,
+     * esta falla y el escritor libera el buzón y el compresor al salir.
+     */
+    @Override
+    public void abortar() {
+        cierrePendiente = true;
+        cerrarSocket();
+        LockSupport.unpark(escritor);
+    }
+
+    private void cerrarSocket() {
+        try {
+            if (!socket.isClosed()) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            LoggerUtil.error("error al cerrar socket: " + e.getMessage());
+        }
+    }
+}
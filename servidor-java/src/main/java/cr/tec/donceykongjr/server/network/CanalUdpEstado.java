@@ -0,0 +1,132 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canal UDP opcional por el que viajan los frames de estado.
+ *
+ * <p>Sobre TCP un segmento perdido retrasa todos los estados posteriores hasta que se
+ * retransmite, aunque cada estado reemplaza al anterior. Por UDP un estado perdido solo
+ * se pierde él. CONNECT, INPUT, EVENT y ERROR siguen por TCP.</p>
+ *
+ * <p>Registro: tras CONNECT el cliente envía {@code UDP_OPEN} por TCP y recibe un
+ * token ({@code UDP_TOKEN}). Luego manda datagramas con ese token al mismo puerto UDP
+ * hasta que le lleguen estados; cada estado que aplica lo confirma igual (ver
+ * {@link SesionUdp}). Un único socket y un único hilo receptor atienden a todos los
+ * clientes; los envíos se hacen desde el hilo que difunde el estado.</p>
+ */
+class CanalUdpEstado {
+    /** u64 token + u32 secuencia confirmada. */
+    static final int LONGITUD_CONFIRMACION = Long.BYTES + Integer.BYTES;
+
+    private final DatagramChannel canal;
+    private final int puerto;
+    private final Map<Long, SesionUdp> sesiones;
+    private final SecureRandom aleatorio;
+    private final Thread receptor;
+
+    /**
+     * Abre el socket UDP y arranca el hilo receptor.
+     *
+     * @param puerto puerto UDP de escucha (0 para uno libre)
+     * @throws IOException si no se puede abrir el puerto
+     */
+    CanalUdpEstado(int puerto) throws IOException {
+        this.canal = DatagramChannel.open();
+        this.canal.bind(new InetSocketAddress(puerto));
+        this.puerto = ((InetSocketAddress) canal.getLocalAddress()).getPort();
+        this.sesiones = new ConcurrentHashMap<>();
+        this.aleatorio = new SecureRandom();
+        this.receptor = Thread.ofPlatform().daemon(true).name("udp-estado").start(this::recibir);
+    }
+
+    int getPuerto() {
+        return puerto;
+    }
+
+    /**
+     * Crea la sesión de un cliente con un token aleatorio no nulo.
+     * El token cabe en 53 bits para que los clientes JSON lo lean sin perder precisión.
+     */
+    SesionUdp abrirSesion() {
+        while (true) {
+            long token = aleatorio.nextLong() >>> 11;
+            if (token == 0) {
+                continue;
+            }
+            SesionUdp sesion = new SesionUdp(token);
+            if (sesiones.putIfAbsent(token, sesion) == null) {
+                return sesion;
+            }
+        }
+    }
+
+    void cerrarSesion(SesionUdp sesion) {
+        sesiones.remove(sesion.getToken());
+    }
+
+    /**
+     * Envía un frame de estado a la dirección registrada de la sesión.
+     *
+     * @return false si la sesión no tiene destino o el envío falló
+     */
+    boolean enviar(SesionUdp sesion, byte[] frame) {
+        InetSocketAddress destino = sesion.getDestino();
+        if (destino == null) {
+            return false;
+        }
+        try {
+            canal.send(sesion.empaquetar(frame), destino);
+            return true;
+        } catch (IOException e) {
+            LoggerUtil.debug("error al enviar estado udp: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void recibir() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        while (canal.isOpen()) {
+            try {
+                buffer.clear();
+                SocketAddress origen = canal.receive(buffer);
+                buffer.flip();
+                if (buffer.remaining() < LONGITUD_CONFIRMACION) {
+                    continue;
+                }
+                SesionUdp sesion = sesiones.get(buffer.getLong());
+                if (sesion != null) {
+                    sesion.confirmar(buffer.getInt(), (InetSocketAddress) origen);
+                }
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                LoggerUtil.debug("error al recibir datagrama: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Cierra el socket; el receptor termina al detectarlo.
+     */
+    void detener() {
+        try {
+            canal.close();
+            receptor.join(1000);
+        } catch (IOException e) {
+            LoggerUtil.error("error al cerrar canal udp: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
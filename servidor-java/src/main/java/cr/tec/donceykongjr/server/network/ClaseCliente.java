@@ -0,0 +1,53 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.Config;
+
+/**
+ * Clases de cliente con su propia frecuencia de envío de estado.
+ *
+ * <p>La simulación corre a {@link Config#TICKS_POR_SEGUNDO}; cada clase recibe el
+ * estado uno de cada {@link #getIntervaloTicks()} ticks. {@link DifusorEstado} marca en
+ * cada {@link FrameCodificado} de estado a qué clases va.</p>
+ */
+enum ClaseCliente {
+    JUGADOR(Config.ESTADOS_POR_SEGUNDO_JUGADOR),
+    ESPECTADOR(Config.ESTADOS_POR_SEGUNDO_ESPECTADOR);
+
+    private static final ClaseCliente[] CLASES = values();
+
+    /** Máscara con todas las clases. */
+    static final int TODAS = (1 << CLASES.length) - 1;
+
+    private final int intervaloTicks;
+
+    ClaseCliente(int estadosPorSegundo) {
+        this.intervaloTicks = Math.max(1, Math.round((float) Config.TICKS_POR_SEGUNDO / estadosPorSegundo));
+    }
+
+    /**
+     * Ticks entre dos estados enviados a esta clase.
+     */
+    int getIntervaloTicks() {
+        return intervaloTicks;
+    }
+
+    /**
+     * Bit de la clase en la máscara de destinos de un frame.
+     */
+    int getBit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Máscara de las clases a las que les toca recibir el estado del tick.
+     */
+    static int destinosEn(long tick) {
+        int destinos = 0;
+        for (ClaseCliente clase : CLASES) {
+            if (tick % clase.intervaloTicks == 0) {
+                destinos |= clase.getBit();
+            }
+        }
+        return destinos;
+    }
+}
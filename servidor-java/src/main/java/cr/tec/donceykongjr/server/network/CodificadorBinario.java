@@ -0,0 +1,248 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.eventos.DatosEvento;
+import cr.tec.donceykongjr.server.logic.eventos.EventoJuego;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Codifica los mensajes del servidor en el protocolo binario que un cliente puede
+ * pedir en CONNECT con {@code "protocol":"BINARY"}.
+ *
+ * <p>Cada frame empieza con un byte de tipo y la longitud del contenido:</p>
+ * <pre>
+ * [u8 tipo][u16 longitud big-endian][contenido]
+ *
+ * STATE (1): varint tick, u8 banderas (1 paused, 2 celebrationPending, 4 mario),
+ *            varint speedMultiplier*1000, varint celebrationTimer*1000,
+ *            varint n jugadores   × {texto id, zz x, zz y, zz vx, zz vy, zz liana,
+ *                                    zz lianaId (-1 = null), u8 state, u8 facing,
+ *                                    varint lives, varint score, varint ack,
+ *                                    u8 banderas (1 active, 2 celebrating)}
+ *            varint n cocodrilos  × {texto id, u8 kind, varint liana, zz y}
+ *            varint n frutas      × {texto id, varint liana, zz y, varint points}
+ *            [mario: texto id, varint liana, zz y]
+ * EVENT (2): u8 tipo de evento, resto: payload JSON en UTF-8 (vacío si no hay)
+ * ERROR (3): resto: mensaje en UTF-8
+ * UDP_TOKEN (4): u64 token, u16 puerto UDP
+ * COMPRIMIDO (5): bloque deflate crudo con el mensaje original (línea JSON o frame),
+ *                 ver {@link CompresorMensajes}
+ * PING (6): varint seq; el cliente responde con la línea JSON PONG del mismo seq
+ * SESSION (7): u64 token, varint gracia en ms, u8 1 si la conexión retomó la sesión
+ * </pre>
+ *
+ * <p>varint es LEB128 sin signo, zz es zigzag + varint, texto es u8 longitud + UTF-8.
+ * Las posiciones y velocidades viajan en centésimas. Los códigos de estado, dirección,
+ * tipo de cocodrilo y evento son el ordinal del enum correspondiente: reordenar esos
+ * enums rompe el protocolo.</p>
+ *
+ * <p>El primer byte nunca es '{', así que el cliente distingue un frame de la línea
+ * JSON de estado que el servidor envía al aceptar la conexión, antes de leer CONNECT.</p>
+ */
+final class CodificadorBinario {
+    static final byte TIPO_ESTADO = 1;
+    static final byte TIPO_EVENTO = 2;
+    static final byte TIPO_ERROR = 3;
+    static final byte TIPO_TOKEN_UDP = 4;
+    static final byte TIPO_COMPRIMIDO = 5;
+    static final byte TIPO_PING = 6;
+    static final byte TIPO_SESION = 7;
+
+    static final int CABECERA = 3;
+    static final int LONGITUD_MAXIMA = 0xFFFF;
+    private static final double ESCALA_POSICION = 100.0;
+    private static final double ESCALA_MILESIMAS = 1000.0;
+
+    private CodificadorBinario() {
+    }
+
+    /**
+     * Codifica una captura del estado.
+     *
+     * @return frame STATE, o null si excede la longitud máxima
+     */
+    static byte[] codificarEstado(FrameEstado estado) {
+        Escritor escritor = new Escritor(TIPO_ESTADO);
+        FrameEstado.DatosMario mario = estado.mario();
+
+        escritor.varint(estado.tick());
+        escritor.u8((estado.pausado() ? 1 : 0)
+                | (estado.celebracionPendiente() ? 2 : 0)
+                | (mario != null ? 4 : 0));
+        escritor.varint(Math.round(estado.multiplicadorVelocidad() * ESCALA_MILESIMAS));
+        escritor.varint(Math.round(estado.tiempoCelebracion() * ESCALA_MILESIMAS));
+
+        escritor.varint(estado.jugadores().size());
+        for (FrameEstado.DatosJugador j : estado.jugadores()) {
+            escritor.texto(j.id());
+            escritor.fijo(j.x());
+            escritor.fijo(j.y());
+            escritor.fijo(j.vx());
+            escritor.fijo(j.vy());
+            escritor.zigzag(j.liana());
+            escritor.zigzag(j.lianaId() != null ? j.lianaId() : -1);
+            escritor.u8(j.estado().ordinal());
+            escritor.u8(j.direccion().ordinal());
+            escritor.varint(j.vidas());
+            escritor.varint(j.puntaje());
+            escritor.varint(j.ack());
+            escritor.u8((j.activo() ? 1 : 0) | (j.celebrando() ? 2 : 0));
+        }
+
+        escritor.varint(estado.cocodrilos().size());
+        for (FrameEstado.DatosCocodrilo c : estado.cocodrilos()) {
+            escritor.texto(c.id());
+            escritor.u8(c.tipo().ordinal());
+            escritor.varint(c.liana());
+            escritor.fijo(c.y());
+        }
+
+        escritor.varint(estado.frutas().size());
+        for (FrameEstado.DatosFruta f : estado.frutas()) {
+            escritor.texto(f.id());
+            escritor.varint(f.liana());
+            escritor.fijo(f.y());
+            escritor.varint(f.puntos());
+        }
+
+        if (mario != null) {
+            escritor.texto(mario.id());
+            escritor.varint(mario.liana());
+            escritor.fijo(mario.y());
+        }
+        return escritor.cerrar();
+    }
+
+    /**
+     * Codifica un evento; los datos, si existen, viajan como JSON.
+     *
+     * @return frame EVENT, o null si excede la longitud máxima
+     */
+    static byte[] codificarEvento(EventoJuego.TipoEvento tipo, DatosEvento datos) {
+        Escritor escritor = new Escritor(TIPO_EVENTO);
+        escritor.u8(tipo.ordinal());
+        if (datos != null) {
+            String json = JsonUtil.toJson(datos);
+            if (json != null) {
+                escritor.bytes(json.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return escritor.cerrar();
+    }
+
+    /**
+     * Codifica un mensaje de error.
+     *
+     * @return frame ERROR, o null si excede la longitud máxima
+     */
+    static byte[] codificarError(String mensajeError) {
+        Escritor escritor = new Escritor(TIPO_ERROR);
+        escritor.bytes(mensajeError.getBytes(StandardCharsets.UTF_8));
+        return escritor.cerrar();
+    }
+
+    /**
+     * Codifica la respuesta a UDP_OPEN.
+     */
+    static byte[] codificarTokenUdp(long token, int puerto) {
+        Escritor escritor = new Escritor(TIPO_TOKEN_UDP);
+        escritor.u64(token);
+        escritor.u8(puerto >>> 8);
+        escritor.u8(puerto);
+        return escritor.cerrar();
+    }
+
+    /**
+     * Codifica un PING de latido.
+     */
+    static byte[] codificarPing(long secuencia) {
+        Escritor escritor = new Escritor(TIPO_PING);
+        escritor.varint(secuencia);
+        return escritor.cerrar();
+    }
+
+    /**
+     * Codifica el mensaje SESSION con el token para reanudar la sesión del jugador.
+     */
+    static byte[] codificarSesion(long token, long graciaMs, boolean reanudada) {
+        Escritor escritor = new Escritor(TIPO_SESION);
+        escritor.u64(token);
+        escritor.varint(graciaMs);
+        escritor.u8(reanudada ? 1 : 0);
+        return escritor.cerrar();
+    }
+
+    /**
+     * Búfer creciente que reserva la cabecera del frame y la completa al cerrar.
+     */
+    private static final class Escritor {
+        private byte[] datos = new byte[256];
+        private int pos = CABECERA;
+
+        Escritor(byte tipo) {
+            datos[0] = tipo;
+        }
+
+        void u8(int valor) {
+            asegurar(1);
+            datos[pos++] = (byte) valor;
+        }
+
+        void u64(long valor) {
+            for (int desplazamiento = 56; desplazamiento >= 0; desplazamiento -= 8) {
+                u8((int) (valor >>> desplazamiento));
+            }
+        }
+
+        void varint(long valor) {
+            asegurar(10);
+            while ((valor & ~0x7FL) != 0) {
+                datos[pos++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            datos[pos++] = (byte) valor;
+        }
+
+        void zigzag(long valor) {
+            varint((valor << 1) ^ (valor >> 63));
+        }
+
+        void fijo(double valor) {
+            zigzag(Math.round(valor * ESCALA_POSICION));
+        }
+
+        void texto(String valor) {
+            byte[] utf8 = (valor != null ? valor : "").getBytes(StandardCharsets.UTF_8);
+            int longitud = Math.min(utf8.length, 0xFF);
+            u8(longitud);
+            asegurar(longitud);
+            System.arraycopy(utf8, 0, datos, pos, longitud);
+            pos += longitud;
+        }
+
+        void bytes(byte[] valor) {
+            asegurar(valor.length);
+            System.arraycopy(valor, 0, datos, pos, valor.length);
+            pos += valor.length;
+        }
+
+        byte[] cerrar() {
+            int longitud = pos - CABECERA;
+            if (longitud > LONGITUD_MAXIMA) {
+                LoggerUtil.error("frame binario de " + longitud + " bytes excede el máximo del protocolo");
+                return null;
+            }
+            datos[1] = (byte) (longitud >>> 8);
+            datos[2] = (byte) longitud;
+            return Arrays.copyOf(datos, pos);
+        }
+
+        private void asegurar(int adicional) {
+            if (pos + adicional > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length * 2, pos + adicional));
+            }
+        }
+    }
+}
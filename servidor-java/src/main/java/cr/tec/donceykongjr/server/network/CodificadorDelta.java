@@ -0,0 +1,190 @@
+package cr.tec.donceykongjr.server.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Calcula el delta entre dos capturas {@link FrameEstado}.
+ *
+ * <p>El delta siempre es relativo al último keyframe, no al tick anterior: así un
+ * cliente que pierde estados intermedios (el buzón de salida conserva solo el más
+ * reciente) puede aplicar cualquier delta mientras tenga el keyframe indicado.</p>
+ *
+ * <pre>
+ * {"delta":true,"tick":125,"baseTick":120,
+ *  "paused":true,                          ← solo campos raíz que cambiaron
+ *  "players":[{"id":"p1","y":310.5}],      ← entidades nuevas o con campos cambiados
+ *  "crocodiles":[...], "fruits":[...],
+ *  "removedFruits":["FRUTA_2"]}            ← ids que ya no existen
+ * </pre>
+ *
+ * <p>Los campos se comparan y agregan en el mismo orden en que salen en el STATE
+ * completo (ver {@link AdaptadoresJson}).</p>
+ */
+final class CodificadorDelta {
+
+    private CodificadorDelta() {
+    }
+
+    /**
+     * Construye el delta de {@code actual} respecto a {@code base}.
+     * Los valores que pasan a null se incluyen como null explícito.
+     *
+     * @param base estado del keyframe
+     * @param actual estado del tick actual
+     * @return mapa ordenado con los cambios
+     */
+    static Map<String, Object> calcular(FrameEstado base, FrameEstado actual) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("delta", true);
+        delta.put("tick", actual.tick());
+        delta.put("baseTick", base.tick());
+
+        if (base.pausado() != actual.pausado()) {
+            delta.put("paused", actual.pausado());
+        }
+        if (Double.compare(base.multiplicadorVelocidad(), actual.multiplicadorVelocidad()) != 0) {
+            delta.put("speedMultiplier", actual.multiplicadorVelocidad());
+        }
+        if (actual.mario() != null && !actual.mario().equals(base.mario())) {
+            delta.put("mario", actual.mario());
+        }
+        if (Double.compare(base.tiempoCelebracion(), actual.tiempoCelebracion()) != 0) {
+            delta.put("celebrationTimer", actual.tiempoCelebracion());
+        }
+        if (base.celebracionPendiente() != actual.celebracionPendiente()) {
+            delta.put("celebrationPending", actual.celebracionPendiente());
+        }
+        // Mario existía en el keyframe y ya no
+        if (actual.mario() == null && base.mario() != null) {
+            delta.put("mario", null);
+        }
+
+        diferenciarLista("players", "removedPlayers", base.jugadores(), actual.jugadores(),
+                FrameEstado.DatosJugador::id, CodificadorDelta::cambiosJugador, delta);
+        diferenciarLista("crocodiles", "removedCrocodiles", base.cocodrilos(), actual.cocodrilos(),
+                FrameEstado.DatosCocodrilo::id, CodificadorDelta::cambiosCocodrilo, delta);
+        diferenciarLista("fruits", "removedFruits", base.frutas(), actual.frutas(),
+                FrameEstado.DatosFruta::id, CodificadorDelta::cambiosFruta, delta);
+        return delta;
+    }
+
+    private static Map<String, Object> cambiosJugador(FrameEstado.DatosJugador a, FrameEstado.DatosJugador b) {
+        Cambios cambios = new Cambios(b.id());
+        cambios.decimal("vx", a.vx(), b.vx());
+        cambios.decimal("vy", a.vy(), b.vy());
+        cambios.entero("lives", a.vidas(), b.vidas());
+        cambios.entero("ack", a.ack(), b.ack());
+        cambios.valor("facing", a.direccion().name(), b.direccion().name());
+        cambios.bandera("active", a.activo(), b.activo());
+        cambios.valor("lianaId", a.lianaId(), b.lianaId());
+        cambios.entero("score", a.puntaje(), b.puntaje());
+        cambios.entero("liana", a.liana(), b.liana());
+        cambios.decimal("x", a.x(), b.x());
+        cambios.decimal("y", a.y(), b.y());
+        cambios.valor("state", a.estado().name(), b.estado().name());
+        cambios.bandera("celebrating", a.celebrando(), b.celebrando());
+        return cambios.campos;
+    }
+
+    private static Map<String, Object> cambiosCocodrilo(FrameEstado.DatosCocodrilo a, FrameEstado.DatosCocodrilo b) {
+        Cambios cambios = new Cambios(b.id());
+        cambios.entero("liana", a.liana(), b.liana());
+        cambios.valor("kind", a.tipo().toString(), b.tipo().toString());
+        cambios.decimal("y", a.y(), b.y());
+        return cambios.campos;
+    }
+
+    private static Map<String, Object> cambiosFruta(FrameEstado.DatosFruta a, FrameEstado.DatosFruta b) {
+        Cambios cambios = new Cambios(b.id());
+        cambios.entero("liana", a.liana(), b.liana());
+        cambios.decimal("y", a.y(), b.y());
+        cambios.entero("points", a.puntos(), b.puntos());
+        return cambios.campos;
+    }
+
+    /**
+     * Agrega al delta las entidades nuevas (completas), las que cambiaron (solo id y campos
+     * cambiados) y los ids de las que desaparecieron.
+     */
+    private static <T> void diferenciarLista(String clave, String claveRemovidos,
+                                             List<T> entidadesBase, List<T> entidadesActuales,
+                                             Function<T, String> id,
+                                             BiFunction<T, T, Map<String, Object>> comparar,
+                                             Map<String, Object> delta) {
+        Map<String, T> porId = new HashMap<>();
+        for (T entidad : entidadesBase) {
+            porId.put(id.apply(entidad), entidad);
+        }
+
+        List<Object> cambiadas = new ArrayList<>();
+        for (T entidad : entidadesActuales) {
+            T anterior = porId.remove(id.apply(entidad));
+            if (anterior == null) {
+                cambiadas.add(entidad);
+                continue;
+            }
+            Map<String, Object> cambios = comparar.apply(anterior, entidad);
+            if (cambios != null) {
+                cambiadas.add(cambios);
+            }
+        }
+
+        if (!cambiadas.isEmpty()) {
+            delta.put(clave, cambiadas);
+        }
+        if (!porId.isEmpty()) {
+            delta.put(claveRemovidos, new ArrayList<>(porId.keySet()));
+        }
+    }
+
+    /**
+     * Campos cambiados de una entidad; el mapa solo se crea con el primer cambio.
+     */
+    private static final class Cambios {
+        private final String id;
+        private Map<String, Object> campos;
+
+        Cambios(String id) {
+            this.id = id;
+        }
+
+        void decimal(String clave, double anterior, double actual) {
+            if (Double.compare(anterior, actual) != 0) {
+                poner(clave, actual);
+            }
+        }
+
+        void entero(String clave, long anterior, long actual) {
+            if (anterior != actual) {
+                poner(clave, actual);
+            }
+        }
+
+        void bandera(String clave, boolean anterior, boolean actual) {
+            if (anterior != actual) {
+                poner(clave, actual);
+            }
+        }
+
+        void valor(String clave, Object anterior, Object actual) {
+            if (!Objects.equals(anterior, actual)) {
+                poner(clave, actual);
+            }
+        }
+
+        private void poner(String clave, Object valor) {
+            if (campos == null) {
+                campos = new LinkedHashMap<>();
+                campos.put("id", id);
+            }
+            campos.put(clave, valor);
+        }
+    }
+}
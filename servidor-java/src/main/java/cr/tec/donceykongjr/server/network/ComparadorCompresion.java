@@ -0,0 +1,192 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.GameLoop;
+import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.logic.patrones.Observer;
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compara tamaño y costo de CPU de la compresión de los mensajes de estado.
+ *
+ * <p>Graba los frames que difunde una sala real durante unos segundos (un jugador con
+ * inputs aleatorios, cocodrilos y frutas del mapa inicial) y los pasa por cada
+ * configuración, en los tres formatos de estado: JSON completo, delta y binario.</p>
+ * <ul>
+ *   <li><b>sin comprimir:</b> referencia.</li>
+ *   <li><b>deflate sin contexto:</b> un {@link Deflater} nuevo por mensaje; no
+ *       aprovecha que las claves e ids se repiten entre ticks.</li>
+ *   <li><b>contexto nN/uU:</b> {@link CompresorMensajes} con nivel N y umbral U, como
+ *       lo usa cada conexión con {@code "compression":"DEFLATE"}.</li>
+ * </ul>
+ *
+ * <p>Se reportan bytes promedio por mensaje, proporción respecto al original y
+ * microsegundos de CPU por mensaje (mejor de varias pasadas). Las configuraciones con
+ * contexto se descomprimen al final para verificar que el cliente recupera los mismos
+ * bytes.</p>
+ *
+ * <p><b>Uso:</b></p>
+ * <pre>
+ * java cr.tec.donceykongjr.server.network.ComparadorCompresion [segundos]
+ * </pre>
+ */
+public class ComparadorCompresion {
+    private static final int PASADAS = 5;
+    private static final int[][] CONFIGURACIONES_CONTEXTO = {
+            {1, 0}, {1, Config.UMBRAL_COMPRESION_BYTES}, {6, Config.UMBRAL_COMPRESION_BYTES},
+            {9, Config.UMBRAL_COMPRESION_BYTES}};
+
+    private ComparadorCompresion() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int segundos = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        LoggerUtil.info("=== COMPARACIÓN DE COMPRESIÓN (" + segundos + " s de partida) ===");
+        List<FrameCodificado> frames = grabar(segundos);
+
+        List<byte[]> json = new ArrayList<>();
+        List<byte[]> delta = new ArrayList<>();
+        List<byte[]> binario = new ArrayList<>();
+        for (FrameCodificado frame : frames) {
+            json.add(frame.getLinea());
+            delta.add(frame.isKeyframe() ? frame.getLinea() : frame.getLineaDelta());
+            binario.add(frame.getBinario());
+        }
+
+        System.out.println();
+        System.out.printf("%d estados grabados%n", frames.size());
+        System.out.printf("%-8s %-22s %12s %10s %10s%n", "formato", "configuración", "bytes/msg", "ratio", "us/msg");
+        imprimir("JSON", json);
+        imprimir("DELTA", delta);
+        imprimir("BINARIO", binario);
+        System.exit(0);
+    }
+
+    /**
+     * Corre una sala con su GameLoop y guarda cada frame de estado que difunde.
+     */
+    private static List<FrameCodificado> grabar(int segundos) throws InterruptedException {
+        GameManager gameManager = new GameManager();
+        DifusorEstado difusor = new DifusorEstado(gameManager);
+        gameManager.agregarObservador(difusor);
+        List<FrameCodificado> frames = new CopyOnWriteArrayList<>();
+        Observer grabador = dato -> {
+            if (dato instanceof FrameCodificado frame && frame.getTipo() == FrameCodificado.Tipo.ESTADO) {
+                frames.add(frame);
+            }
+        };
+        difusor.agregarObservador(grabador);
+        // Se comparan también el delta y el binario, que salen de la captura de estado
+        difusor.requerirCaptura();
+        gameManager.agregarJugador("comparador", 0, 5, 0);
+
+        GameLoop gameLoop = new GameLoop(gameManager);
+        gameLoop.iniciar();
+        String[] acciones = {"LEFT", "RIGHT", "MOVE_UP", "MOVE_DOWN", "JUMP", "GRAB"};
+        long fin = System.currentTimeMillis() + segundos * 1000L;
+        while (System.currentTimeMillis() < fin) {
+            String accion = acciones[ThreadLocalRandom.current().nextInt(acciones.length)];
+            gameManager.procesarInput("comparador", accion);
+            Thread.sleep(Config.INTERVALO_TICK_MS);
+        }
+        gameLoop.detener();
+        gameManager.shutdown();
+        return frames;
+    }
+
+    private static void imprimir(String formato, List<byte[]> mensajes) throws DataFormatException {
+        long original = total(mensajes);
+        fila(formato, "sin comprimir", mensajes.size(), original, original, 0);
+
+        long inicio = 0;
+        long comprimido = 0;
+        long mejor = Long.MAX_VALUE;
+        for (int pasada = 0; pasada < PASADAS; pasada++) {
+            comprimido = 0;
+            inicio = System.nanoTime();
+            for (byte[] mensaje : mensajes) {
+                comprimido += deflateSinContexto(mensaje);
+            }
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        fila(formato, "deflate sin contexto n1", mensajes.size(), original, comprimido, mejor);
+
+        for (int[] configuracion : CONFIGURACIONES_CONTEXTO) {
+            List<byte[]> salida = new ArrayList<>(mensajes.size());
+            mejor = Long.MAX_VALUE;
+            for (int pasada = 0; pasada < PASADAS; pasada++) {
+                salida.clear();
+                CompresorMensajes compresor = new CompresorMensajes(configuracion[0], configuracion[1]);
+                inicio = System.nanoTime();
+                for (byte[] mensaje : mensajes) {
+                    salida.add(compresor.empaquetar(mensaje));
+                }
+                mejor = Math.min(mejor, System.nanoTime() - inicio);
+                compresor.liberar();
+            }
+            verificar(mensajes, salida);
+            fila(formato, "contexto n" + configuracion[0] + "/u" + configuracion[1], mensajes.size(),
+                    original, total(salida), mejor);
+        }
+    }
+
+    private static void fila(String formato, String configuracion, int mensajes,
+                             long original, long bytes, long nanos) {
+        System.out.printf("%-8s %-22s %12.1f %10.3f %10.2f%n", formato, configuracion,
+                (double) bytes / mensajes, (double) bytes / original, nanos / 1000.0 / mensajes);
+    }
+
+    private static int deflateSinContexto(byte[] mensaje) {
+        Deflater deflater = new Deflater(1, true);
+        deflater.setInput(mensaje);
+        deflater.finish();
+        byte[] buffer = new byte[mensaje.length + 64];
+        int longitud = deflater.deflate(buffer);
+        deflater.end();
+        return CodificadorBinario.CABECERA + longitud;
+    }
+
+    /**
+     * Descomprime la salida como lo haría el cliente y la compara con los originales.
+     */
+    private static void verificar(List<byte[]> originales, List<byte[]> salida) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        byte[] buffer = new byte[64 * 1024];
+        for (int i = 0; i < salida.size(); i++) {
+            byte[] frame = salida.get(i);
+            byte[] recuperado = frame;
+            if (frame[0] == CodificadorBinario.TIPO_COMPRIMIDO && frame != originales.get(i)) {
+                int contenido = ((frame[1] & 0xFF) << 8) | (frame[2] & 0xFF);
+                ByteArrayOutputStream bloque = new ByteArrayOutputStream(contenido + 4);
+                bloque.write(frame, CodificadorBinario.CABECERA, contenido);
+                bloque.write(new byte[]{0, 0, (byte) 0xFF, (byte) 0xFF}, 0, 4);
+                inflater.setInput(bloque.toByteArray());
+                int longitud = inflater.inflate(buffer);
+                recuperado = Arrays.copyOf(buffer, longitud);
+            }
+            if (!Arrays.equals(recuperado, originales.get(i))) {
+                throw new IllegalStateException("el mensaje " + i + " no se recupera al descomprimir");
+            }
+        }
+        inflater.end();
+    }
+
+    private static long total(List<byte[]> mensajes) {
+        long total = 0;
+        for (byte[] mensaje : mensajes) {
+            total += mensaje.length;
+        }
+        return total;
+    }
+}
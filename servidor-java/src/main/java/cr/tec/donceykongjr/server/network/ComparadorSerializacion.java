@@ -0,0 +1,261 @@
+package cr.tec.donceykongjr.server.network;
+
+import com.google.gson.Gson;
+import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.logic.entidades.Fruta;
+import cr.tec.donceykongjr.server.logic.entidades.Jugador;
+import cr.tec.donceykongjr.server.logic.entidades.Mario;
+import cr.tec.donceykongjr.server.logic.entidades.SnapshotCocodrilo;
+import cr.tec.donceykongjr.server.logic.eventos.DatosEvento;
+import cr.tec.donceykongjr.server.logic.eventos.EventoJuego;
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compara el costo de serializar el mensaje STATE y los EVENT por cada camino.
+ *
+ * <ul>
+ *   <li><b>mapa + Gson:</b> árbol de HashMap con valores en caja recorrido por los
+ *       adaptadores genéricos de Gson, como se hacía antes de {@link FrameEstado}.</li>
+ *   <li><b>records + adaptadores:</b> {@link FrameEstado#capturar} y
+ *       {@link JsonUtil#crearMensajeEstado}, con los TypeAdapters de {@link AdaptadoresJson}.</li>
+ *   <li><b>escritor directo:</b> {@link EscritorEstado}, el que usa la línea completa.</li>
+ * </ul>
+ *
+ * <p>Avanza una sala sin GameLoop (un jugador con inputs aleatorios, cocodrilos y frutas
+ * del mapa inicial) para que todos los caminos serialicen los mismos ticks. Tras un
+ * calentamiento, cada camino repite la serialización de cada tick y se reportan
+ * microsegundos y bytes reservados por mensaje, medidos con el contador de memoria por
+ * hilo de la JVM. Antes de medir se verifica que los tres caminos producen los mismos
+ * bytes.</p>
+ *
+ * <p><b>Uso:</b></p>
+ * <pre>
+ * java cr.tec.donceykongjr.server.network.ComparadorSerializacion [ticks]
+ * </pre>
+ */
+public class ComparadorSerializacion {
+    private static final int TICKS_CALENTAMIENTO = 2000;
+    private static final int REPETICIONES = 20;
+
+    /** Gson sin adaptadores registrados, como el de antes de los records. */
+    private static final Gson GSON_MAPAS = new Gson();
+
+    private static final com.sun.management.ThreadMXBean HILOS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private ComparadorSerializacion() {
+    }
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+
+        LoggerUtil.info("=== COMPARACIÓN DE SERIALIZACIÓN (" + ticks + " ticks) ===");
+        LoggerUtil.info("calentando " + TICKS_CALENTAMIENTO + " ticks");
+        correr(TICKS_CALENTAMIENTO, new long[3][2], new long[2][2]);
+
+        long[][] estados = new long[3][2];
+        long[][] eventos = new long[2][2];
+        long mensajesEventos = correr(ticks, estados, eventos);
+        long mensajesEstado = (long) ticks * REPETICIONES;
+
+        System.out.println();
+        System.out.printf("%-6s %-24s %12s %12s%n", "tipo", "camino", "us/msg", "bytes/msg");
+        fila("STATE", "mapa + Gson", estados[0], mensajesEstado);
+        fila("STATE", "records + adaptadores", estados[1], mensajesEstado);
+        fila("STATE", "escritor directo", estados[2], mensajesEstado);
+        if (mensajesEventos > 0) {
+            fila("EVENT", "mapa + Gson", eventos[0], mensajesEventos);
+            fila("EVENT", "records + adaptadores", eventos[1], mensajesEventos);
+        } else {
+            System.out.println("EVENT  (no hubo eventos en la partida)");
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Avanza la sala {@code ticks} veces y acumula en cada fila de {@code estados} y
+     * {@code eventos} los nanosegundos y bytes reservados de su camino.
+     *
+     * @return cantidad de eventos serializados por camino
+     */
+    private static long correr(int ticks, long[][] estados, long[][] eventos) {
+        GameManager gameManager = new GameManager();
+        gameManager.agregarJugador("comparador", 0, 5, 0);
+        List<EventoJuego> pendientes = new ArrayList<>();
+        gameManager.agregarObservador(dato -> {
+            if (dato instanceof EventoJuego evento) {
+                pendientes.add(evento);
+            }
+        });
+
+        EscritorEstado escritor = new EscritorEstado();
+        String[] acciones = {"LEFT", "RIGHT", "MOVE_UP", "MOVE_DOWN", "JUMP", "GRAB"};
+        Random random = new Random(7);
+        long id = Thread.currentThread().threadId();
+        long mensajesEventos = 0;
+
+        for (int tick = 0; tick < ticks; tick++) {
+            gameManager.procesarInput("comparador", acciones[random.nextInt(acciones.length)]);
+            gameManager.actualizar(Config.INTERVALO_TICK_MS / 1000.0);
+            verificar(gameManager, escritor);
+
+            long nanos = System.nanoTime();
+            long bytes = HILOS.getThreadAllocatedBytes(id);
+            for (int i = 0; i < REPETICIONES; i++) {
+                JsonUtil.codificarLinea(GSON_MAPAS.toJson(envolverEstado(mapaEstado(gameManager))));
+            }
+            nanos = acumular(estados[0], nanos, bytes, id);
+            bytes = HILOS.getThreadAllocatedBytes(id);
+            for (int i = 0; i < REPETICIONES; i++) {
+                JsonUtil.codificarLinea(JsonUtil.crearMensajeEstado(FrameEstado.capturar(gameManager)));
+            }
+            nanos = acumular(estados[1], nanos, bytes, id);
+            bytes = HILOS.getThreadAllocatedBytes(id);
+            for (int i = 0; i < REPETICIONES; i++) {
+                escritor.escribir(gameManager);
+            }
+            acumular(estados[2], nanos, bytes, id);
+
+            for (EventoJuego evento : pendientes) {
+                nanos = System.nanoTime();
+                bytes = HILOS.getThreadAllocatedBytes(id);
+                GSON_MAPAS.toJson(new Mensaje(Mensaje.TipoMensaje.EVENT, evento.getTipo().toString(),
+                        mapaEvento(evento.getPayload())));
+                nanos = acumular(eventos[0], nanos, bytes, id);
+                bytes = HILOS.getThreadAllocatedBytes(id);
+                JsonUtil.crearMensajeEvento(new FrameEvento(evento));
+                acumular(eventos[1], nanos, bytes, id);
+                mensajesEventos++;
+            }
+            pendientes.clear();
+        }
+        gameManager.shutdown();
+        return mensajesEventos;
+    }
+
+    private static long acumular(long[] fila, long nanosInicio, long bytesInicio, long id) {
+        long bytes = HILOS.getThreadAllocatedBytes(id);
+        long nanos = System.nanoTime();
+        fila[0] += nanos - nanosInicio;
+        fila[1] += bytes - bytesInicio;
+        return nanos;
+    }
+
+    /**
+     * Comprueba que los tres caminos producen la misma línea para el tick actual.
+     */
+    private static void verificar(GameManager gameManager, EscritorEstado escritor) {
+        String mapa = GSON_MAPAS.toJson(envolverEstado(mapaEstado(gameManager)));
+        String records = JsonUtil.crearMensajeEstado(FrameEstado.capturar(gameManager));
+        String directo = new String(escritor.escribir(gameManager), StandardCharsets.UTF_8);
+        if (!mapa.equals(records) || !directo.equals(mapa + "\n")) {
+            throw new IllegalStateException("los caminos difieren en el tick " + gameManager.getTickActual());
+        }
+    }
+
+    private static Map<String, Object> envolverEstado(Map<String, Object> estado) {
+        Map<String, Object> mensaje = new LinkedHashMap<>();
+        mensaje.put("type", Mensaje.TipoMensaje.STATE);
+        mensaje.put("data", estado);
+        return mensaje;
+    }
+
+    /**
+     * Árbol de mapas del estado, como lo construía el GameManager antes de {@link FrameEstado}.
+     */
+    private static Map<String, Object> mapaEstado(GameManager gameManager) {
+        Map<String, Object> estado = new HashMap<>();
+        estado.put("tick", gameManager.getTickActual());
+        estado.put("speedMultiplier", gameManager.getFactorDificultad());
+        estado.put("paused", gameManager.isPausado());
+
+        List<Map<String, Object>> jugadores = new ArrayList<>();
+        for (Jugador jugador : gameManager.getJugadores()) {
+            Map<String, Object> j = new HashMap<>();
+            j.put("id", jugador.getId());
+            j.put("x", jugador.getX());
+            j.put("y", jugador.getY());
+            j.put("vx", jugador.getVx());
+            j.put("vy", jugador.getVy());
+            j.put("liana", jugador.getLiana());
+            j.put("lianaId", jugador.getLianaId());
+            j.put("state", jugador.getEstado().name());
+            j.put("facing", jugador.getFacing().name());
+            j.put("lives", jugador.getVidas());
+            j.put("score", jugador.getPuntaje());
+            j.put("active", jugador.isActivo());
+            j.put("celebrating", jugador.estaCelebrando());
+            j.put("ack", jugador.getUltimaSecuenciaProcesada());
+            jugadores.add(j);
+        }
+        estado.put("players", jugadores);
+        estado.put("celebrationPending", gameManager.isReinicioPendiente());
+        estado.put("celebrationTimer", Math.max(gameManager.getCelebracionRestante(), 0));
+
+        List<Map<String, Object>> cocodrilos = new ArrayList<>();
+        for (SnapshotCocodrilo croc : gameManager.getSnapshotCocodrilos().getCocodrilos()) {
+            if (croc.isActivo()) {
+                Map<String, Object> c = new HashMap<>();
+                c.put("id", croc.getId());
+                c.put("kind", croc.getTipo().toString());
+                c.put("liana", croc.getLianaId());
+                c.put("y", croc.getY());
+                cocodrilos.add(c);
+            }
+        }
+        estado.put("crocodiles", cocodrilos);
+
+        List<Map<String, Object>> frutas = new ArrayList<>();
+        for (Fruta fruta : gameManager.getFrutas()) {
+            if (!fruta.isRecogida()) {
+                Map<String, Object> f = new HashMap<>();
+                f.put("id", fruta.getId());
+                f.put("liana", fruta.getLiana());
+                f.put("y", fruta.getY());
+                f.put("points", fruta.getPuntos());
+                frutas.add(f);
+            }
+        }
+        estado.put("fruits", frutas);
+
+        Mario mario = gameManager.getMario();
+        if (mario != null && mario.isActivo()) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("id", mario.getId());
+            m.put("liana", mario.getLianaId());
+            m.put("y", mario.getY());
+            estado.put("mario", m);
+        }
+        return estado;
+    }
+
+    private static Map<String, Object> mapaEvento(DatosEvento datos) {
+        if (datos == null) {
+            return null;
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("playerId", datos.jugadorId());
+        if (datos.puntos() != null) {
+            payload.put("points", datos.puntos());
+        }
+        if (datos.causa() != null) {
+            payload.put("cause", datos.causa());
+        }
+        return payload;
+    }
+
+    private static void fila(String tipo, String camino, long[] medicion, long mensajes) {
+        System.out.printf("%-6s %-24s %12.2f %12d%n", tipo, camino,
+                medicion[0] / 1000.0 / mensajes, medicion[1] / mensajes);
+    }
+}
@@ -0,0 +1,159 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+import cr.tec.donceykongjr.server.util.Percentiles;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Comparación de los modos de transporte con muchas conexiones inactivas.
+ *
+ * <p>Para cada {@link ModoTransporte} levanta un {@link ServidorJuego} sin GameLoop
+ * (no hay difusión por tick, las conexiones quedan realmente inactivas), abre N
+ * conexiones TCP que nunca envían CONNECT y mide:</p>
+ * <ul>
+ *   <li><b>Latencia de aceptación:</b> desde {@code connect()} hasta recibir el primer
+ *       byte del estado inicial que envía el manejador (p50, p99 y máximo).</li>
+ *   <li><b>Memoria por conexión:</b> diferencia de heap usado y de RSS del proceso
+ *       dividida entre N. Incluye el lado cliente, que es igual en todos los modos.</li>
+ *   <li><b>Hilos de plataforma:</b> cuántos hilos del sistema operativo se crearon.</li>
+ * </ul>
+ *
+ * <p>Las conexiones se abren de una en una y se espera el primer byte antes de abrir la
+ * siguiente, así la latencia no incluye el tiempo de abrir las demás. En modo HILOS el
+ * pool fijo solo atiende {@code maxConexiones} clientes; al acumular varios clientes sin
+ * respuesta se dejan de esperar y el resto solo se abre para medir memoria.</p>
+ *
+ * <p><b>Uso:</b></p>
+ * <pre>
+ * java cr.tec.donceykongjr.server.network.ComparadorTransportes [conexiones] [puertoBase]
+ * </pre>
+ */
+public class ComparadorTransportes {
+    private static final int ESPERA_RESPUESTA_MS = 1000;
+    private static final int MAX_FALLOS_SEGUIDOS = 3;
+
+    private ComparadorTransportes() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int conexiones = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int puertoBase = args.length > 1 ? Integer.parseInt(args[1]) : 6100;
+
+        LoggerUtil.info("=== COMPARACIÓN DE TRANSPORTES (" + conexiones + " conexiones inactivas) ===");
+        List<String> filas = new ArrayList<>();
+        ModoTransporte[] modos = ModoTransporte.values();
+        for (int i = 0; i < modos.length; i++) {
+            filas.add(medir(modos[i], puertoBase + i, conexiones));
+        }
+
+        System.out.println();
+        System.out.printf("%-8s %8s %10s %10s %10s %12s %12s %10s%n",
+                "modo", "atendidas", "p50 ms", "p99 ms", "max ms", "heap KB/con", "rss KB/con", "hilos SO");
+        filas.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private static String medir(ModoTransporte modo, int puerto, int conexiones) throws Exception {
+        GameManager gameManager = new GameManager();
+        ServidorJuego servidor = new ServidorJuego(puerto, gameManager, modo);
+        Thread hiloServidor = new Thread(servidor::iniciar, "comparador-" + modo);
+        hiloServidor.setDaemon(true);
+        hiloServidor.start();
+        Thread.sleep(200);
+
+        long heapAntes = heapUsado();
+        long rssAntes = rssKb();
+        int hilosAntes = Thread.getAllStackTraces().size();
+
+        long[] latencia = new long[conexiones];
+        List<Socket> sockets = new ArrayList<>(conexiones);
+        int atendidas = 0;
+        int fallosSeguidos = 0;
+        byte[] buffer = new byte[64 * 1024];
+
+        for (int i = 0; i < conexiones; i++) {
+            Socket socket = new Socket();
+            long inicio = System.nanoTime();
+            socket.connect(new InetSocketAddress("localhost", puerto));
+            sockets.add(socket);
+            latencia[i] = -1;
+            // Tras varios clientes sin respuesta (pool agotado) solo se abren las conexiones restantes
+            if (fallosSeguidos >= MAX_FALLOS_SEGUIDOS) {
+                continue;
+            }
+            try {
+                socket.setSoTimeout(ESPERA_RESPUESTA_MS);
+                if (socket.getInputStream().read(buffer) > 0) {
+                    latencia[i] = System.nanoTime() - inicio;
+                    atendidas++;
+                    fallosSeguidos = 0;
+                }
+            } catch (SocketTimeoutException e) {
+                fallosSeguidos++;
+            }
+        }
+
+        long heapDespues = heapUsado();
+        long rssDespues = rssKb();
+        int hilosDespues = Thread.getAllStackTraces().size();
+
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LoggerUtil.warning("error al cerrar conexión de prueba: " + e.getMessage());
+            }
+        }
+        servidor.detener();
+        gameManager.shutdown();
+        Thread.sleep(500);
+
+        long[] medidas = Arrays.stream(latencia).filter(l -> l >= 0).sorted().toArray();
+        return String.format("%-8s %8s %10.2f %10.2f %10.2f %12.1f %12s %10d",
+                modo, atendidas + "/" + conexiones,
+                percentilMs(medidas, 50), percentilMs(medidas, 99), percentilMs(medidas, 100),
+                (heapDespues - heapAntes) / 1024.0 / conexiones,
+                rssAntes < 0 ? "n/d" : String.format("%.1f", (rssDespues - rssAntes) / (double) conexiones),
+                hilosDespues - hilosAntes);
+    }
+
+    private static double percentilMs(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) {
+            return Double.NaN;
+        }
+        return Percentiles.de(ordenadas, percentil) / 1_000_000.0;
+    }
+
+    private static long heapUsado() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        Thread.sleep(100);
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Memoria residente del proceso en KB según /proc (solo Linux), o -1 si no está disponible.
+     */
+    private static long rssKb() {
+        try {
+            for (String linea : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (linea.startsWith("VmRSS:")) {
+                    return Long.parseLong(linea.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            LoggerUtil.debug("rss no disponible: " + e.getMessage());
+        }
+        return -1;
+    }
+}
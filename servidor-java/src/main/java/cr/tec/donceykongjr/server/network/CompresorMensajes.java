@@ -0,0 +1,90 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.Config;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Compresión deflate de los mensajes de una conexión que pidió
+ * {@code "compression":"DEFLATE"} en CONNECT.
+ *
+ * <p>Usa un único {@link Deflater} durante toda la conexión, así que el diccionario de
+ * 32 KB conserva los mensajes anteriores: las claves del estado y los ids de cocodrilos
+ * y frutas, que se repiten en cada tick, se codifican como referencias de pocos bits.
+ * Cada mensaje se cierra con {@link Deflater#SYNC_FLUSH} y viaja en un frame
+ * {@link CodificadorBinario#TIPO_COMPRIMIDO}:</p>
+ * <pre>
+ * [u8 5][u16 longitud big-endian][deflate crudo sin la cola 00 00 FF FF]
+ * </pre>
+ *
+ * <p>El cliente mantiene un único {@code Inflater} sin cabecera zlib, agrega la cola
+ * 00 00 FF FF a cada bloque y procesa el resultado como si hubiera llegado sin
+ * comprimir. Los mensajes de menos de {@link Config#UMBRAL_COMPRESION_BYTES} se envían
+ * tal cual y no entran al diccionario: el cliente los reconoce por su primer byte.</p>
+ *
+ * <p>El contexto depende del orden exacto de los mensajes, por eso solo lo usa el
+ * escritor de la conexión con lo que realmente sale al socket. Los métodos son
+ * sincronizados para que {@link #liberar()} pueda llamarse desde otro hilo.</p>
+ */
+final class CompresorMensajes {
+    private static final int COLA_SYNC_FLUSH = 4;
+    // Deflate agrega a lo sumo unos bytes por bloque: por debajo de esto el frame siempre cabe
+    private static final int MAXIMO_COMPRIMIBLE = CodificadorBinario.LONGITUD_MAXIMA - 64;
+
+    private final Deflater deflater;
+    private final int umbral;
+    private byte[] buffer;
+    private boolean liberado;
+
+    CompresorMensajes() {
+        this(Config.NIVEL_COMPRESION, Config.UMBRAL_COMPRESION_BYTES);
+    }
+
+    /**
+     * @param nivel nivel de {@link Deflater}, de 1 (más rápido) a 9 (más compacto)
+     * @param umbral tamaño mínimo en bytes de un mensaje para comprimirlo
+     */
+    CompresorMensajes(int nivel, int umbral) {
+        this.deflater = new Deflater(nivel, true);
+        this.umbral = umbral;
+        this.buffer = new byte[1024];
+    }
+
+    /**
+     * Comprime un mensaje si supera el umbral.
+     *
+     * @param mensaje línea JSON o frame binario; no se modifica
+     * @return frame comprimido, o el mismo arreglo si se envía sin comprimir
+     */
+    synchronized byte[] empaquetar(byte[] mensaje) {
+        if (liberado || mensaje.length < umbral || mensaje.length > MAXIMO_COMPRIMIBLE) {
+            return mensaje;
+        }
+        deflater.setInput(mensaje);
+        int longitud = CodificadorBinario.CABECERA;
+        while (true) {
+            longitud += deflater.deflate(buffer, longitud, buffer.length - longitud, Deflater.SYNC_FLUSH);
+            if (longitud < buffer.length) {
+                break;
+            }
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        int contenido = longitud - CodificadorBinario.CABECERA - COLA_SYNC_FLUSH;
+        buffer[0] = CodificadorBinario.TIPO_COMPRIMIDO;
+        buffer[1] = (byte) (contenido >>> 8);
+        buffer[2] = (byte) contenido;
+        return Arrays.copyOf(buffer, longitud - COLA_SYNC_FLUSH);
+    }
+
+    /**
+     * Libera la memoria nativa del deflater. Los mensajes posteriores salen sin comprimir.
+     */
+    synchronized void liberar() {
+        if (!liberado) {
+            liberado = true;
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.Config;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Separa un flujo de bytes en líneas terminadas en '\n'.
+ * Cada conexión tiene su propio decodificador; no es thread-safe.
+ *
+ * <p>La longitud de línea se limita mientras se acumula: el buffer nunca crece más
+ * allá de {@link Config#LONGITUD_MAXIMA_LINEA_ENTRADA} bytes, así un cliente no puede
+ * obligar al servidor a guardar una línea de varios megabytes.</p>
+ *
+ * <p>Las líneas se entregan como bytes del buffer interno, para que el receptor pueda
+ * reconocer los mensajes frecuentes sin convertirlas a String (ver {@link LectorInput}).</p>
+ */
+class DecodificadorLineas {
+
+    /**
+     * Recibe cada línea completa.
+     */
+    @FunctionalInterface
+    interface ReceptorLineas {
+        /**
+         * @param linea buffer del decodificador; solo es válido durante la llamada
+         * @param longitud bytes de la línea, sin el '\n' ni '\r' final; siempre mayor que 0
+         */
+        void recibir(byte[] linea, int longitud);
+    }
+
+    private final int longitudMaxima;
+    private byte[] acumulado;
+    private int longitud;
+
+    DecodificadorLineas() {
+        this(Config.LONGITUD_MAXIMA_LINEA_ENTRADA);
+    }
+
+    DecodificadorLineas(int longitudMaxima) {
+        this.longitudMaxima = longitudMaxima;
+        this.acumulado = new byte[Math.min(512, longitudMaxima + 1)];
+        this.longitud = 0;
+    }
+
+    /**
+     * Consume todos los bytes disponibles en el buffer y entrega cada línea completa.
+     * Los bytes de una línea incompleta se conservan hasta la siguiente lectura.
+     *
+     * @param datos buffer en modo lectura (flip ya aplicado)
+     * @param receptor recibe cada línea no vacía
+     * @return false si una línea excedió la longitud máxima; el resto del buffer no
+     *         se consume y la conexión debe cerrarse
+     */
+    boolean alimentar(ByteBuffer datos, ReceptorLineas receptor) {
+        while (datos.hasRemaining()) {
+            byte b = datos.get();
+            if (b == '\n') {
+                int fin = longitud;
+                if (fin > 0 && acumulado[fin - 1] == '\r') {
+                    fin--;
+                }
+                longitud = 0;
+                if (fin > 0) {
+                    receptor.recibir(acumulado, fin);
+                }
+            } else {
+                // Se admite un byte extra para un '\r' final
+                if (longitud > longitudMaxima) {
+                    longitud = 0;
+                    return false;
+                }
+                if (longitud == acumulado.length) {
+                    acumulado = Arrays.copyOf(acumulado, Math.min(acumulado.length * 2, longitudMaxima + 1));
+                }
+                acumulado[longitud++] = b;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,242 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.logic.eventos.EventoJuego;
+import cr.tec.donceykongjr.server.logic.patrones.Observer;
+import cr.tec.donceykongjr.server.logic.patrones.Subject;
+import cr.tec.donceykongjr.server.util.Config;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Codifica el estado del juego una sola vez por tick y lo reparte a los clientes.
+ *
+ * <p>Es el único observador de red registrado en el {@link GameManager}. Cada
+ * notificación de fin de tick con envío se convierte en un {@link FrameCodificado} inmutable
+ * que se entrega a todos los {@link ManejadorCliente} suscritos, de modo que el costo
+ * de serialización no depende de la cantidad de jugadores o espectadores.</p>
+ *
+ * <p>Cada {@link Config#INTERVALO_KEYFRAME_TICKS} ticks el frame es un keyframe; los
+ * frames intermedios pueden enviarse como delta respecto a ese keyframe a los clientes
+ * que lo pidieron en CONNECT. Los clientes con protocolo binario reciben el mismo
+ * frame codificado por {@link CodificadorBinario}.</p>
+ *
+ * <p>La línea JSON completa la escribe un {@link EscritorEstado} directamente desde las
+ * entidades, en el mismo hilo del GameLoop. El delta y el frame binario salen de una
+ * captura {@link FrameEstado}, que solo se construye mientras alguna conexión los pida
+ * ({@link #requerirCaptura()}).</p>
+ *
+ * <p>La simulación y el envío tienen frecuencias distintas: cada {@link ClaseCliente}
+ * recibe el estado uno de cada {@link ClaseCliente#getIntervaloTicks()} ticks, y el
+ * frame indica a qué clases va. Un tick en el que ninguna clase recibe estado no se
+ * codifica. Los keyframes, y el estado del primer fin de tick tras un evento, van a
+ * todas las clases: el evento sale junto con el estado del tick en que ocurrió.</p>
+ *
+ * <p>Un estado idéntico al último difundido, salvo por el tick, solo se envía a las
+ * clases que aún no lo recibieron; si todas lo tienen el tick no se difunde, hasta que
+ * pasen {@link Config#INTERVALO_KEEPALIVE_ESTADO_TICKS} ticks y salga como latido a
+ * todas. En pausa, o con todo quieto, el servidor deja así de repetir el mismo estado
+ * en cada tick. Mientras alguna conexión reciba el estado por UDP, donde un datagrama
+ * perdido no se reenvía, esos ticks sí se difunden, marcados como repetición
+ * ({@link FrameCodificado#esRepeticionPara}) para que las conexiones TCP los omitan.</p>
+ *
+ * <p>Los últimos {@link Config#FRAMES_REPETICION} frames se conservan en una
+ * {@link RepeticionFrames} para el jugador que reanuda su sesión tras reconectarse.</p>
+ *
+ * <pre>
+ * GameManager ──actualizar()──► DifusorEstado ──FrameCodificado──► ManejadorCliente × N
+ * </pre>
+ */
+public class DifusorEstado extends Subject implements Observer {
+    private final GameManager gameManager;
+    private volatile FrameCodificado ultimoEstado;
+    private volatile FrameCodificado ultimoKeyframe;
+    private FrameEstado estadoKeyframe;
+    private final EscritorEstado escritor = new EscritorEstado();
+    private final AtomicInteger demandaCaptura = new AtomicInteger();
+    private final AtomicInteger demandaSinCambios = new AtomicInteger();
+    private final AtomicBoolean eventoPendiente = new AtomicBoolean();
+    /** Clases que ya recibieron el contenido del último estado difundido. */
+    private int destinosAlDia;
+    private final RepeticionFrames repeticion = new RepeticionFrames(Config.FRAMES_REPETICION);
+
+    /**
+     * Crea el difusor. Debe registrarse como observador del GameManager.
+     *
+     * @param gameManager gestor del que se lee el estado
+     */
+    public DifusorEstado(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    /**
+     * Recibe las notificaciones del GameManager (hilo del GameLoop).
+     */
+    @Override
+    public void actualizar(Object dato) {
+        if (dato instanceof EventoJuego evento) {
+            eventoPendiente.set(true);
+            difundir(new FrameCodificado(
+                    FrameCodificado.Tipo.EVENTO, gameManager.getTickActual(), false,
+                    () -> codificarLinea(JsonUtil.crearMensajeEvento(new FrameEvento(evento))),
+                    null,
+                    () -> CodificadorBinario.codificarEvento(evento.getTipo(), evento.getPayload())));
+            return;
+        }
+
+        int destinos = eventoPendiente.getAndSet(false)
+                ? ClaseCliente.TODAS
+                : ClaseCliente.destinosEn(gameManager.getTickActual());
+        if (destinos != 0) {
+            FrameCodificado frame = construirFrameEstado(destinos, true);
+            if (frame != null) {
+                difundir(frame);
+            }
+        }
+    }
+
+    /**
+     * Guarda el frame para repetirlo y lo entrega a los suscritos. Ambos pasos van bajo
+     * el mismo monitor que {@link #suscribirDesde} para que un jugador que reanuda no
+     * pierda ni reciba dos veces un frame.
+     */
+    private void difundir(FrameCodificado frame) {
+        synchronized (repeticion) {
+            repeticion.agregar(frame);
+            notificarObservadores(frame);
+        }
+    }
+
+    /**
+     * Suscribe a un jugador que reanuda su sesión y le reenvía los frames que perdió.
+     *
+     * @param observador conexión que recibirá los frames siguientes
+     * @param tick último tick que recibió el cliente antes de la caída
+     * @param reenvio recibe en orden los frames posteriores a {@code tick}, antes que
+     *                cualquier frame nuevo
+     * @return false si ya no se conservan todos esos frames; no se reenvía ninguno y el
+     *         cliente necesita un estado completo
+     */
+    boolean suscribirDesde(Observer observador, long tick, Consumer<FrameCodificado> reenvio) {
+        synchronized (repeticion) {
+            boolean repetidos = repeticion.repetirDesde(tick, reenvio);
+            agregarObservador(observador);
+            return repetidos;
+        }
+    }
+
+    /**
+     * Último estado difundido. Si aún no ha corrido ningún tick se construye en el momento.
+     *
+     * @return frame de estado
+     */
+    FrameCodificado getFrameEstado() {
+        FrameCodificado frame = ultimoEstado;
+        return frame != null ? frame : construirFrameEstado(ClaseCliente.TODAS, false);
+    }
+
+    /**
+     * Keyframe vigente: la base de los deltas que se difundan hasta el siguiente.
+     *
+     * @return keyframe
+     */
+    FrameCodificado getKeyframe() {
+        FrameCodificado frame = ultimoKeyframe;
+        if (frame == null) {
+            construirFrameEstado(ClaseCliente.TODAS, false);
+            frame = ultimoKeyframe;
+        }
+        return frame;
+    }
+
+    /**
+     * Registra una conexión que recibe el estado binario o en deltas. Mientras haya
+     * alguna, cada tick construye también la captura de la que salen; los frames
+     * anteriores no tienen esas representaciones y la conexión recibe el estado desde
+     * el tick siguiente.
+     */
+    void requerirCaptura() {
+        demandaCaptura.incrementAndGet();
+    }
+
+    /**
+     * Quita una conexión registrada con {@link #requerirCaptura()}.
+     */
+    void liberarCaptura() {
+        demandaCaptura.decrementAndGet();
+    }
+
+    /**
+     * Registra una conexión que recibe el estado por UDP: mientras haya alguna, los
+     * estados sin cambios se siguen difundiendo, marcados como repetición.
+     */
+    void requerirEstadoSinCambios() {
+        demandaSinCambios.incrementAndGet();
+    }
+
+    /**
+     * Quita una conexión registrada con {@link #requerirEstadoSinCambios()}.
+     */
+    void liberarEstadoSinCambios() {
+        demandaSinCambios.decrementAndGet();
+    }
+
+    /**
+     * @param destinos clases a las que va el frame si no resulta ser un keyframe
+     * @param omitirSinCambios si un estado igual al anterior se marca como repetición para
+     *                         las clases que ya lo tienen, o se omite si todas lo tienen y
+     *                         ninguna conexión recibe el estado por UDP
+     * @return frame, o null si se omitió
+     */
+    private synchronized FrameCodificado construirFrameEstado(int destinos, boolean omitirSinCambios) {
+        long tick = gameManager.getTickActual();
+        boolean preparado = escritor.preparar(gameManager);
+        FrameCodificado previo = ultimoEstado;
+        int repeticion = 0;
+        if (preparado && previo != null && escritor.sinCambios()) {
+            if (tick - previo.getTick() >= Config.INTERVALO_KEEPALIVE_ESTADO_TICKS) {
+                destinos = ClaseCliente.TODAS;
+            } else if (omitirSinCambios) {
+                repeticion = destinos & destinosAlDia;
+                if (repeticion == destinos && demandaSinCambios.get() == 0) {
+                    return null;
+                }
+            }
+        } else {
+            destinosAlDia = 0;
+        }
+        byte[] linea = preparado ? escritor.entregar() : null;
+        FrameEstado estado = demandaCaptura.get() > 0 ? FrameEstado.capturar(gameManager) : null;
+
+        // Un delta necesita la captura de su keyframe: si el vigente no lo tiene, se adelanta el siguiente
+        FrameCodificado keyframe = ultimoKeyframe;
+        FrameCodificado frame;
+        if (keyframe == null || tick - keyframe.getTick() >= Config.INTERVALO_KEYFRAME_TICKS
+                || (estado != null && estadoKeyframe == null)) {
+            // Todas las clases reciben el keyframe, nunca como repetición: sus deltas siguientes parten de él
+            frame = new FrameCodificado(FrameCodificado.Tipo.ESTADO, tick, true, ClaseCliente.TODAS,
+                    () -> linea,
+                    null,
+                    estado != null ? () -> CodificadorBinario.codificarEstado(estado) : null);
+            estadoKeyframe = estado;
+            ultimoKeyframe = frame;
+        } else {
+            FrameEstado base = estadoKeyframe;
+            frame = new FrameCodificado(FrameCodificado.Tipo.ESTADO, tick, false, destinos, repeticion,
+                    () -> linea,
+                    estado != null
+                            ? () -> codificarLinea(JsonUtil.crearMensajeDelta(CodificadorDelta.calcular(base, estado)))
+                            : null,
+                    estado != null ? () -> CodificadorBinario.codificarEstado(estado) : null);
+        }
+        destinosAlDia |= frame.getDestinos();
+        ultimoEstado = frame;
+        return frame;
+    }
+
+    private static byte[] codificarLinea(String json) {
+        return json != null ? JsonUtil.codificarLinea(json) : null;
+    }
+}
@@ -0,0 +1,388 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.logic.entidades.Fruta;
+import cr.tec.donceykongjr.server.logic.entidades.Jugador;
+import cr.tec.donceykongjr.server.logic.entidades.Mario;
+import cr.tec.donceykongjr.server.logic.entidades.SnapshotCocodrilo;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Escribe la línea STATE completa leyendo directamente las entidades del
+ * {@link GameManager}, sin pasar por una captura {@link FrameEstado} ni por Gson.
+ *
+ * <p>Los bytes son idénticos a los de
+ * {@code JsonUtil.crearMensajeEstado(FrameEstado.capturar(gameManager))}:</p>
+ * <ul>
+ *   <li>cada objeto lleva sus claves en el mismo orden que {@link AdaptadoresJson},
+ *       y una clave con valor null se omite;</li>
+ *   <li>los enteros y booleanos se escriben igual que en Java; los double como
+ *       {@link Double#toString(double)}, y NaN o infinito hacen fallar el mensaje;</li>
+ *   <li>los textos se escapan como el JsonWriter de Gson con su configuración por
+ *       defecto (HTML seguro) y se codifican en UTF-8 como {@code String.getBytes}.</li>
+ * </ul>
+ *
+ * <p>Un campo nuevo en {@link FrameEstado} debe agregarse aquí en la misma posición que
+ * en su adaptador.</p>
+ *
+ * <p>El búfer se reutiliza de un tick al siguiente y las claves ya están codificadas,
+ * así que por difusión solo se reserva el arreglo final que se comparte con los
+ * clientes (más el texto de los double con decimales), y nada si el estado resulta
+ * igual al anterior ({@link #sinCambios()}). No es seguro entre hilos;
+ * {@link DifusorEstado} lo usa bajo su monitor.</p>
+ */
+final class EscritorEstado {
+    private static final byte[] INICIO = ascii("{\"type\":\"STATE\",\"data\":{\"crocodiles\":[");
+    private static final byte[] PAUSADO = ascii("],\"paused\":");
+    private static final byte[] FRUTAS = ascii(",\"fruits\":[");
+    private static final byte[] JUGADORES = ascii("],\"players\":[");
+    private static final byte[] VELOCIDAD = ascii("],\"speedMultiplier\":");
+    private static final byte[] MARIO = ascii(",\"mario\":{\"liana\":");
+    private static final byte[] TICK = ascii(",\"tick\":");
+    private static final byte[] TEMPORIZADOR = ascii(",\"celebrationTimer\":");
+    private static final byte[] CELEBRACION = ascii(",\"celebrationPending\":");
+    private static final byte[] FIN = ascii("}}\n");
+
+    private static final byte[] LIANA = ascii("{\"liana\":");
+    private static final byte[] TIPO = ascii(",\"kind\":");
+    private static final byte[] Y = ascii(",\"y\":");
+    private static final byte[] ID = ascii(",\"id\":");
+    private static final byte[] PUNTOS = ascii(",\"points\":");
+
+    private static final byte[] VX = ascii("{\"vx\":");
+    private static final byte[] VY = ascii(",\"vy\":");
+    private static final byte[] VIDAS = ascii(",\"lives\":");
+    private static final byte[] ACK = ascii(",\"ack\":");
+    private static final byte[] DIRECCION = ascii(",\"facing\":");
+    private static final byte[] ACTIVO = ascii(",\"active\":");
+    private static final byte[] LIANA_ID = ascii(",\"lianaId\":");
+    private static final byte[] PUNTAJE = ascii(",\"score\":");
+    private static final byte[] LIANA_RENDER = ascii(",\"liana\":");
+    private static final byte[] X = ascii(",\"x\":");
+    private static final byte[] ESTADO = ascii(",\"state\":");
+    private static final byte[] CELEBRANDO = ascii(",\"celebrating\":");
+
+    private static final byte[] VERDADERO = ascii("true");
+    private static final byte[] FALSO = ascii("false");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    /** Rango en que {@link Double#toString(double)} escribe un entero como "n.0". */
+    private static final double MAXIMO_ENTERO_PLANO = 1e7;
+
+    private byte[] datos = new byte[4096];
+    private int pos;
+    private int inicioTick;
+    private int finTick;
+
+    /** Última línea entregada y posición de su número de tick, para {@link #sinCambios()}. */
+    private byte[] entregada;
+    private int entregadaInicioTick;
+    private int entregadaFinTick;
+    private final StringBuilder decimales = new StringBuilder(32);
+
+    /**
+     * Escribe el estado actual del juego.
+     *
+     * @return bytes UTF-8 del mensaje incluyendo el '\n' final, o null si no se pudo serializar
+     */
+    byte[] escribir(GameManager gameManager) {
+        return preparar(gameManager) ? entregar() : null;
+    }
+
+    /**
+     * Escribe el estado actual en el búfer, sin copiarlo todavía.
+     *
+     * @return false si no se pudo serializar
+     */
+    boolean preparar(GameManager gameManager) {
+        pos = 0;
+        try {
+            escribirMensaje(gameManager);
+        } catch (RuntimeException e) {
+            LoggerUtil.error("error al serializar estado: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Indica si el búfer preparado es idéntico a la última línea entregada salvo por el
+     * número de tick.
+     */
+    boolean sinCambios() {
+        byte[] anterior = entregada;
+        return anterior != null
+                && Arrays.equals(datos, 0, inicioTick, anterior, 0, entregadaInicioTick)
+                && Arrays.equals(datos, finTick, pos, anterior, entregadaFinTick, anterior.length);
+    }
+
+    /**
+     * Copia el búfer preparado en el arreglo que se comparte con los clientes; queda
+     * como referencia de {@link #sinCambios()}.
+     *
+     * @return bytes UTF-8 del mensaje incluyendo el '\n' final
+     */
+    byte[] entregar() {
+        entregada = Arrays.copyOf(datos, pos);
+        entregadaInicioTick = inicioTick;
+        entregadaFinTick = finTick;
+        return entregada;
+    }
+
+    private void escribirMensaje(GameManager gameManager) {
+        bytes(INICIO);
+        boolean primero = true;
+        for (SnapshotCocodrilo croc : gameManager.getSnapshotCocodrilos().getCocodrilos()) {
+            if (croc.isActivo()) {
+                primero = separar(primero);
+                bytes(LIANA);
+                entero(croc.getLianaId());
+                bytes(TIPO);
+                texto(croc.getTipo().toString());
+                bytes(Y);
+                decimal(croc.getY());
+                bytes(ID);
+                texto(croc.getId());
+                u8('}');
+            }
+        }
+
+        bytes(PAUSADO);
+        booleano(gameManager.isPausado());
+
+        bytes(FRUTAS);
+        primero = true;
+        for (Fruta fruta : gameManager.getFrutas()) {
+            if (!fruta.isRecogida()) {
+                primero = separar(primero);
+                bytes(LIANA);
+                entero(fruta.getLiana());
+                bytes(Y);
+                decimal(fruta.getY());
+                bytes(ID);
+                texto(fruta.getId());
+                bytes(PUNTOS);
+                entero(fruta.getPuntos());
+                u8('}');
+            }
+        }
+
+        bytes(JUGADORES);
+        primero = true;
+        for (Jugador jugador : gameManager.getJugadores()) {
+            primero = separar(primero);
+            escribirJugador(jugador);
+        }
+
+        bytes(VELOCIDAD);
+        decimal(gameManager.getFactorDificultad());
+
+        Mario mario = gameManager.getMario();
+        if (mario != null && mario.isActivo()) {
+            bytes(MARIO);
+            entero(mario.getLianaId());
+            bytes(Y);
+            decimal(mario.getY());
+            bytes(ID);
+            texto(mario.getId());
+            u8('}');
+        }
+
+        bytes(TICK);
+        inicioTick = pos;
+        entero(gameManager.getTickActual());
+        finTick = pos;
+        bytes(TEMPORIZADOR);
+        decimal(Math.max(gameManager.getCelebracionRestante(), 0));
+        bytes(CELEBRACION);
+        booleano(gameManager.isReinicioPendiente());
+        bytes(FIN);
+    }
+
+    private void escribirJugador(Jugador jugador) {
+        bytes(VX);
+        decimal(jugador.getVx());
+        bytes(VY);
+        decimal(jugador.getVy());
+        bytes(VIDAS);
+        entero(jugador.getVidas());
+        bytes(ACK);
+        entero(jugador.getUltimaSecuenciaProcesada());
+        bytes(DIRECCION);
+        texto(jugador.getFacing().name());
+        bytes(ACTIVO);
+        booleano(jugador.isActivo());
+        Integer lianaId = jugador.getLianaId();
+        if (lianaId != null) {
+            bytes(LIANA_ID);
+            entero(lianaId);
+        }
+        bytes(PUNTAJE);
+        entero(jugador.getPuntaje());
+        bytes(LIANA_RENDER);
+        entero(jugador.getLiana());
+        bytes(X);
+        decimal(jugador.getX());
+        bytes(Y);
+        decimal(jugador.getY());
+        bytes(ID);
+        texto(jugador.getId());
+        bytes(ESTADO);
+        texto(jugador.getEstado().name());
+        bytes(CELEBRANDO);
+        booleano(jugador.estaCelebrando());
+        u8('}');
+    }
+
+    /**
+     * Escribe la coma antes de cada elemento de un arreglo salvo el primero.
+     *
+     * @return false, el valor de {@code primero} para el siguiente elemento
+     */
+    private boolean separar(boolean primero) {
+        if (!primero) {
+            u8(',');
+        }
+        return false;
+    }
+
+    private void booleano(boolean valor) {
+        bytes(valor ? VERDADERO : FALSO);
+    }
+
+    private void entero(long valor) {
+        if (valor == Long.MIN_VALUE) {
+            bytes(ascii(Long.toString(valor)));
+            return;
+        }
+        asegurar(20);
+        if (valor < 0) {
+            datos[pos++] = '-';
+            valor = -valor;
+        }
+        int digitos = 1;
+        for (long resto = valor / 10; resto != 0; resto /= 10) {
+            digitos++;
+        }
+        for (int i = pos + digitos - 1; i >= pos; i--) {
+            datos[i] = (byte) ('0' + valor % 10);
+            valor /= 10;
+        }
+        pos += digitos;
+    }
+
+    /**
+     * Escribe un double como {@link Double#toString(double)}. Los valores enteros, que
+     * son la mayoría en el estado, no pasan por texto intermedio.
+     */
+    private void decimal(double valor) {
+        if (!Double.isFinite(valor)) {
+            throw new IllegalArgumentException(valor + " no es un valor double válido en JSON");
+        }
+        double absoluto = Math.abs(valor);
+        if (absoluto < MAXIMO_ENTERO_PLANO && absoluto == Math.rint(absoluto)) {
+            if (valor == 0 && Double.doubleToRawLongBits(valor) != 0) {
+                u8('-');
+            }
+            entero((long) valor);
+            u8('.');
+            u8('0');
+            return;
+        }
+        decimales.setLength(0);
+        decimales.append(valor);
+        asegurar(decimales.length());
+        for (int i = 0; i < decimales.length(); i++) {
+            datos[pos++] = (byte) decimales.charAt(i);
+        }
+    }
+
+    /**
+     * Escribe un texto entre comillas con el escape de Gson y codificado en UTF-8;
+     * un surrogate sin pareja se reemplaza por '?'.
+     */
+    private void texto(String valor) {
+        asegurar(valor.length() * 6 + 2);
+        datos[pos++] = '"';
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c < 0x80) {
+                if (requiereEscape(c)) {
+                    escapar(c);
+                } else {
+                    datos[pos++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                datos[pos++] = (byte) (0xC0 | (c >> 6));
+                datos[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (c == '\u2028' || c == '\u2029') {
+                escapar(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < valor.length()
+                    && Character.isLowSurrogate(valor.charAt(i + 1))) {
+                int punto = Character.toCodePoint(c, valor.charAt(++i));
+                datos[pos++] = (byte) (0xF0 | (punto >> 18));
+                datos[pos++] = (byte) (0x80 | ((punto >> 12) & 0x3F));
+                datos[pos++] = (byte) (0x80 | ((punto >> 6) & 0x3F));
+                datos[pos++] = (byte) (0x80 | (punto & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                datos[pos++] = '?';
+            } else {
+                datos[pos++] = (byte) (0xE0 | (c >> 12));
+                datos[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                datos[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        datos[pos++] = '"';
+    }
+
+    /**
+     * Caracteres ASCII que Gson escapa: controles, comillas, barra invertida y los
+     * que podrían cerrar un bloque HTML.
+     */
+    private static boolean requiereEscape(char c) {
+        return c < 0x20 || c == '"' || c == '\\' || c == '<' || c == '>' || c == '&' || c == '=' || c == '\'';
+    }
+
+    private void escapar(char c) {
+        datos[pos++] = '\\';
+        switch (c) {
+            case '"', '\\' -> datos[pos++] = (byte) c;
+            case '\t' -> datos[pos++] = 't';
+            case '\b' -> datos[pos++] = 'b';
+            case '\n' -> datos[pos++] = 'n';
+            case '\r' -> datos[pos++] = 'r';
+            case '\f' -> datos[pos++] = 'f';
+            default -> {
+                datos[pos++] = 'u';
+                datos[pos++] = HEX[(c >> 12) & 0xF];
+                datos[pos++] = HEX[(c >> 8) & 0xF];
+                datos[pos++] = HEX[(c >> 4) & 0xF];
+                datos[pos++] = HEX[c & 0xF];
+            }
+        }
+    }
+
+    private void u8(int valor) {
+        asegurar(1);
+        datos[pos++] = (byte) valor;
+    }
+
+    private void bytes(byte[] valor) {
+        asegurar(valor.length);
+        System.arraycopy(valor, 0, datos, pos, valor.length);
+        pos += valor.length;
+    }
+
+    private void asegurar(int bytes) {
+        if (pos + bytes > datos.length) {
+            datos = Arrays.copyOf(datos, Math.max(datos.length * 2, pos + bytes));
+        }
+    }
+
+    private static byte[] ascii(String texto) {
+        return texto.getBytes(StandardCharsets.US_ASCII);
+    }
+}
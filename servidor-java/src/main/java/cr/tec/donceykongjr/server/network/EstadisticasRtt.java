@@ -0,0 +1,67 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.Percentiles;
+
+import java.util.Arrays;
+
+/**
+ * Tiempo de ida y vuelta (RTT) de una conexión, medido con PING/PONG.
+ *
+ * <p>Guarda un promedio móvil exponencial con el mismo peso que el SRTT de TCP (1/8
+ * para cada muestra nueva) y las últimas {@link Config#MUESTRAS_RTT} muestras, de las
+ * que se calculan los percentiles. Registra el hilo lector de la conexión y consulta el
+ * monitor o la administración, por eso los métodos son sincronizados.</p>
+ */
+final class EstadisticasRtt {
+    private static final double PESO_MUESTRA = 0.125;
+
+    private final long[] muestras;
+    private long total;
+    private double promedioMs;
+
+    EstadisticasRtt() {
+        this.muestras = new long[Config.MUESTRAS_RTT];
+    }
+
+    /**
+     * Agrega una medición.
+     *
+     * @param nanos tiempo entre el envío del PING y la llegada del PONG
+     */
+    synchronized void registrar(long nanos) {
+        double ms = nanos / 1_000_000.0;
+        promedioMs = total == 0 ? ms : promedioMs + PESO_MUESTRA * (ms - promedioMs);
+        muestras[(int) (total % muestras.length)] = nanos;
+        total++;
+    }
+
+    /**
+     * Promedio móvil en milisegundos, o -1 si aún no hay mediciones.
+     */
+    synchronized double getPromedioMs() {
+        return total == 0 ? -1 : promedioMs;
+    }
+
+    /**
+     * Percentil de las últimas mediciones en milisegundos, o -1 si no hay ninguna.
+     *
+     * @param percentil entre 0 y 100
+     */
+    synchronized double getPercentilMs(double percentil) {
+        int cantidad = (int) Math.min(total, muestras.length);
+        if (cantidad == 0) {
+            return -1;
+        }
+        long[] ordenadas = Arrays.copyOf(muestras, cantidad);
+        Arrays.sort(ordenadas);
+        return Percentiles.de(ordenadas, percentil) / 1_000_000.0;
+    }
+
+    /**
+     * Mediciones registradas desde que se abrió la conexión.
+     */
+    synchronized long getTotalMuestras() {
+        return total;
+    }
+}
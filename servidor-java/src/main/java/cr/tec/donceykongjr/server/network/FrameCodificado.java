@@ -0,0 +1,154 @@
+package cr.tec.donceykongjr.server.network;
+
+import java.util.function.Supplier;
+
+/**
+ * Mensaje ya codificado, listo para escribirse tal cual en cualquier conexión.
+ *
+ * <p>Se construye una sola vez por tick (estado) o por evento en {@link DifusorEstado}
+ * y la misma instancia se entrega a todos los clientes. Es inmutable: los bytes no se
+ * exponen fuera del paquete y ningún canal los modifica.</p>
+ *
+ * <p>Cada representación (línea JSON, delta JSON y frame binario) se calcula la primera
+ * vez que un cliente la pide y se reutiliza para el resto, por lo que cuesta a lo sumo
+ * una serialización por tick y ninguna si ningún cliente la usa. La línea de un estado
+ * ya llega escrita: el difusor la produce en el hilo del GameLoop.</p>
+ */
+final class FrameCodificado {
+
+    /**
+     * Tipo de contenido del frame.
+     */
+    enum Tipo {
+        ESTADO,  // Mensaje STATE completo del tick
+        EVENTO   // Mensaje EVENT emitido durante el tick
+    }
+
+    private final Tipo tipo;
+    private final long tick;
+    private final boolean keyframe;
+    private final int destinos;
+    private final int repeticionPara;
+    private final Perezoso linea;
+    private final Perezoso lineaDelta;
+    private final Perezoso binario;
+
+    /**
+     * @param keyframe si el estado sirve de base para los deltas siguientes
+     * @param codificadorLinea produce la línea JSON completa
+     * @param codificadorDelta produce la línea delta; null en keyframes, eventos y estados
+     *                         sin captura (ver {@link DifusorEstado#requerirCaptura()})
+     * @param codificadorBinario produce el frame del protocolo binario; null en estados sin captura
+     */
+    FrameCodificado(Tipo tipo, long tick, boolean keyframe, Supplier<byte[]> codificadorLinea,
+                    Supplier<byte[]> codificadorDelta, Supplier<byte[]> codificadorBinario) {
+        this(tipo, tick, keyframe, ClaseCliente.TODAS, codificadorLinea, codificadorDelta, codificadorBinario);
+    }
+
+    /**
+     * @param destinos máscara de las {@link ClaseCliente} que deben recibir el frame
+     */
+    FrameCodificado(Tipo tipo, long tick, boolean keyframe, int destinos, Supplier<byte[]> codificadorLinea,
+                    Supplier<byte[]> codificadorDelta, Supplier<byte[]> codificadorBinario) {
+        this(tipo, tick, keyframe, destinos, 0, codificadorLinea, codificadorDelta, codificadorBinario);
+    }
+
+    /**
+     * @param repeticionPara máscara de las clases de {@code destinos} que ya recibieron
+     *                       este mismo estado (ver {@link #esRepeticionPara})
+     */
+    FrameCodificado(Tipo tipo, long tick, boolean keyframe, int destinos, int repeticionPara,
+                    Supplier<byte[]> codificadorLinea, Supplier<byte[]> codificadorDelta,
+                    Supplier<byte[]> codificadorBinario) {
+        this.tipo = tipo;
+        this.tick = tick;
+        this.keyframe = keyframe;
+        this.destinos = destinos;
+        this.repeticionPara = repeticionPara;
+        this.linea = new Perezoso(codificadorLinea);
+        this.lineaDelta = new Perezoso(codificadorDelta);
+        this.binario = new Perezoso(codificadorBinario);
+    }
+
+    Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Tick del GameManager en el que se generó el frame.
+     */
+    long getTick() {
+        return tick;
+    }
+
+    /**
+     * Bytes UTF-8 del mensaje JSON completo incluyendo el '\n' final, o null si no se
+     * pudo serializar. Compartidos: no modificar.
+     */
+    byte[] getLinea() {
+        return linea.obtener();
+    }
+
+    boolean isKeyframe() {
+        return keyframe;
+    }
+
+    /**
+     * Si el frame va a los clientes de la clase dada. Los eventos van a todas.
+     */
+    boolean esPara(ClaseCliente clase) {
+        return (destinos & clase.getBit()) != 0;
+    }
+
+    /**
+     * Si para los clientes de la clase dada el frame repite, salvo por el tick, el último
+     * estado que recibieron. Solo lo envían las conexiones con estado por UDP, donde ese
+     * último estado pudo perderse; las TCP lo omiten.
+     */
+    boolean esRepeticionPara(ClaseCliente clase) {
+        return (repeticionPara & clase.getBit()) != 0;
+    }
+
+    /**
+     * Máscara de las {@link ClaseCliente} a las que va el frame.
+     */
+    int getDestinos() {
+        return destinos;
+    }
+
+    /**
+     * Línea STATE con el delta respecto al keyframe vigente, o null si el frame
+     * es un keyframe, un evento o un estado sin captura.
+     */
+    byte[] getLineaDelta() {
+        return lineaDelta.obtener();
+    }
+
+    /**
+     * Frame del protocolo binario ({@link CodificadorBinario}), o null si no se pudo
+     * codificar o el estado se difundió sin captura.
+     */
+    byte[] getBinario() {
+        return binario.obtener();
+    }
+
+    /**
+     * Valor calculado una sola vez, al primer acceso.
+     */
+    private static final class Perezoso {
+        private Supplier<byte[]> codificador;
+        private byte[] valor;
+
+        Perezoso(Supplier<byte[]> codificador) {
+            this.codificador = codificador;
+        }
+
+        synchronized byte[] obtener() {
+            if (codificador != null) {
+                valor = codificador.get();
+                codificador = null;
+            }
+            return valor;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.logic.entidades.Cocodrilo;
+import cr.tec.donceykongjr.server.logic.entidades.DireccionJugador;
+import cr.tec.donceykongjr.server.logic.entidades.EstadoJugador;
+import cr.tec.donceykongjr.server.logic.entidades.Fruta;
+import cr.tec.donceykongjr.server.logic.entidades.Jugador;
+import cr.tec.donceykongjr.server.logic.entidades.Mario;
+import cr.tec.donceykongjr.server.logic.entidades.SnapshotCocodrilo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estado de una sala en un tick, tal como viaja en el objeto {@code data} del mensaje STATE.
+ *
+ * <p>Es la captura inmutable de la que salen el delta ({@link CodificadorDelta}) y el
+ * frame binario ({@link CodificadorBinario}); en JSON lo serializa
+ * {@link AdaptadoresJson}. Cada componente documenta la clave con la que viaja.</p>
+ *
+ * @param tick tick del GameManager ({@code tick})
+ * @param multiplicadorVelocidad factor de dificultad del motor de cocodrilos ({@code speedMultiplier})
+ * @param pausado si el juego está en pausa ({@code paused})
+ * @param jugadores jugadores de la sala ({@code players})
+ * @param celebracionPendiente si hay un reinicio pendiente tras un rescate ({@code celebrationPending})
+ * @param tiempoCelebracion segundos que le quedan a la celebración ({@code celebrationTimer})
+ * @param cocodrilos cocodrilos activos ({@code crocodiles})
+ * @param frutas frutas sin recoger ({@code fruits})
+ * @param mario Mario, o null si no está activo ({@code mario})
+ */
+public record FrameEstado(long tick, double multiplicadorVelocidad, boolean pausado,
+                          List<DatosJugador> jugadores, boolean celebracionPendiente,
+                          double tiempoCelebracion, List<DatosCocodrilo> cocodrilos,
+                          List<DatosFruta> frutas, DatosMario mario) {
+
+    /**
+     * Un jugador en el estado ({@code players[]}).
+     *
+     * @param liana liana en la que se dibuja ({@code liana})
+     * @param lianaId liana a la que está agarrado, o null si no está en una ({@code lianaId})
+     * @param ack última secuencia de INPUT aplicada ({@code ack})
+     */
+    public record DatosJugador(String id, double x, double y, double vx, double vy, int liana,
+                               Integer lianaId, EstadoJugador estado, DireccionJugador direccion,
+                               int vidas, int puntaje, boolean activo, boolean celebrando, long ack) {
+    }
+
+    /**
+     * Un cocodrilo activo ({@code crocodiles[]}).
+     */
+    public record DatosCocodrilo(String id, Cocodrilo.TipoCocodrilo tipo, int liana, double y) {
+    }
+
+    /**
+     * Una fruta sin recoger ({@code fruits[]}).
+     */
+    public record DatosFruta(String id, int liana, double y, int puntos) {
+    }
+
+    /**
+     * Mario, mientras está activo ({@code mario}).
+     */
+    public record DatosMario(String id, int liana, double y) {
+    }
+
+    /**
+     * Captura el estado actual del juego. Debe llamarse desde el hilo del GameLoop.
+     *
+     * @param gameManager sala de la que se lee el estado
+     * @return captura inmutable del tick actual
+     */
+    public static FrameEstado capturar(GameManager gameManager) {
+        List<DatosJugador> jugadores = new ArrayList<>();
+        for (Jugador jugador : gameManager.getJugadores()) {
+            jugadores.add(new DatosJugador(jugador.getId(), jugador.getX(), jugador.getY(),
+                    jugador.getVx(), jugador.getVy(), jugador.getLiana(), jugador.getLianaId(),
+                    jugador.getEstado(), jugador.getFacing(), jugador.getVidas(), jugador.getPuntaje(),
+                    jugador.isActivo(), jugador.estaCelebrando(), jugador.getUltimaSecuenciaProcesada()));
+        }
+
+        List<DatosCocodrilo> cocodrilos = new ArrayList<>();
+        for (SnapshotCocodrilo croc : gameManager.getSnapshotCocodrilos().getCocodrilos()) {
+            if (croc.isActivo()) {
+                cocodrilos.add(new DatosCocodrilo(croc.getId(), croc.getTipo(), croc.getLianaId(), croc.getY()));
+            }
+        }
+
+        List<DatosFruta> frutas = new ArrayList<>();
+        for (Fruta fruta : gameManager.getFrutas()) {
+            if (!fruta.isRecogida()) {
+                frutas.add(new DatosFruta(fruta.getId(), fruta.getLiana(), fruta.getY(), fruta.getPuntos()));
+            }
+        }
+
+        Mario mario = gameManager.getMario();
+        DatosMario datosMario = mario != null && mario.isActivo()
+                ? new DatosMario(mario.getId(), mario.getLianaId(), mario.getY())
+                : null;
+
+        return new FrameEstado(gameManager.getTickActual(), gameManager.getFactorDificultad(),
+                gameManager.isPausado(), List.copyOf(jugadores), gameManager.isReinicioPendiente(),
+                Math.max(gameManager.getCelebracionRestante(), 0), List.copyOf(cocodrilos),
+                List.copyOf(frutas), datosMario);
+    }
+}
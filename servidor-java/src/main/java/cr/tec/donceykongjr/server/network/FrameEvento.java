@@ -0,0 +1,21 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.eventos.DatosEvento;
+import cr.tec.donceykongjr.server.logic.eventos.EventoJuego;
+
+/**
+ * Mensaje EVENT: el tipo de evento viaja en {@code name} y sus datos en {@code payload}.
+ * Lo serializa {@link AdaptadoresJson}.
+ *
+ * @param tipo tipo del evento
+ * @param datos datos del evento, o null si no tiene
+ */
+public record FrameEvento(EventoJuego.TipoEvento tipo, DatosEvento datos) {
+
+    /**
+     * @param evento evento notificado por el GameManager
+     */
+    public FrameEvento(EventoJuego evento) {
+        this(evento.getTipo(), evento.getPayload());
+    }
+}
@@ -5,12 +5,19 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import cr.tec.donceykongjr.server.util.LoggerUtil;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Utilidad para serialización y deserialización de mensajes JSON.
  * Usa Gson para convertir objetos Java a JSON y viceversa.
  */
 public class JsonUtil {
-    private static final Gson gson = new GsonBuilder()
+    private static final Gson gson = AdaptadoresJson.registrar(new GsonBuilder())
+            .create();
+
+    /** Para deltas: un campo que pasa a null debe viajar como null explícito. */
+    private static final Gson gsonConNulos = AdaptadoresJson.registrar(new GsonBuilder())
+            .serializeNulls()
             .create();
     
     /**
@@ -62,19 +69,85 @@ public class JsonUtil {
         }
     }
     
+    /**
+     * Codifica un mensaje JSON como línea UTF-8 terminada en '\n', lista para el socket.
+     */
+    public static byte[] codificarLinea(String json) {
+        return (json + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+    
     /**
      * Crea un mensaje de estado del juego.
      */
-    public static String crearMensajeEstado(java.util.Map<String, Object> estado) {
-        Mensaje mensaje = new Mensaje(Mensaje.TipoMensaje.STATE, estado);
-        return toJson(mensaje);
+    public static String crearMensajeEstado(FrameEstado estado) {
+        try {
+            return "{\"type\":\"STATE\",\"data\":" + gson.toJson(estado) + "}";
+        } catch (Exception e) {
+            LoggerUtil.error("error al serializar estado: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Crea un mensaje STATE cuyo objeto data es un delta respecto al último keyframe.
+     */
+    public static String crearMensajeDelta(java.util.Map<String, Object> delta) {
+        try {
+            return "{\"type\":\"STATE\",\"data\":" + gsonConNulos.toJson(delta) + "}";
+        } catch (Exception e) {
+            LoggerUtil.error("error al serializar delta: " + e.getMessage());
+            return null;
+        }
     }
     
     /**
      * Crea un mensaje de evento.
      */
-    public static String crearMensajeEvento(String nombreEvento, Object payload) {
-        Mensaje mensaje = new Mensaje(Mensaje.TipoMensaje.EVENT, nombreEvento, payload);
+    public static String crearMensajeEvento(FrameEvento evento) {
+        try {
+            return gson.toJson(evento);
+        } catch (Exception e) {
+            LoggerUtil.error("error al serializar evento: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Crea la respuesta a UDP_OPEN con el token y el puerto del canal UDP.
+     */
+    public static String crearMensajeTokenUdp(long token, int puerto) {
+        Mensaje mensaje = new Mensaje();
+        mensaje.setType(Mensaje.TipoMensaje.UDP_TOKEN);
+        java.util.Map<String, Object> payload = new java.util.HashMap<>();
+        payload.put("token", token);
+        payload.put("port", puerto);
+        mensaje.setPayload(payload);
+        return toJson(mensaje);
+    }
+    
+    /**
+     * Crea el mensaje SESSION con el token para reanudar la sesión del jugador.
+     *
+     * @param reanudada si la conexión acaba de retomar una sesión existente
+     */
+    public static String crearMensajeSesion(long token, long graciaMs, boolean reanudada) {
+        Mensaje mensaje = new Mensaje();
+        mensaje.setType(Mensaje.TipoMensaje.SESSION);
+        java.util.Map<String, Object> payload = new java.util.HashMap<>();
+        payload.put("token", token);
+        payload.put("graceMs", graciaMs);
+        payload.put("resumed", reanudada);
+        mensaje.setPayload(payload);
+        return toJson(mensaje);
+    }
+    
+    /**
+     * Crea un PING de latido.
+     */
+    public static String crearMensajePing(long secuencia) {
+        Mensaje mensaje = new Mensaje();
+        mensaje.setType(Mensaje.TipoMensaje.PING);
+        mensaje.setSeq(secuencia);
         return toJson(mensaje);
     }
     
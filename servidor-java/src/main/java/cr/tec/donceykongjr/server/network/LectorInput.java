@@ -0,0 +1,305 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.entidades.AccionJugador;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reconoce un INPUT directamente en los bytes de la línea, sin pasar por Gson ni
+ * crear objetos.
+ *
+ * <p>Solo acepta la forma compacta que envían los clientes:</p>
+ * <pre>
+ * {"type":"INPUT","id":"p1","action":"LEFT","velocity":1.0,"seq":42,"tick":310}
+ * </pre>
+ * <ul>
+ *   <li>{@code type} es la primera clave;</li>
+ *   <li>{@code action} es uno de los comandos de {@link AccionJugador#desde} sin espacios
+ *       (se aceptan mayúsculas y minúsculas);</li>
+ *   <li>{@code seq} y {@code tick}, si vienen, son enteros sin decimales ni exponente;</li>
+ *   <li>las demás claves se ignoran si su valor es un texto sin escapes, un número,
+ *       true, false o null; {@code session} no, porque Gson la valida como número.</li>
+ * </ul>
+ *
+ * <p>Cualquier otra cosa (espacios entre tokens, escapes, objetos anidados, claves
+ * repetidas, comandos desconocidos) no se reconoce y la línea sigue por Gson, que
+ * decide igual que antes. Cada conexión tiene su propio lector; no es thread-safe.</p>
+ */
+final class LectorInput {
+    private static final byte[] PREFIJO = "{\"type\":\"INPUT\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLAVE_ACCION = ascii("action");
+    private static final byte[] CLAVE_SECUENCIA = ascii("seq");
+    private static final byte[] CLAVE_TICK = ascii("tick");
+    private static final byte[] CLAVE_TIPO = ascii("type");
+    private static final byte[] CLAVE_SESION = ascii("session");
+    private static final byte[] NULO = ascii("null");
+    private static final byte[] VERDADERO = ascii("true");
+    private static final byte[] FALSO = ascii("false");
+
+    /** Comandos aceptados, en mayúsculas, y la acción de cada uno (ver {@link AccionJugador#desde}). */
+    private static final byte[][] COMANDOS = {
+            ascii("LEFT"), ascii("MOVE_LEFT"), ascii("RIGHT"), ascii("MOVE_RIGHT"),
+            ascii("UP"), ascii("MOVE_UP"), ascii("DOWN"), ascii("MOVE_DOWN"),
+            ascii("JUMP"), ascii("GRAB")};
+    private static final AccionJugador[] ACCIONES = {
+            AccionJugador.IZQUIERDA, AccionJugador.IZQUIERDA, AccionJugador.DERECHA, AccionJugador.DERECHA,
+            AccionJugador.ARRIBA, AccionJugador.ARRIBA, AccionJugador.ABAJO, AccionJugador.ABAJO,
+            AccionJugador.SALTAR, AccionJugador.AGARRAR};
+
+    /** Mayor cantidad de dígitos que se lee sin riesgo de desbordar un long. */
+    private static final int MAX_DIGITOS = 18;
+
+    private byte[] datos;
+    private int fin;
+    private int pos;
+
+    private AccionJugador accion;
+    private long secuencia;
+    private long tick;
+
+    /**
+     * Intenta leer la línea como INPUT.
+     *
+     * @param linea bytes de la línea, sin el '\n' final
+     * @param longitud cantidad de bytes válidos
+     * @return true si es un INPUT reconocido; sus campos quedan en {@link #getAccion()},
+     *         {@link #getSecuencia()} y {@link #getTick()}
+     */
+    boolean leer(byte[] linea, int longitud) {
+        if (longitud <= PREFIJO.length || !empiezaCon(linea, longitud)) {
+            return false;
+        }
+        datos = linea;
+        fin = longitud;
+        pos = PREFIJO.length;
+        accion = null;
+        secuencia = 0;
+        tick = 0;
+        boolean conAccion = false;
+        boolean conSecuencia = false;
+        boolean conTick = false;
+
+        while (pos < fin && datos[pos] == ',') {
+            pos++;
+            int inicioClave = texto();
+            if (inicioClave < 0 || !consumir((byte) ':')) {
+                return false;
+            }
+            int finClave = pos - 2;
+            if (igual(inicioClave, finClave, CLAVE_ACCION)) {
+                if (conAccion) {
+                    return false;
+                }
+                conAccion = true;
+                int inicio = texto();
+                if (inicio < 0 || (accion = comando(inicio, pos - 1)) == null) {
+                    return false;
+                }
+            } else if (igual(inicioClave, finClave, CLAVE_SECUENCIA)) {
+                if (conSecuencia || (secuencia = entero()) < 0) {
+                    return false;
+                }
+                conSecuencia = true;
+            } else if (igual(inicioClave, finClave, CLAVE_TICK)) {
+                if (conTick || (tick = entero()) < 0) {
+                    return false;
+                }
+                conTick = true;
+            } else if (igual(inicioClave, finClave, CLAVE_TIPO) || igual(inicioClave, finClave, CLAVE_SESION)
+                    || !omitirValor()) {
+                return false;
+            }
+        }
+        return conAccion && pos == fin - 1 && datos[pos] == '}';
+    }
+
+    /**
+     * Acción del último INPUT reconocido.
+     */
+    AccionJugador getAccion() {
+        return accion;
+    }
+
+    /**
+     * Campo {@code seq} del último INPUT reconocido, o 0 si no venía.
+     */
+    long getSecuencia() {
+        return secuencia;
+    }
+
+    /**
+     * Campo {@code tick} del último INPUT reconocido, o 0 si no venía.
+     */
+    long getTick() {
+        return tick;
+    }
+
+    private static boolean empiezaCon(byte[] linea, int longitud) {
+        for (int i = 0; i < PREFIJO.length; i++) {
+            if (linea[i] != PREFIJO[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consume un texto sin escapes.
+     *
+     * @return posición del primer byte del contenido, o -1 si no es un texto simple;
+     *         al volver, {@code pos} queda tras la comilla de cierre
+     */
+    private int texto() {
+        if (!consumir((byte) '"')) {
+            return -1;
+        }
+        int inicio = pos;
+        while (pos < fin) {
+            byte b = datos[pos++];
+            if (b == '"') {
+                return inicio;
+            }
+            if (b == '\\' || (b >= 0 && b < 0x20)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Consume un entero no negativo sin signo, decimales ni exponente.
+     *
+     * @return el valor, o -1 si no tiene esa forma
+     */
+    private long entero() {
+        int inicio = pos;
+        long valor = 0;
+        while (pos < fin && datos[pos] >= '0' && datos[pos] <= '9') {
+            valor = valor * 10 + (datos[pos++] - '0');
+        }
+        int digitos = pos - inicio;
+        if (digitos == 0 || digitos > MAX_DIGITOS || (digitos > 1 && datos[inicio] == '0')) {
+            return -1;
+        }
+        return pos < fin && (datos[pos] == ',' || datos[pos] == '}') ? valor : -1;
+    }
+
+    /**
+     * Salta el valor de una clave que el INPUT no usa.
+     */
+    private boolean omitirValor() {
+        if (pos >= fin) {
+            return false;
+        }
+        byte b = datos[pos];
+        if (b == '"') {
+            return texto() >= 0;
+        }
+        if (b == 'n') {
+            return literal(NULO);
+        }
+        if (b == 't') {
+            return literal(VERDADERO);
+        }
+        if (b == 'f') {
+            return literal(FALSO);
+        }
+        return numero();
+    }
+
+    /**
+     * Salta un número JSON.
+     */
+    private boolean numero() {
+        int inicio = pos;
+        if (pos < fin && datos[pos] == '-') {
+            pos++;
+        }
+        if (!digitos()) {
+            return false;
+        }
+        if (pos < fin && datos[pos] == '.') {
+            pos++;
+            if (!digitos()) {
+                return false;
+            }
+        }
+        if (pos < fin && (datos[pos] == 'e' || datos[pos] == 'E')) {
+            pos++;
+            if (pos < fin && (datos[pos] == '+' || datos[pos] == '-')) {
+                pos++;
+            }
+            if (!digitos()) {
+                return false;
+            }
+        }
+        return pos > inicio && pos < fin && (datos[pos] == ',' || datos[pos] == '}');
+    }
+
+    private boolean digitos() {
+        int inicio = pos;
+        while (pos < fin && datos[pos] >= '0' && datos[pos] <= '9') {
+            pos++;
+        }
+        return pos > inicio;
+    }
+
+    private boolean literal(byte[] valor) {
+        if (!igual(pos, Math.min(pos + valor.length, fin), valor)) {
+            return false;
+        }
+        pos += valor.length;
+        return pos < fin && (datos[pos] == ',' || datos[pos] == '}');
+    }
+
+    private boolean consumir(byte esperado) {
+        if (pos < fin && datos[pos] == esperado) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean igual(int inicio, int hasta, byte[] valor) {
+        if (hasta - inicio != valor.length) {
+            return false;
+        }
+        for (int i = 0; i < valor.length; i++) {
+            if (datos[inicio + i] != valor[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Busca el comando sin distinguir mayúsculas (solo letras ASCII).
+     */
+    private AccionJugador comando(int inicio, int hasta) {
+        for (int c = 0; c < COMANDOS.length; c++) {
+            byte[] nombre = COMANDOS[c];
+            if (hasta - inicio != nombre.length) {
+                continue;
+            }
+            int i = 0;
+            while (i < nombre.length) {
+                byte b = datos[inicio + i];
+                if (b >= 'a' && b <= 'z') {
+                    b -= 'a' - 'A';
+                }
+                if (b != nombre[i]) {
+                    break;
+                }
+                i++;
+            }
+            if (i == nombre.length) {
+                return ACCIONES[c];
+            }
+        }
+        return null;
+    }
+
+    private static byte[] ascii(String texto) {
+        return texto.getBytes(StandardCharsets.US_ASCII);
+    }
+}
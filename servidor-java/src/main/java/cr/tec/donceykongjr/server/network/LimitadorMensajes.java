@@ -0,0 +1,55 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.Config;
+
+/**
+ * Token bucket que limita los mensajes entrantes de una conexión.
+ *
+ * <p>El cubo se llena a {@link Config#MENSAJES_POR_SEGUNDO_CLIENTE} fichas por segundo
+ * hasta {@link Config#RAFAGA_MENSAJES_CLIENTE}; cada mensaje consume una. Sin fichas el
+ * mensaje se descarta sin interpretarlo. Solo lo usa el hilo que lee la conexión, así
+ * que no es thread-safe.</p>
+ */
+final class LimitadorMensajes {
+    private final double capacidad;
+    private final double fichasPorNano;
+    private double fichas;
+    private long ultimaRecarga;
+    private int limitadosSeguidos;
+
+    LimitadorMensajes() {
+        this(Config.MENSAJES_POR_SEGUNDO_CLIENTE, Config.RAFAGA_MENSAJES_CLIENTE);
+    }
+
+    LimitadorMensajes(int mensajesPorSegundo, int rafaga) {
+        this.capacidad = rafaga;
+        this.fichasPorNano = mensajesPorSegundo / 1_000_000_000.0;
+        this.fichas = rafaga;
+        this.ultimaRecarga = System.nanoTime();
+    }
+
+    /**
+     * Consume una ficha si hay disponible.
+     *
+     * @return true si el mensaje puede procesarse
+     */
+    boolean permitir() {
+        long ahora = System.nanoTime();
+        fichas = Math.min(capacidad, fichas + (ahora - ultimaRecarga) * fichasPorNano);
+        ultimaRecarga = ahora;
+        if (fichas >= 1.0) {
+            fichas -= 1.0;
+            limitadosSeguidos = 0;
+            return true;
+        }
+        limitadosSeguidos++;
+        return false;
+    }
+
+    /**
+     * Mensajes rechazados desde el último que se permitió.
+     */
+    int getLimitadosSeguidos() {
+        return limitadosSeguidos;
+    }
+}
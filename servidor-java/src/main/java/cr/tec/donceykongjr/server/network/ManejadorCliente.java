@@ -1,17 +1,65 @@
 package cr.tec.donceykongjr.server.network;
 
 import cr.tec.donceykongjr.server.logic.GameManager;
-import cr.tec.donceykongjr.server.logic.eventos.EventoJuego;
+import cr.tec.donceykongjr.server.logic.entidades.AccionJugador;
 import cr.tec.donceykongjr.server.logic.patrones.Observer;
+import cr.tec.donceykongjr.server.logic.patrones.Subject;
+import cr.tec.donceykongjr.server.util.Config;
 import cr.tec.donceykongjr.server.util.LoggerUtil;
 
 import java.io.*;
 import java.net.Socket;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Maneja la comunicación con un cliente individual.
- * Implementa Observer para recibir actualizaciones del GameManager.
+ * Implementa Observer para recibir del {@link DifusorEstado} los frames ya codificados
+ * de cada tick, que se escriben tal cual sin volver a serializar el estado.
+ *
+ * <p>En los modos {@link ModoTransporte#HILOS} y {@link ModoTransporte#VIRTUAL} se
+ * ejecuta como {@link Runnable} y bloquea su hilo leyendo del socket. En modo
+ * {@link ModoTransporte#NIO} el transporte entrega cada línea mediante
+ * {@link #procesarLinea(byte[], int)}. En ambos casos la salida pasa por un {@link CanalCliente}.</p>
+ *
+ * <p>El cliente siempre escribe líneas JSON. Lo que recibe es JSON salvo que pida
+ * {@code "protocol":"BINARY"} en CONNECT; desde ese momento recibe frames de
+ * {@link CodificadorBinario}.</p>
+ *
+ * <p>Con {@code "compression":"DEFLATE"} en CONNECT lo que sale por TCP pasa además por
+ * un {@link CompresorMensajes} con contexto propio de la conexión. El estado por UDP
+ * no se comprime: un datagrama perdido rompería el contexto.</p>
+ *
+ * <p>Con {@code UDP_OPEN} el cliente pide recibir el estado por el {@link CanalUdpEstado};
+ * eventos y errores siguen por TCP. Si deja de confirmar por más de
+ * {@link Config#TIMEOUT_CONFIRMACION_UDP_MS} el estado vuelve a TCP.</p>
+ *
+ * <p>Hasta CONNECT la conexión observa la sala por defecto. CONNECT la registra en la
+ * sala que indique {@code "room"} (o en una libre, ver {@link RegistroSalas}) y desde ahí
+ * solo recibe los frames de esa sala: un jugador directamente del {@link DifusorEstado},
+ * un espectador a través del {@link RelayEspectadores} de la sala.</p>
+ *
+ * <p>La entrada está acotada antes de llegar a Gson: las líneas se cortan en
+ * {@link Config#LONGITUD_MAXIMA_LINEA_ENTRADA} bytes mientras se leen (la conexión se
+ * cierra si alguna lo excede), cada conexión pasa por un {@link LimitadorMensajes} y las
+ * líneas que no tienen forma de mensaje se descartan sin interpretarlas.</p>
+ *
+ * <p>Los INPUT, que son casi todo el tráfico entrante, los reconoce un {@link LectorInput}
+ * en los bytes de la línea y van al {@link GameManager} como {@link AccionJugador} sin
+ * crear ningún objeto. Solo lo que el lector no reconoce se convierte a String y pasa
+ * por Gson.</p>
+ *
+ * <p>El {@link MonitorLatidos} le envía un PING por segundo; el PONG del cliente mide
+ * el RTT de la conexión y cualquier línea recibida cuenta como señal de vida.</p>
+ *
+ * <p>Al aceptar a un jugador se le envía SESSION con el token de su
+ * {@link SesionReanudable}. Si la conexión cae sin DISCONNECT, un CONNECT con
+ * {@code "session"} y el último {@code "tick"} recibido retoma el mismo jugador y recibe
+ * solo los frames que perdió (o un estado completo si ya no se conservan todos).</p>
  */
 public class ManejadorCliente implements Runnable, Observer {
 
@@ -24,21 +72,70 @@ public class ManejadorCliente implements Runnable, Observer {
         UNDEFINED    // No se ha determinado el tipo
     }
 
+    private static final int TAMANO_LECTURA = 4096;
+    private static final int PINGS_EN_VUELO = 4;
+
+    // Contadores globales de mensajes rechazados antes de procesarse
+    private static final LongAdder MENSAJES_DESCARTADOS = new LongAdder();
+    private static final LongAdder MENSAJES_LIMITADOS = new LongAdder();
+
+    // Contadores globales de INPUT según el camino por el que se leyeron
+    private static final LongAdder INPUTS_DIRECTOS = new LongAdder();
+    private static final LongAdder INPUTS_GSON = new LongAdder();
+
     private Socket socket;
-    private GameManager gameManager;
-    private BufferedReader entrada;
-    private PrintWriter salida;
-    private final Object salidaLock = new Object();
-    private String jugadorId;
-    private boolean conectado;
-    private TipoCliente tipoCliente;
+    private CanalCliente canal;
+    private final RegistroSalas registro;
+    private volatile Sala sala;
+    private volatile Subject fuente;  // Difusor o relay del que se reciben los frames
+    private final CanalUdpEstado canalUdp;
+    private volatile SesionUdp sesionUdp;
+    private volatile SesionReanudable sesion;
+    private volatile boolean salidaVoluntaria;
+    private InputStream entrada;
+    private final LimitadorMensajes limitador = new LimitadorMensajes();
+    private final LectorInput lectorInput = new LectorInput();
+    private final MonitorLatidos latidos;
+    private final EstadisticasRtt rtt = new EstadisticasRtt();
+    private final AtomicLongArray enviosPing = new AtomicLongArray(PINGS_EN_VUELO);
+    private volatile long secuenciaPing;
+    private volatile long ultimaActividad = System.nanoTime();
+    private final AtomicBoolean desconectado = new AtomicBoolean(false);
+    private volatile String jugadorId;
+    private volatile boolean conectado;
+    private volatile boolean codificacionDelta;
+    private volatile boolean protocoloBinario;
+    private volatile DifusorEstado difusorConCaptura;  // Difusor al que se pidió la captura de estado, o null
+    private DifusorEstado difusorSinCambios;  // Difusor al que se pidieron los estados sin cambios por UDP, o null
+    private volatile TipoCliente tipoCliente;
     
     /**
-     * Constructor del manejador de cliente.
+     * Constructor del manejador de cliente para el modo de hilo por conexión.
      */
-    public ManejadorCliente(Socket socket, GameManager gameManager) {
+    public ManejadorCliente(Socket socket, RegistroSalas registro, CanalUdpEstado canalUdp,
+                            MonitorLatidos latidos) {
         this.socket = socket;
-        this.gameManager = gameManager;
+        this.registro = registro;
+        this.latidos = latidos;
+        this.sala = registro.getPrincipal();
+        this.fuente = sala.getDifusor();
+        this.canalUdp = canalUdp;
+        this.conectado = true;
+        this.tipoCliente = TipoCliente.UNDEFINED;
+    }
+
+    /**
+     * Constructor del manejador de cliente para transportes no bloqueantes.
+     * La lectura la realiza el transporte, que invoca {@link #procesarLinea(byte[], int)}.
+     */
+    ManejadorCliente(CanalCliente canal, RegistroSalas registro, CanalUdpEstado canalUdp,
+                     MonitorLatidos latidos) {
+        this.canal = canal;
+        this.registro = registro;
+        this.latidos = latidos;
+        this.sala = registro.getPrincipal();
+        this.fuente = sala.getDifusor();
+        this.canalUdp = canalUdp;
         this.conectado = true;
         this.tipoCliente = TipoCliente.UNDEFINED;
     }
@@ -46,19 +143,19 @@ public class ManejadorCliente implements Runnable, Observer {
     @Override
     public void run() {
         try {
-            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            salida = new PrintWriter(socket.getOutputStream(), true);
+            entrada = socket.getInputStream();
+            canal = new CanalSocket(socket, this::desconectar);
             
-            // Registrar como observador
-            gameManager.agregarObservador(this);
-            
-            // Enviar estado inicial
-            enviarEstado();
+            iniciar();
             
-            // Leer mensajes del cliente
-            String linea;
-            while (conectado && (linea = entrada.readLine()) != null) {
-                procesarMensaje(linea);
+            // Leer mensajes del cliente con el mismo separador acotado que usa NIO
+            DecodificadorLineas decodificador = new DecodificadorLineas();
+            byte[] datos = new byte[TAMANO_LECTURA];
+            int leidos;
+            while (conectado && (leidos = entrada.read(datos)) >= 0) {
+                if (!decodificador.alimentar(ByteBuffer.wrap(datos, 0, leidos), this::procesarLinea)) {
+                    rechazarLineaExcedida();
+                }
             }
         } catch (IOException e) {
             LoggerUtil.warning("cliente desconectado: " + e.getMessage());
@@ -66,6 +163,109 @@ public class ManejadorCliente implements Runnable, Observer {
             desconectar();
         }
     }
+
+    /**
+     * Se suscribe al difusor de estado, envía el estado inicial y se registra en el
+     * monitor de latidos.
+     */
+    void iniciar() {
+        fuente.agregarObservador(this);
+        enviarEstado();
+        if (latidos != null) {
+            latidos.registrar(this);
+        }
+    }
+
+    /**
+     * Procesa una línea completa recibida del cliente.
+     * Antes de interpretar el JSON aplica el límite de tasa; luego un INPUT reconocido
+     * por el {@link LectorInput} se aplica directamente, y del resto se descartan las
+     * líneas que no pueden ser un mensaje. Nada de eso llega a Gson.
+     *
+     * @param datos buffer del decodificador; no se conserva tras la llamada
+     * @param longitud bytes de la línea
+     */
+    void procesarLinea(byte[] datos, int longitud) {
+        if (!conectado) {
+            return;
+        }
+        ultimaActividad = System.nanoTime();
+        if (!limitador.permitir()) {
+            limitarMensaje();
+            return;
+        }
+        if (lectorInput.leer(datos, longitud)) {
+            INPUTS_DIRECTOS.increment();
+            manejarInput(lectorInput.getAccion(), lectorInput.getSecuencia(), lectorInput.getTick());
+            return;
+        }
+        String linea = new String(datos, 0, longitud, StandardCharsets.UTF_8);
+        if (linea.charAt(0) != '{' || !linea.contains("\"type\"")) {
+            MENSAJES_DESCARTADOS.increment();
+            LoggerUtil.debug("linea sin forma de mensaje descartada de " + jugadorId);
+            return;
+        }
+        procesarMensaje(linea);
+    }
+
+    /**
+     * Descarta un mensaje que excede la tasa permitida. Si el cliente insiste sin
+     * pausa más de {@link Config#MAX_MENSAJES_LIMITADOS_SEGUIDOS} veces se desconecta.
+     */
+    private void limitarMensaje() {
+        MENSAJES_LIMITADOS.increment();
+        int seguidos = limitador.getLimitadosSeguidos();
+        if (seguidos == 1) {
+            LoggerUtil.debug("cliente " + jugadorId + " excede la tasa de mensajes, descartando");
+        }
+        if (seguidos >= Config.MAX_MENSAJES_LIMITADOS_SEGUIDOS) {
+            LoggerUtil.warning("cliente " + jugadorId + " desconectado: " + seguidos
+                    + " mensajes seguidos por encima de la tasa permitida");
+            enviarError("Demasiados mensajes");
+            desconectar();
+        }
+    }
+
+    /**
+     * Cierra la conexión de un cliente que envió una línea más larga que
+     * {@link Config#LONGITUD_MAXIMA_LINEA_ENTRADA}. La línea no llega a acumularse completa.
+     */
+    void rechazarLineaExcedida() {
+        MENSAJES_DESCARTADOS.increment();
+        LoggerUtil.warning("cliente " + jugadorId + " desconectado: línea de más de "
+                + Config.LONGITUD_MAXIMA_LINEA_ENTRADA + " bytes");
+        enviarError("Mensaje demasiado largo");
+        desconectar();
+    }
+
+    /**
+     * Mensajes descartados sin procesar en todo el proceso: líneas demasiado largas,
+     * sin forma de mensaje o con JSON inválido.
+     */
+    static long getMensajesDescartados() {
+        return MENSAJES_DESCARTADOS.sum();
+    }
+
+    /**
+     * Mensajes descartados en todo el proceso por exceder la tasa de su conexión.
+     */
+    static long getMensajesLimitados() {
+        return MENSAJES_LIMITADOS.sum();
+    }
+
+    /**
+     * INPUT leídos por el {@link LectorInput} en todo el proceso.
+     */
+    static long getInputsDirectos() {
+        return INPUTS_DIRECTOS.sum();
+    }
+
+    /**
+     * INPUT que el {@link LectorInput} no reconoció y se leyeron con Gson, en todo el proceso.
+     */
+    static long getInputsGson() {
+        return INPUTS_GSON.sum();
+    }
     
     /**
      * Procesa un mensaje JSON recibido del cliente.
@@ -73,7 +273,8 @@ public class ManejadorCliente implements Runnable, Observer {
     private void procesarMensaje(String json) {
         try {
             Mensaje mensaje = JsonUtil.fromJson(json);
-            if (mensaje == null) {
+            if (mensaje == null || mensaje.getType() == null) {
+                MENSAJES_DESCARTADOS.increment();
                 LoggerUtil.warning("mensaje json invalido recibido");
                 return;
             }
@@ -83,11 +284,19 @@ public class ManejadorCliente implements Runnable, Observer {
                     manejarConexion(mensaje);
                     break;
                 case INPUT:
+                    INPUTS_GSON.increment();
                     manejarInput(mensaje);
                     break;
                 case DISCONNECT:
+                    salidaVoluntaria = true;
                     desconectar();
                     break;
+                case UDP_OPEN:
+                    manejarAperturaUdp();
+                    break;
+                case PONG:
+                    manejarPong(mensaje);
+                    break;
                 default:
                     LoggerUtil.debug("tipo de mensaje no reconocido: " + mensaje.getType());
             }
@@ -103,6 +312,18 @@ public class ManejadorCliente implements Runnable, Observer {
      * Si no se especifica clientType, se asume "PLAYER" por compatibilidad.
      */
     private void manejarConexion(Mensaje mensaje) {
+        // Un segundo CONNECT no puede cambiar de identidad, protocolo ni sala
+        if (tipoCliente != TipoCliente.UNDEFINED) {
+            enviarError("Cliente ya conectado");
+            return;
+        }
+
+        // El protocolo se fija primero para que incluso el rechazo llegue en el formato pedido
+        protocoloBinario = "BINARY".equalsIgnoreCase(mensaje.getProtocol());
+        if ("DEFLATE".equalsIgnoreCase(mensaje.getCompression())) {
+            canal.activarCompresion();
+        }
+
         if (mensaje.getId() == null) {
             enviarError("ID de cliente requerido");
             desconectar();
@@ -117,11 +338,15 @@ public class ManejadorCliente implements Runnable, Observer {
             clientTypeStr = "PLAYER";  // Compatibilidad con clientes antiguos
         }
 
+        // Los deltas se activan antes de registrar para que el primer estado sea un keyframe.
+        // El estado binario ya es compacto y siempre viaja completo.
+        codificacionDelta = !protocoloBinario && "DELTA".equalsIgnoreCase(mensaje.getStateEncoding());
+
         // Procesar según tipo de cliente
         if ("PLAYER".equalsIgnoreCase(clientTypeStr)) {
-            manejarConexionJugador();
+            manejarConexionJugador(mensaje.getRoom(), mensaje.getSession(), mensaje.getTick());
         } else if ("SPECTATOR".equalsIgnoreCase(clientTypeStr)) {
-            manejarConexionEspectador();
+            manejarConexionEspectador(mensaje.getRoom());
         } else {
             enviarError("Tipo de cliente inválido: " + clientTypeStr);
             desconectar();
@@ -129,110 +354,370 @@ public class ManejadorCliente implements Runnable, Observer {
     }
 
     /**
-     * Procesa la conexión de un jugador.
+     * Procesa la conexión de un jugador. Si trae el token de una sesión vigente la
+     * reanuda; si no (o ya venció), se registra como jugador nuevo.
+     *
+     * @param nombreSala sala pedida, o null para la primera con plaza
+     * @param token token de SESSION de una conexión anterior, o 0
+     * @param ultimoTick último tick que recibió por la conexión anterior
      */
-    private void manejarConexionJugador() {
-        boolean agregado = gameManager.agregarJugador(jugadorId, 0, 5, 0);
+    private void manejarConexionJugador(String nombreSala, long token, long ultimoTick) {
+        if (token != 0 && reanudarSesion(token, ultimoTick)) {
+            return;
+        }
+        Sala asignada = registro.conectarJugador(nombreSala, jugadorId);
 
-        if (agregado) {
+        if (asignada != null) {
+            cambiarSala(asignada, asignada.getDifusor());
+            requerirCaptura(asignada);
             tipoCliente = TipoCliente.PLAYER;
-            LoggerUtil.info("jugador " + jugadorId + " registrado exitosamente");
+            sesion = registro.abrirSesion(asignada, jugadorId, this);
+            LoggerUtil.info("jugador " + jugadorId + " registrado exitosamente en sala " + asignada.getId());
+            enviarSesion(false);
             enviarEstado();
         } else {
             enviarError("No se puede conectar como jugador: límite alcanzado (máximo " +
-                       gameManager.contarJugadoresActivos() + " jugador)");
+                       Config.MAX_JUGADORES + " jugador por sala, " + Config.MAX_SALAS + " salas)");
             LoggerUtil.warning("conexión de jugador " + jugadorId + " rechazada: límite alcanzado");
             desconectar();
         }
     }
 
     /**
-     * Procesa la conexión de un espectador.
+     * Retoma la sesión suspendida de un jugador. La conexión deja la sala por defecto y
+     * se suscribe a la de la sesión recibiendo primero, en orden, los frames posteriores
+     * a {@code ultimoTick}; el buzón los reduce a los eventos más el último keyframe y
+     * estado, así que la reconexión cuesta poco más que un tick normal.
+     *
+     * @return false si la sesión no existe, venció o es de otro jugador
      */
-    private void manejarConexionEspectador() {
-        // Verificar que haya al menos un jugador activo
-        if (!gameManager.hayJugadorActivo()) {
-            enviarError("No hay partidas activas para observar");
-            LoggerUtil.warning("espectador " + jugadorId + " rechazado: no hay jugadores activos");
-            desconectar();
-            return;
+    private boolean reanudarSesion(long token, long ultimoTick) {
+        SesionReanudable reanudada = registro.reanudarJugador(token, jugadorId, this);
+        if (reanudada == null) {
+            LoggerUtil.info("sesión de " + jugadorId + " no reanudable, se conecta como jugador nuevo");
+            return false;
         }
+        Sala asignada = reanudada.getSala();
+        fuente.eliminarObservador(this);
+        sala = asignada;
+        fuente = asignada.getDifusor();
+        sesion = reanudada;
+        tipoCliente = TipoCliente.PLAYER;
+        requerirCaptura(asignada);
+        enviarSesion(true);
 
-        // Intentar registrar como espectador
-        boolean registrado = gameManager.registrarEspectador(jugadorId);
+        boolean repetidos = asignada.getDifusor().suscribirDesde(this, ultimoTick, this::depositarFrame);
+        if (repetidos) {
+            canal.descargar();
+        } else {
+            enviarEstado();
+        }
+        LoggerUtil.info("jugador " + jugadorId + " reanudó su sesión en sala " + asignada.getId()
+                + (repetidos ? " con los frames desde el tick " + ultimoTick : " con estado completo"));
+        return true;
+    }
 
-        if (registrado) {
+    /**
+     * Procesa la conexión de un espectador. Solo puede observar una sala con al menos
+     * un jugador activo; el registro lo suscribe al relay de esa sala.
+     *
+     * @param nombreSala sala pedida, o null para la primera con jugador y plaza
+     */
+    private void manejarConexionEspectador(String nombreSala) {
+        Sala asignada = registro.conectarEspectador(nombreSala, this);
+
+        if (asignada != null) {
             tipoCliente = TipoCliente.SPECTATOR;
-            LoggerUtil.info("espectador " + jugadorId + " conectado exitosamente");
+            cambiarSala(asignada, asignada.getRelay());
+            requerirCaptura(asignada);
+            LoggerUtil.info("espectador " + jugadorId + " conectado exitosamente a sala " + asignada.getId());
             enviarEstado();
         } else {
-            enviarError("No se puede conectar como espectador: límite alcanzado");
-            LoggerUtil.warning("conexión de espectador " + jugadorId + " rechazada: límite alcanzado");
+            enviarError("No hay partidas activas para observar o no queda plaza de espectador");
+            LoggerUtil.warning("conexión de espectador " + jugadorId + " rechazada: sin sala disponible");
             desconectar();
         }
     }
+
+    /**
+     * Pasa la suscripción de la conexión a la fuente asignada en CONNECT.
+     * Al relay el registro ya suscribió al espectador; suscribirlo de nuevo no tiene efecto.
+     */
+    private void cambiarSala(Sala asignada, Subject nuevaFuente) {
+        Subject anterior = fuente;
+        if (anterior != nuevaFuente) {
+            nuevaFuente.agregarObservador(this);
+        }
+        sala = asignada;
+        fuente = nuevaFuente;
+        if (anterior != nuevaFuente) {
+            anterior.eliminarObservador(this);
+        }
+    }
     
     /**
-     * Maneja el input de un jugador.
-     * Los espectadores NO pueden enviar inputs.
+     * Pide al difusor de la sala la captura de estado si la conexión recibe frames binarios
+     * o deltas, que se calculan a partir de ella. Se libera al desconectar.
+     */
+    private void requerirCaptura(Sala asignada) {
+        if (protocoloBinario || codificacionDelta) {
+            difusorConCaptura = asignada.getDifusor();
+            difusorConCaptura.requerirCaptura();
+        }
+    }
+    
+    /**
+     * Maneja el input de un jugador leído con Gson.
      */
     private void manejarInput(Mensaje mensaje) {
+        if (!puedeEnviarInput()) {
+            return;
+        }
+
+        String accion = mensaje.getAction();
+        if (accion != null) {
+            sala.getGameManager().procesarInput(jugadorId, accion, mensaje.getSeq(), mensaje.getTick());
+        }
+    }
+
+    /**
+     * Maneja el input de un jugador reconocido por el {@link LectorInput}.
+     */
+    private void manejarInput(AccionJugador accion, long secuencia, long tick) {
+        if (puedeEnviarInput()) {
+            sala.getGameManager().procesarInput(jugadorId, accion, secuencia, tick);
+        }
+    }
+
+    /**
+     * Los espectadores NO pueden enviar inputs.
+     */
+    private boolean puedeEnviarInput() {
         // Verificar que sea un jugador
         if (tipoCliente != TipoCliente.PLAYER) {
             enviarError("Los espectadores no pueden enviar inputs");
             LoggerUtil.warning("espectador " + jugadorId + " intentó enviar input (rechazado)");
-            return;
+            return false;
         }
 
         if (jugadorId == null) {
             enviarError("Cliente no identificado");
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Envía un PING de latido. Lo invoca el {@link MonitorLatidos} desde su hilo.
+     * Se recuerda el instante de envío de los últimos {@link #PINGS_EN_VUELO} PING para
+     * medir el RTT aunque el PONG llegue después del siguiente PING.
+     */
+    void enviarPing() {
+        long secuencia = secuenciaPing + 1;
+        enviosPing.set((int) (secuencia % PINGS_EN_VUELO), System.nanoTime());
+        secuenciaPing = secuencia;
+        if (protocoloBinario) {
+            enviarBytes(CodificadorBinario.codificarPing(secuencia));
+        } else {
+            String json = JsonUtil.crearMensajePing(secuencia);
+            enviarBytes(json != null ? JsonUtil.codificarLinea(json) : null);
+        }
+    }
+
+    /**
+     * Registra el RTT del PING que el cliente confirma. Los PONG repetidos, muy
+     * atrasados o con una secuencia que no se envió se ignoran.
+     */
+    private void manejarPong(Mensaje mensaje) {
+        long secuencia = mensaje.getSeq();
+        long ultima = secuenciaPing;
+        if (secuencia <= 0 || secuencia > ultima || secuencia <= ultima - PINGS_EN_VUELO) {
             return;
         }
+        long enviado = enviosPing.getAndSet((int) (secuencia % PINGS_EN_VUELO), 0);
+        if (enviado != 0) {
+            rtt.registrar(System.nanoTime() - enviado);
+            if (tipoCliente == TipoCliente.PLAYER && jugadorId != null) {
+                sala.getGameManager().registrarLatencia(jugadorId, rtt.getPromedioMs());
+            }
+        }
+    }
 
-        String accion = mensaje.getAction();
-        if (accion != null) {
-            gameManager.procesarInput(jugadorId, accion);
+    /**
+     * Indica si no se ha recibido nada del cliente desde el instante dado.
+     *
+     * @param limite instante de {@link System#nanoTime()}
+     */
+    boolean inactivaDesde(long limite) {
+        return ultimaActividad - limite < 0;
+    }
+
+    /**
+     * RTT medido con PING/PONG.
+     */
+    EstadisticasRtt getRtt() {
+        return rtt;
+    }
+
+    /**
+     * Id con el que el cliente se identificó en CONNECT, o una marca si aún no lo hizo.
+     */
+    String getIdCliente() {
+        String id = jugadorId;
+        return id != null ? id : "(sin CONNECT)";
+    }
+
+    /**
+     * Abre la sesión UDP del cliente y le responde por TCP con el token de registro.
+     * El estado sigue llegando por TCP hasta que el primer datagrama con el token
+     * le dé al servidor la dirección UDP del cliente.
+     */
+    private void manejarAperturaUdp() {
+        if (tipoCliente == TipoCliente.UNDEFINED) {
+            enviarError("UDP_OPEN requiere CONNECT previo");
+            return;
+        }
+        if (canalUdp == null) {
+            enviarError("Canal UDP no disponible");
+            return;
+        }
+        if (sesionUdp == null) {
+            // Un delta perdido por UDP no se puede aplicar: por este canal el estado viaja completo
+            codificacionDelta = false;
+            sesionUdp = canalUdp.abrirSesion();
+            requerirEstadoSinCambios(sala.getDifusor());
+        }
+        long token = sesionUdp.getToken();
+        if (protocoloBinario) {
+            enviarBytes(CodificadorBinario.codificarTokenUdp(token, canalUdp.getPuerto()));
+        } else {
+            String json = JsonUtil.crearMensajeTokenUdp(token, canalUdp.getPuerto());
+            enviarBytes(json != null ? JsonUtil.codificarLinea(json) : null);
         }
     }
-    
+
+    /**
+     * Envía al jugador el token con el que puede reanudar su sesión.
+     */
+    private void enviarSesion(boolean reanudada) {
+        SesionReanudable actual = sesion;
+        if (actual == null) {
+            return;
+        }
+        if (protocoloBinario) {
+            enviarBytes(CodificadorBinario.codificarSesion(actual.getToken(), Config.GRACIA_REANUDACION_MS, reanudada));
+        } else {
+            String json = JsonUtil.crearMensajeSesion(actual.getToken(), Config.GRACIA_REANUDACION_MS, reanudada);
+            enviarBytes(json != null ? JsonUtil.codificarLinea(json) : null);
+        }
+    }
+
     /**
-     * Envía el estado actual del juego al cliente.
+     * Envía el estado por UDP si la sesión está registrada y sigue confirmando.
+     *
+     * @return false si el estado debe ir por TCP
+     */
+    private boolean enviarEstadoUdp(byte[] datos) {
+        SesionUdp sesion = sesionUdp;
+        if (sesion == null || sesion.getDestino() == null) {
+            return false;
+        }
+        if (sesion.sinConfirmar(TimeUnit.MILLISECONDS.toNanos(Config.TIMEOUT_CONFIRMACION_UDP_MS))) {
+            LoggerUtil.warning("cliente " + jugadorId + " sin confirmaciones udp, el estado vuelve a tcp");
+            canalUdp.cerrarSesion(sesion);
+            sesionUdp = null;
+            liberarEstadoSinCambios();
+            return false;
+        }
+        return canalUdp.enviar(sesion, datos);
+    }
+
+    /**
+     * Envía el último estado difundido (compartido con el resto de clientes).
+     * Un cliente con deltas recibe el keyframe vigente, base de los deltas siguientes.
      */
     private void enviarEstado() {
-        Map<String, Object> estado = gameManager.getEstadoJuego();
-        String json = JsonUtil.crearMensajeEstado(estado);
-        enviarJson(json);
+        DifusorEstado difusor = sala.getDifusor();
+        enviarFrame(codificacionDelta ? difusor.getKeyframe() : difusor.getFrameEstado());
     }
     
     /**
      * Envía un mensaje de error al cliente.
      */
     private void enviarError(String mensajeError) {
+        if (protocoloBinario) {
+            enviarBytes(CodificadorBinario.codificarError(mensajeError));
+            return;
+        }
         String json = JsonUtil.crearMensajeError(mensajeError);
-        enviarJson(json);
+        enviarBytes(json != null ? JsonUtil.codificarLinea(json) : null);
     }
     
     /**
-     * Desconecta el cliente y limpia recursos.
+     * Desconecta el cliente y limpia recursos. El canal se cierra después de escribir
+     * lo pendiente, por ejemplo el ERROR que explica el cierre.
+     * Es idempotente: el transporte y el propio protocolo pueden invocarlo.
      */
-    private void desconectar() {
+    void desconectar() {
+        desconectar(false);
+    }
+
+    /**
+     * Desconecta el cliente sin esperar a que lea lo pendiente. Lo usa
+     * {@link MonitorLatidos} con las conexiones que dejaron de responder: en un par
+     * muerto con el buffer de envío lleno, el cierre ordenado nunca terminaría.
+     */
+    void abortar() {
+        desconectar(true);
+    }
+
+    private void desconectar(boolean forzado) {
         conectado = false;
+        if (!desconectado.compareAndSet(false, true)) {
+            return;
+        }
+        if (latidos != null) {
+            latidos.quitar(this);
+        }
 
-        // Eliminar del GameManager según tipo
-        if (jugadorId != null) {
-            if (tipoCliente == TipoCliente.PLAYER) {
-                gameManager.eliminarJugador(jugadorId);
-                LoggerUtil.info("jugador " + jugadorId + " desconectado");
-            } else if (tipoCliente == TipoCliente.SPECTATOR) {
-                gameManager.eliminarEspectador(jugadorId);
-                LoggerUtil.info("espectador " + jugadorId + " desconectado");
+        // Eliminar de la sala según tipo; el registro la cierra si quedó vacía.
+        // Un jugador que no se despidió conserva su plaza mientras dure la gracia.
+        Sala actual = sala;
+        if (tipoCliente == TipoCliente.PLAYER) {
+            actual.getDifusor().eliminarObservador(this);
+            SesionReanudable propia = sesion;
+            if (propia != null) {
+                registro.liberarJugador(propia, this, !salidaVoluntaria);
+            } else {
+                registro.desconectarJugador(actual, jugadorId);
             }
+            LoggerUtil.info("jugador " + jugadorId + " desconectado");
+        } else if (tipoCliente == TipoCliente.SPECTATOR) {
+            registro.desconectarEspectador(actual, this);
+            LoggerUtil.info("espectador " + jugadorId + " desconectado");
+        } else {
+            fuente.eliminarObservador(this);
+        }
+
+        if (difusorConCaptura != null) {
+            difusorConCaptura.liberarCaptura();
         }
 
-        // Eliminar como observador
-        gameManager.eliminarObservador(this);
+        SesionUdp sesion = sesionUdp;
+        if (sesion != null) {
+            canalUdp.cerrarSesion(sesion);
+        }
+        liberarEstadoSinCambios();
 
-        // Cerrar socket
+        // Cerrar canal o socket
+        if (canal != null) {
+            if (forzado) {
+                canal.abortar();
+            } else {
+                canal.cerrar();
+            }
+            return;
+        }
         try {
             if (socket != null && !socket.isClosed()) {
                 socket.close();
@@ -243,36 +728,113 @@ public class ManejadorCliente implements Runnable, Observer {
     }
     
     /**
-     * Implementación de Observer: se llama cuando el GameManager notifica cambios.
+     * Implementación de Observer: recibe del difusor los frames de estado y eventos.
      */
     @Override
     public void actualizar(Object dato) {
         if (!conectado) return;
         
         try {
-            // Si es un evento específico, enviarlo
-            if (dato instanceof EventoJuego) {
-                EventoJuego evento = (EventoJuego) dato;
-                enviarEvento(evento);
-            } else {
-                enviarEstado();
+            if (dato instanceof FrameCodificado frame) {
+                enviarFrame(frame);
             }
         } catch (Exception e) {
             LoggerUtil.error("error al actualizar cliente: " + e.getMessage());
         }
     }
 
-    private void enviarEvento(EventoJuego evento) {
-        String json = JsonUtil.crearMensajeEvento(evento.getTipo().toString(), evento.getPayload());
-        enviarJson(json);
+    private void enviarFrame(FrameCodificado frame) {
+        // El estado cierra el tick: los eventos depositados antes salen en la misma escritura
+        if (depositarFrame(frame) && frame.getTipo() == FrameCodificado.Tipo.ESTADO) {
+            canal.descargar();
+        }
+    }
+
+    /**
+     * Deposita un frame en el canal según el protocolo de la conexión, sin descargarlo.
+     *
+     * @return false si la conexión ya no acepta frames
+     */
+    private boolean depositarFrame(FrameCodificado frame) {
+        if (frame == null || !conectado || canal == null) {
+            return false;
+        }
+        boolean evento = frame.getTipo() == FrameCodificado.Tipo.EVENTO;
+        if (!evento && !frame.esPara(getClase())) {
+            return false;
+        }
+        if (!evento && frame.esRepeticionPara(getClase()) && !recibeEstadoPorUdp()) {
+            // Por TCP el último estado llegó: repetirlo no aporta nada
+            return false;
+        }
+        if (protocoloBinario) {
+            enviarCodificado(frame.getBinario(), evento);
+        } else if (evento || !codificacionDelta) {
+            enviarCodificado(frame.getLinea(), evento);
+        } else if (frame.isKeyframe()) {
+            byte[] linea = frame.getLinea();
+            if (linea != null) {
+                canal.enviarKeyframe(linea);
+            }
+        } else {
+            enviarCodificado(frame.getLineaDelta(), false);
+        }
+        return true;
+    }
+
+    /**
+     * Indica si el estado sale por UDP: la sesión existe y el cliente ya se registró.
+     */
+    private boolean recibeEstadoPorUdp() {
+        SesionUdp sesion = sesionUdp;
+        return sesion != null && sesion.getDestino() != null;
+    }
+
+    /**
+     * Pide al difusor que siga difundiendo los estados sin cambios mientras la conexión
+     * tenga sesión UDP: un datagrama perdido no se reenvía.
+     */
+    private synchronized void requerirEstadoSinCambios(DifusorEstado difusor) {
+        if (difusorSinCambios == null && !desconectado.get()) {
+            difusorSinCambios = difusor;
+            difusor.requerirEstadoSinCambios();
+        }
+    }
+
+    /**
+     * Libera lo pedido con {@link #requerirEstadoSinCambios}; se llama al cerrar la
+     * sesión UDP o la conexión, y la segunda vez no hace nada.
+     */
+    private synchronized void liberarEstadoSinCambios() {
+        if (difusorSinCambios != null) {
+            difusorSinCambios.liberarEstadoSinCambios();
+            difusorSinCambios = null;
+        }
     }
 
-    private void enviarJson(String json) {
-        if (json == null || salida == null || !conectado) {
+    /**
+     * Clase de la conexión para la frecuencia de estados; antes de CONNECT cuenta como jugador.
+     */
+    private ClaseCliente getClase() {
+        return tipoCliente == TipoCliente.SPECTATOR ? ClaseCliente.ESPECTADOR : ClaseCliente.JUGADOR;
+    }
+
+    private void enviarCodificado(byte[] datos, boolean evento) {
+        if (datos == null) {
             return;
         }
-        synchronized (salidaLock) {
-            salida.println(json);
+        if (evento) {
+            canal.enviar(datos);
+        } else if (!enviarEstadoUdp(datos)) {
+            canal.enviarEstado(datos);
+        }
+    }
+
+    private void enviarBytes(byte[] datos) {
+        if (datos == null || !conectado || canal == null) {
+            return;
         }
+        canal.enviar(datos);
+        canal.descargar();
     }
 }
@@ -1,10 +1,10 @@
 package cr.tec.donceykongjr.server.network;
 
-import java.util.Map;
-
 /**
  * Representa un mensaje JSON entre cliente y servidor.
- * Clase auxiliar para serialización/deserialización de mensajes.
+ * Clase auxiliar para serialización/deserialización de mensajes. Los STATE y EVENT
+ * que difunde el servidor no pasan por aquí: son {@link FrameEstado} y
+ * {@link FrameEvento}, con sus propios adaptadores.
  */
 public class Mensaje {
     public enum TipoMensaje {
@@ -13,7 +13,12 @@ public class Mensaje {
         EVENT,      // Evento del juego
         CONNECT,    // Conexión de cliente
         DISCONNECT, // Desconexión
-        ERROR       // Mensaje de error
+        ERROR,      // Mensaje de error
+        UDP_OPEN,   // El cliente pide recibir el estado por UDP
+        UDP_TOKEN,  // Token y puerto para registrarse en el canal UDP
+        PING,       // Latido del servidor; lleva "seq"
+        PONG,       // Respuesta del cliente a un PING con el mismo "seq"
+        SESSION     // Token con el que el jugador puede reanudar su sesión al reconectarse
     }
     
     private TipoMensaje type;
@@ -21,8 +26,14 @@ public class Mensaje {
     private String action;
     private String name;
     private String clientType;  // "PLAYER" o "SPECTATOR"
+    private String stateEncoding;  // "FULL" (por defecto) o "DELTA"
+    private String protocol;  // "JSON" (por defecto) o "BINARY"
+    private String compression;  // "NONE" (por defecto) o "DEFLATE"
+    private String room;  // Sala pedida en CONNECT; null para asignar una libre
+    private Long seq;  // Secuencia de un INPUT o de un PING/PONG; null si el cliente no numera
+    private Long tick;  // Tick al que va dirigido un INPUT, o último recibido en un CONNECT que reanuda
+    private Long session;  // Token de SESSION en un CONNECT que reanuda; null en una conexión nueva
     private Object payload;
-    private Map<String, Object> data;
     
     /**
      * Constructor vacío para Gson.
@@ -39,14 +50,6 @@ public class Mensaje {
         this.action = action;
     }
     
-    /**
-     * Constructor para mensajes de estado.
-     */
-    public Mensaje(TipoMensaje type, Map<String, Object> data) {
-        this.type = type;
-        this.data = data;
-    }
-    
     /**
      * Constructor para mensajes de evento.
      */
@@ -97,14 +100,6 @@ public class Mensaje {
         this.payload = payload;
     }
     
-    public Map<String, Object> getData() {
-        return data;
-    }
-
-    public void setData(Map<String, Object> data) {
-        this.data = data;
-    }
-
     public String getClientType() {
         return clientType;
     }
@@ -112,5 +107,60 @@ public class Mensaje {
     public void setClientType(String clientType) {
         this.clientType = clientType;
     }
-}
 
+    public String getStateEncoding() {
+        return stateEncoding;
+    }
+
+    public void setStateEncoding(String stateEncoding) {
+        this.stateEncoding = stateEncoding;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    public String getRoom() {
+        return room;
+    }
+
+    public void setRoom(String room) {
+        this.room = room;
+    }
+
+    public long getSeq() {
+        return seq != null ? seq : 0;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public long getTick() {
+        return tick != null ? tick : 0;
+    }
+
+    public void setTick(Long tick) {
+        this.tick = tick;
+    }
+
+    public long getSession() {
+        return session != null ? session : 0;
+    }
+
+    public void setSession(Long session) {
+        this.session = session;
+    }
+}
@@ -0,0 +1,33 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.util.Locale;
+
+/**
+ * Modos de transporte disponibles para {@link ServidorJuego}.
+ */
+public enum ModoTransporte {
+    HILOS,    // Un hilo de plataforma bloqueado en readLine() por conexión (pool fijo)
+    VIRTUAL,  // Un hilo virtual por conexión: E/S bloqueante sin ocupar hilos de plataforma
+    NIO;      // Selector no bloqueante con pocos hilos de E/S para todas las conexiones
+
+    /**
+     * Obtiene el modo a partir de su nombre (sin distinguir mayúsculas).
+     * Si el nombre no es válido se usa {@link #NIO}.
+     *
+     * @param nombre nombre del modo, por ejemplo "nio", "virtual" o "hilos"
+     * @return modo de transporte correspondiente
+     */
+    public static ModoTransporte desde(String nombre) {
+        if (nombre == null || nombre.isBlank()) {
+            return NIO;
+        }
+        try {
+            return valueOf(nombre.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LoggerUtil.warning("modo de transporte desconocido: " + nombre + ", usando NIO");
+            return NIO;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+import cr.tec.donceykongjr.server.util.Percentiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latido de las conexiones del servidor.
+ *
+ * <p>Cada {@link Config#INTERVALO_LATIDO_MS} un hilo propio envía un PING a todas las
+ * conexiones registradas; el PONG de respuesta alimenta las {@link EstadisticasRtt} de
+ * cada una. Una conexión de la que no llega nada (ni PONG ni otro mensaje) durante
+ * {@link Config#TIMEOUT_LATIDO_MS} se considera muerta y se cierra sin vaciar su salida
+ * ({@link ManejadorCliente#abortar()}), lo que libera su socket, sus hilos, su plaza en
+ * la sala y su suscripción al difusor aunque el socket nunca llegue a fallar (conexión
+ * TCP semiabierta) y aunque el cliente haya dejado de leer.</p>
+ *
+ * <p>Cada {@link #LATIDOS_POR_REPORTE} latidos se registra en el log un resumen de RTT
+ * de todas las conexiones.</p>
+ */
+final class MonitorLatidos {
+    private static final int LATIDOS_POR_REPORTE = 60;
+
+    private final Set<ManejadorCliente> conexiones;
+    private final AtomicLong cerradasPorLatido;
+    private ScheduledExecutorService planificador;
+    private long latidos;
+
+    MonitorLatidos() {
+        this.conexiones = ConcurrentHashMap.newKeySet();
+        this.cerradasPorLatido = new AtomicLong();
+    }
+
+    /**
+     * Arranca el hilo de latidos. Es idempotente.
+     */
+    synchronized void iniciar() {
+        if (planificador != null) {
+            return;
+        }
+        planificador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon(true).name("latidos").factory());
+        planificador.scheduleAtFixedRate(this::latir, Config.INTERVALO_LATIDO_MS,
+                Config.INTERVALO_LATIDO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    void registrar(ManejadorCliente conexion) {
+        conexiones.add(conexion);
+    }
+
+    void quitar(ManejadorCliente conexion) {
+        conexiones.remove(conexion);
+    }
+
+    /**
+     * Cierra las conexiones vencidas y envía el PING al resto.
+     * Una excepción cancelaría la tarea periódica, por eso se captura por conexión.
+     */
+    private void latir() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(Config.TIMEOUT_LATIDO_MS);
+        for (ManejadorCliente conexion : conexiones) {
+            try {
+                if (conexion.inactivaDesde(limite)) {
+                    cerradasPorLatido.incrementAndGet();
+                    LoggerUtil.warning("cliente " + conexion.getIdCliente() + " sin respuesta en "
+                            + Config.TIMEOUT_LATIDO_MS + " ms, desconectando");
+                    conexion.abortar();
+                } else {
+                    conexion.enviarPing();
+                }
+            } catch (RuntimeException e) {
+                LoggerUtil.error("error en latido de " + conexion.getIdCliente() + ": " + e.getMessage());
+            }
+        }
+        if (++latidos % LATIDOS_POR_REPORTE == 0 && !conexiones.isEmpty()) {
+            LoggerUtil.info(resumen());
+        }
+    }
+
+    /**
+     * Conexiones cerradas por no responder al latido.
+     */
+    long getCerradasPorLatido() {
+        return cerradasPorLatido.get();
+    }
+
+    /**
+     * Una línea con el RTT de todas las conexiones: mediana y p99 de los promedios
+     * móviles de cada una.
+     */
+    String resumen() {
+        List<Double> promedios = new ArrayList<>();
+        for (ManejadorCliente conexion : conexiones) {
+            double promedio = conexion.getRtt().getPromedioMs();
+            if (promedio >= 0) {
+                promedios.add(promedio);
+            }
+        }
+        double[] ordenados = promedios.stream().mapToDouble(Double::doubleValue).toArray();
+        Arrays.sort(ordenados);
+        return String.format(Locale.ROOT,
+                "rtt: %d conexiones, %d medidas, p50 %.1f ms, p99 %.1f ms, %d cerradas por latido",
+                conexiones.size(), ordenados.length, percentil(ordenados, 50), percentil(ordenados, 99),
+                cerradasPorLatido.get());
+    }
+
+    /**
+     * Resumen y una línea por conexión con promedio, p50, p95 y p99 de sus últimas muestras.
+     */
+    String detalle() {
+        StringBuilder texto = new StringBuilder(resumen());
+        for (ManejadorCliente conexion : conexiones) {
+            EstadisticasRtt rtt = conexion.getRtt();
+            texto.append(String.format(Locale.ROOT, "%n  %-20s prom %6.1f  p50 %6.1f  p95 %6.1f  p99 %6.1f ms (%d muestras)",
+                    conexion.getIdCliente(), rtt.getPromedioMs(), rtt.getPercentilMs(50),
+                    rtt.getPercentilMs(95), rtt.getPercentilMs(99), rtt.getTotalMuestras()));
+        }
+        return texto.toString();
+    }
+
+    private static double percentil(double[] ordenados, double percentil) {
+        return ordenados.length == 0 ? -1 : Percentiles.de(ordenados, percentil);
+    }
+
+    /**
+     * Detiene el hilo de latidos.
+     */
+    synchronized void detener() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+            planificador = null;
+        }
+        conexiones.clear();
+    }
+}
@@ -0,0 +1,241 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.patrones.Observer;
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Relay de espectadores en un proceso aparte del servidor de juego.
+ *
+ * <p>Se conecta al servidor como un único espectador de una sala y reenvía cada línea
+ * recibida a todos los espectadores conectados a él. Los espectadores usan el mismo
+ * saludo que con el servidor ({@code CONNECT} con {@code "clientType":"SPECTATOR"}), así
+ * que basta con apuntarlos al puerto del relay. Para el servidor el relay cuenta como
+ * un solo espectador, tenga los que tenga.</p>
+ *
+ * <pre>
+ * ServidorJuego ──1 conexión──► ProcesoRelay ──RelayEspectadores──► espectador × N
+ * </pre>
+ *
+ * <p>Las líneas se reenvían tal cual, sin volver a codificarlas: los espectadores
+ * reciben siempre STATE completo en JSON aunque pidan deltas o protocolo binario. El
+ * cliente C acepta ambos formatos. Cada espectador tiene un hilo virtual lector y el
+ * escritor de su {@link CanalSocket}.</p>
+ *
+ * <p>Uso: {@code ProcesoRelay [puertoRelay] [hostServidor] [puertoServidor] [sala]}</p>
+ */
+public final class ProcesoRelay {
+    private static final long ESPERA_RECONEXION_MS = 1000;
+
+    private final int puertoOrigen;
+    private final String hostOrigen;
+    private final String sala;
+    private final RelayEspectadores relay;
+    private volatile FrameCodificado ultimoEstado;
+
+    private ProcesoRelay(String hostOrigen, int puertoOrigen, String sala) {
+        this.hostOrigen = hostOrigen;
+        this.puertoOrigen = puertoOrigen;
+        this.sala = sala;
+        this.relay = new RelayEspectadores("remoto");
+    }
+
+    public static void main(String[] args) throws IOException {
+        int puertoRelay = args.length > 0 ? Integer.parseInt(args[0]) : Config.PUERTO_DEFAULT + 1;
+        String host = args.length > 1 ? args[1] : "localhost";
+        int puertoServidor = args.length > 2 ? Integer.parseInt(args[2]) : Config.PUERTO_DEFAULT;
+        String sala = args.length > 3 ? args[3] : null;
+
+        ProcesoRelay proceso = new ProcesoRelay(host, puertoServidor, sala);
+        proceso.relay.iniciar();
+        Thread.ofPlatform().daemon(true).name("relay-origen").start(proceso::leerOrigen);
+        proceso.aceptar(puertoRelay);
+    }
+
+    /**
+     * Mantiene la conexión con el servidor y publica en el relay cada línea recibida.
+     * Si el servidor rechaza o corta la conexión, reintenta.
+     */
+    private void leerOrigen() {
+        while (true) {
+            try (Socket socket = new Socket(hostOrigen, puertoOrigen)) {
+                socket.setTcpNoDelay(true);
+                BufferedReader entrada = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                OutputStream salida = socket.getOutputStream();
+                salida.write(JsonUtil.codificarLinea(crearMensajeConexion()));
+                salida.flush();
+                LoggerUtil.info("relay conectado a " + hostOrigen + ":" + puertoOrigen
+                        + (sala != null ? " (sala " + sala + ")" : ""));
+
+                // El servidor envía el estado de la sala por defecto antes de leer CONNECT;
+                // las líneas de la sala pedida empiezan después
+                entrada.readLine();
+                String linea;
+                while ((linea = entrada.readLine()) != null) {
+                    publicar(linea, salida);
+                }
+                LoggerUtil.warning("el servidor cerró la conexión del relay");
+            } catch (IOException e) {
+                LoggerUtil.warning("relay sin conexión al servidor: " + e.getMessage());
+            }
+            ultimoEstado = null;
+            try {
+                Thread.sleep(ESPERA_RECONEXION_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private String crearMensajeConexion() {
+        Mensaje mensaje = new Mensaje();
+        mensaje.setType(Mensaje.TipoMensaje.CONNECT);
+        mensaje.setId("relay-" + ProcessHandle.current().pid());
+        mensaje.setClientType("SPECTATOR");
+        mensaje.setRoom(sala);
+        return JsonUtil.toJson(mensaje);
+    }
+
+    /**
+     * Clasifica la línea una vez y la publica en el relay como frame compartido.
+     * Responde los PING del servidor para que no cierre la conexión del relay.
+     */
+    private void publicar(String linea, OutputStream salida) throws IOException {
+        Mensaje mensaje = JsonUtil.fromJson(linea);
+        if (mensaje == null || mensaje.getType() == null) {
+            return;
+        }
+        byte[] bytes = JsonUtil.codificarLinea(linea);
+        switch (mensaje.getType()) {
+            case STATE -> {
+                FrameCodificado frame = new FrameCodificado(FrameCodificado.Tipo.ESTADO, 0, true,
+                        () -> bytes, null, null);
+                ultimoEstado = frame;
+                relay.publicar(frame);
+            }
+            case EVENT -> relay.publicar(new FrameCodificado(FrameCodificado.Tipo.EVENTO, 0, false,
+                    () -> bytes, null, null));
+            case PING -> {
+                Mensaje pong = new Mensaje();
+                pong.setType(Mensaje.TipoMensaje.PONG);
+                pong.setSeq(mensaje.getSeq());
+                salida.write(JsonUtil.codificarLinea(JsonUtil.toJson(pong)));
+                salida.flush();
+            }
+            case ERROR -> LoggerUtil.warning("el servidor rechazó al relay: " + linea);
+            default -> LoggerUtil.debug("mensaje ignorado por el relay: " + mensaje.getType());
+        }
+    }
+
+    /**
+     * Acepta espectadores; cada uno se atiende en un hilo virtual.
+     */
+    private void aceptar(int puerto) throws IOException {
+        ExecutorService hilos = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("espectador-", 0).factory());
+        try (ServerSocket servidor = new ServerSocket(puerto)) {
+            LoggerUtil.info("relay de espectadores escuchando en puerto " + puerto);
+            while (true) {
+                Socket cliente = servidor.accept();
+                hilos.submit(() -> atender(cliente));
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    private void atender(Socket socket) {
+        Espectador espectador = null;
+        try {
+            socket.setTcpNoDelay(true);
+            BufferedReader entrada = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Mensaje conexion = JsonUtil.fromJson(entrada.readLine());
+            if (conexion == null || conexion.getType() != Mensaje.TipoMensaje.CONNECT
+                    || !"SPECTATOR".equalsIgnoreCase(conexion.getClientType())) {
+                rechazar(socket, "El relay solo admite espectadores");
+                return;
+            }
+            if (relay.contarEspectadores() >= Config.MAX_ESPECTADORES_POR_SALA) {
+                rechazar(socket, "Relay lleno: límite de espectadores alcanzado");
+                return;
+            }
+
+            espectador = new Espectador(new CanalSocket(socket, () -> cerrar(socket)));
+            FrameCodificado estado = ultimoEstado;
+            if (estado != null) {
+                espectador.actualizar(estado);
+            }
+            relay.agregarObservador(espectador);
+            LoggerUtil.debug("espectador " + conexion.getId() + " conectado al relay ("
+                    + relay.contarEspectadores() + ")");
+
+            // El espectador no envía nada útil: solo se espera a que cierre
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                Mensaje mensaje = JsonUtil.fromJson(linea);
+                if (mensaje != null && mensaje.getType() == Mensaje.TipoMensaje.DISCONNECT) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            LoggerUtil.debug("espectador del relay desconectado: " + e.getMessage());
+        } finally {
+            if (espectador != null) {
+                relay.eliminarObservador(espectador);
+                espectador.canal.cerrar();
+            } else {
+                cerrar(socket);
+            }
+        }
+    }
+
+    private static void rechazar(Socket socket, String mensaje) throws IOException {
+        socket.getOutputStream().write(JsonUtil.codificarLinea(ServidorJuego.crearMensajeRechazo(mensaje)));
+        socket.getOutputStream().flush();
+    }
+
+    private static void cerrar(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            LoggerUtil.debug("error al cerrar socket: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Espectador conectado al relay: encola cada línea en su canal.
+     */
+    private static final class Espectador implements Observer {
+        private final CanalSocket canal;
+
+        Espectador(CanalSocket canal) {
+            this.canal = canal;
+        }
+
+        @Override
+        public void actualizar(Object dato) {
+            if (!(dato instanceof FrameCodificado frame)) {
+                return;
+            }
+            if (frame.getTipo() == FrameCodificado.Tipo.EVENTO) {
+                canal.enviar(frame.getLinea());
+            } else {
+                canal.enviarEstado(frame.getLinea());
+                canal.descargar();
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.GameLoop;
+import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.logic.patrones.Observer;
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Registro de las salas (partidas simultáneas) de un proceso servidor.
+ *
+ * <p>La sala {@link Config#SALA_POR_DEFECTO} envuelve el GameManager con el que se
+ * creó el servidor. El resto se crean bajo demanda cuando un jugador nombra una sala
+ * inexistente en CONNECT ({@code "room"}) o no nombra ninguna y todas están llenas, y se
+ * cierran cuando se va su último cliente.</p>
+ *
+ * <p>Todas las salas creadas aquí comparten un único pool acotado de
+ * {@link Config#HILOS_SIMULACION} hilos para su GameLoop y su motor de cocodrilos, en
+ * lugar de dos executors por sala; así el número de hilos no crece con las partidas.</p>
+ *
+ * <p>Asignar y liberar plazas se hace bajo el monitor del registro, de modo que dos
+ * conexiones simultáneas no pueden ocupar la misma plaza ni cerrar una sala a la que
+ * otra está entrando.</p>
+ *
+ * <p>Con {@link Config#REPOSO_SIN_CLIENTES} la sala por defecto, que nunca se cierra,
+ * queda en reposo mientras está vacía y se despierta con el CONNECT del primer jugador.</p>
+ *
+ * <p>Cada jugador registrado recibe una {@link SesionReanudable}. Cuando su conexión cae
+ * sin DISCONNECT el jugador conserva su plaza durante {@link Config#GRACIA_REANUDACION_MS};
+ * la expiración se programa en el mismo pool de simulación.</p>
+ */
+public class RegistroSalas {
+    private final Sala principal;
+    private final Map<String, Sala> salas;
+    private final ScheduledExecutorService simulacion;
+    private final Map<Long, SesionReanudable> sesiones = new HashMap<>();
+    private final SecureRandom aleatorio = new SecureRandom();
+    private int siguienteSala;
+
+    /**
+     * @param gameManager gestor de la sala por defecto, cuyo GameLoop gestiona quien lo creó
+     * @param difusor difusor ya registrado como observador de ese gestor
+     * @param gameLoop GameLoop ya iniciado de la sala por defecto, que el registro pone en
+     *                 reposo mientras la sala está vacía; null si no se conoce
+     */
+    RegistroSalas(GameManager gameManager, DifusorEstado difusor, GameLoop gameLoop) {
+        this.principal = new Sala(Config.SALA_POR_DEFECTO, gameManager, difusor, gameLoop, false);
+        this.salas = new LinkedHashMap<>();
+        this.salas.put(principal.getId(), principal);
+        this.simulacion = Executors.newScheduledThreadPool(Config.HILOS_SIMULACION,
+                Thread.ofPlatform().daemon(true).name("simulacion-", 0).factory());
+        if (Config.REPOSO_SIN_CLIENTES) {
+            principal.reposar();
+        }
+    }
+
+    /**
+     * Sala a la que se suscriben las conexiones antes de CONNECT.
+     */
+    Sala getPrincipal() {
+        return principal;
+    }
+
+    /**
+     * Registra un jugador.
+     *
+     * @param nombre sala pedida, o null para la primera con plaza libre
+     * @return sala donde quedó registrado, o null si no hay plaza
+     */
+    synchronized Sala conectarJugador(String nombre, String jugadorId) {
+        Sala sala;
+        if (nombre != null && !nombre.isBlank()) {
+            sala = salas.get(nombre);
+            if (sala == null) {
+                sala = crearSala(nombre);
+            }
+        } else {
+            sala = buscar(s -> s.getGameManager().contarJugadoresActivos() < Config.MAX_JUGADORES);
+            if (sala == null) {
+                sala = crearSala(siguienteNombre());
+            }
+        }
+        if (sala == null) {
+            return null;
+        }
+        sala.despertar();
+        if (!sala.getGameManager().agregarJugador(jugadorId, 0, 5, 0)) {
+            cerrarSiVacia(sala);
+            return null;
+        }
+        return sala;
+    }
+
+    /**
+     * Abre la sesión reanudable de un jugador recién registrado en una sala.
+     * El token es aleatorio, no nulo y cabe en 53 bits para que los clientes JSON lo
+     * lean sin perder precisión.
+     *
+     * @param dueno conexión del jugador
+     */
+    synchronized SesionReanudable abrirSesion(Sala sala, String jugadorId, ManejadorCliente dueno) {
+        long token;
+        do {
+            token = aleatorio.nextLong() >>> 11;
+        } while (token == 0 || sesiones.containsKey(token));
+        SesionReanudable sesion = new SesionReanudable(token, jugadorId, sala, dueno);
+        sesiones.put(token, sesion);
+        return sesion;
+    }
+
+    /**
+     * Pasa la sesión de un jugador a una nueva conexión. Si la anterior seguía abierta
+     * (el cliente detectó la caída antes que el servidor) se cierra sin quitar al jugador.
+     *
+     * @param token token de SESSION que envió el cliente
+     * @param jugadorId id con el que se identificó; debe ser el de la sesión
+     * @param nueva conexión que reanuda
+     * @return sesión reanudada, o null si el token no existe, ya venció o es de otro jugador
+     */
+    SesionReanudable reanudarJugador(long token, String jugadorId, ManejadorCliente nueva) {
+        SesionReanudable sesion;
+        ManejadorCliente anterior;
+        synchronized (this) {
+            sesion = sesiones.get(token);
+            if (sesion == null || !sesion.getJugadorId().equals(jugadorId)) {
+                return null;
+            }
+            anterior = sesion.tomar(nueva);
+        }
+        if (anterior != null) {
+            LoggerUtil.info("jugador " + jugadorId + " reconectado antes de cerrar su conexión anterior");
+            anterior.desconectar();
+        }
+        return sesion;
+    }
+
+    /**
+     * Libera la plaza de un jugador cuya conexión terminó. Si la caída es reanudable la
+     * sesión se suspende y el jugador sigue en la sala hasta que venza la gracia; si no,
+     * se quita de inmediato. No hace nada si otra conexión ya tomó la sesión.
+     *
+     * @param reanudable false si el cliente se despidió con DISCONNECT
+     */
+    synchronized void liberarJugador(SesionReanudable sesion, ManejadorCliente dueno, boolean reanudable) {
+        if (!sesion.perteneceA(dueno)) {
+            return;
+        }
+        if (reanudable && !simulacion.isShutdown()) {
+            sesion.suspender(simulacion.schedule(() -> expirar(sesion),
+                    Config.GRACIA_REANUDACION_MS, TimeUnit.MILLISECONDS));
+            LoggerUtil.info("jugador " + sesion.getJugadorId() + " conserva su plaza "
+                    + Config.GRACIA_REANUDACION_MS + " ms a la espera de reconexión");
+            return;
+        }
+        sesiones.remove(sesion.getToken());
+        desconectarJugador(sesion.getSala(), sesion.getJugadorId());
+    }
+
+    /**
+     * Número de jugadores con la conexión caída que aún conservan su plaza.
+     */
+    public synchronized int contarSesionesSuspendidas() {
+        int suspendidas = 0;
+        for (SesionReanudable sesion : sesiones.values()) {
+            if (sesion.estaSuspendida()) {
+                suspendidas++;
+            }
+        }
+        return suspendidas;
+    }
+
+    /**
+     * Suscribe un espectador al relay de una sala con al menos un jugador.
+     *
+     * @param nombre sala pedida, o null para la primera con jugador y plaza de espectador
+     * @param espectador observador que recibirá los frames de la sala
+     * @return sala a cuyo relay quedó suscrito, o null si no hay ninguna disponible
+     */
+    synchronized Sala conectarEspectador(String nombre, Observer espectador) {
+        Sala sala;
+        if (nombre != null && !nombre.isBlank()) {
+            sala = salas.get(nombre);
+        } else {
+            sala = buscar(this::admiteEspectador);
+        }
+        if (sala == null || !admiteEspectador(sala)) {
+            return null;
+        }
+        sala.getRelay().agregarObservador(espectador);
+        return sala;
+    }
+
+    /**
+     * Quita un jugador de su sala y la cierra si quedó vacía.
+     */
+    synchronized void desconectarJugador(Sala sala, String jugadorId) {
+        sala.getGameManager().eliminarJugador(jugadorId);
+        cerrarSiVacia(sala);
+    }
+
+    /**
+     * Quita un espectador del relay de su sala y la cierra si quedó vacía.
+     */
+    synchronized void desconectarEspectador(Sala sala, Observer espectador) {
+        sala.quitarEspectador(espectador);
+        cerrarSiVacia(sala);
+    }
+
+    /**
+     * Indica si una conexión nueva podría entrar como jugador o espectador en alguna sala.
+     */
+    synchronized boolean tieneEspacio() {
+        return salas.size() < Config.MAX_SALAS
+                || buscar(s -> s.getGameManager().contarJugadoresActivos() < Config.MAX_JUGADORES
+                        || admiteEspectador(s)) != null;
+    }
+
+    /**
+     * Número de salas abiertas, incluida la sala por defecto.
+     */
+    public synchronized int contarSalas() {
+        return salas.size();
+    }
+
+    /**
+     * Cierra todas las salas creadas por el registro y apaga el pool de simulación.
+     */
+    synchronized void detener() {
+        sesiones.clear();
+        for (Sala sala : salas.values()) {
+            sala.cerrar();
+        }
+        salas.clear();
+        salas.put(principal.getId(), principal);
+        simulacion.shutdownNow();
+    }
+
+    private Sala crearSala(String nombre) {
+        if (salas.size() >= Config.MAX_SALAS) {
+            LoggerUtil.warning("no se puede crear la sala " + nombre + ": límite de salas alcanzado");
+            return null;
+        }
+        GameManager gameManager = new GameManager(simulacion);
+        DifusorEstado difusor = new DifusorEstado(gameManager);
+        gameManager.agregarObservador(difusor);
+        GameLoop gameLoop = new GameLoop(gameManager, simulacion);
+        gameLoop.iniciar();
+
+        Sala sala = new Sala(nombre, gameManager, difusor, gameLoop, true);
+        salas.put(nombre, sala);
+        LoggerUtil.info("sala " + nombre + " creada (" + salas.size() + " abiertas)");
+        return sala;
+    }
+
+    private synchronized void expirar(SesionReanudable sesion) {
+        if (!sesion.estaSuspendida() || !sesiones.remove(sesion.getToken(), sesion)) {
+            return;
+        }
+        LoggerUtil.info("sesión de " + sesion.getJugadorId() + " expirada sin reconexión");
+        desconectarJugador(sesion.getSala(), sesion.getJugadorId());
+    }
+
+    private void cerrarSiVacia(Sala sala) {
+        if (sala == principal) {
+            if (Config.REPOSO_SIN_CLIENTES && sala.estaVacia()) {
+                sala.reposar();
+            }
+            return;
+        }
+        if (!sala.estaVacia() || salas.get(sala.getId()) != sala) {
+            return;
+        }
+        salas.remove(sala.getId());
+        sala.cerrar();
+        LoggerUtil.info("sala " + sala.getId() + " cerrada (" + salas.size() + " abiertas)");
+    }
+
+    private boolean admiteEspectador(Sala sala) {
+        return sala.getGameManager().hayJugadorActivo()
+                && sala.contarEspectadores() < Config.MAX_ESPECTADORES_POR_SALA;
+    }
+
+    private String siguienteNombre() {
+        String nombre;
+        do {
+            nombre = "sala-" + (++siguienteSala);
+        } while (salas.containsKey(nombre));
+        return nombre;
+    }
+
+    private Sala buscar(Predicate<Sala> criterio) {
+        for (Sala sala : salas.values()) {
+            if (criterio.test(sala)) {
+                return sala;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,121 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.patrones.Observer;
+import cr.tec.donceykongjr.server.logic.patrones.Subject;
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reparte a los espectadores los frames ya codificados de una sala fuera del hilo de
+ * simulación.
+ *
+ * <p>Se suscribe una sola vez como observador de la fuente (el {@link DifusorEstado} de
+ * la sala, o la conexión de subida en {@link ProcesoRelay}). Recibir un frame solo lo
+ * encola; un hilo virtual propio del relay lo entrega después a cada espectador, de modo
+ * que el costo del tick no depende de cuántos espectadores haya.</p>
+ *
+ * <pre>
+ * DifusorEstado ──FrameCodificado──► RelayEspectadores ──(hilo relay)──► espectador × N
+ * </pre>
+ *
+ * <p>La cola está acotada a {@link Config#CAPACIDAD_COLA_RELAY} frames. Si el relay no
+ * alcanza a vaciarla los frames nuevos se descartan: los espectadores pierden ese estado
+ * o evento, pero el hilo de simulación nunca espera.</p>
+ */
+class RelayEspectadores extends Subject implements Observer {
+    private final String nombre;
+    private final BlockingQueue<FrameCodificado> cola;
+    private final Set<Observer> espectadores;
+    private final AtomicInteger descartados;
+    private volatile Thread hilo;
+
+    /**
+     * @param nombre identifica al relay en los logs y en el nombre de su hilo
+     */
+    RelayEspectadores(String nombre) {
+        this.nombre = nombre;
+        this.cola = new ArrayBlockingQueue<>(Config.CAPACIDAD_COLA_RELAY);
+        this.espectadores = ConcurrentHashMap.newKeySet();
+        this.descartados = new AtomicInteger();
+    }
+
+    /**
+     * Arranca el hilo que reparte los frames. Es idempotente.
+     */
+    synchronized void iniciar() {
+        if (hilo == null) {
+            hilo = Thread.ofVirtual().name("relay-" + nombre).start(this::repartir);
+        }
+    }
+
+    /**
+     * Recibe un frame de la fuente. Solo encola; nunca bloquea al hilo que notifica.
+     */
+    @Override
+    public void actualizar(Object dato) {
+        if (dato instanceof FrameCodificado frame) {
+            publicar(frame);
+        }
+    }
+
+    /**
+     * Encola un frame para todos los espectadores del relay. Los estados que no van a
+     * la clase {@link ClaseCliente#ESPECTADOR} se ignoran.
+     */
+    void publicar(FrameCodificado frame) {
+        if (!frame.esPara(ClaseCliente.ESPECTADOR)) {
+            return;
+        }
+        if (!cola.offer(frame) && descartados.getAndIncrement() % Config.CAPACIDAD_COLA_RELAY == 0) {
+            LoggerUtil.warning("relay " + nombre + " saturado: " + descartados.get() + " frames descartados");
+        }
+    }
+
+    @Override
+    public void agregarObservador(Observer espectador) {
+        if (espectadores.add(espectador)) {
+            super.agregarObservador(espectador);
+        }
+    }
+
+    @Override
+    public void eliminarObservador(Observer espectador) {
+        if (espectadores.remove(espectador)) {
+            super.eliminarObservador(espectador);
+        }
+    }
+
+    /**
+     * Número de espectadores suscritos.
+     */
+    int contarEspectadores() {
+        return espectadores.size();
+    }
+
+    private void repartir() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                notificarObservadores(cola.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Detiene el hilo del relay. Los frames pendientes se descartan.
+     */
+    synchronized void detener() {
+        if (hilo != null) {
+            hilo.interrupt();
+            hilo = null;
+        }
+        cola.clear();
+    }
+}
@@ -0,0 +1,63 @@
+package cr.tec.donceykongjr.server.network;
+
+import java.util.function.Consumer;
+
+/**
+ * Últimos frames difundidos por una sala, en orden, para reenviarlos a un jugador que
+ * reanuda su sesión.
+ *
+ * <p>Es un anillo de referencias a los mismos {@link FrameCodificado} que ya recibieron
+ * los clientes: no copia bytes y lo que cada frame tenga codificado se reutiliza. Al
+ * llenarse, cada frame nuevo desplaza al más antiguo y se recuerda el tick del último
+ * descartado para saber si a un cliente le falta algo que ya no está.</p>
+ *
+ * <p>No es thread-safe; {@link DifusorEstado} lo usa bajo su propio monitor.</p>
+ */
+final class RepeticionFrames {
+    private final FrameCodificado[] frames;
+    private int inicio;
+    private int cantidad;
+    private long tickDescartado = -1;
+
+    /**
+     * @param capacidad frames que se conservan
+     */
+    RepeticionFrames(int capacidad) {
+        this.frames = new FrameCodificado[capacidad];
+    }
+
+    /**
+     * Agrega el frame recién difundido, desplazando al más antiguo si no hay espacio.
+     */
+    void agregar(FrameCodificado frame) {
+        if (cantidad < frames.length) {
+            frames[(inicio + cantidad++) % frames.length] = frame;
+            return;
+        }
+        tickDescartado = frames[inicio].getTick();
+        frames[inicio] = frame;
+        inicio = (inicio + 1) % frames.length;
+    }
+
+    /**
+     * Entrega en orden los frames posteriores a un tick, si se conservan todos.
+     *
+     * @param tick último tick que recibió el cliente
+     * @param destino recibe cada frame perdido
+     * @return false, sin entregar nada, si falta alguno de esos frames o el tick no es
+     *         uno que el cliente pudo haber recibido
+     */
+    boolean repetirDesde(long tick, Consumer<FrameCodificado> destino) {
+        if (cantidad == 0 || tick <= 0 || tick < tickDescartado
+                || tick > frames[(inicio + cantidad - 1) % frames.length].getTick()) {
+            return false;
+        }
+        for (int i = 0; i < cantidad; i++) {
+            FrameCodificado frame = frames[(inicio + i) % frames.length];
+            if (frame.getTick() > tick) {
+                destino.accept(frame);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.GameLoop;
+import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.logic.patrones.Observer;
+
+/**
+ * Partida independiente dentro del servidor: su propio {@link GameManager} (lianas,
+ * entidades y motor de cocodrilos), su {@link DifusorEstado} y, salvo la sala por
+ * defecto, su {@link GameLoop} sobre el pool compartido de {@link RegistroSalas}.
+ * Los espectadores de la sala reciben los frames a través de su {@link RelayEspectadores},
+ * que se crea con el primero de ellos.
+ *
+ * <p>La sala por defecto conoce el GameLoop de Main solo para ponerlo en reposo mientras
+ * está vacía; su ciclo de vida sigue perteneciendo a Main.</p>
+ */
+final class Sala {
+    private final String id;
+    private final GameManager gameManager;
+    private final DifusorEstado difusor;
+    private final GameLoop gameLoop;
+    private final boolean buclePropio;  // false en la sala por defecto: su GameLoop es el de Main
+    private RelayEspectadores relay;
+
+    /**
+     * @param gameLoop bucle que avanza la sala, o null si no se conoce
+     * @param buclePropio true si la sala detiene su bucle al cerrarse; false si su ciclo
+     *                    de vida pertenece a otro componente
+     */
+    Sala(String id, GameManager gameManager, DifusorEstado difusor, GameLoop gameLoop, boolean buclePropio) {
+        this.id = id;
+        this.gameManager = gameManager;
+        this.difusor = difusor;
+        this.gameLoop = gameLoop;
+        this.buclePropio = buclePropio;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    GameManager getGameManager() {
+        return gameManager;
+    }
+
+    DifusorEstado getDifusor() {
+        return difusor;
+    }
+
+    /**
+     * Relay de espectadores de la sala; lo crea y suscribe al difusor en el primer uso.
+     */
+    synchronized RelayEspectadores getRelay() {
+        if (relay == null) {
+            relay = new RelayEspectadores(id);
+            difusor.agregarObservador(relay);
+            relay.iniciar();
+        }
+        return relay;
+    }
+
+    /**
+     * Quita un espectador del relay, si el relay sigue abierto.
+     */
+    synchronized void quitarEspectador(Observer espectador) {
+        if (relay != null) {
+            relay.eliminarObservador(espectador);
+        }
+    }
+
+    /**
+     * Número de espectadores conectados a la sala a través del relay.
+     */
+    synchronized int contarEspectadores() {
+        return relay != null ? relay.contarEspectadores() : 0;
+    }
+
+    /**
+     * Indica si la sala no tiene jugadores ni espectadores registrados.
+     */
+    boolean estaVacia() {
+        return gameManager.contarJugadoresActivos() == 0 && contarEspectadores() == 0;
+    }
+
+    /**
+     * Deja de simular la sala hasta {@link #despertar()}.
+     *
+     * @see GameLoop#reposar()
+     */
+    void reposar() {
+        if (gameLoop != null) {
+            gameLoop.reposar();
+        }
+    }
+
+    /**
+     * Retoma la simulación de una sala en reposo; no hace nada si no lo estaba.
+     */
+    void despertar() {
+        if (gameLoop != null) {
+            gameLoop.despertar();
+        }
+    }
+
+    /**
+     * Detiene el relay y la simulación de la sala. La simulación de la sala por
+     * defecto no se detiene aquí.
+     */
+    void cerrar() {
+        synchronized (this) {
+            if (relay != null) {
+                difusor.eliminarObservador(relay);
+                relay.detener();
+                relay = null;
+            }
+        }
+        if (!buclePropio) {
+            return;
+        }
+        gameLoop.detener();
+        gameManager.eliminarObservador(difusor);
+        gameManager.shutdown();
+    }
+}
@@ -1,5 +1,6 @@
 package cr.tec.donceykongjr.server.network;
 
+import cr.tec.donceykongjr.server.logic.GameLoop;
 import cr.tec.donceykongjr.server.logic.GameManager;
 import cr.tec.donceykongjr.server.util.Config;
 import cr.tec.donceykongjr.server.util.LoggerUtil;
@@ -10,29 +11,93 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Servidor TCP multicliente para el juego DonCEy Kong Jr.
- * Acepta conexiones de jugadores y espectadores, manejando cada una en un hilo separado.
+ * Acepta conexiones de jugadores y espectadores según el {@link ModoTransporte} elegido:
+ * en modo {@link ModoTransporte#HILOS} cada conexión se maneja en un hilo de un pool fijo,
+ * en modo {@link ModoTransporte#VIRTUAL} en un hilo virtual propio y en modo
+ * {@link ModoTransporte#NIO} todas comparten unos pocos hilos de E/S.
+ * Si {@link Config#HABILITAR_CANAL_UDP} está activo abre además un {@link CanalUdpEstado}
+ * en el mismo número de puerto.
+ *
+ * <p>El GameManager recibido es la sala por defecto; las conexiones pueden repartirse
+ * en más salas a través del {@link RegistroSalas}.</p>
+ *
+ * <p>Un {@link MonitorLatidos} envía PING a todas las conexiones, mide su RTT y cierra
+ * las que dejan de responder.</p>
  */
 public class ServidorJuego {
     private ServerSocket serverSocket;
-    private boolean enEjecucion = true;
+    private volatile boolean enEjecucion = true;
     private GameManager gameManager;
+    private DifusorEstado difusor;
+    private RegistroSalas registro;
     private ExecutorService executorService;
+    private TransporteNio transporteNio;
+    private CanalUdpEstado canalUdp;
+    private final MonitorLatidos latidos = new MonitorLatidos();
+    private final ModoTransporte modo;
+    private final AtomicInteger conexionesAbiertas = new AtomicInteger(0);
     private int maxConexiones;
     
     /**
-     * Constructor del servidor.
+     * Constructor del servidor con el modo de transporte configurado por defecto.
      */
     public ServidorJuego(int puerto, GameManager gameManager) {
+        this(puerto, gameManager, ModoTransporte.desde(Config.MODO_TRANSPORTE));
+    }
+
+    /**
+     * Constructor del servidor.
+     *
+     * @param puerto puerto TCP de escucha
+     * @param gameManager gestor del juego
+     * @param modo modo de transporte a usar
+     */
+    public ServidorJuego(int puerto, GameManager gameManager, ModoTransporte modo) {
+        this(puerto, gameManager, modo, null);
+    }
+
+    /**
+     * Constructor del servidor que además pone en reposo el GameLoop de la sala por
+     * defecto mientras no tenga clientes ({@link Config#REPOSO_SIN_CLIENTES}).
+     *
+     * @param puerto puerto TCP de escucha
+     * @param gameManager gestor del juego
+     * @param modo modo de transporte a usar
+     * @param gameLoop GameLoop ya iniciado que avanza a {@code gameManager}; su ciclo de
+     *                 vida sigue siendo de quien lo creó
+     */
+    public ServidorJuego(int puerto, GameManager gameManager, ModoTransporte modo, GameLoop gameLoop) {
         this.gameManager = gameManager;
-        this.maxConexiones = Config.MAX_JUGADORES * (1 + Config.MAX_ESPECTADORES_POR_JUGADOR);
-        this.executorService = Executors.newFixedThreadPool(maxConexiones);
+        this.modo = modo;
+        this.maxConexiones = Config.MAX_SALAS * Config.MAX_JUGADORES * (1 + Config.MAX_ESPECTADORES_POR_JUGADOR);
+
+        // Un único observador codifica el estado por tick para todas las conexiones
+        this.difusor = new DifusorEstado(gameManager);
+        gameManager.agregarObservador(difusor);
+        this.registro = new RegistroSalas(gameManager, difusor, gameLoop);
+
+        if (Config.HABILITAR_CANAL_UDP) {
+            try {
+                canalUdp = new CanalUdpEstado(puerto);
+                LoggerUtil.info("canal udp de estado en puerto " + canalUdp.getPuerto());
+            } catch (IOException e) {
+                LoggerUtil.warning("no se pudo abrir el canal udp, el estado solo viajará por tcp: " + e.getMessage());
+            }
+        }
         
         try {
-            serverSocket = new ServerSocket(puerto);
-            LoggerUtil.info("servidor iniciado en puerto " + puerto);
+            if (modo == ModoTransporte.NIO) {
+                transporteNio = new TransporteNio(puerto, registro, canalUdp, latidos, Config.HILOS_IO_NIO);
+            } else {
+                executorService = crearExecutor(modo);
+                serverSocket = new ServerSocket(puerto);
+            }
+            latidos.iniciar();
+            LoggerUtil.info("servidor iniciado en puerto " + puerto + " (modo " + modo + ")");
             LoggerUtil.info("esperando jugadores...");
         } catch (IOException e) {
             LoggerUtil.error("error al iniciar el servidor: " + e.getMessage());
@@ -41,23 +106,45 @@ public class ServidorJuego {
     
     /**
      * Inicia el servidor y comienza a aceptar conexiones.
+     * Bloquea al hilo llamante hasta que se llame a {@link #detener()}.
      */
     public void iniciar() {
+        if (modo == ModoTransporte.NIO) {
+            if (transporteNio != null) {
+                transporteNio.iniciar();
+            }
+            return;
+        }
         try {
             while (enEjecucion) {
                 Socket cliente = serverSocket.accept();
                 LoggerUtil.info("cliente conectado desde " + cliente.getInetAddress().getHostAddress());
 
+                if (modo == ModoTransporte.VIRTUAL
+                        && conexionesAbiertas.get() >= Config.MAX_CONEXIONES_ABIERTAS) {
+                    LoggerUtil.warning("limite de conexiones alcanzado - rechazando conexión");
+                    enviarMensajeRechazo(cliente, "Servidor lleno: límite de conexiones alcanzado");
+                    cliente.close();
+                    continue;
+                }
+
                 // Validación temprana de espacio disponible
-                if (!gameManager.tieneEspacio()) {
+                if (!registro.tieneEspacio()) {
                     LoggerUtil.warning("servidor lleno - rechazando conexión");
-                    enviarMensajeRechazo(cliente, "Servidor lleno: máximo 1 jugador + 1 espectador");
+                    enviarMensajeRechazo(cliente, "Servidor lleno: todas las salas están ocupadas");
                     cliente.close();
                     continue;
                 }
 
-                ManejadorCliente manejador = new ManejadorCliente(cliente, gameManager);
-                executorService.submit(manejador);
+                ManejadorCliente manejador = new ManejadorCliente(cliente, registro, canalUdp, latidos);
+                conexionesAbiertas.incrementAndGet();
+                executorService.submit(() -> {
+                    try {
+                        manejador.run();
+                    } finally {
+                        conexionesAbiertas.decrementAndGet();
+                    }
+                });
             }
         } catch (IOException e) {
             if (enEjecucion) {
@@ -66,30 +153,129 @@ public class ServidorJuego {
         }
     }
 
+    /**
+     * Crea el executor de manejadores para los modos bloqueantes.
+     * En modo VIRTUAL cada conexión obtiene un hilo virtual, que libera a su hilo
+     * portador mientras espera leyendo o escribiendo en el socket.
+     */
+    private ExecutorService crearExecutor(ModoTransporte modo) {
+        if (modo == ModoTransporte.VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cliente-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(maxConexiones);
+    }
+
     /**
      * Envía un mensaje de rechazo al cliente y cierra la conexión.
      */
     private void enviarMensajeRechazo(Socket cliente, String mensaje) {
         try {
             PrintWriter salida = new PrintWriter(cliente.getOutputStream(), true);
-            String json = "{\"type\":\"ERROR\",\"message\":\"" + mensaje + "\"}";
-            salida.println(json);
+            salida.println(crearMensajeRechazo(mensaje));
             salida.flush();
         } catch (IOException e) {
             LoggerUtil.error("error al enviar mensaje de rechazo: " + e.getMessage());
         }
     }
     
+    /**
+     * Construye el JSON de error que se envía antes de cerrar una conexión rechazada.
+     */
+    static String crearMensajeRechazo(String mensaje) {
+        return "{\"type\":\"ERROR\",\"message\":\"" + mensaje + "\"}";
+    }
+
+    /**
+     * Número de conexiones abiertas en el servidor.
+     */
+    public int getConexionesAbiertas() {
+        if (transporteNio != null) {
+            return transporteNio.getConexionesAbiertas();
+        }
+        return conexionesAbiertas.get();
+    }
+
+    /**
+     * Mensajes de clientes descartados antes de procesarse (líneas demasiado largas,
+     * sin forma de mensaje o con JSON inválido). El contador es del proceso.
+     */
+    public long getMensajesDescartados() {
+        return ManejadorCliente.getMensajesDescartados();
+    }
+
+    /**
+     * Mensajes de clientes descartados por exceder la tasa de su conexión.
+     * El contador es del proceso.
+     */
+    public long getMensajesLimitados() {
+        return ManejadorCliente.getMensajesLimitados();
+    }
+
+    /**
+     * INPUT leídos directamente de los bytes, sin Gson. El contador es del proceso.
+     */
+    public long getInputsDirectos() {
+        return ManejadorCliente.getInputsDirectos();
+    }
+
+    /**
+     * INPUT que no tenían la forma compacta y se leyeron con Gson. El contador es del proceso.
+     */
+    public long getInputsGson() {
+        return ManejadorCliente.getInputsGson();
+    }
+
+    /**
+     * Conexiones cerradas por no responder al latido.
+     */
+    public long getCerradasPorLatido() {
+        return latidos.getCerradasPorLatido();
+    }
+
+    /**
+     * RTT de las conexiones medido con PING/PONG: un resumen general y una línea por
+     * conexión con promedio móvil y percentiles.
+     */
+    public String getReporteLatencia() {
+        return latidos.detalle();
+    }
+
+    /**
+     * Registro de salas del servidor.
+     */
+    public RegistroSalas getRegistroSalas() {
+        return registro;
+    }
+
+    /**
+     * Modo de transporte con el que se inició el servidor.
+     */
+    public ModoTransporte getModo() {
+        return modo;
+    }
+    
     /**
      * Detiene el servidor.
      */
     public void detener() {
         enEjecucion = false;
+        gameManager.eliminarObservador(difusor);
+        latidos.detener();
+        if (canalUdp != null) {
+            canalUdp.detener();
+        }
+        if (transporteNio != null) {
+            transporteNio.detener();
+            registro.detener();
+            LoggerUtil.info("servidor detenido");
+            return;
+        }
         try {
             if (serverSocket != null && !serverSocket.isClosed()) {
                 serverSocket.close();
             }
             executorService.shutdown();
+            registro.detener();
             LoggerUtil.info("servidor detenido");
         } catch (IOException e) {
             LoggerUtil.error("error al cerrar el servidor: " + e.getMessage());
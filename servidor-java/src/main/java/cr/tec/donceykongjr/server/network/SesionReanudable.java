@@ -0,0 +1,77 @@
+package cr.tec.donceykongjr.server.network;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Sesión de un jugador que sobrevive a la caída de su conexión.
+ *
+ * <p>Se crea al aceptar el CONNECT de un jugador y su token viaja al cliente en el
+ * mensaje SESSION. Mientras la conexión vive, la sesión tiene dueño. Si la conexión cae
+ * sin DISCONNECT, queda suspendida: el jugador sigue en la sala hasta que una nueva
+ * conexión la reanude con el token o venza la expiración programada.</p>
+ *
+ * <p>Los campos mutables solo se leen y escriben bajo el monitor de {@link RegistroSalas}.</p>
+ */
+final class SesionReanudable {
+    private final long token;
+    private final String jugadorId;
+    private final Sala sala;
+    private ManejadorCliente dueno;
+    private ScheduledFuture<?> expiracion;
+
+    SesionReanudable(long token, String jugadorId, Sala sala, ManejadorCliente dueno) {
+        this.token = token;
+        this.jugadorId = jugadorId;
+        this.sala = sala;
+        this.dueno = dueno;
+    }
+
+    long getToken() {
+        return token;
+    }
+
+    String getJugadorId() {
+        return jugadorId;
+    }
+
+    Sala getSala() {
+        return sala;
+    }
+
+    /**
+     * Indica si la conexión dada es la que tiene ahora la sesión.
+     */
+    boolean perteneceA(ManejadorCliente conexion) {
+        return dueno == conexion;
+    }
+
+    /**
+     * Indica si la sesión espera una reconexión.
+     */
+    boolean estaSuspendida() {
+        return dueno == null;
+    }
+
+    /**
+     * Deja la sesión sin dueño hasta que se reanude o venza la expiración.
+     */
+    void suspender(ScheduledFuture<?> expiracion) {
+        this.dueno = null;
+        this.expiracion = expiracion;
+    }
+
+    /**
+     * Pasa la sesión a una nueva conexión y cancela la expiración pendiente.
+     *
+     * @return conexión que la tenía, o null si estaba suspendida
+     */
+    ManejadorCliente tomar(ManejadorCliente nuevo) {
+        if (expiracion != null) {
+            expiracion.cancel(false);
+            expiracion = null;
+        }
+        ManejadorCliente anterior = dueno;
+        dueno = nuevo;
+        return anterior;
+    }
+}
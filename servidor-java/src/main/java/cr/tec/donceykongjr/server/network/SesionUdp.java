@@ -0,0 +1,101 @@
+package cr.tec.donceykongjr.server.network;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estado UDP de una conexión: destino, numeración de los frames y confirmaciones.
+ *
+ * <p>Cada datagrama de estado lleva una secuencia creciente. El cliente responde con
+ * la última secuencia que aplicó; las confirmaciones iguales o anteriores a la última
+ * vista (duplicadas o llegadas fuera de orden) se ignoran, tanto para medir el RTT
+ * como para actualizar la dirección de destino.</p>
+ *
+ * <pre>
+ * servidor → cliente: [u32 secuencia][frame de estado]
+ * cliente → servidor: [u64 token][u32 última secuencia aplicada, 0 al registrarse]
+ * </pre>
+ */
+final class SesionUdp {
+    /** Frames recientes cuyo instante de envío se recuerda para calcular el RTT. */
+    private static final int HISTORIAL = 64;
+
+    private final long token;
+    private final AtomicInteger secuencia;
+    private final AtomicLongArray enviadoEn;
+    private volatile InetSocketAddress destino;
+    private volatile long ultimaConfirmacionNanos;
+    private volatile long rttNanos;
+    private int ultimaConfirmada;  // Solo la escribe el receptor UDP
+
+    SesionUdp(long token) {
+        this.token = token;
+        this.secuencia = new AtomicInteger();
+        this.enviadoEn = new AtomicLongArray(HISTORIAL);
+        this.ultimaConfirmacionNanos = System.nanoTime();
+        this.rttNanos = -1;
+    }
+
+    long getToken() {
+        return token;
+    }
+
+    /**
+     * Dirección a la que se envían los estados, o null si el cliente aún no se registró.
+     */
+    InetSocketAddress getDestino() {
+        return destino;
+    }
+
+    /**
+     * Antepone la siguiente secuencia al frame y anota el instante de envío.
+     */
+    ByteBuffer empaquetar(byte[] frame) {
+        int numero = secuencia.incrementAndGet();
+        enviadoEn.set(numero % HISTORIAL, System.nanoTime());
+        ByteBuffer datagrama = ByteBuffer.allocate(Integer.BYTES + frame.length);
+        datagrama.putInt(numero).put(frame).flip();
+        return datagrama;
+    }
+
+    /**
+     * Registra un datagrama del cliente. Solo lo llama el receptor UDP.
+     *
+     * @param confirmada última secuencia que el cliente aplicó (0 si aún ninguna)
+     * @param origen dirección desde la que llegó el datagrama
+     * @return false si la confirmación era vieja o inválida y se ignoró
+     */
+    boolean confirmar(int confirmada, InetSocketAddress origen) {
+        boolean registro = confirmada == 0 && ultimaConfirmada == 0;
+        if (!registro && (confirmada <= ultimaConfirmada || confirmada > secuencia.get())) {
+            return false;
+        }
+        long ahora = System.nanoTime();
+        if (confirmada > 0 && secuencia.get() - confirmada < HISTORIAL) {
+            long muestra = ahora - enviadoEn.get(confirmada % HISTORIAL);
+            long anterior = rttNanos;
+            rttNanos = anterior < 0 ? muestra : (anterior * 7 + muestra) / 8;
+        }
+        ultimaConfirmada = confirmada;
+        ultimaConfirmacionNanos = ahora;
+        destino = origen;
+        return true;
+    }
+
+    /**
+     * Indica si pasó más del límite sin confirmaciones válidas del cliente.
+     */
+    boolean sinConfirmar(long limiteNanos) {
+        return System.nanoTime() - ultimaConfirmacionNanos > limiteNanos;
+    }
+
+    /**
+     * RTT suavizado medido con las confirmaciones, o -1 si aún no hay muestras.
+     */
+    double getRttMs() {
+        long rtt = rttNanos;
+        return rtt < 0 ? -1 : rtt / 1_000_000.0;
+    }
+}
@@ -0,0 +1,402 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.logic.GameLoop;
+import cr.tec.donceykongjr.server.logic.GameManager;
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+import cr.tec.donceykongjr.server.util.Percentiles;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulación local de pérdida y jitter para comparar el estado por TCP y por UDP.
+ *
+ * <p>Levanta un servidor con GameLoop y dos clientes que reciben el estado a través
+ * de proxies con el mismo perfil de red:</p>
+ * <ul>
+ *   <li><b>TCP:</b> un jugador conectado a un proxy que entrega los datos en orden.
+ *       Cada bloque "perdido" se retrasa un RTO de retransmisión y, como TCP no entrega
+ *       fuera de orden, todo lo que viene detrás espera con él.</li>
+ *   <li><b>UDP:</b> un espectador que pide {@code UDP_OPEN} y recibe los datagramas por
+ *       un proxy que descarta los perdidos y retrasa el resto un jitter aleatorio, lo
+ *       que también los desordena. El cliente descarta los estados viejos por secuencia
+ *       y confirma cada estado aplicado.</li>
+ * </ul>
+ *
+ * <p>Cada 5 ms se mide la antigüedad del último estado de cada cliente respecto al
+ * tick actual del servidor y se reportan percentiles en milisegundos.</p>
+ *
+ * <p><b>Uso:</b></p>
+ * <pre>
+ * java cr.tec.donceykongjr.server.network.SimuladorPerdidaUdp [perdida%] [jitterMs] [rtoMs] [segundos] [puerto]
+ * </pre>
+ */
+public class SimuladorPerdidaUdp {
+    private static final long MUESTREO_MS = 5;
+
+    private SimuladorPerdidaUdp() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        double perdida = (args.length > 0 ? Double.parseDouble(args[0]) : 5.0) / 100.0;
+        int jitterMs = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int rtoMs = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int segundos = args.length > 3 ? Integer.parseInt(args[3]) : 15;
+        int puerto = args.length > 4 ? Integer.parseInt(args[4]) : 6200;
+
+        LoggerUtil.info("=== SIMULACIÓN DE RED: pérdida " + (perdida * 100) + "%, jitter " + jitterMs
+                + " ms, RTO " + rtoMs + " ms ===");
+
+        GameManager gameManager = new GameManager();
+        GameLoop gameLoop = new GameLoop(gameManager);
+        ServidorJuego servidor = new ServidorJuego(puerto, gameManager, ModoTransporte.NIO);
+        Thread hiloServidor = new Thread(servidor::iniciar, "simulador-servidor");
+        hiloServidor.setDaemon(true);
+        hiloServidor.start();
+        gameLoop.iniciar();
+
+        ProxyTcp proxyTcp = new ProxyTcp(puerto + 1, puerto, perdida, jitterMs, rtoMs);
+        ProxyUdp proxyUdp = new ProxyUdp(puerto + 2, puerto, perdida, jitterMs);
+
+        ClienteTcp clienteTcp = new ClienteTcp(puerto + 1);
+        Thread.sleep(300);
+        ClienteUdp clienteUdp = new ClienteUdp(puerto, puerto + 2);
+
+        long[] edadTcp = new long[(int) (segundos * 1000 / MUESTREO_MS)];
+        long[] edadUdp = new long[edadTcp.length];
+        Thread.sleep(1000);
+        for (int i = 0; i < edadTcp.length; i++) {
+            long tick = gameManager.getTickActual();
+            edadTcp[i] = Math.max(0, tick - clienteTcp.ultimoTick.get());
+            edadUdp[i] = Math.max(0, tick - clienteUdp.ultimoTick.get());
+            Thread.sleep(MUESTREO_MS);
+        }
+
+        System.out.println();
+        System.out.printf("%-6s %10s %10s %10s %10s %10s %12s %10s%n",
+                "canal", "p50 ms", "p95 ms", "p99 ms", "max ms", "estados", "fuera orden", "saltados");
+        System.out.println(fila("TCP", edadTcp, clienteTcp.recibidos.get(), 0, 0));
+        System.out.println(fila("UDP", edadUdp, clienteUdp.recibidos.get(),
+                clienteUdp.viejos.get(), clienteUdp.saltados()));
+
+        proxyTcp.cerrar();
+        proxyUdp.cerrar();
+        gameLoop.detener();
+        servidor.detener();
+        System.exit(0);
+    }
+
+    private static String fila(String canal, long[] edades, long recibidos, long viejos, long saltados) {
+        long[] ordenadas = edades.clone();
+        Arrays.sort(ordenadas);
+        return String.format("%-6s %10.0f %10.0f %10.0f %10.0f %10d %12d %10d", canal,
+                percentilMs(ordenadas, 50), percentilMs(ordenadas, 95),
+                percentilMs(ordenadas, 99), percentilMs(ordenadas, 100),
+                recibidos, viejos, saltados);
+    }
+
+    /** Las edades están en ticks; se convierten a milisegundos. */
+    private static double percentilMs(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) {
+            return Double.NaN;
+        }
+        return Percentiles.de(ordenadas, percentil) * (double) Config.INTERVALO_TICK_MS;
+    }
+
+    private static long leerTick(String json) {
+        int pos = json.indexOf("\"tick\":");
+        if (pos < 0) {
+            return -1;
+        }
+        int inicio = pos + 7;
+        int fin = inicio;
+        while (fin < json.length() && Character.isDigit(json.charAt(fin))) {
+            fin++;
+        }
+        return fin > inicio ? Long.parseLong(json.substring(inicio, fin)) : -1;
+    }
+
+    private static Thread demonio(String nombre, Runnable tarea) {
+        return Thread.ofPlatform().daemon(true).name(nombre).start(tarea);
+    }
+
+    private static boolean perder(double perdida) {
+        return ThreadLocalRandom.current().nextDouble() < perdida;
+    }
+
+    private static long jitter(int jitterMs) {
+        return jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0;
+    }
+
+    /**
+     * Proxy TCP con bloqueo de cabeza de línea: un bloque perdido retrasa a todos los siguientes.
+     */
+    private static final class ProxyTcp {
+        private final ServerSocket escucha;
+
+        ProxyTcp(int puertoEscucha, int puertoServidor, double perdida, int jitterMs, int rtoMs) throws IOException {
+            this.escucha = new ServerSocket(puertoEscucha);
+            demonio("proxy-tcp", () -> {
+                try (Socket cliente = escucha.accept();
+                     Socket servidor = new Socket("localhost", puertoServidor)) {
+                    demonio("proxy-tcp-subida", () -> copiar(cliente, servidor));
+                    bajar(servidor, cliente, perdida, jitterMs, rtoMs);
+                } catch (IOException e) {
+                    LoggerUtil.debug("proxy tcp cerrado: " + e.getMessage());
+                }
+            });
+        }
+
+        private static void copiar(Socket origen, Socket destino) {
+            try {
+                origen.getInputStream().transferTo(destino.getOutputStream());
+            } catch (IOException e) {
+                LoggerUtil.debug("proxy tcp subida cerrada: " + e.getMessage());
+            }
+        }
+
+        private static void bajar(Socket servidor, Socket cliente, double perdida, int jitterMs, int rtoMs)
+                throws IOException {
+            BlockingQueue<Object[]> pendientes = new LinkedBlockingQueue<>();
+            OutputStream salida = cliente.getOutputStream();
+            demonio("proxy-tcp-entrega", () -> {
+                try {
+                    while (true) {
+                        Object[] bloque = pendientes.take();
+                        long espera = (long) bloque[0] - System.nanoTime();
+                        if (espera > 0) {
+                            TimeUnit.NANOSECONDS.sleep(espera);
+                        }
+                        salida.write((byte[]) bloque[1]);
+                        salida.flush();
+                    }
+                } catch (IOException | InterruptedException e) {
+                    LoggerUtil.debug("proxy tcp entrega cerrada: " + e.getMessage());
+                }
+            });
+
+            InputStream entrada = servidor.getInputStream();
+            byte[] buffer = new byte[8192];
+            long ultimaEntrega = 0;
+            int leidos;
+            while ((leidos = entrada.read(buffer)) >= 0) {
+                long retraso = TimeUnit.MILLISECONDS.toNanos(jitter(jitterMs) + (perder(perdida) ? rtoMs : 0));
+                ultimaEntrega = Math.max(ultimaEntrega, System.nanoTime() + retraso);
+                pendientes.add(new Object[]{ultimaEntrega, Arrays.copyOf(buffer, leidos)});
+            }
+        }
+
+        void cerrar() throws IOException {
+            escucha.close();
+        }
+    }
+
+    /**
+     * Proxy UDP que descarta datagramas y retrasa el resto un jitter independiente.
+     */
+    private static final class ProxyUdp {
+        private final DatagramSocket socket;
+        private final ScheduledExecutorService planificador;
+
+        ProxyUdp(int puertoEscucha, int puertoServidor, double perdida, int jitterMs) throws IOException {
+            this.socket = new DatagramSocket(puertoEscucha);
+            this.planificador = Executors.newSingleThreadScheduledExecutor();
+            InetSocketAddress servidor = new InetSocketAddress(InetAddress.getLoopbackAddress(), puertoServidor);
+            demonio("proxy-udp", () -> {
+                SocketAddress cliente = null;
+                byte[] buffer = new byte[65536];
+                while (!socket.isClosed()) {
+                    try {
+                        DatagramPacket paquete = new DatagramPacket(buffer, buffer.length);
+                        socket.receive(paquete);
+                        boolean delServidor = paquete.getPort() == puertoServidor;
+                        if (!delServidor) {
+                            cliente = paquete.getSocketAddress();
+                        }
+                        SocketAddress destino = delServidor ? cliente : servidor;
+                        if (destino == null || perder(perdida)) {
+                            continue;
+                        }
+                        byte[] datos = Arrays.copyOf(paquete.getData(), paquete.getLength());
+                        planificador.schedule(() -> reenviar(datos, destino), jitter(jitterMs), TimeUnit.MILLISECONDS);
+                    } catch (IOException e) {
+                        LoggerUtil.debug("proxy udp: " + e.getMessage());
+                    }
+                }
+            });
+        }
+
+        private void reenviar(byte[] datos, SocketAddress destino) {
+            try {
+                socket.send(new DatagramPacket(datos, datos.length, destino));
+            } catch (IOException e) {
+                LoggerUtil.debug("proxy udp reenvío: " + e.getMessage());
+            }
+        }
+
+        void cerrar() {
+            planificador.shutdownNow();
+            socket.close();
+        }
+    }
+
+    /**
+     * Responde un PING del servidor para que no cierre la conexión por inactividad.
+     */
+    private static void responderPing(String linea, PrintWriter salida) {
+        if (linea.startsWith("{\"type\":\"PING\"")) {
+            Mensaje ping = JsonUtil.fromJson(linea);
+            if (ping != null) {
+                salida.println("{\"type\":\"PONG\",\"seq\":" + ping.getSeq() + "}");
+            }
+        }
+    }
+
+    /**
+     * Jugador que recibe el estado por TCP (JSON por líneas).
+     */
+    private static final class ClienteTcp {
+        final AtomicLong ultimoTick = new AtomicLong();
+        final AtomicLong recibidos = new AtomicLong();
+
+        ClienteTcp(int puerto) throws IOException {
+            Socket socket = new Socket("localhost", puerto);
+            PrintWriter salida = new PrintWriter(socket.getOutputStream(), true);
+            salida.println("{\"type\":\"CONNECT\",\"id\":\"jugador-tcp\",\"clientType\":\"PLAYER\"}");
+            BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            demonio("cliente-tcp", () -> {
+                try {
+                    String linea;
+                    while ((linea = entrada.readLine()) != null) {
+                        long tick = linea.startsWith("{\"type\":\"STATE\"") ? leerTick(linea) : -1;
+                        if (tick >= 0) {
+                            ultimoTick.set(tick);
+                            recibidos.incrementAndGet();
+                        } else {
+                            responderPing(linea, salida);
+                        }
+                    }
+                } catch (IOException e) {
+                    LoggerUtil.debug("cliente tcp cerrado: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Espectador que recibe el estado por UDP y lo confirma.
+     */
+    private static final class ClienteUdp {
+        final AtomicLong ultimoTick = new AtomicLong();
+        final AtomicLong recibidos = new AtomicLong();
+        final AtomicLong viejos = new AtomicLong();
+        private final AtomicInteger ultimaSecuencia = new AtomicInteger();
+
+        ClienteUdp(int puertoTcp, int puertoProxyUdp) throws IOException {
+            Socket socket = new Socket("localhost", puertoTcp);
+            PrintWriter salida = new PrintWriter(socket.getOutputStream(), true);
+            BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            salida.println("{\"type\":\"CONNECT\",\"id\":\"espectador-udp\",\"clientType\":\"SPECTATOR\"}");
+            salida.println("{\"type\":\"UDP_OPEN\"}");
+
+            long token = 0;
+            String linea;
+            while (token == 0 && (linea = entrada.readLine()) != null) {
+                Mensaje mensaje = JsonUtil.fromJson(linea);
+                if (mensaje != null && mensaje.getType() == Mensaje.TipoMensaje.UDP_TOKEN) {
+                    token = ((Number) ((Map<?, ?>) mensaje.getPayload()).get("token")).longValue();
+                } else if (mensaje != null && mensaje.getType() == Mensaje.TipoMensaje.ERROR) {
+                    throw new IOException("el servidor rechazó al espectador: " + linea);
+                }
+            }
+            demonio("cliente-udp-tcp", () -> {
+                try {
+                    String evento;
+                    while ((evento = entrada.readLine()) != null) {
+                        // Eventos por TCP: no se miden
+                        responderPing(evento, salida);
+                    }
+                } catch (IOException e) {
+                    LoggerUtil.debug("cliente udp (tcp) cerrado: " + e.getMessage());
+                }
+            });
+
+            DatagramSocket udp = new DatagramSocket();
+            InetSocketAddress proxy = new InetSocketAddress(InetAddress.getLoopbackAddress(), puertoProxyUdp);
+            long tokenSesion = token;
+            demonio("cliente-udp-registro", () -> {
+                // Se reintenta mientras no llegue el primer estado: el registro también puede perderse
+                while (recibidos.get() == 0 && !udp.isClosed()) {
+                    confirmar(udp, proxy, tokenSesion, 0);
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            demonio("cliente-udp", () -> {
+                byte[] buffer = new byte[65536];
+                while (!udp.isClosed()) {
+                    try {
+                        DatagramPacket paquete = new DatagramPacket(buffer, buffer.length);
+                        udp.receive(paquete);
+                        ByteBuffer datos = ByteBuffer.wrap(paquete.getData(), 0, paquete.getLength());
+                        int secuencia = datos.getInt();
+                        if (secuencia <= ultimaSecuencia.get()) {
+                            viejos.incrementAndGet();
+                            continue;
+                        }
+                        ultimaSecuencia.set(secuencia);
+                        String json = new String(paquete.getData(), Integer.BYTES,
+                                paquete.getLength() - Integer.BYTES, StandardCharsets.UTF_8);
+                        ultimoTick.set(leerTick(json));
+                        recibidos.incrementAndGet();
+                        confirmar(udp, proxy, tokenSesion, secuencia);
+                    } catch (IOException e) {
+                        LoggerUtil.debug("cliente udp: " + e.getMessage());
+                    }
+                }
+            });
+        }
+
+        private void confirmar(DatagramSocket udp, SocketAddress destino, long token, int secuencia) {
+            byte[] datos = ByteBuffer.allocate(CanalUdpEstado.LONGITUD_CONFIRMACION)
+                    .putLong(token).putInt(secuencia).array();
+            try {
+                udp.send(new DatagramPacket(datos, datos.length, destino));
+            } catch (IOException e) {
+                LoggerUtil.debug("cliente udp confirmación: " + e.getMessage());
+            }
+        }
+
+        /** Secuencias que nunca se aplicaron: perdidas o llegadas después de una más nueva. */
+        long saltados() {
+            return Math.max(0, ultimaSecuencia.get() - recibidos.get());
+        }
+    }
+}
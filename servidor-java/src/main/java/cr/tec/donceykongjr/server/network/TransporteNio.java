@@ -0,0 +1,466 @@
+package cr.tec.donceykongjr.server.network;
+
+import cr.tec.donceykongjr.server.util.Config;
+import cr.tec.donceykongjr.server.util.LoggerUtil;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transporte no bloqueante basado en {@link Selector}.
+ *
+ * <p>Un hilo aceptador (el que llama a {@link #iniciar()}) atiende OP_ACCEPT y reparte
+ * las conexiones en round-robin entre {@link Config#HILOS_IO_NIO} hilos de E/S. Cada hilo
+ * de E/S tiene su propio selector y se encarga de leer, separar líneas y escribir para
+ * todas sus conexiones, por lo que la cantidad de hilos no crece con los clientes.</p>
+ *
+ * <p>La escritura de cada conexión se pide una vez por tick ({@link CanalCliente#descargar()})
+ * y entrega todos los mensajes pendientes en una sola escritura con gathering
+ * ({@link SocketChannel#write(ByteBuffer[], int, int)}), sin copiarlos.</p>
+ *
+ * <pre>
+ * TransporteNio
+ *  ├── Selector de aceptación (hilo del servidor)
+ *  └── HiloSelector[] (lectura, framing por líneas y escritura)
+ *       └── ConexionNio → ManejadorCliente (lógica del protocolo)
+ * </pre>
+ */
+class TransporteNio {
+    private static final int TAMANO_BUFFER_LECTURA = 8192;
+    private static final int MAX_MENSAJES_POR_ESCRITURA = 16;
+
+    private final RegistroSalas registro;
+    private final CanalUdpEstado canalUdp;
+    private final MonitorLatidos latidos;
+    private final ServerSocketChannel canalServidor;
+    private final Selector selectorAceptacion;
+    private final HiloSelector[] hilosIo;
+    private final AtomicInteger conexionesAbiertas;
+    private volatile boolean enEjecucion;
+    private int siguienteHilo;
+
+    /**
+     * Abre el canal del servidor y arranca los hilos de E/S.
+     *
+     * @param puerto puerto TCP de escucha
+     * @param registro salas del servidor a las que se asignan las conexiones
+     * @param canalUdp canal UDP de estado, o null si está deshabilitado
+     * @param latidos monitor en el que se registran las conexiones, o null
+     * @param cantidadHilos número de hilos de E/S (mínimo 1)
+     * @throws IOException si no se puede abrir el puerto o los selectores
+     */
+    TransporteNio(int puerto, RegistroSalas registro, CanalUdpEstado canalUdp,
+                  MonitorLatidos latidos, int cantidadHilos) throws IOException {
+        this.registro = registro;
+        this.canalUdp = canalUdp;
+        this.latidos = latidos;
+        this.conexionesAbiertas = new AtomicInteger(0);
+        this.canalServidor = ServerSocketChannel.open();
+        this.canalServidor.bind(new InetSocketAddress(puerto));
+        this.canalServidor.configureBlocking(false);
+        this.selectorAceptacion = Selector.open();
+        this.canalServidor.register(selectorAceptacion, SelectionKey.OP_ACCEPT);
+
+        this.hilosIo = new HiloSelector[Math.max(1, cantidadHilos)];
+        for (int i = 0; i < hilosIo.length; i++) {
+            hilosIo[i] = new HiloSelector("nio-io-" + i);
+        }
+        this.enEjecucion = true;
+        for (HiloSelector hilo : hilosIo) {
+            hilo.hilo.start();
+        }
+    }
+
+    /**
+     * Bucle de aceptación. Bloquea al hilo llamante hasta que se llame a {@link #detener()}.
+     */
+    void iniciar() {
+        try {
+            while (enEjecucion) {
+                selectorAceptacion.select();
+                Iterator<SelectionKey> it = selectorAceptacion.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        aceptar();
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (enEjecucion) {
+                LoggerUtil.error("error al aceptar conexiones: " + e.getMessage());
+            }
+        }
+    }
+
+    private void aceptar() throws IOException {
+        SocketChannel cliente;
+        while ((cliente = canalServidor.accept()) != null) {
+            String direccion = cliente.socket().getInetAddress().getHostAddress();
+            LoggerUtil.info("cliente conectado desde " + direccion);
+
+            if (conexionesAbiertas.get() >= Config.MAX_CONEXIONES_ABIERTAS) {
+                LoggerUtil.warning("limite de conexiones nio alcanzado - rechazando conexión");
+                rechazar(cliente, "Servidor lleno: límite de conexiones alcanzado");
+                continue;
+            }
+            if (!registro.tieneEspacio()) {
+                LoggerUtil.warning("servidor lleno - rechazando conexión");
+                rechazar(cliente, "Servidor lleno: todas las salas están ocupadas");
+                continue;
+            }
+
+            cliente.configureBlocking(false);
+            cliente.socket().setTcpNoDelay(true);
+            conexionesAbiertas.incrementAndGet();
+            HiloSelector destino = hilosIo[siguienteHilo];
+            siguienteHilo = (siguienteHilo + 1) % hilosIo.length;
+            destino.registrar(cliente);
+        }
+    }
+
+    private void rechazar(SocketChannel cliente, String mensaje) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(JsonUtil.codificarLinea(ServidorJuego.crearMensajeRechazo(mensaje)));
+            // El canal recién aceptado es bloqueante: el mensaje es corto y se envía de una vez
+            while (buffer.hasRemaining()) {
+                cliente.write(buffer);
+            }
+        } catch (IOException e) {
+            LoggerUtil.error("error al enviar mensaje de rechazo: " + e.getMessage());
+        } finally {
+            try {
+                cliente.close();
+            } catch (IOException e) {
+                LoggerUtil.error("error al cerrar socket: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Cierra el canal del servidor, todos los selectores y sus conexiones.
+     */
+    void detener() {
+        enEjecucion = false;
+        try {
+            selectorAceptacion.close();
+            canalServidor.close();
+        } catch (IOException e) {
+            LoggerUtil.error("error al cerrar el servidor: " + e.getMessage());
+        }
+        for (HiloSelector hilo : hilosIo) {
+            hilo.detener();
+        }
+    }
+
+    /**
+     * Número de conexiones abiertas actualmente en el transporte.
+     */
+    int getConexionesAbiertas() {
+        return conexionesAbiertas.get();
+    }
+
+    /**
+     * Hilo de E/S con su propio selector. Atiende lecturas y escrituras de sus conexiones.
+     * Otros hilos solo se comunican con él mediante colas concurrentes y {@code wakeup()}.
+     */
+    private final class HiloSelector implements Runnable {
+        private final Selector selector;
+        private final Thread hilo;
+        private final Queue<ConexionNio> pendientesRegistro;
+        private final Queue<ConexionNio> pendientesEscritura;
+        private final ByteBuffer bufferLectura;
+
+        HiloSelector(String nombre) throws IOException {
+            this.selector = Selector.open();
+            this.pendientesRegistro = new ConcurrentLinkedQueue<>();
+            this.pendientesEscritura = new ConcurrentLinkedQueue<>();
+            // Un solo buffer directo por hilo: las lecturas de todas sus conexiones son secuenciales
+            this.bufferLectura = ByteBuffer.allocateDirect(TAMANO_BUFFER_LECTURA);
+            this.hilo = new Thread(this, nombre);
+            this.hilo.setDaemon(true);
+        }
+
+        void registrar(SocketChannel canal) {
+            pendientesRegistro.offer(new ConexionNio(canal, this));
+            selector.wakeup();
+        }
+
+        void solicitarEscritura(ConexionNio conexion) {
+            pendientesEscritura.offer(conexion);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (enEjecucion) {
+                try {
+                    selector.select();
+                    procesarRegistros();
+                    procesarSolicitudesEscritura();
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        ConexionNio conexion = (ConexionNio) key.attachment();
+                        if (!key.isValid()) {
+                            conexion.cerrarInmediato();
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            conexion.leer(bufferLectura);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            conexion.escribir();
+                        }
+                    }
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    LoggerUtil.error("error en selector " + hilo.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+
+        private void procesarRegistros() {
+            ConexionNio conexion;
+            while ((conexion = pendientesRegistro.poll()) != null) {
+                try {
+                    conexion.key = conexion.canal.register(selector, SelectionKey.OP_READ, conexion);
+                    conexion.manejador.iniciar();
+                } catch (IOException e) {
+                    LoggerUtil.error("error al registrar conexión: " + e.getMessage());
+                    conexion.cerrarInmediato();
+                }
+            }
+        }
+
+        private void procesarSolicitudesEscritura() {
+            ConexionNio conexion;
+            while ((conexion = pendientesEscritura.poll()) != null) {
+                if (conexion.key != null && conexion.key.isValid()) {
+                    conexion.escribir();
+                }
+            }
+        }
+
+        void detener() {
+            try {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof ConexionNio conexion) {
+                        conexion.cerrarInmediato();
+                    }
+                }
+                selector.close();
+            } catch (IOException | ClosedSelectorException e) {
+                LoggerUtil.error("error al cerrar selector: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Estado de una conexión NIO: canal, framing de entrada y buzón de salida.
+     * El hilo de E/S dueño de la conexión es su escritor.
+     */
+    private final class ConexionNio implements CanalCliente {
+        private final SocketChannel canal;
+        private final HiloSelector hiloIo;
+        private final ManejadorCliente manejador;
+        private final DecodificadorLineas decodificador;
+        private final BuzonSalida buzon;
+        private final ByteBuffer[] lote;
+        private volatile CompresorMensajes compresor;
+        private int inicioLote;
+        private int finLote;
+        private final AtomicBoolean escrituraSolicitada;
+        private final AtomicBoolean cerrada;
+        private volatile boolean cierrePendiente;
+        private SelectionKey key;
+
+        ConexionNio(SocketChannel canal, HiloSelector hiloIo) {
+            this.canal = canal;
+            this.hiloIo = hiloIo;
+            this.decodificador = new DecodificadorLineas();
+            this.buzon = new BuzonSalida();
+            this.lote = new ByteBuffer[MAX_MENSAJES_POR_ESCRITURA];
+            this.escrituraSolicitada = new AtomicBoolean(false);
+            this.cerrada = new AtomicBoolean(false);
+            this.manejador = new ManejadorCliente(this, registro, canalUdp, latidos);
+        }
+
+        /**
+         * Lee los bytes disponibles y entrega las líneas completas al manejador.
+         * Se ejecuta siempre en el hilo de E/S dueño de la conexión.
+         */
+        void leer(ByteBuffer buffer) {
+            try {
+                buffer.clear();
+                int leidos = canal.read(buffer);
+                if (leidos < 0) {
+                    cerrarInmediato();
+                    return;
+                }
+                buffer.flip();
+                if (!decodificador.alimentar(buffer, manejador::procesarLinea)) {
+                    manejador.rechazarLineaExcedida();
+                }
+            } catch (IOException e) {
+                LoggerUtil.warning("cliente desconectado: " + e.getMessage());
+                cerrarInmediato();
+            }
+        }
+
+        /**
+         * Escribe lo que acepte el socket sin bloquear. Si queda pendiente,
+         * se mantiene OP_WRITE hasta que el socket vuelva a tener espacio.
+         */
+        void escribir() {
+            try {
+                while (true) {
+                    if (inicioLote == finLote && !llenarLote()) {
+                        break;
+                    }
+                    canal.write(lote, inicioLote, finLote - inicioLote);
+                    while (inicioLote < finLote && !lote[inicioLote].hasRemaining()) {
+                        lote[inicioLote++] = null;
+                    }
+                    if (inicioLote < finLote) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+                if (cierrePendiente) {
+                    cerrarInmediato();
+                    return;
+                }
+                key.interestOps(SelectionKey.OP_READ);
+                escrituraSolicitada.set(false);
+                // Un productor pudo encolar entre el último peek y el reset del flag
+                if (!buzon.estaVacio() && escrituraSolicitada.compareAndSet(false, true)) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                LoggerUtil.warning("cliente desconectado: " + e.getMessage());
+                cerrarInmediato();
+            }
+        }
+
+        /**
+         * Toma del buzón hasta {@link #MAX_MENSAJES_POR_ESCRITURA} mensajes para la
+         * siguiente escritura.
+         *
+         * @return false si el buzón estaba vacío
+         */
+        private boolean llenarLote() {
+            inicioLote = 0;
+            finLote = 0;
+            CompresorMensajes c = compresor;
+            byte[] linea;
+            while (finLote < lote.length && (linea = buzon.siguiente()) != null) {
+                // wrap() no copia: cada conexión tiene su propia posición sobre los bytes compartidos
+                lote[finLote++] = ByteBuffer.wrap(c != null ? c.empaquetar(linea) : linea);
+            }
+            return finLote > 0;
+        }
+
+        @Override
+        public void enviar(byte[] linea) {
+            if (!cerrada.get()) {
+                procesar(buzon.ofrecer(linea));
+            }
+        }
+
+        @Override
+        public void enviarEstado(byte[] linea) {
+            if (!cerrada.get()) {
+                procesar(buzon.ofrecerEstado(linea));
+            }
+        }
+
+        @Override
+        public void enviarKeyframe(byte[] linea) {
+            if (!cerrada.get()) {
+                procesar(buzon.ofrecerKeyframe(linea));
+            }
+        }
+
+        private void procesar(BuzonSalida.Resultado resultado) {
+            if (resultado == BuzonSalida.Resultado.DESCONECTAR) {
+                LoggerUtil.warning("cliente lento: buzón de salida saturado, desconectando");
+                cerrarInmediato();
+            }
+        }
+
+        @Override
+        public void activarCompresion() {
+            if (compresor == null) {
+                compresor = new CompresorMensajes();
+            }
+        }
+
+        @Override
+        public void descargar() {
+            if (!cerrada.get() && escrituraSolicitada.compareAndSet(false, true)) {
+                hiloIo.solicitarEscritura(this);
+            }
+        }
+
+        /**
+         * Cierre solicitado por el protocolo: primero se vacía la cola de salida
+         * (por ejemplo, un mensaje de error) y luego se cierra el canal.
+         */
+        @Override
+        public void cerrar() {
+            if (cerrada.get()) {
+                return;
+            }
+            cierrePendiente = true;
+            if (escrituraSolicitada.compareAndSet(false, true)) {
+                hiloIo.solicitarEscritura(this);
+            }
+        }
+
+        @Override
+        public void abortar() {
+            cerrarInmediato();
+        }
+
+        /**
+         * Cierra el canal sin esperar la salida pendiente (EOF, error de E/S, apagado o
+         * latido vencido).
+         */
+        void cerrarInmediato() {
+            if (!cerrada.compareAndSet(false, true)) {
+                return;
+            }
+            conexionesAbiertas.decrementAndGet();
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                canal.close();
+            } catch (IOException e) {
+                LoggerUtil.error("error al cerrar socket: " + e.getMessage());
+            }
+            buzon.vaciar();
+            CompresorMensajes c = compresor;
+            if (c != null) {
+                c.liberar();
+            }
+            manejador.desconectar();
+        }
+    }
+}
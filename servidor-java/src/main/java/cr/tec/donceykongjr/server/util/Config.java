@@ -9,7 +9,7 @@ package cr.tec.donceykongjr.server.util;
  *
  * <p><b>Categorías de configuración:</b></p>
  * <ul>
- *   <li><b>Red:</b> Puertos, límites de conexiones</li>
+ *   <li><b>Red:</b> Puertos, límites de conexiones, modo de transporte</li>
  *   <li><b>Game Loop:</b> Tasa de actualización (TPS)</li>
  *   <li><b>Jugador:</b> Física, movimiento, spawn, vidas</li>
  *   <li><b>Mapa:</b> Dimensiones, nivel del agua, objetivo</li>
@@ -77,9 +77,239 @@ public class Config {
      *
      * <p>Los espectadores reciben actualizaciones del estado del juego
      * pero no pueden enviar inputs ni afectar la partida.</p>
+     *
+     * <p>Limita los espectadores registrados directamente en el GameManager. Los que se
+     * conectan por red pasan por el relay de su sala y los limita
+     * {@link #MAX_ESPECTADORES_POR_SALA}.</p>
      */
     public static final int MAX_ESPECTADORES_POR_JUGADOR = 1;
 
+    /**
+     * Modo de transporte de red por defecto.
+     *
+     * <p>{@code "NIO"} atiende todas las conexiones con unos pocos hilos basados en
+     * {@link java.nio.channels.Selector}; {@code "VIRTUAL"} usa un hilo virtual de
+     * Java 21 por conexión con E/S bloqueante; {@code "HILOS"} conserva el modelo
+     * clásico de un hilo de plataforma por conexión. Puede sobrescribirse con el
+     * segundo argumento de la línea de comandos.</p>
+     *
+     * @see cr.tec.donceykongjr.server.network.ModoTransporte
+     */
+    public static final String MODO_TRANSPORTE = "NIO";
+
+    /**
+     * Cantidad de hilos de E/S (selectores) usados en modo NIO.
+     *
+     * <p>Cada hilo atiende lectura y escritura de muchas conexiones, por lo que
+     * este número no depende de cuántos clientes haya conectados.</p>
+     */
+    public static final int HILOS_IO_NIO = 2;
+
+    /**
+     * Límite de conexiones TCP abiertas simultáneamente en los modos NIO y VIRTUAL.
+     *
+     * <p>Protege al servidor de agotar descriptores de archivo. Las conexiones
+     * que excedan el límite reciben un mensaje ERROR y se cierran. En modo HILOS
+     * el límite real lo impone el tamaño del pool fijo.</p>
+     */
+    public static final int MAX_CONEXIONES_ABIERTAS = 1024;
+
+    /**
+     * Capacidad del buzón de salida de cada conexión (mensajes que no son estado).
+     *
+     * <p>Los eventos y errores se encolan aquí. El estado no ocupa capacidad: se
+     * guarda en una ranura aparte donde cada tick reemplaza al anterior no enviado.</p>
+     */
+    public static final int CAPACIDAD_BUZON_SALIDA = 64;
+
+    /**
+     * Tiempo en milisegundos que un buzón puede permanecer saturado antes de aplicar
+     * {@link #POLITICA_BUZON_LLENO}.
+     *
+     * <p>Un buzón está saturado cuando su cola de eventos está llena o cuando llega
+     * un estado nuevo sin que el escritor haya enviado el anterior.</p>
+     */
+    public static final long GRACIA_BUZON_LLENO_MS = 2000;
+
+    /**
+     * Qué hacer con un cliente cuyo buzón sigue saturado pasada la gracia.
+     *
+     * <p>{@code "DESCONECTAR"} cierra la conexión; {@code "DESCARTAR"} la mantiene
+     * y descarta los eventos que no caben (el estado siempre se conserva el más
+     * reciente).</p>
+     */
+    public static final String POLITICA_BUZON_LLENO = "DESCONECTAR";
+
+    /**
+     * Cada cuántos ticks se difunde un keyframe (estado completo) a los clientes que
+     * pidieron {@code "stateEncoding":"DELTA"} en CONNECT.
+     *
+     * <p>Entre keyframes esos clientes reciben solo los campos y entidades que cambiaron
+     * respecto al último keyframe. A 20 TPS, 20 ticks equivalen a un keyframe por segundo.</p>
+     */
+    public static final int INTERVALO_KEYFRAME_TICKS = 20;
+
+    /**
+     * Estados por segundo que recibe cada jugador, independiente de
+     * {@link #TICKS_POR_SEGUNDO}.
+     *
+     * <p>El estado sale uno de cada {@code TICKS_POR_SEGUNDO / ESTADOS_POR_SEGUNDO_JUGADOR}
+     * ticks (redondeado, al menos 1): con la simulación a 60 TPS y 20 estados por segundo,
+     * uno de cada 3. Los ticks con eventos y los keyframes se envían siempre, para que un
+     * evento llegue en el mismo tick en que ocurre.</p>
+     */
+    public static final int ESTADOS_POR_SEGUNDO_JUGADOR = 20;
+
+    /**
+     * Estados por segundo que recibe cada espectador. Ver
+     * {@link #ESTADOS_POR_SEGUNDO_JUGADOR}; un espectador no envía inputs, así que le
+     * basta una frecuencia menor.
+     */
+    public static final int ESTADOS_POR_SEGUNDO_ESPECTADOR = 10;
+
+    /**
+     * Ticks que pueden pasar sin enviar estado cuando nada cambia (1s a 20 TPS).
+     *
+     * <p>Un estado idéntico al último enviado, salvo por el número de tick, no se vuelve
+     * a difundir: en pausa, o con todo quieto, el servidor solo manda este latido, que
+     * confirma a los clientes que la partida sigue en pie.</p>
+     */
+    public static final int INTERVALO_KEEPALIVE_ESTADO_TICKS = 20;
+
+    /**
+     * Nivel de deflate para los clientes que piden {@code "compression":"DEFLATE"} en
+     * CONNECT, de 1 (más rápido) a 9 (más compacto).
+     *
+     * <p>Con el contexto persistente de cada conexión el nivel 1 ya reduce el estado
+     * JSON a una fracción pequeña; los niveles altos ganan poco y cuestan bastante más
+     * CPU. La tarea {@code compararCompresion} mide la diferencia.</p>
+     */
+    public static final int NIVEL_COMPRESION = 1;
+
+    /**
+     * Tamaño mínimo en bytes de un mensaje para comprimirlo. Los más pequeños (eventos,
+     * errores, deltas casi vacíos) se envían sin comprimir y no gastan CPU en deflate.
+     */
+    public static final int UMBRAL_COMPRESION_BYTES = 128;
+
+    /**
+     * Habilita el canal UDP opcional para los frames de estado.
+     *
+     * <p>Escucha en el mismo número de puerto que TCP. Los clientes que lo pidan con
+     * {@code UDP_OPEN} reciben el estado por UDP; el resto del tráfico sigue por TCP.</p>
+     *
+     * @see cr.tec.donceykongjr.server.network.ServidorJuego
+     */
+    public static final boolean HABILITAR_CANAL_UDP = true;
+
+    /**
+     * Tiempo sin confirmaciones UDP válidas tras el cual el estado vuelve a TCP (ms).
+     *
+     * <p>Cubre clientes detrás de un firewall que descarta UDP o que dejaron de
+     * confirmar: siguen recibiendo estado por la conexión TCP.</p>
+     */
+    public static final long TIMEOUT_CONFIRMACION_UDP_MS = 3000;
+
+    /**
+     * Máximo de salas (partidas simultáneas) abiertas en el proceso, incluida la sala
+     * por defecto.
+     *
+     * <p>Cada sala admite {@link #MAX_JUGADORES} jugadores y
+     * {@link #MAX_ESPECTADORES_POR_JUGADOR} espectadores por jugador.</p>
+     *
+     * @see cr.tec.donceykongjr.server.network.RegistroSalas
+     */
+    public static final int MAX_SALAS = 256;
+
+    /**
+     * Máximo de espectadores por sala. Se conectan al relay de la sala, que reparte los
+     * frames desde su propio hilo y no suma trabajo al hilo de simulación.
+     *
+     * @see cr.tec.donceykongjr.server.network.ServidorJuego
+     */
+    public static final int MAX_ESPECTADORES_POR_SALA = 5000;
+
+    /**
+     * Frames pendientes que el relay de espectadores de una sala puede acumular.
+     *
+     * <p>Si el relay se atrasa más que esto, los frames nuevos se descartan en lugar de
+     * bloquear al hilo de simulación.</p>
+     */
+    public static final int CAPACIDAD_COLA_RELAY = 256;
+
+    /**
+     * Hilos del pool compartido que avanza el GameLoop y el motor de cocodrilos de
+     * todas las salas creadas bajo demanda.
+     */
+    public static final int HILOS_SIMULACION = 4;
+
+    /**
+     * Nombre de la sala que usa el GameManager principal del servidor. Los clientes que
+     * no indican {@code "room"} en CONNECT entran aquí mientras tenga plaza.
+     */
+    public static final String SALA_POR_DEFECTO = "principal";
+
+    /**
+     * Longitud máxima en bytes de una línea recibida de un cliente, sin el '\n'.
+     *
+     * <p>Se comprueba mientras se lee: una línea más larga no llega a acumularse
+     * completa y la conexión se cierra. Los mensajes legítimos del cliente ocupan
+     * menos de 256 bytes.</p>
+     */
+    public static final int LONGITUD_MAXIMA_LINEA_ENTRADA = 4096;
+
+    /**
+     * Mensajes por segundo que cada conexión puede enviar de forma sostenida.
+     *
+     * <p>El cliente C envía un INPUT por tecla presionada cada 40 ms (a lo sumo unos
+     * 150 por segundo). Los mensajes por encima de la tasa se descartan antes de
+     * interpretar el JSON.</p>
+     */
+    public static final int MENSAJES_POR_SEGUNDO_CLIENTE = 200;
+
+    /**
+     * Mensajes que una conexión puede enviar de golpe por encima de la tasa sostenida
+     * (capacidad del token bucket).
+     */
+    public static final int RAFAGA_MENSAJES_CLIENTE = 100;
+
+    /**
+     * Mensajes descartados seguidos por exceso de tasa tras los cuales se desconecta
+     * al cliente. Un cliente normal nunca se acerca a este límite.
+     */
+    public static final int MAX_MENSAJES_LIMITADOS_SEGUIDOS = 1000;
+
+    /**
+     * Intervalo en milisegundos entre los PING que el servidor envía a cada conexión.
+     * El PONG de respuesta mide el RTT de la conexión.
+     */
+    public static final long INTERVALO_LATIDO_MS = 1000;
+
+    /**
+     * Tiempo en milisegundos sin recibir nada de una conexión (ni PONG ni otro mensaje)
+     * tras el cual se da por muerta y se cierra. Equivale a cinco latidos sin respuesta.
+     */
+    public static final long TIMEOUT_LATIDO_MS = 5000;
+
+    /**
+     * Mediciones de RTT recientes que se conservan por conexión para calcular percentiles.
+     */
+    public static final int MUESTRAS_RTT = 64;
+
+    /**
+     * Tiempo en milisegundos que el jugador de una conexión caída conserva su lugar en
+     * la sala. Si en ese lapso se reconecta con el token de SESSION retoma su jugador;
+     * si no, se elimina de la partida como antes.
+     */
+    public static final long GRACIA_REANUDACION_MS = 10000;
+
+    /**
+     * Frames (estados y eventos) recientes que guarda cada sala para reenviar a un
+     * jugador que reanuda su sesión. A 20 ticks por segundo cubren unos 6 s de corte;
+     * si el jugador perdió más, recibe un estado completo.
+     */
+    public static final int FRAMES_REPETICION = 128;
+
     // ==================== CONFIGURACIÓN DEL GAME LOOP ====================
 
     /**
@@ -89,6 +319,9 @@ public class Config {
      * el estado del juego exactamente 20 veces por segundo, garantizando
      * física determinista y sincronización precisa con los clientes.</p>
      *
+     * <p>Es solo la frecuencia de la simulación: cuántos estados se envían a cada cliente
+     * lo fijan {@link #ESTADOS_POR_SEGUNDO_JUGADOR} y {@link #ESTADOS_POR_SEGUNDO_ESPECTADOR}.</p>
+     *
      * <p><b>Cálculo del intervalo:</b></p>
      * <pre>
      * intervalo = 1000ms / 20 TPS = 50ms por tick
@@ -108,6 +341,56 @@ public class Config {
      */
     public static final long INTERVALO_TICK_MS = 1000 / TICKS_POR_SEGUNDO;
 
+    /**
+     * Si es true, el motor de cocodrilos avanza dentro del tick del GameManager, en el
+     * mismo hilo y con el mismo dt, en lugar de correr en su propio hilo a 10 TPS.
+     *
+     * <p>Cada tick lee exactamente los cocodrilos que acaba de mover, sin lock ni copia
+     * entre hilos: con los mismos inputs, dos partidas producen los mismos estados. En
+     * false se vuelve al motor concurrente de antes.</p>
+     *
+     * @see cr.tec.donceykongjr.server.logic.MotorCocodrilos#avanzar(double)
+     */
+    public static final boolean SIMULACION_UNIFICADA = true;
+
+    /**
+     * Máximo de ticks que el GameLoop (y el motor de cocodrilos en su hilo) ejecuta
+     * seguidos en un mismo despertar para ponerse al día tras un retraso.
+     *
+     * <p>Con 5 a 20 TPS se recuperan hasta 250ms de una pausa; lo que exceda se descarta
+     * y se cuenta, en lugar de disparar una ráfaga de ticks sin límite.</p>
+     *
+     * @see cr.tec.donceykongjr.server.logic.RelojSimulacion
+     */
+    public static final int MAX_PASOS_RECUPERACION = 5;
+
+    /**
+     * Si es true, la sala por defecto deja de simular mientras no tiene jugadores ni
+     * espectadores: el GameLoop y el motor de cocodrilos quedan en reposo, sin ticks
+     * programados, hasta el siguiente CONNECT.
+     *
+     * @see cr.tec.donceykongjr.server.logic.GameLoop#reposar()
+     */
+    public static final boolean REPOSO_SIN_CLIENTES = true;
+
+    /**
+     * Si el perfilador de fases del tick empieza midiendo. Se puede activar y desactivar
+     * en caliente desde la consola ({@code profile on|off}) o el botón PERFIL del AdminGUI.
+     *
+     * @see cr.tec.donceykongjr.server.logic.PerfiladorTick
+     */
+    public static final boolean PERFILADOR_TICK_ACTIVO = false;
+
+    /**
+     * Ticks que el perfilador conserva por fase para sus percentiles (60s a 20 TPS).
+     */
+    public static final int VENTANA_PERFILADOR_TICKS = 1200;
+
+    /**
+     * Archivo donde se exporta el reporte del perfilador si no se indica otro.
+     */
+    public static final String ARCHIVO_PERFIL_TICK = "perfil-tick.txt";
+
     /**
      * Velocidad base de movimiento de entidades (multiplicador global).
      *
@@ -134,6 +417,22 @@ public class Config {
      */
     public static final int PUNTOS_FRUTA_BASE = 50;
 
+    /**
+     * Inputs pendientes que se guardan por jugador entre ticks (se redondea a potencia de dos).
+     *
+     * <p>Si el cliente envía más de los que el servidor alcanza a aplicar, los que no
+     * caben se descartan.</p>
+     */
+    public static final int CAPACIDAD_BUFFER_INPUTS = 64;
+
+    /**
+     * Máximo de ticks hacia el futuro al que un INPUT puede dirigirse (1s a 20 TPS).
+     *
+     * <p>El tick lo envía el cliente. Uno más lejano se acota a este límite: un input que
+     * nunca llega a estar listo bloquearía en la cola a todos los que vienen detrás.</p>
+     */
+    public static final int VENTANA_INPUTS_FUTUROS_TICKS = 20;
+
     // ==================== LÍMITES VERTICALES DEL MAPA ====================
 
     /**
@@ -311,6 +610,16 @@ public class Config {
      */
     public static final double JUGADOR_DELTA_Y_COCODRILO = 30.0;
 
+    /**
+     * Máximo en milisegundos que se retroceden los cocodrilos al comprobar si golpean a
+     * un jugador.
+     *
+     * <p>Cada jugador se compara con las posiciones de hace un RTT suyo (lo que veía en
+     * pantalla al moverse), pero nunca más atrás que esta ventana: un cliente con mucha
+     * latencia no puede esquivar cocodrilos que ya lo alcanzaron hace tiempo.</p>
+     */
+    public static final long VENTANA_COMPENSACION_LATENCIA_MS = 250;
+
     /**
      * Diferencia vertical máxima para recoger frutas (radio de hitbox).
      *
@@ -0,0 +1,66 @@
+package cr.tec.donceykongjr.server.util;
+
+/**
+ * Percentil por rango más cercano sobre muestras ya ordenadas.
+ *
+ * <p>Convención única para todo el servidor: el percentil va de 0 a 100 y el índice
+ * resultante se acota a las muestras disponibles, de modo que 0 devuelve el mínimo y
+ * 100 el máximo. El arreglo no puede estar vacío; cada llamador decide qué reportar
+ * cuando no hay muestras.</p>
+ *
+ * <p>Lo usan las estadísticas de RTT, el monitor de latidos, el perfilador del tick y
+ * las herramientas de carga y comparación.</p>
+ */
+public class Percentiles {
+
+    /**
+     * Constructor privado para prevenir instanciación.
+     *
+     * <p>Esta es una clase utilitaria que solo contiene métodos estáticos.
+     * No debe ser instanciada.</p>
+     *
+     * @throws AssertionError Si se intenta instanciar mediante reflexión
+     */
+    private Percentiles() {
+        throw new AssertionError("No se debe instanciar la clase Percentiles");
+    }
+
+    /**
+     * Percentil de las primeras {@code cantidad} muestras del arreglo.
+     *
+     * @param ordenadas muestras ordenadas de menor a mayor en {@code [0, cantidad)}
+     * @param cantidad muestras válidas; mayor que cero
+     * @param percentil de 0 a 100
+     */
+    public static long de(long[] ordenadas, int cantidad, double percentil) {
+        return ordenadas[indice(cantidad, percentil)];
+    }
+
+    /**
+     * Percentil de todo el arreglo.
+     *
+     * @param ordenadas muestras ordenadas de menor a mayor; no vacío
+     * @param percentil de 0 a 100
+     */
+    public static long de(long[] ordenadas, double percentil) {
+        return de(ordenadas, ordenadas.length, percentil);
+    }
+
+    /**
+     * Percentil de todo el arreglo.
+     *
+     * @param ordenadas muestras ordenadas de menor a mayor; no vacío
+     * @param percentil de 0 a 100
+     */
+    public static double de(double[] ordenadas, double percentil) {
+        return ordenadas[indice(ordenadas.length, percentil)];
+    }
+
+    private static int indice(int cantidad, double percentil) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("sin muestras para calcular el percentil");
+        }
+        int indice = (int) Math.ceil(percentil / 100.0 * cantidad) - 1;
+        return Math.max(0, Math.min(cantidad - 1, indice));
+    }
+}